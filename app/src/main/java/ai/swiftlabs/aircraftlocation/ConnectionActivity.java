@@ -2,12 +2,8 @@ package ai.swiftlabs.aircraftlocation;
 
 import android.Manifest;
 import android.app.Activity;
-import android.content.BroadcastReceiver;
-import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.pm.PackageManager;
-import android.os.AsyncTask;
 import android.os.Build;
 import android.os.Bundle;
 import android.util.Log;
@@ -21,16 +17,12 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
 
-import dji.common.error.DJIError;
-import dji.common.error.DJISDKError;
-import dji.log.DJILog;
-import dji.sdk.base.BaseComponent;
+import ai.swiftlabs.aircraftlocation.sdk.ConnectionEventBus;
 import dji.sdk.base.BaseProduct;
 import dji.sdk.products.Aircraft;
-import dji.sdk.sdkmanager.DJISDKInitEvent;
 import dji.sdk.sdkmanager.DJISDKManager;
 
 public class ConnectionActivity extends Activity implements View.OnClickListener {
@@ -57,8 +49,9 @@ public class ConnectionActivity extends Activity implements View.OnClickListener
             Manifest.permission.READ_PHONE_STATE,
     };
     private List<String> missingPermission = new ArrayList<>();
-    private AtomicBoolean isRegistrationInProgress = new AtomicBoolean(false);
     private static final int REQUEST_PERMISSION_CODE = 12345;
+    private ConnectionEventBus connectionEvents;
+    private final ConnectionEventBus.Listener productListener = change -> refreshSDKRelativeUI();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -68,10 +61,10 @@ public class ConnectionActivity extends Activity implements View.OnClickListener
 
         initUI();
 
-        // Register the broadcast receiver for receiving the device connection's changes.
-        IntentFilter filter = new IntentFilter();
-        filter.addAction(DJIDemoApplication.FLAG_CONNECTION_CHANGE);
-        registerReceiver(mReceiver, filter);
+        // Only the product matters here; the current state arrives right away.
+        connectionEvents = ((MApplication) getApplication()).connectionEvents();
+        connectionEvents.subscribe(EnumSet.of(ConnectionEventBus.Component.PRODUCT), this::runOnUiThread,
+                productListener);
     }
 
     /**
@@ -120,75 +113,8 @@ public class ConnectionActivity extends Activity implements View.OnClickListener
     }
 
     private void startSDKRegistration() {
-        if (isRegistrationInProgress.compareAndSet(false, true)) {
-            AsyncTask.execute(new Runnable() {
-                @Override
-                public void run() {
-                    showToast( "registering, pls wait...");
-                    DJISDKManager.getInstance().registerApp(getApplicationContext(), new DJISDKManager.SDKManagerCallback() {
-                        @Override
-                        public void onRegister(DJIError djiError) {
-                            if (djiError == DJISDKError.REGISTRATION_SUCCESS) {
-                                DJILog.e("App registration", DJISDKError.REGISTRATION_SUCCESS.getDescription());
-                                DJISDKManager.getInstance().startConnectionToProduct();
-                                showToast("Register Success");
-                            } else {
-                                showToast( "Register sdk fails, check network is available");
-                            }
-                            Log.v(TAG, djiError.getDescription());
-                        }
-
-                        @Override
-                        public void onProductDisconnect() {
-                            Log.d(TAG, "onProductDisconnect");
-                            showToast("Product Disconnected");
-
-                        }
-                        @Override
-                        public void onProductConnect(BaseProduct baseProduct) {
-                            Log.d(TAG, String.format("onProductConnect newProduct:%s", baseProduct));
-                            showToast("Product Connected");
-
-                        }
-
-                        @Override
-                        public void onProductChanged(BaseProduct baseProduct) {
-
-                        }
-
-                        @Override
-                        public void onComponentChange(BaseProduct.ComponentKey componentKey, BaseComponent oldComponent,
-                                                      BaseComponent newComponent) {
-
-                            if (newComponent != null) {
-                                newComponent.setComponentListener(new BaseComponent.ComponentListener() {
-
-                                    @Override
-                                    public void onConnectivityChange(boolean isConnected) {
-                                        Log.d(TAG, "onComponentConnectivityChanged: " + isConnected);
-                                    }
-                                });
-                            }
-                            Log.d(TAG,
-                                    String.format("onComponentChange key:%s, oldComponent:%s, newComponent:%s",
-                                            componentKey,
-                                            oldComponent,
-                                            newComponent));
-
-                        }
-                        @Override
-                        public void onInitProcess(DJISDKInitEvent djisdkInitEvent, int i) {
-
-                        }
-
-                        @Override
-                        public void onDatabaseDownloadProgress(long l, long l1) {
-
-                        }
-                    });
-                }
-            });
-        }
+        // Normally already done at startup; this covers permissions granted just now.
+        ((MApplication) getApplication()).registerSdk();
     }
 
     @Override
@@ -217,7 +143,7 @@ public class ConnectionActivity extends Activity implements View.OnClickListener
     @Override
     protected void onDestroy() {
         Log.e(TAG, "onDestroy");
-        unregisterReceiver(mReceiver);
+        connectionEvents.unsubscribe(productListener);
         super.onDestroy();
     }
 
@@ -233,14 +159,6 @@ public class ConnectionActivity extends Activity implements View.OnClickListener
         mVersionTv.setText(getResources().getString(R.string.sdk_version, DJISDKManager.getInstance().getSDKVersion()));
     }
 
-    protected BroadcastReceiver mReceiver = new BroadcastReceiver() {
-
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            refreshSDKRelativeUI();
-        }
-    };
-
     private void refreshSDKRelativeUI() {
         BaseProduct mProduct = DJIDemoApplication.getProductInstance();
 
@@ -2,7 +2,6 @@ package ai.swiftlabs.aircraftlocation;
 
 import android.app.Application;
 import android.content.Context;
-import android.content.Intent;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
@@ -12,6 +11,10 @@ import androidx.multidex.MultiDex;
 import android.util.Log;
 import android.widget.Toast;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import ai.swiftlabs.aircraftlocation.sdk.ConnectionEventBus;
 import dji.sdk.base.BaseComponent;
 import dji.sdk.base.BaseProduct;
 import dji.sdk.sdkmanager.DJISDKInitEvent;
@@ -23,9 +26,10 @@ public class DJIDemoApplication extends Application {
 
     private static final String TAG = DJIDemoApplication.class.getName();
 
-    public static final String FLAG_CONNECTION_CHANGE = "dji_sdk_connection_change";
-
     private DJISDKManager.SDKManagerCallback mDJISDKManagerCallback;
+    private final ConnectionEventBus connectionEvents =
+            new ConnectionEventBus(Executors.newSingleThreadScheduledExecutor());
+    private final AtomicBoolean registrationStarted = new AtomicBoolean();
     private static BaseProduct mProduct;
     public Handler mHandler;
 
@@ -51,6 +55,15 @@ public class DJIDemoApplication extends Application {
         return mProduct;
     }
 
+    private static synchronized void setProductInstance(BaseProduct product) {
+        mProduct = product;
+    }
+
+    /** Product and component connectivity as reported by the SDK. */
+    public ConnectionEventBus connectionEvents() {
+        return connectionEvents;
+    }
+
     @Override
     public void onCreate() {
         super.onCreate();
@@ -97,31 +110,36 @@ public class DJIDemoApplication extends Application {
             @Override
             public void onProductDisconnect() {
                 Log.d("TAG", "onProductDisconnect");
-                notifyStatusChange();
+                connectionEvents.productDisconnected();
             }
             @Override
             public void onProductConnect(BaseProduct baseProduct) {
                 Log.d("TAG", String.format("onProductConnect newProduct:%s", baseProduct));
-                notifyStatusChange();
-
+                publishProduct(baseProduct);
             }
 
             @Override
             public void onProductChanged(BaseProduct baseProduct) {
                 Log.d("TAG", String.format("onProductChanged newProduct:%s", baseProduct));
-                notifyStatusChange();
+                publishProduct(baseProduct);
             }
 
             @Override
             public void onComponentChange(BaseProduct.ComponentKey componentKey, BaseComponent oldComponent,
                                           BaseComponent newComponent) {
+                final ConnectionEventBus.Component component = component(componentKey);
+                if (component != null) {
+                    connectionEvents.componentReplaced(component, newComponent != null && newComponent.isConnected());
+                }
                 if (newComponent != null) {
                     newComponent.setComponentListener(new BaseComponent.ComponentListener() {
 
                         @Override
                         public void onConnectivityChange(boolean isConnected) {
                             Log.d("TAG", "onComponentConnectivityChanged: " + isConnected);
-                            notifyStatusChange();
+                            if (component != null) {
+                                connectionEvents.componentConnectivityChanged(component, isConnected);
+                            }
                         }
                     });
                 }
@@ -143,18 +161,38 @@ public class DJIDemoApplication extends Application {
 
             }
         };
+    }
+
+    /**
+     * Registers the app with the DJI SDK the first time it is called with the permissions granted; later
+     * calls do nothing. May be called from any thread.
+     *
+     * @return whether this call started the registration
+     */
+    public boolean registerSdk() {
         //Check the permissions before registering the application for android system 6.0 above.
         int permissionCheck = ContextCompat.checkSelfPermission(getApplicationContext(), android.Manifest.permission.WRITE_EXTERNAL_STORAGE);
         int permissionCheck2 = ContextCompat.checkSelfPermission(getApplicationContext(), android.Manifest.permission.READ_PHONE_STATE);
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M || (permissionCheck == 0 && permissionCheck2 == 0)) {
-            //This is used to start SDK services and initiate SDK.
-            DJISDKManager.getInstance().registerApp(getApplicationContext(), mDJISDKManagerCallback);
-            Toast.makeText(getApplicationContext(), "registering, pls wait...", Toast.LENGTH_LONG).show();
-
-        } else {
-            Toast.makeText(getApplicationContext(), "Please check if the permission is granted.", Toast.LENGTH_LONG).show();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && (permissionCheck != 0 || permissionCheck2 != 0)) {
+            showToast("Please check if the permission is granted.");
+            return false;
+        }
+        if (!registrationStarted.compareAndSet(false, true)) {
+            return false;
         }
+        showToast("registering, pls wait...");
+        //This is used to start SDK services and initiate SDK.
+        DJISDKManager.getInstance().registerApp(getApplicationContext(), mDJISDKManagerCallback);
+        return true;
+    }
 
+    private void showToast(final String message) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                Toast.makeText(getApplicationContext(), message, Toast.LENGTH_LONG).show();
+            }
+        });
     }
 
     protected void attachBaseContext(Context base){
@@ -162,18 +200,34 @@ public class DJIDemoApplication extends Application {
         MultiDex.install(this);
     }
 
-    private void notifyStatusChange() {
-        mHandler.removeCallbacks(updateRunnable);
-        mHandler.postDelayed(updateRunnable, 500);
+    private void publishProduct(BaseProduct product) {
+        setProductInstance(product);
+        if (product != null && product.isConnected()) {
+            connectionEvents.productConnected(
+                    product.getModel() != null ? product.getModel().getDisplayName() : "unknown");
+        } else {
+            connectionEvents.productDisconnected();
+        }
     }
 
-    private Runnable updateRunnable = new Runnable() {
-
-        @Override
-        public void run() {
-            Intent intent = new Intent(FLAG_CONNECTION_CHANGE);
-            getApplicationContext().sendBroadcast(intent);
+    /** The component a key stands for, or {@code null} for one nothing here uses. */
+    private static ConnectionEventBus.Component component(BaseProduct.ComponentKey key) {
+        switch (key) {
+            case FLIGHT_CONTROLLER:
+                return ConnectionEventBus.Component.FLIGHT_CONTROLLER;
+            case BATTERY:
+                return ConnectionEventBus.Component.BATTERY;
+            case REMOTE_CONTROLLER:
+                return ConnectionEventBus.Component.REMOTE_CONTROLLER;
+            case AIR_LINK:
+                return ConnectionEventBus.Component.AIR_LINK;
+            case CAMERA:
+                return ConnectionEventBus.Component.CAMERA;
+            case GIMBAL:
+                return ConnectionEventBus.Component.GIMBAL;
+            default:
+                return null;
         }
-    };
+    }
 
 }
@@ -2,15 +2,72 @@ package ai.swiftlabs.aircraftlocation;
 
 import android.app.Application;
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
+import com.mapbox.mapboxsdk.LibraryLoader;
+import com.mapbox.mapboxsdk.Mapbox;
+import com.mapbox.mapboxsdk.module.http.HttpRequestUtil;
 import com.secneo.sdk.Helper;
 
+import okhttp3.OkHttpClient;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import ai.swiftlabs.aircraftlocation.geofence.GeoJsonGeofences;
+import ai.swiftlabs.aircraftlocation.geofence.GeofenceIndex;
+import ai.swiftlabs.aircraftlocation.map.CachedTileInterceptor;
+import ai.swiftlabs.aircraftlocation.metrics.Counter;
+import ai.swiftlabs.aircraftlocation.mission.MissionLibrary;
+import ai.swiftlabs.aircraftlocation.sdk.ConnectionEventBus;
+import ai.swiftlabs.aircraftlocation.startup.StartupGraph;
+import ai.swiftlabs.aircraftlocation.tiles.TileCache;
+
 public class MApplication extends Application {
 
+    private static final String TAG = "Startup";
+    // Loading this class is about the first thing the process does.
+    private static final long PROCESS_START_NANOS = System.nanoTime();
+
+    /** Vector tiles of Style.LIGHT, cached for mission areas. */
+    public static final String TILESET = "mapbox.mapbox-streets-v8";
+    private static final long TILE_CACHE_BYTES = 100L * 1024 * 1024;
+
+    // Startup tasks; see onCreate.
+    public static final String TASK_MAPBOX = "mapbox";
+    public static final String TASK_MAPBOX_NATIVE = "mapbox-native";
+    public static final String TASK_TILE_CACHE = "tile-cache";
+    public static final String TASK_MAP_CLIENT = "map-client";
+    public static final String TASK_SDK_REGISTRATION = "sdk-registration";
+    public static final String TASK_GEOFENCES = "geofences";
+    public static final String TASK_MISSION_LIBRARY = "mission-library";
+    public static final String MILESTONE_FIRST_MAP = "first_map";
+    public static final String MILESTONE_FIRST_POSITION = "first_position";
+
     private DJIDemoApplication fpvDemoApplication;
+    private final ExecutorService background = Executors.newFixedThreadPool(2);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Executor mainExecutor = command -> {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            command.run();
+        } else {
+            mainHandler.post(command);
+        }
+    };
+    private StartupGraph startup;
+    private TileCache tileCache;
+    private volatile GeofenceIndex geofences = GeofenceIndex.EMPTY;
+    private volatile MissionLibrary missionLibrary;
+
     @Override
     protected void attachBaseContext(Context paramContext) {
         super.attachBaseContext(paramContext);
+        // Loads the SDK classes; everything after depends on it, so it cannot be deferred.
         Helper.install(MApplication.this);
         if (fpvDemoApplication == null) {
             fpvDemoApplication = new DJIDemoApplication();
@@ -18,10 +75,92 @@ public class MApplication extends Application {
         }
     }
 
+    /**
+     * Starts initialisation as a {@link StartupGraph}. Only Mapbox's instance, which views need, is set up
+     * on the main thread before the first activity. Its native library, the tile cache, SDK registration, the
+     * geofences and the mission library run in the background meanwhile, and so does installing the map's HTTP
+     * client once Mapbox is set up; MainActivity waits for that before loading the style.
+     */
     @Override
     public void onCreate() {
         super.onCreate();
         fpvDemoApplication.onCreate();
+        tileCache = new TileCache(new File(getFilesDir(), "tiles/" + TILESET), TILE_CACHE_BYTES, new Counter(),
+                new Counter());
+
+        startup = new StartupGraph(PROCESS_START_NANOS, new StartupGraph.Listener() {
+            @Override
+            public void onTaskFinished(String task, long startNanos, long endNanos, Throwable error) {
+                String timing = task + " " + millis(startNanos) + "-" + millis(endNanos) + " ms";
+                if (error == null) {
+                    Log.i(TAG, timing);
+                } else {
+                    Log.w(TAG, timing + " failed", error);
+                }
+            }
+
+            @Override
+            public void onMilestone(String milestone, long nanos) {
+                Log.i(TAG, milestone + " at " + millis(nanos) + " ms");
+            }
+        });
+        startup.add(TASK_MAPBOX, StartupGraph.Runs.MAIN,
+                        () -> Mapbox.getInstance(this, getString(R.string.mapbox_access_token)))
+                .add(TASK_MAPBOX_NATIVE, StartupGraph.Runs.BACKGROUND, LibraryLoader::load)
+                .add(TASK_TILE_CACHE, StartupGraph.Runs.BACKGROUND, tileCache::open)
+                .add(TASK_MAP_CLIENT, StartupGraph.Runs.BACKGROUND,
+                        () -> HttpRequestUtil.setOkHttpClient(new OkHttpClient.Builder()
+                                .addInterceptor(new CachedTileInterceptor(tileCache, TILESET))
+                                .build()),
+                        TASK_MAPBOX)
+                .add(TASK_SDK_REGISTRATION, StartupGraph.Runs.BACKGROUND, fpvDemoApplication::registerSdk)
+                .add(TASK_GEOFENCES, StartupGraph.Runs.BACKGROUND,
+                        () -> geofences = GeoJsonGeofences.load(geofenceDirectory()))
+                .add(TASK_MISSION_LIBRARY, StartupGraph.Runs.BACKGROUND,
+                        () -> missionLibrary = MissionLibrary.open(new File(getFilesDir(), "missions")));
+        startup.start(mainExecutor, background);
+    }
+
+    public StartupGraph startup() {
+        return startup;
+    }
+
+    public TileCache tileCache() {
+        return tileCache;
     }
 
-}
\ No newline at end of file
+    /** Customer boundaries and restricted zones, empty until {@link #TASK_GEOFENCES} is done. */
+    public GeofenceIndex geofences() {
+        return geofences;
+    }
+
+    /** Saved missions, {@code null} until {@link #TASK_MISSION_LIBRARY} is done or if it failed. */
+    public MissionLibrary missionLibrary() {
+        return missionLibrary;
+    }
+
+    /** Where GeoJSON geofence files are picked up from at startup. */
+    private File geofenceDirectory() {
+        return new File(getExternalFilesDir(null), "geofences");
+    }
+
+    public Executor backgroundExecutor() {
+        return background;
+    }
+
+    public ConnectionEventBus connectionEvents() {
+        return fpvDemoApplication.connectionEvents();
+    }
+
+    /**
+     * Registers with the DJI SDK in the background, e.g. once the permissions it needs were granted.
+     * Registration happens once per process however often this is called.
+     */
+    public void registerSdk() {
+        background.execute(fpvDemoApplication::registerSdk);
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
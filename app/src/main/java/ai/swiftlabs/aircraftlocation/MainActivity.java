@@ -6,11 +6,19 @@ import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.IntentFilter;
-import android.graphics.Color;
+import android.database.Cursor;
+import android.graphics.PointF;
+import android.net.Uri;
+import android.os.BatteryManager;
 import android.os.Bundle;
+import android.os.Looper;
+import android.provider.OpenableColumns;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.View;
 import android.widget.Button;
+import android.widget.CheckBox;
+import android.widget.EditText;
 import android.widget.LinearLayout;
 import android.widget.RadioGroup;
 import android.widget.TextView;
@@ -21,63 +29,189 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.FragmentActivity;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.camera.CameraPosition;
 import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
 import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
 import com.mapbox.mapboxsdk.maps.Style;
-import com.mapbox.mapboxsdk.plugins.annotation.Symbol;
 import com.mapbox.mapboxsdk.plugins.annotation.SymbolManager;
-import com.mapbox.mapboxsdk.plugins.annotation.SymbolOptions;
+import com.mapbox.mapboxsdk.style.layers.Property;
 import com.mapbox.mapboxsdk.style.sources.GeoJsonOptions;
 import com.mapbox.mapboxsdk.utils.BitmapUtils;
-import com.mapbox.mapboxsdk.utils.ColorUtils;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import ai.swiftlabs.aircraftlocation.fleet.AircraftRegistry;
+import ai.swiftlabs.aircraftlocation.geo.Coordinates;
+import ai.swiftlabs.aircraftlocation.geofence.Geofence;
+import ai.swiftlabs.aircraftlocation.geofence.GeofenceIndex;
+import ai.swiftlabs.aircraftlocation.geofence.GeofenceMonitor;
+import ai.swiftlabs.aircraftlocation.map.BreadcrumbLayer;
+import ai.swiftlabs.aircraftlocation.map.ChoreographerFrameScheduler;
+import ai.swiftlabs.aircraftlocation.map.SymbolManagerAircraftSink;
+import ai.swiftlabs.aircraftlocation.map.WaypointLayer;
+import ai.swiftlabs.aircraftlocation.metrics.FrameMonitor;
+import ai.swiftlabs.aircraftlocation.metrics.Gauge;
+import ai.swiftlabs.aircraftlocation.metrics.MetricsFileExporter;
+import ai.swiftlabs.aircraftlocation.metrics.MetricsRegistry;
+import ai.swiftlabs.aircraftlocation.mission.ActionType;
+import ai.swiftlabs.aircraftlocation.mission.CircuitBreaker;
+import ai.swiftlabs.aircraftlocation.mission.DjiMissionOperator;
+import ai.swiftlabs.aircraftlocation.mission.EnergyModel;
+import ai.swiftlabs.aircraftlocation.mission.MissionChunker;
+import ai.swiftlabs.aircraftlocation.mission.MissionCompiler;
+import ai.swiftlabs.aircraftlocation.mission.MissionExporter;
+import ai.swiftlabs.aircraftlocation.mission.MissionFormat;
+import ai.swiftlabs.aircraftlocation.mission.MissionImporter;
+import ai.swiftlabs.aircraftlocation.mission.MissionLibrary;
+import ai.swiftlabs.aircraftlocation.mission.MissionLimits;
+import ai.swiftlabs.aircraftlocation.mission.MissionPlan;
+import ai.swiftlabs.aircraftlocation.mission.MissionSegmenter;
+import ai.swiftlabs.aircraftlocation.mission.MissionSettings;
+import ai.swiftlabs.aircraftlocation.mission.MissionSummary;
+import ai.swiftlabs.aircraftlocation.mission.MissionValidator;
+import ai.swiftlabs.aircraftlocation.mission.PathOptimizer;
+import ai.swiftlabs.aircraftlocation.mission.RetryPolicy;
+import ai.swiftlabs.aircraftlocation.mission.RetryingMissionOperator;
+import ai.swiftlabs.aircraftlocation.mission.SegmentedMissionRunner;
+import ai.swiftlabs.aircraftlocation.mission.SurveyGridGenerator;
+import ai.swiftlabs.aircraftlocation.mission.SurveyParameters;
+import ai.swiftlabs.aircraftlocation.mission.WaypointStore;
+import ai.swiftlabs.aircraftlocation.render.AircraftPositionRenderer;
+import ai.swiftlabs.aircraftlocation.render.AdaptiveRenderRate;
+import ai.swiftlabs.aircraftlocation.render.DeadReckoningPredictor;
+import ai.swiftlabs.aircraftlocation.render.LiveAircraftFeed;
+import ai.swiftlabs.aircraftlocation.render.VisibleAircraftProducer;
+import ai.swiftlabs.aircraftlocation.sdk.ConnectionEventBus;
+import ai.swiftlabs.aircraftlocation.sdk.DjiAircraftSdk;
+import ai.swiftlabs.aircraftlocation.startup.StartupGraph;
+import ai.swiftlabs.aircraftlocation.telemetry.FlightLogReader;
+import ai.swiftlabs.aircraftlocation.telemetry.FlightLogReplayer;
+import ai.swiftlabs.aircraftlocation.telemetry.FlightStateTelemetryAdapter;
+import ai.swiftlabs.aircraftlocation.telemetry.LinkHealthMonitor;
+import ai.swiftlabs.aircraftlocation.telemetry.ReconnectLatencyProbe;
+import ai.swiftlabs.aircraftlocation.telemetry.TelemetryPipeline;
+import ai.swiftlabs.aircraftlocation.telemetry.TelemetryRecorder;
+import ai.swiftlabs.aircraftlocation.telemetry.TelemetrySnapshot;
+import ai.swiftlabs.aircraftlocation.tiles.HttpTileSource;
+import ai.swiftlabs.aircraftlocation.tiles.TileCache;
+import ai.swiftlabs.aircraftlocation.tiles.TilePrefetcher;
+import ai.swiftlabs.aircraftlocation.tiles.TileRegion;
 import dji.common.error.DJIError;
-import dji.common.flightcontroller.FlightControllerState;
-import dji.common.mission.waypoint.Waypoint;
-import dji.common.mission.waypoint.WaypointAction;
-import dji.common.mission.waypoint.WaypointActionType;
-import dji.common.mission.waypoint.WaypointMission;
 import dji.common.mission.waypoint.WaypointMissionDownloadEvent;
 import dji.common.mission.waypoint.WaypointMissionExecutionEvent;
-import dji.common.mission.waypoint.WaypointMissionFinishedAction;
-import dji.common.mission.waypoint.WaypointMissionFlightPathMode;
-import dji.common.mission.waypoint.WaypointMissionHeadingMode;
 import dji.common.mission.waypoint.WaypointMissionUploadEvent;
-import dji.common.util.CommonCallbacks;
-import dji.sdk.base.BaseProduct;
-import dji.sdk.flightcontroller.FlightController;
 import dji.sdk.mission.waypoint.WaypointMissionOperator;
 import dji.sdk.mission.waypoint.WaypointMissionOperatorListener;
-import dji.sdk.products.Aircraft;
 import dji.sdk.sdkmanager.DJISDKManager;
-import timber.log.Timber;
 
 /**
  * Activity showcasing adding symbols using the annotation plugin
  */
-public class MainActivity extends FragmentActivity implements View.OnClickListener, MapboxMap.OnMapClickListener {
+public class MainActivity extends FragmentActivity implements View.OnClickListener, MapboxMap.OnMapClickListener,
+        MapboxMap.OnMapLongClickListener {
     protected static final String TAG = "MainActivity";
     private static final String ID_ICON_AIRPORT = "airport";
     private static final String MAKI_ICON_MARKER = "castle-15";
-
-    private double droneLocationLat = 181, droneLocationLng = 181;
-    private FlightController mFlightController;
+    private static final String LIVE_AIRCRAFT_ID = "live";
+    private static final int MAX_VISIBLE_AIRCRAFT = 256;
+    private static final float SURVEY_SIDE_OVERLAP = 0.7f;
+    private static final double SIMPLIFY_TOLERANCE_METERS = 2.0;
+    private static final long OVERLAY_REFRESH_MILLIS = 1000;
+    private static final long METRICS_EXPORT_MILLIS = 10000;
+    // Map tiles are prefetched around each loaded mission for sites without coverage.
+    private static final double PREFETCH_MARGIN_METERS = 500;
+    private static final int PREFETCH_MIN_ZOOM = 10;
+    private static final int PREFETCH_MAX_ZOOM = 16;
+    private static final int REQUEST_IMPORT_MISSION = 1;
+    private static final int REQUEST_EXPORT_MISSION = 2;
+
+    private final TelemetryPipeline telemetry = new TelemetryPipeline();
+    private final FlightStateTelemetryAdapter flightStateCallback = new FlightStateTelemetryAdapter(telemetry);
+    private final TelemetrySnapshot cameraSnapshot = new TelemetrySnapshot();
+    // Written on the telemetry writer thread only.
+    private final TelemetrySnapshot firstPositionSnapshot = new TelemetrySnapshot();
+    private final TelemetryPipeline.Listener firstPositionListener = new TelemetryPipeline.Listener() {
+        @Override
+        public void onTelemetry(long sequence) {
+            if (telemetry.ring().read(sequence, firstPositionSnapshot)
+                    && Coordinates.isValid(firstPositionSnapshot.latitude(), firstPositionSnapshot.longitude())) {
+                telemetry.removeListener(this);
+                runOnUi(() -> recordStartupMilestone(MApplication.MILESTONE_FIRST_POSITION));
+            }
+        }
+    };
+    // Set once the geofences are loaded; updated on the telemetry writer thread.
+    private volatile GeofenceMonitor geofenceMonitor;
+    private final TelemetrySnapshot geofenceSnapshot = new TelemetrySnapshot();
+    private final TelemetryPipeline.Listener geofenceListener = new TelemetryPipeline.Listener() {
+        @Override
+        public void onTelemetry(long sequence) {
+            GeofenceMonitor monitor = geofenceMonitor;
+            if (monitor != null && telemetry.ring().read(sequence, geofenceSnapshot)
+                    && Coordinates.isValid(geofenceSnapshot.latitude(), geofenceSnapshot.longitude())) {
+                monitor.update(geofenceSnapshot.latitude(), geofenceSnapshot.longitude());
+            }
+        }
+    };
+    private boolean geofenceBreached;
+    private TelemetryRecorder flightRecorder;
+    private FlightLogReplayer replayer;
+    private final AircraftRegistry aircraftRegistry = new AircraftRegistry();
+
+    // Hot path instrumentation, shown by the performance overlay and exported while it is on.
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final Gauge uiQueueDepth = metrics.gauge("ui.queue_depth");
+    private final Executor uiExecutor = this::runOnUi;
+    private final ReconnectLatencyProbe reconnectLatency =
+            new ReconnectLatencyProbe(metrics.histogram("connection.reconnect_to_telemetry"));
+    private ConnectionEventBus connectionEvents;
+    private FrameMonitor frameMonitor;
+    private final Choreographer.FrameCallback frameMonitorCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (frameMonitor != null) {
+                frameMonitor.onFrame(frameTimeNanos);
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+    };
+    private final Runnable overlayRefresh = this::refreshPerformanceOverlay;
+    private TextView performanceOverlay;
+    private MetricsRegistry.Snapshot overlaySnapshot;
+    private MetricsFileExporter metricsExporter;
 
     private MapView mapView;
     private SymbolManager symbolManager;
-    private Symbol symbol;
+    private final ChoreographerFrameScheduler frameScheduler = new ChoreographerFrameScheduler();
+    private AircraftPositionRenderer aircraftRenderer;
+    private LiveAircraftFeed liveAircraftFeed;
+    private VisibleAircraftProducer visibleAircraft;
+    private final AdaptiveRenderRate renderRate = new AdaptiveRenderRate();
     private MapboxMap mapboxMap;
 
     private boolean isAdd = false;
@@ -85,27 +219,64 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
     private float altitude = 100.0f;
     private float mSpeed = 10.0f;
 
-    private List<Waypoint> waypointList = new ArrayList<>();
-
-    public static WaypointMission.Builder waypointMissionBuilder;
+    private final WaypointStore waypointStore = new WaypointStore();
+    private final MissionSummary missionSummary = new MissionSummary(waypointStore, EnergyModel.DEFAULT, mSpeed);
+    private WaypointLayer waypointLayer;
+    private BreadcrumbLayer breadcrumbLayer;
+
+    private final ExecutorService missionExecutor = Executors.newSingleThreadExecutor();
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor();
+    private TileCache tileCache;
+    private TilePrefetcher tilePrefetcher;
+    private StartupGraph startup;
+    private final DjiMissionOperator djiMissionOperator = new DjiMissionOperator();
+    private final DjiAircraftSdk aircraft = new DjiAircraftSdk(djiMissionOperator);
+    private final LinkHealthMonitor linkHealth = new LinkHealthMonitor(LinkHealthMonitor.Thresholds.DEFAULT,
+            LinkHealthMonitor.SYSTEM_CLOCK, report -> runOnUi(() -> onLinkQualityChanged(report)));
+    private final ConnectionEventBus.Listener linkReconnected = change -> {
+        if (change.becameConnected(ConnectionEventBus.Component.FLIGHT_CONTROLLER)) {
+            linkHealth.resetTelemetry();
+        }
+    };
+    // An upload asked for while the link was degraded, sent once it recovers.
+    private boolean uploadPausedByLink;
+    // Five failed attempts in a row pause commands for 30 s instead of hammering a congested link.
+    private final RetryingMissionOperator missionOperator = new RetryingMissionOperator(
+            linkHealth.monitor(aircraft.missionOperator()), RetryPolicy.DEFAULT, new CircuitBreaker(5, 30000),
+            retryScheduler);
+    private final MissionValidator missionValidator = new MissionValidator(MissionLimits.DJI_WAYPOINT_V1);
+    private MissionCompiler missionCompiler;
+    private final SurveyGridGenerator surveyGenerator = new SurveyGridGenerator();
+    // A mission too long for one SDK mission, flown segment by segment from Start.
+    private List<MissionPlan> segmentedMission;
+    private int segmentedMissionModification;
+    // The format of the file the user is choosing a place for, between Export and the document picker.
+    private MissionFormat pendingExportFormat;
+    private SegmentedMissionRunner segmentedRunner;
     private WaypointMissionOperator instance;
-    private WaypointMissionFinishedAction mFinishedAction = WaypointMissionFinishedAction.NO_ACTION;
-    private WaypointMissionHeadingMode mHeadingMode = WaypointMissionHeadingMode.AUTO;
-
-    private final Map<Integer, Symbol> mSymbols = new ConcurrentHashMap<Integer, Symbol>();
+    private MissionSettings.FinishedAction mFinishedAction = MissionSettings.FinishedAction.NO_ACTION;
+    private MissionSettings.HeadingMode mHeadingMode = MissionSettings.HeadingMode.AUTO;
+    private boolean reorderWaypoints = false;
+    private boolean simplifyPath = false;
 
     private Button add, clear;
-    private Button config, upload, start, stop;
-
-    protected BroadcastReceiver mReceiver = new BroadcastReceiver() {
+    private Button config, grid, missions, upload, start, stop;
+    private TextView missionSummaryText;
 
+    /** Caps the map update rate on a low, discharging phone battery. */
+    private final BroadcastReceiver batteryReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
-            onProductConnectionChange();
+            int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+            int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+            int plugged = intent.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0);
+            if (level >= 0 && scale > 0) {
+                renderRate.setBattery(level * 100 / scale, plugged != 0);
+            }
         }
     };
-    private Symbol mWayPointSymbols;
 
+    // Reports the end of a single mission; detached while a segmented mission runs, whose runner reports it.
     private WaypointMissionOperatorListener eventNotificationListener = new WaypointMissionOperatorListener() {
         @Override
         public void onDownloadUpdate(WaypointMissionDownloadEvent downloadEvent) {
@@ -132,59 +303,233 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
             setResultToToast("Execution finished: " + (error == null ? "Success!" : error.getDescription()));
         }
     };
-    private WaypointActionType mAction = WaypointActionType.START_TAKE_PHOTO;
+    private ActionType mAction = ActionType.START_TAKE_PHOTO;
     private int actionParam = 0;
 
-    private void onProductConnectionChange() {
-        initFlightController();
+    /**
+     * Records every flight controller state of this session into app storage, see {@link TelemetryRecorder}.
+     */
+    private void startFlightRecorder() {
+        File directory = flightLogDirectory();
+        String session = "flight-" + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        try {
+            flightRecorder = new TelemetryRecorder(telemetry.ring(), directory, session);
+            telemetry.addListener(flightRecorder);
+            aircraft.setBatteryCallback(flightRecorder::setBatteryPercent);
+        } catch (IOException e) {
+            Log.e(TAG, "Flight recorder unavailable", e);
+        }
+    }
+
+    private void stopFlightRecorder() {
+        if (flightRecorder == null) {
+            return;
+        }
+        aircraft.setBatteryCallback(null);
+        telemetry.removeListener(flightRecorder);
+        try {
+            flightRecorder.close();
+        } catch (IOException e) {
+            Log.e(TAG, "Flight log " + flightRecorder.session() + " may be incomplete", e);
+        }
+        flightRecorder = null;
     }
 
-    private void initFlightController() {
-        BaseProduct product = DJIDemoApplication.getProductInstance();
-        if (product != null && product.isConnected()) {
-            if (product instanceof Aircraft) {
-                mFlightController = ((Aircraft) product).getFlightController();
+    private File flightLogDirectory() {
+        return new File(getExternalFilesDir(null), "flights");
+    }
+
+    /**
+     * Lets the user pick a recorded flight to replay on the map, or controls the replay in progress.
+     */
+    private void showReplayDialog() {
+        if (replayer != null) {
+            showReplayControls();
+            return;
+        }
+        final File directory = flightLogDirectory();
+        final List<String> sessions = FlightLogReader.sessions(directory);
+        if (flightRecorder != null) {
+            sessions.remove(flightRecorder.session());
+        }
+        if (sessions.isEmpty()) {
+            setResultToToast("No recorded flights");
+            return;
+        }
+        Collections.reverse(sessions);
+        new AlertDialog.Builder(this)
+                .setTitle("Replay flight")
+                .setItems(sessions.toArray(new String[0]),
+                        (dialog, which) -> startReplay(directory, sessions.get(which)))
+                .show();
+    }
+
+    private void startReplay(File directory, String session) {
+        // Opening builds the time index, keep it off the UI thread.
+        missionExecutor.execute(() -> {
+            try {
+                FlightLogReader log = FlightLogReader.open(directory, session);
+                runOnUi(() -> onReplayLoaded(log));
+            } catch (IOException e) {
+                setResultToToast("Cannot read " + session + ": " + e.getMessage());
             }
+        });
+    }
+
+    private void onReplayLoaded(FlightLogReader log) {
+        if (replayer != null || isDestroyed()) {
+            closeQuietly(log);
+            return;
+        }
+        // The replay thread becomes the only writer of the telemetry pipeline, and is not recorded again.
+        aircraft.setStateCallback(null);
+        if (flightRecorder != null) {
+            telemetry.removeListener(flightRecorder);
         }
+        if (breadcrumbLayer != null) {
+            breadcrumbLayer.clear();
+        }
+        replayer = new FlightLogReplayer(log, telemetry, error -> runOnUi(() -> onReplayFinished(log, error)));
+        replayer.start();
+        setResultToToast(String.format(Locale.US, "Replaying %d:%02d of flight, long-press locate for controls",
+                durationSeconds(log.startNanos(), log.endNanos()) / 60,
+                durationSeconds(log.startNanos(), log.endNanos()) % 60));
+    }
 
-        if (mFlightController != null) {
-            mFlightController.setStateCallback(new FlightControllerState.Callback() {
+    private void showReplayControls() {
+        final FlightLogReplayer current = replayer;
+        FlightLogReader log = current.log();
+        long position = durationSeconds(log.startNanos(), current.positionNanos());
+        long duration = durationSeconds(log.startNanos(), log.endNanos());
+        String[] controls = {"1x", "10x", "100x", current.isPaused() ? "Resume" : "Pause",
+                "Back 1 min", "Forward 1 min", "Stop replay"};
+        new AlertDialog.Builder(this)
+                .setTitle(String.format(Locale.US, "Replay %d:%02d / %d:%02d at %.0fx",
+                        position / 60, position % 60, duration / 60, duration % 60, current.speed()))
+                .setItems(controls, (dialog, which) -> {
+                    if (replayer != current) {
+                        return;
+                    }
+                    switch (which) {
+                        case 0:
+                        case 1:
+                        case 2:
+                            current.setSpeed(Math.pow(10, which));
+                            break;
+                        case 3:
+                            current.setPaused(!current.isPaused());
+                            break;
+                        case 4:
+                            current.seek(current.positionNanos() - TimeUnit.MINUTES.toNanos(1));
+                            break;
+                        case 5:
+                            current.seek(current.positionNanos() + TimeUnit.MINUTES.toNanos(1));
+                            break;
+                        default:
+                            stopReplay();
+                            break;
+                    }
+                })
+                .show();
+    }
 
-                @Override
-                public void onUpdate(FlightControllerState djiFlightControllerCurrentState) {
-                    droneLocationLat = djiFlightControllerCurrentState.getAircraftLocation().getLatitude();
-                    droneLocationLng = djiFlightControllerCurrentState.getAircraftLocation().getLongitude();
-                    updateDroneLocation();
-                }
-            });
+    private void onReplayFinished(FlightLogReader log, IOException error) {
+        if (replayer == null || replayer.log() != log) {
+            return;
+        }
+        stopReplay();
+        setResultToToast(error == null ? "Replay finished" : "Replay failed: " + error.getMessage());
+    }
+
+    /** Ends the replay and hands the telemetry pipeline back to the flight controller. */
+    private void stopReplay() {
+        if (replayer == null) {
+            return;
+        }
+        try {
+            replayer.stop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeQuietly(replayer.log());
+        replayer = null;
+        if (breadcrumbLayer != null) {
+            breadcrumbLayer.clear();
+        }
+        if (flightRecorder != null) {
+            telemetry.addListener(flightRecorder);
+        }
+        aircraft.setStateCallback(flightStateCallback);
+    }
+
+    private static long durationSeconds(long fromNanos, long toNanos) {
+        return TimeUnit.NANOSECONDS.toSeconds(Math.max(0, toNanos - fromNanos));
+    }
+
+    private static void closeQuietly(FlightLogReader log) {
+        try {
+            log.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Closing flight log", e);
         }
     }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        // Mapbox access token is configured here.
-        Mapbox.getInstance(this, getString(R.string.mapbox_access_token));
+        // Mapbox itself is set up by the application's startup graph.
+        MApplication application = (MApplication) getApplication();
+        startup = application.startup();
         setContentView(R.layout.activity_main);
+        mapView = findViewById(R.id.mapView);
+        mapView.onCreate(savedInstanceState);
+        // The style is loaded through the map client that reads cached tiles, installed by a startup task.
+        startup.whenDone(MApplication.TASK_MAP_CLIENT, uiExecutor, this::loadMap);
+        recordStartupTimes();
+        telemetry.addListener(firstPositionListener);
+        startup.whenDone(MApplication.TASK_GEOFENCES, uiExecutor, () -> applyGeofences(application.geofences()));
+        initTilePrefetcher(application);
+
+        waypointStore.addListener(missionSummary);
+        aircraft.setStateCallback(flightStateCallback);
+        startFlightRecorder();
+        missionCompiler = new MissionCompiler(missionValidator, missionOperator, missionExecutor, uiExecutor);
+        for (RetryingMissionOperator.Operation operation : RetryingMissionOperator.Operation.values()) {
+            String name = "mission." + operation.name().toLowerCase(Locale.US);
+            metrics.register(name + ".call", missionOperator.stats(operation).callLatency());
+            metrics.register(name + ".attempt", missionOperator.stats(operation).latency());
+        }
 
-        //Register BroadcastReceiver
-        IntentFilter filter = new IntentFilter();
-        filter.addAction(DJIDemoApplication.FLAG_CONNECTION_CHANGE);
-        registerReceiver(mReceiver, filter);
+        // Each starts from the current connection state, then hears only of the components it uses.
+        connectionEvents = application.connectionEvents();
+        connectionEvents.subscribe(DjiAircraftSdk.COMPONENTS, uiExecutor, aircraft);
+        connectionEvents.subscribe(EnumSet.of(ConnectionEventBus.Component.FLIGHT_CONTROLLER), uiExecutor,
+                reconnectLatency);
+        telemetry.addListener(reconnectLatency);
+        connectionEvents.subscribe(EnumSet.of(ConnectionEventBus.Component.FLIGHT_CONTROLLER), uiExecutor,
+                linkReconnected);
+        telemetry.addListener(linkHealth);
+        retryScheduler.scheduleAtFixedRate(this::evaluateLinkHealth, 1, 1, TimeUnit.SECONDS);
+        // Sticky: the current level arrives right away.
+        registerReceiver(batteryReceiver, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
 
 
         initUI();
 
         addListener();
+    }
 
-        mapView = findViewById(R.id.mapView);
-        mapView.onCreate(savedInstanceState);
+    private void loadMap() {
+        if (isDestroyed()) {
+            return;
+        }
         mapView.getMapAsync(mapboxMap -> mapboxMap.setStyle(Style.LIGHT, style -> {
             this.mapboxMap = mapboxMap;
 
             mapboxMap.moveCamera(CameraUpdateFactory.zoomTo(10));
 
             mapboxMap.addOnMapClickListener(MainActivity.this); // add listener for click for map object
+            mapboxMap.addOnMapLongClickListener(MainActivity.this);
 
             addAirplaneImageToStyle(style);
 
@@ -197,9 +542,66 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
             // set non data driven properties
             symbolManager.setIconAllowOverlap(true);
             symbolManager.setTextAllowOverlap(true);
+            symbolManager.setIconRotationAlignment(Property.ICON_ROTATION_ALIGNMENT_MAP);
+
+            waypointLayer = new WaypointLayer(style, waypointStore, frameScheduler, MAKI_ICON_MARKER,
+                    symbolManager.getLayerId());
+            breadcrumbLayer = new BreadcrumbLayer(style, telemetry, frameScheduler, WaypointLayer.LAYER_ID);
+
+            aircraftRenderer = new AircraftPositionRenderer(frameScheduler,
+                    new SymbolManagerAircraftSink(symbolManager, ID_ICON_AIRPORT, MAX_VISIBLE_AIRCRAFT,
+                            metrics.counter("map.symbol_updates")),
+                    MAX_VISIBLE_AIRCRAFT);
+            liveAircraftFeed = new LiveAircraftFeed(telemetry, aircraftRenderer, aircraftRegistry,
+                    aircraftRegistry.register(LIVE_AIRCRAFT_ID), metrics.histogram("telemetry.callback_to_render"),
+                    renderRate, new DeadReckoningPredictor());
+            liveAircraftFeed.attach();
+            visibleAircraft = new VisibleAircraftProducer(aircraftRegistry, MAX_VISIBLE_AIRCRAFT);
+            aircraftRenderer.addProducer(visibleAircraft);
+
+            mapboxMap.addOnCameraMoveListener(this::updateVisibleRegion);
+            mapboxMap.addOnCameraIdleListener(this::updateVisibleRegion);
+            updateVisibleRegion();
+            recordStartupMilestone(MApplication.MILESTONE_FIRST_MAP);
         }));
     }
 
+    /** Publishes how long each startup task took, as {@code startup.<task>_ms} gauges. */
+    private void recordStartupTimes() {
+        for (String task : new String[] {MApplication.TASK_MAPBOX, MApplication.TASK_MAPBOX_NATIVE,
+                MApplication.TASK_TILE_CACHE, MApplication.TASK_MAP_CLIENT, MApplication.TASK_SDK_REGISTRATION,
+                MApplication.TASK_GEOFENCES, MApplication.TASK_MISSION_LIBRARY}) {
+            startup.whenDone(task, uiExecutor, () -> metrics.gauge("startup." + task + "_ms")
+                    .set(TimeUnit.NANOSECONDS.toMillis(startup.durationNanos(task))));
+        }
+    }
+
+    /**
+     * Publishes the time from process start to a milestone as a {@code startup.<milestone>_ms} gauge. Only
+     * the first time in the process counts, so an activity created later shows the same value.
+     */
+    private void recordStartupMilestone(String milestone) {
+        startup.mark(milestone);
+        metrics.gauge("startup." + milestone + "_ms")
+                .set(TimeUnit.NANOSECONDS.toMillis(startup.milestoneNanos(milestone)));
+    }
+
+    /**
+     * Only aircraft inside the visible region are pushed to the symbol source, and the live aircraft is
+     * drawn at a rate, and its trail at a resolution, that suits the zoom.
+     */
+    private void updateVisibleRegion() {
+        LatLngBounds bounds = mapboxMap.getProjection().getVisibleRegion().latLngBounds;
+        visibleAircraft.setViewport(bounds.getLatSouth(), bounds.getLonWest(),
+                bounds.getLatNorth(), bounds.getLonEast());
+        renderRate.setViewport(bounds.getLatSouth(), bounds.getLonWest(),
+                bounds.getLatNorth(), bounds.getLonEast());
+        renderRate.setZoom(mapboxMap.getCameraPosition().zoom);
+        breadcrumbLayer.setCamera(mapboxMap.getCameraPosition().target.getLatitude(),
+                mapboxMap.getCameraPosition().zoom);
+        aircraftRenderer.requestFrame();
+    }
+
     private void addListener() {
         if (getWaypointMissionOperator() != null) {
             getWaypointMissionOperator().addListener(eventNotificationListener);
@@ -210,14 +612,28 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
         add = findViewById(R.id.add);
 //        clear = (Button) findViewById(R.id.clear);
         config = findViewById(R.id.config);
+        grid = findViewById(R.id.grid);
+        missions = findViewById(R.id.missions);
         upload = findViewById(R.id.upload);
         start = findViewById(R.id.start);
         stop = findViewById(R.id.stop);
+        missionSummaryText = findViewById(R.id.missionSummary);
+        performanceOverlay = findViewById(R.id.performanceOverlay);
 
         add.setOnClickListener(this);
 //        clear.setOnClickListener(this);
         config.setOnClickListener(this);
+        grid.setOnClickListener(this);
+        missions.setOnClickListener(this);
+        missions.setOnLongClickListener(view -> {
+            showMissionFilesDialog();
+            return true;
+        });
         upload.setOnClickListener(this);
+        upload.setOnLongClickListener(view -> {
+            showLinkStatsDialog();
+            return true;
+        });
         start.setOnClickListener(this);
         stop.setOnClickListener(this);
     }
@@ -231,6 +647,10 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
                 cameraUpdate(); // Locate the drone's location
             }
         });
+        locateAircraftFab.setOnLongClickListener(view -> {
+            showReplayDialog();
+            return true;
+        });
 
     }
 
@@ -244,24 +664,41 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
     protected void onStart() {
         super.onStart();
         mapView.onStart();
+        renderRate.setLifecycle(AdaptiveRenderRate.Lifecycle.PAUSED);
+        // Samples did not ask for frames while stopped; draw the aircraft where it is now.
+        updateDroneLocation();
     }
 
     @Override
     protected void onResume() {
         super.onResume();
         mapView.onResume();
+        renderRate.setLifecycle(AdaptiveRenderRate.Lifecycle.RESUMED);
     }
 
     @Override
     protected void onPause() {
         super.onPause();
         mapView.onPause();
+        renderRate.setLifecycle(AdaptiveRenderRate.Lifecycle.PAUSED);
     }
 
     @Override
     protected void onStop() {
         super.onStop();
         mapView.onStop();
+        // The state callback stays attached: the flight recorder and the mission still need every sample.
+        renderRate.setLifecycle(AdaptiveRenderRate.Lifecycle.STOPPED);
+        if (tileCache != null) {
+            final TileCache cache = tileCache;
+            missionExecutor.execute(() -> {
+                try {
+                    cache.flush();
+                } catch (IOException e) {
+                    Log.w(TAG, "Saving the map tile cache order", e);
+                }
+            });
+        }
     }
 
     @Override
@@ -274,11 +711,39 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
     protected void onDestroy() {
         super.onDestroy();
 
+        if (liveAircraftFeed != null) {
+            liveAircraftFeed.detach();
+        }
+        if (waypointLayer != null) {
+            waypointLayer.release();
+        }
+        if (breadcrumbLayer != null) {
+            breadcrumbLayer.release();
+        }
+        if (aircraftRenderer != null) {
+            aircraftRenderer.release();
+        }
         if (symbolManager != null) {
             symbolManager.onDestroy();
         }
 
-        unregisterReceiver(mReceiver);
+        stopReplay();
+        stopFlightRecorder();
+        // Queues the last metrics snapshot on missionExecutor, whose shutdown below still runs it.
+        setPerformanceOverlayVisible(false);
+        missionOperator.cancelPending();
+        djiMissionOperator.release();
+        retryScheduler.shutdownNow();
+        missionExecutor.shutdown();
+        tilePrefetcher.cancel();
+        telemetry.removeListener(firstPositionListener);
+        telemetry.removeListener(geofenceListener);
+        telemetry.removeListener(reconnectLatency);
+        connectionEvents.unsubscribe(reconnectLatency);
+        connectionEvents.unsubscribe(aircraft);
+        connectionEvents.unsubscribe(linkReconnected);
+        telemetry.removeListener(linkHealth);
+        unregisterReceiver(batteryReceiver);
         removeListener();
         mapView.onDestroy();
     }
@@ -311,6 +776,14 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
                 enableDisableAdd();
                 break;
             }
+            case R.id.grid:{
+                generateSurveyGrid();
+                break;
+            }
+            case R.id.missions:{
+                showMissionLibraryDialog();
+                break;
+            }
             case R.id.upload:{
                 uploadWayPointMission();
                 break;
@@ -329,35 +802,551 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
     }
 
     private void stopWaypointMission() {
-        getWaypointMissionOperator().stopMission(new CommonCallbacks.CompletionCallback() {
-            @Override
-            public void onResult(DJIError error) {
-                setResultToToast("Mission Stop: " + (error == null ? "Successful" : error.getDescription()));
+        if (segmentedRunner != null && segmentedRunner.state() == SegmentedMissionRunner.State.RUNNING) {
+            segmentedRunner.cancel();
+            return;
+        }
+        missionOperator.stop(error -> setResultToToast("Mission Stop: " + (error == null ? "Successful" : error)));
+    }
+
+    private void startWaypointMission() {
+        if (hasSegmentedMission()) {
+            if (segmentedRunner != null && segmentedRunner.state() == SegmentedMissionRunner.State.RUNNING) {
+                setResultToToast("Segment " + (segmentedRunner.currentSegment() + 1) + " of "
+                        + segmentedRunner.segmentCount() + " is already flying");
+                return;
             }
+            // Never started later by itself, as that would take off.
+            if (linkHealth.quality() == LinkHealthMonitor.Quality.DEGRADED) {
+                setResultToToast("Link degraded, try again once it recovers");
+                return;
+            }
+            startSegmentedMission();
+            return;
+        }
+        missionOperator.start(error -> setResultToToast("Mission Start: " + (error == null ? "Successful" : error)));
+    }
+
+    private void uploadWayPointMission() {
+        if (hasSegmentedMission()) {
+            setResultToToast("Segments are uploaded one by one after Start");
+            return;
+        }
+        if (linkHealth.quality() == LinkHealthMonitor.Quality.DEGRADED) {
+            uploadPausedByLink = true;
+            setResultToToast("Link degraded, the upload starts once it recovers");
+            return;
+        }
+        missionOperator.upload(error -> setResultToToast(error == null
+                ? "Mission upload successful!" : "Mission upload failed, error: " + error));
+    }
+
+    /** Publishes the link's health as link.* gauges, on the scheduler every second. */
+    private void evaluateLinkHealth() {
+        LinkHealthMonitor.Report report = linkHealth.evaluate();
+        metrics.gauge("link.degraded").set(report.quality() == LinkHealthMonitor.Quality.DEGRADED ? 1 : 0);
+        metrics.gauge("link.rate_hz").set(Math.round(report.rateHz()));
+        metrics.gauge("link.interval_p50_ms").set(report.intervalP50Millis());
+        metrics.gauge("link.interval_p95_ms").set(report.intervalP95Millis());
+        metrics.gauge("link.jitter_ms").set(report.jitterMillis());
+        metrics.gauge("link.gap_ms").set(report.gapMillis());
+        metrics.gauge("link.command_p50_ms").set(report.commandP50Millis());
+        metrics.gauge("link.command_p90_ms").set(report.commandP90Millis());
+    }
+
+    /**
+     * Checks missions against the loaded geofences from now on, and the live aircraft as it flies: entering a
+     * no-fly zone or leaving a boundary is announced once, past the monitor's hysteresis.
+     */
+    private void applyGeofences(GeofenceIndex fences) {
+        if (isDestroyed()) {
+            return;
+        }
+        missionValidator.setFences(fences);
+        metrics.gauge("geofence.count").set(fences.size());
+        if (fences.size() == 0) {
+            return;
+        }
+        Log.i(TAG, fences.size() + " geofences, " + fences.keepInCount() + " to keep in");
+        geofenceMonitor = new GeofenceMonitor(fences, GeofenceMonitor.DEFAULT_HYSTERESIS_METERS,
+                new GeofenceMonitor.Listener() {
+                    @Override
+                    public void onFenceChanged(Geofence fence, boolean inside) {
+                        runOnUi(() -> onGeofenceChanged(fence, inside));
+                    }
+
+                    @Override
+                    public void onBreachChanged(boolean breached) {
+                        runOnUi(() -> onGeofenceBreachChanged(breached));
+                    }
+                });
+        telemetry.addListener(geofenceListener);
+    }
+
+    private void onGeofenceChanged(Geofence fence, boolean inside) {
+        Log.i(TAG, (inside ? "Entered " : "Left ") + fence.kind() + " fence " + fence);
+        if (inside && fence.kind() == Geofence.Kind.KEEP_OUT) {
+            setResultToToast("Entered no-fly zone " + fence);
+        } else if (!inside && fence.kind() == Geofence.Kind.KEEP_IN) {
+            setResultToToast("Left boundary " + fence);
+        }
+    }
+
+    private void onGeofenceBreachChanged(boolean breached) {
+        if (breached == geofenceBreached) {
+            return;
+        }
+        geofenceBreached = breached;
+        Log.w(TAG, breached ? "Geofence breached" : "Back within geofences");
+        if (!breached) {
+            setResultToToast("Back within geofences");
+        }
+    }
+
+    /**
+     * On a degraded link the live aircraft is drawn at a low rate, while telemetry is still recorded at full
+     * rate, and mission uploads wait for the link to recover.
+     */
+    private void onLinkQualityChanged(LinkHealthMonitor.Report report) {
+        boolean degraded = report.quality() == LinkHealthMonitor.Quality.DEGRADED;
+        Log.w(TAG, "Link " + report);
+        renderRate.setLinkDegraded(degraded);
+        if (degraded) {
+            setResultToToast("Link degraded: " + report.problem());
+            return;
+        }
+        setResultToToast("Link recovered");
+        if (uploadPausedByLink) {
+            uploadPausedByLink = false;
+            uploadWayPointMission();
+        }
+    }
+
+    /**
+     * Shows how upload, start and stop attempts have fared on the link so far, to tune the retry policy.
+     */
+    private void showLinkStatsDialog() {
+        StringBuilder message = new StringBuilder();
+        for (RetryingMissionOperator.Operation operation : RetryingMissionOperator.Operation.values()) {
+            message.append(operation.name().toLowerCase(Locale.US)).append('\n')
+                    .append(missionOperator.stats(operation)).append("\n\n");
+        }
+        message.append("Link: ").append(linkHealth.report()).append("\n\n");
+        CircuitBreaker breaker = missionOperator.breaker();
+        message.append("Circuit breaker: ").append(breaker.state().name().toLowerCase(Locale.US))
+                .append(", opened ").append(breaker.openings()).append(" times");
+        new AlertDialog.Builder(this)
+                .setTitle("Mission link")
+                .setMessage(message)
+                .setPositiveButton("OK", null)
+                .setNeutralButton(frameMonitor == null ? "Show performance" : "Hide performance",
+                        (dialog, which) -> setPerformanceOverlayVisible(frameMonitor == null))
+                .show();
+    }
+
+    /**
+     * Shows the hot path metrics over the map, refreshed every second, and meanwhile appends them to
+     * metrics/ in app storage every {@value #METRICS_EXPORT_MILLIS} ms. Dropped frames are only counted
+     * while it is visible, since that takes a callback on every frame.
+     */
+    private void setPerformanceOverlayVisible(boolean visible) {
+        if (visible == (frameMonitor != null)) {
+            return;
+        }
+        if (!visible) {
+            frameMonitor = null;
+            Choreographer.getInstance().removeFrameCallback(frameMonitorCallback);
+            performanceOverlay.removeCallbacks(overlayRefresh);
+            performanceOverlay.setVisibility(View.GONE);
+            // The last snapshot is written off the UI thread, on an executor that onDestroy lets drain;
+            // retryScheduler is shut down at once.
+            missionExecutor.execute(metricsExporter::close);
+            metricsExporter = null;
+            return;
+        }
+        long frameIntervalNanos = (long) (1e9 / getWindowManager().getDefaultDisplay().getRefreshRate());
+        frameMonitor = new FrameMonitor(frameIntervalNanos, metrics.counter("ui.frames"),
+                metrics.counter("ui.dropped_frames"), metrics.histogram("ui.frame_interval"));
+        Choreographer.getInstance().postFrameCallback(frameMonitorCallback);
+
+        File directory = new File(getExternalFilesDir(null), "metrics");
+        directory.mkdirs();
+        String name = "metrics-" + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date()) + ".jsonl";
+        metricsExporter = new MetricsFileExporter(metrics, new File(directory, name));
+        metricsExporter.start(retryScheduler, METRICS_EXPORT_MILLIS);
+
+        overlaySnapshot = null;
+        performanceOverlay.setVisibility(View.VISIBLE);
+        refreshPerformanceOverlay();
+    }
+
+    private void refreshPerformanceOverlay() {
+        MetricsRegistry.Snapshot snapshot = metrics.snapshot(System.nanoTime());
+        StringBuilder text = new StringBuilder(1024);
+        snapshot.appendText(text, overlaySnapshot);
+        overlaySnapshot = snapshot;
+        performanceOverlay.setText(text.toString().trim());
+        performanceOverlay.postDelayed(overlayRefresh, OVERLAY_REFRESH_MILLIS);
+    }
+
+    /**
+     * {@link #runOnUiThread} that counts the Runnables waiting for the UI thread in the ui.queue_depth
+     * gauge. Runs the action right away on the UI thread, as runOnUiThread does.
+     */
+    private void runOnUi(Runnable action) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            action.run();
+            return;
+        }
+        uiQueueDepth.increment();
+        runOnUiThread(() -> {
+            uiQueueDepth.decrement();
+            action.run();
         });
     }
 
-    private void startWaypointMission() {
-        getWaypointMissionOperator().startMission(new CommonCallbacks.CompletionCallback() {
-            @Override
-            public void onResult(DJIError error) {
-                setResultToToast("Mission Start: " + (error == null ? "Successful" : error.getDescription()));
+    /**
+     * Replaces the waypoints, taken as the outline of the survey area, with a survey grid at the mission
+     * altitude. The grid is generated off the UI thread and split into missions the SDK accepts; a single
+     * mission is loaded right away, several are flown in turn from Start.
+     */
+    private void generateSurveyGrid() {
+        final int corners = waypointStore.size();
+        if (corners < 3) {
+            setResultToToast("Add at least 3 waypoints to outline the survey area");
+            return;
+        }
+        if (altitude <= 0) {
+            setResultToToast("Set a mission altitude first");
+            return;
+        }
+        final double[] latitudes = new double[corners];
+        final double[] longitudes = new double[corners];
+        waypointStore.copyTo(latitudes, longitudes, null);
+        final MissionSettings settings = new MissionSettings(altitude, mSpeed, mFinishedAction, mHeadingMode);
+        final SurveyParameters parameters = new SurveyParameters(altitude, SURVEY_SIDE_OVERLAP, Double.NaN);
+        final ActionType action = mAction;
+        final int param = actionParam;
+        missionExecutor.execute(() -> {
+            final List<MissionPlan> chunks = new ArrayList<>();
+            MissionChunker chunker = new MissionChunker(settings, MissionLimits.DJI_WAYPOINT_V1.maxWaypoints(),
+                    parameters.altitude(), action, param, (chunk, index) -> chunks.add(chunk));
+            surveyGenerator.generate(latitudes, longitudes, corners, parameters, chunker);
+            chunker.finish();
+            runOnUi(() -> onSurveyGridGenerated(chunks));
+        });
+    }
+
+    private void onSurveyGridGenerated(List<MissionPlan> chunks) {
+        if (chunks.isEmpty()) {
+            setResultToToast("Survey area is narrower than one flight line");
+            return;
+        }
+        waypointStore.clear();
+        int waypoints = 0;
+        for (MissionPlan chunk : chunks) {
+            for (int i = 0; i < chunk.size(); i++) {
+                waypointStore.add(chunk.latitude(i), chunk.longitude(i), chunk.altitude(i), chunk.action(i),
+                        chunk.actionParam(i));
+            }
+            waypoints += chunk.size();
+        }
+        updateMissionSummary();
+        if (chunks.size() == 1) {
+            setResultToToast("Survey grid: " + waypoints + " waypoints");
+            missionCompiler.compile(chunks.get(0), this::onMissionCompiled);
+        } else {
+            setSegmentedMission(chunks);
+        }
+    }
+
+    /**
+     * Saves the waypoints and settings under the typed name, or finds saved missions whose name contains it.
+     */
+    private void showMissionLibraryDialog() {
+        final MissionLibrary library = ((MApplication) getApplication()).missionLibrary();
+        if (library == null) {
+            setResultToToast("Mission library is not available");
+            return;
+        }
+        final EditText name = new EditText(this);
+        name.setSingleLine();
+        name.setHint("Name, or part of one to find");
+        new AlertDialog.Builder(this)
+                .setTitle("Missions")
+                .setView(name)
+                .setPositiveButton("Save", (dialog, which) -> saveMission(library, name.getText().toString().trim()))
+                .setNeutralButton("Find", (dialog, which) -> findMissions(library, name.getText().toString().trim()))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void saveMission(MissionLibrary library, String name) {
+        if (waypointStore.isEmpty()) {
+            setResultToToast("No waypoints to save");
+            return;
+        }
+        final String title = name.isEmpty()
+                ? new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.US).format(new Date()) : name;
+        final MissionPlan plan = MissionPlan.snapshot(waypointStore,
+                new MissionSettings(altitude, mSpeed, mFinishedAction, mHeadingMode));
+        missionExecutor.execute(() -> {
+            try {
+                setResultToToast("Saved " + library.save(title, plan));
+            } catch (IOException e) {
+                Log.w(TAG, "Saving mission", e);
+                setResultToToast("Cannot save mission: " + e.getMessage());
             }
         });
     }
 
-    private void uploadWayPointMission() {
-        getWaypointMissionOperator().uploadMission(new CommonCallbacks.CompletionCallback() {
+    private void findMissions(MissionLibrary library, String query) {
+        missionExecutor.execute(() -> {
+            List<MissionLibrary.Entry> found = library.search(query, Double.NEGATIVE_INFINITY,
+                    Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+            runOnUi(() -> showSavedMissions(library, found));
+        });
+    }
+
+    private void showSavedMissions(MissionLibrary library, List<MissionLibrary.Entry> found) {
+        if (isDestroyed()) {
+            return;
+        }
+        if (found.isEmpty()) {
+            setResultToToast("No saved missions found");
+            return;
+        }
+        String[] items = new String[found.size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = found.get(i).toString();
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Load mission")
+                .setItems(items, (dialog, which) -> loadMission(library, found.get(which)))
+                .show();
+    }
+
+    /** Decodes the mission off the UI thread; only the chosen one is read from the library's data file. */
+    private void loadMission(MissionLibrary library, MissionLibrary.Entry entry) {
+        missionExecutor.execute(() -> {
+            try {
+                MissionPlan plan = library.load(entry.id());
+                if (plan != null) {
+                    runOnUi(() -> onMissionLoaded(entry, plan));
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Loading mission " + entry.id(), e);
+                setResultToToast("Cannot load " + entry.name() + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private void onMissionLoaded(MissionLibrary.Entry entry, MissionPlan plan) {
+        if (isDestroyed()) {
+            return;
+        }
+        MissionSettings settings = plan.settings();
+        if (!Float.isNaN(settings.altitude())) {
+            altitude = settings.altitude();
+        }
+        mSpeed = settings.speed();
+        mFinishedAction = settings.finishedAction();
+        mHeadingMode = settings.headingMode();
+        missionSummary.setSpeed(mSpeed);
+        replaceWaypoints(plan);
+        prefetchMissionArea(plan);
+        setResultToToast("Loaded " + entry);
+    }
+
+    /**
+     * Imports a KML, GeoJSON or CSV route from another tool, or exports the waypoints as one, through the
+     * system's document picker.
+     */
+    private void showMissionFilesDialog() {
+        String[] items = {"Import file", "Export as KML", "Export as GeoJSON", "Export as CSV"};
+        new AlertDialog.Builder(this)
+                .setTitle("Mission files")
+                .setItems(items, (dialog, which) -> {
+                    if (which == 0) {
+                        Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT)
+                                .addCategory(Intent.CATEGORY_OPENABLE)
+                                .setType("*/*");
+                        startActivityForResult(intent, REQUEST_IMPORT_MISSION);
+                    } else {
+                        exportMission(MissionFormat.values()[which - 1]);
+                    }
+                })
+                .show();
+    }
+
+    private void exportMission(MissionFormat format) {
+        if (waypointStore.isEmpty()) {
+            setResultToToast("No waypoints to export");
+            return;
+        }
+        pendingExportFormat = format;
+        String name = "mission-" + new SimpleDateFormat("yyyyMMdd-HHmm", Locale.US).format(new Date()) + "."
+                + format.extension();
+        Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT)
+                .addCategory(Intent.CATEGORY_OPENABLE)
+                .setType(format.mimeType())
+                .putExtra(Intent.EXTRA_TITLE, name);
+        startActivityForResult(intent, REQUEST_EXPORT_MISSION);
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (resultCode != RESULT_OK || data == null || data.getData() == null) {
+            return;
+        }
+        if (requestCode == REQUEST_IMPORT_MISSION) {
+            importMission(data.getData());
+        } else if (requestCode == REQUEST_EXPORT_MISSION && pendingExportFormat != null) {
+            writeMission(data.getData(), pendingExportFormat);
+            pendingExportFormat = null;
+        }
+    }
+
+    /**
+     * Streams the file into a store of the worker's own, with progress in the mission summary, and swaps
+     * the waypoints in on the UI thread once it is read. New waypoints take the current altitude and action.
+     */
+    private void importMission(Uri uri) {
+        String name = uri.getLastPathSegment();
+        long size = -1;
+        try (Cursor cursor = getContentResolver().query(uri, null, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                int nameColumn = cursor.getColumnIndex(OpenableColumns.DISPLAY_NAME);
+                int sizeColumn = cursor.getColumnIndex(OpenableColumns.SIZE);
+                if (nameColumn >= 0 && !cursor.isNull(nameColumn)) {
+                    name = cursor.getString(nameColumn);
+                }
+                if (sizeColumn >= 0 && !cursor.isNull(sizeColumn)) {
+                    size = cursor.getLong(sizeColumn);
+                }
+            }
+        }
+        final MissionFormat format = MissionFormat.fromFileName(name);
+        if (format == null) {
+            setResultToToast("Not a KML, GeoJSON or CSV file: " + name);
+            return;
+        }
+        final String fileName = name;
+        final long fileSize = size;
+        final MissionImporter importer = new MissionImporter(altitude, mAction, actionParam,
+                MissionImporter.DEFAULT_MAX_WAYPOINTS);
+        final MissionSettings settings = new MissionSettings(altitude, mSpeed, mFinishedAction, mHeadingMode);
+        MissionImporter.Listener progress = (bytesRead, waypoints) -> runOnUi(() -> {
+            if (!isDestroyed()) {
+                missionSummaryText.setText(fileSize > 0
+                        ? String.format(Locale.US, "Importing %s: %d%%", fileName, bytesRead * 100 / fileSize)
+                        : "Importing " + fileName + ": " + waypoints + " waypoints");
+                missionSummaryText.setVisibility(View.VISIBLE);
+            }
+        });
+        missionExecutor.execute(() -> {
+            WaypointStore imported = new WaypointStore();
+            try (InputStream in = getContentResolver().openInputStream(uri)) {
+                if (in == null) {
+                    throw new IOException("Cannot open " + fileName);
+                }
+                importer.read(in, format, imported, progress);
+            } catch (IOException e) {
+                Log.w(TAG, "Importing " + fileName, e);
+                setResultToToast("Cannot import " + fileName + ": " + e.getMessage());
+                runOnUi(this::updateMissionSummary);
+                return;
+            }
+            MissionPlan plan = MissionPlan.snapshot(imported, settings);
+            int skipped = importer.skipped();
+            runOnUi(() -> onMissionImported(fileName, plan, skipped));
+        });
+    }
+
+    private void onMissionImported(String fileName, MissionPlan plan, int skipped) {
+        if (isDestroyed()) {
+            return;
+        }
+        if (plan.size() == 0) {
+            setResultToToast("No waypoints in " + fileName);
+            updateMissionSummary();
+            return;
+        }
+        replaceWaypoints(plan);
+        prefetchMissionArea(plan);
+        setResultToToast("Imported " + plan.size() + " waypoints from " + fileName
+                + (skipped > 0 ? ", skipped " + skipped + " invalid positions" : ""));
+    }
+
+    private void writeMission(Uri uri, MissionFormat format) {
+        final MissionPlan plan = MissionPlan.snapshot(waypointStore,
+                new MissionSettings(altitude, mSpeed, mFinishedAction, mHeadingMode));
+        missionExecutor.execute(() -> {
+            try (OutputStream out = getContentResolver().openOutputStream(uri)) {
+                if (out == null) {
+                    throw new IOException("Cannot open " + uri);
+                }
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                MissionExporter.write(plan, format, writer);
+                writer.flush();
+                setResultToToast("Exported " + plan.size() + " waypoints as "
+                        + format.extension().toUpperCase(Locale.US));
+            } catch (IOException e) {
+                Log.w(TAG, "Exporting mission", e);
+                setResultToToast("Cannot export mission: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Keeps a mission that needs several SDK missions; Start flies it segment by segment.
+     */
+    private void setSegmentedMission(List<MissionPlan> segments) {
+        segmentedMission = segments;
+        segmentedMissionModification = waypointStore.modificationCount();
+        int waypoints = 0;
+        for (MissionPlan segment : segments) {
+            waypoints += segment.size();
+        }
+        setResultToToast(waypoints + " waypoints in " + segments.size() + " segments, press Start to fly them");
+    }
+
+    private boolean hasSegmentedMission() {
+        return segmentedMission != null && segmentedMissionModification == waypointStore.modificationCount();
+    }
+
+    private void startSegmentedMission() {
+        segmentedRunner = new SegmentedMissionRunner(segmentedMission, missionValidator, missionOperator,
+                missionExecutor, uiExecutor, new SegmentedMissionRunner.Listener() {
             @Override
-            public void onResult(DJIError error) {
-                if (error == null) {
-                    setResultToToast("Mission upload successful!");
-                } else {
-                    setResultToToast("Mission upload failed, error: " + error.getDescription() + " retrying ...");
-                    getWaypointMissionOperator().retryUploadMission(null);
+            public void onSegmentStarted(int segment, int segments) {
+                setResultToToast("Uploading segment " + (segment + 1) + " of " + segments);
+            }
+
+            @Override
+            public void onUploadProgress(int segment, int uploadedWaypoints, int totalWaypoints) {
+                Log.d(TAG, "Segment " + (segment + 1) + " upload " + uploadedWaypoints + "/" + totalWaypoints);
+            }
+
+            @Override
+            public void onProgress(int waypointsReached, int totalWaypoints) {
+                missionSummaryText.setText("Flying: " + waypointsReached + " / " + totalWaypoints + " waypoints");
+                missionSummaryText.setVisibility(View.VISIBLE);
+            }
+
+            @Override
+            public void onFinished(SegmentedMissionRunner.State state, String error) {
+                setResultToToast("Mission " + state.name().toLowerCase(Locale.US) + (error == null ? "" : ": " + error));
+                updateMissionSummary();
+                if (!isDestroyed()) {
+                    addListener();
                 }
             }
         });
+        // Each segment ends with an execution finish; only the end of the last one is news.
+        removeListener();
+        segmentedRunner.start();
     }
 
     private void enableDisableAdd() {
@@ -377,6 +1366,10 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
         RadioGroup speed_RG = wayPointSettings.findViewById(R.id.speed);
         RadioGroup actionAfterFinished_RG = wayPointSettings.findViewById(R.id.actionAfterFinished);
         RadioGroup heading_RG = wayPointSettings.findViewById(R.id.heading);
+        final CheckBox reorder_CB = wayPointSettings.findViewById(R.id.reorder);
+        final CheckBox simplify_CB = wayPointSettings.findViewById(R.id.simplify);
+        reorder_CB.setChecked(reorderWaypoints);
+        simplify_CB.setChecked(simplifyPath);
 
         speed_RG.setOnCheckedChangeListener(new RadioGroup.OnCheckedChangeListener(){
             @Override
@@ -388,6 +1381,8 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
                 } else if (checkedId == R.id.HighSpeed){
                     mSpeed = 10.0f;
                 }
+                missionSummary.setSpeed(mSpeed);
+                updateMissionSummary();
             }
         });
 
@@ -397,13 +1392,13 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
             public void onCheckedChanged(RadioGroup group, int checkedId) {
                 Log.d(TAG, "Select finish action");
                 if (checkedId == R.id.finishNone){
-                    mFinishedAction = WaypointMissionFinishedAction.NO_ACTION;
+                    mFinishedAction = MissionSettings.FinishedAction.NO_ACTION;
                 } else if (checkedId == R.id.finishGoHome){
-                    mFinishedAction = WaypointMissionFinishedAction.GO_HOME;
+                    mFinishedAction = MissionSettings.FinishedAction.GO_HOME;
                 } else if (checkedId == R.id.finishAutoLanding){
-                    mFinishedAction = WaypointMissionFinishedAction.AUTO_LAND;
+                    mFinishedAction = MissionSettings.FinishedAction.AUTO_LAND;
                 } else if (checkedId == R.id.finishToFirst){
-                    mFinishedAction = WaypointMissionFinishedAction.GO_FIRST_WAYPOINT;
+                    mFinishedAction = MissionSettings.FinishedAction.GO_FIRST_WAYPOINT;
                 }
             }
         });
@@ -415,13 +1410,13 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
                 Log.d(TAG, "Select heading");
 
                 if (checkedId == R.id.headingNext) {
-                    mHeadingMode = WaypointMissionHeadingMode.AUTO;
+                    mHeadingMode = MissionSettings.HeadingMode.AUTO;
                 } else if (checkedId == R.id.headingInitDirec) {
-                    mHeadingMode = WaypointMissionHeadingMode.USING_INITIAL_DIRECTION;
+                    mHeadingMode = MissionSettings.HeadingMode.USING_INITIAL_DIRECTION;
                 } else if (checkedId == R.id.headingRC) {
-                    mHeadingMode = WaypointMissionHeadingMode.CONTROL_BY_REMOTE_CONTROLLER;
+                    mHeadingMode = MissionSettings.HeadingMode.CONTROL_BY_REMOTE_CONTROLLER;
                 } else if (checkedId == R.id.headingWP) {
-                    mHeadingMode = WaypointMissionHeadingMode.USING_WAYPOINT_HEADING;
+                    mHeadingMode = MissionSettings.HeadingMode.USING_WAYPOINT_HEADING;
                 }
             }
         });
@@ -438,6 +1433,8 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
                         Log.e(TAG,"speed "+mSpeed);
                         Log.e(TAG, "mFinishedAction "+mFinishedAction);
                         Log.e(TAG, "mHeadingMode "+mHeadingMode);
+                        reorderWaypoints = reorder_CB.isChecked();
+                        simplifyPath = simplify_CB.isChecked();
                         configWayPointMission();
                     }
 
@@ -452,40 +1449,129 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
                 .show();
     }
 
+    /**
+     * Builds, validates and loads the mission off the UI thread; only the copy of the waypoints is taken
+     * here.
+     */
     private void configWayPointMission() {
-        if (waypointMissionBuilder == null){
+        MissionSettings settings = new MissionSettings(altitude, mSpeed, mFinishedAction, mHeadingMode);
+        if (waypointStore.size() > MissionLimits.DJI_WAYPOINT_V1.maxWaypoints()) {
+            // Settings are applied and each segment validated by the runner, while the previous one flies.
+            setSegmentedMission(MissionSegmenter.split(MissionPlan.snapshot(waypointStore, settings),
+                    MissionLimits.DJI_WAYPOINT_V1.maxWaypoints()));
+            return;
+        }
+        segmentedMission = null;
+        PathOptimizer.Options optimization = null;
+        if (reorderWaypoints || simplifyPath) {
+            optimization = new PathOptimizer.Options(reorderWaypoints, simplifyPath
+                    ? PathOptimizer.Simplification.DOUGLAS_PEUCKER
+                    : PathOptimizer.Simplification.NONE, SIMPLIFY_TOLERANCE_METERS);
+        }
+        missionCompiler.compile(waypointStore, settings, optimization, this::onMissionCompiled);
+    }
 
-            waypointMissionBuilder = new WaypointMission.Builder().finishedAction(mFinishedAction)
-                    .headingMode(mHeadingMode)
-                    .autoFlightSpeed(mSpeed)
-                    .maxFlightSpeed(mSpeed)
-                    .flightPathMode(WaypointMissionFlightPathMode.NORMAL);
+    private void onMissionCompiled(MissionCompiler.Report report) {
+        Log.d(TAG, "Mission compiled: " + report);
+        switch (report.outcome()) {
+            case LOADED:
+                prefetchMissionArea(report.plan());
+                PathOptimizer.Result optimization = report.optimization();
+                if (report.isStale()) {
+                    setResultToToast("loadWaypoint succeeded, but waypoints changed since; configure again");
+                } else if (optimization != null && optimization.changed()) {
+                    replaceWaypoints(report.plan());
+                    setResultToToast(String.format(Locale.US,
+                            "loadWaypoint succeeded, %d removed, %.0f m and %.0f s saved",
+                            optimization.removedWaypoints(), optimization.savedMeters(), optimization.savedSeconds()));
+                } else {
+                    applyAltitude(report.plan().settings());
+                    setResultToToast("loadWaypoint succeeded");
+                }
+                break;
+            case INVALID:
+                setResultToToast("Mission invalid: " + report.violations().get(0)
+                        + (report.violations().size() > 1 ? " (+" + (report.violations().size() - 1) + " more)" : ""));
+                break;
+            case LOAD_FAILED:
+                setResultToToast("loadWaypoint failed " + report.loadError());
+                break;
+            case SUPERSEDED:
+            default:
+                break;
+        }
+    }
 
-        }else
-        {
-            waypointMissionBuilder.finishedAction(mFinishedAction)
-                    .headingMode(mHeadingMode)
-                    .autoFlightSpeed(mSpeed)
-                    .maxFlightSpeed(mSpeed)
-                    .flightPathMode(WaypointMissionFlightPathMode.NORMAL);
+    /** Prefetches into the application's tile cache, whose hits and misses are shown with the other metrics. */
+    private void initTilePrefetcher(MApplication application) {
+        tileCache = application.tileCache();
+        metrics.register("tiles.hits", tileCache.hits());
+        metrics.register("tiles.misses", tileCache.misses());
+        tilePrefetcher = new TilePrefetcher(tileCache, new HttpTileSource("https://api.mapbox.com/v4/"
+                + MApplication.TILESET + "/{z}/{x}/{y}.vector.pbf?access_token="
+                + getString(R.string.mapbox_access_token)), application.backgroundExecutor(), uiExecutor);
+    }
 
+    /**
+     * Downloads the map around a loaded mission while there is still a connection. Missions within about a
+     * kilometre share a region, so flying the same site again only fetches what is missing.
+     */
+    private void prefetchMissionArea(MissionPlan plan) {
+        if (plan.size() == 0) {
+            return;
         }
+        String site = String.format(Locale.US, "site %.2f,%.2f", plan.latitude(0), plan.longitude(0));
+        tilePrefetcher.prefetch(TileRegion.around(site, plan, PREFETCH_MARGIN_METERS, PREFETCH_MIN_ZOOM,
+                PREFETCH_MAX_ZOOM), report -> {
+            Log.d(TAG, "Map prefetch: " + report + ", cache hit ratio " + tileCache.hitRatio());
+            if (report.outcome() != TilePrefetcher.Outcome.COMPLETE
+                    && report.outcome() != TilePrefetcher.Outcome.CANCELLED) {
+                setResultToToast("Offline map incomplete: " + report);
+            }
+        });
+    }
 
-        if (waypointMissionBuilder.getWaypointList().size() > 0){
+    /**
+     * Shows the mission in the editor, so what is on the map is what was loaded.
+     */
+    private void replaceWaypoints(MissionPlan plan) {
+        waypointStore.clear();
+        for (int i = 0; i < plan.size(); i++) {
+            waypointStore.add(plan.latitude(i), plan.longitude(i), plan.altitude(i), plan.action(i),
+                    plan.actionParam(i));
+        }
+        updateMissionSummary();
+    }
 
-            for (int i=0; i< waypointMissionBuilder.getWaypointList().size(); i++){
-                waypointMissionBuilder.getWaypointList().get(i).altitude = altitude;
+    /**
+     * Mirrors the mission altitude into the editor so the waypoint labels match what was loaded.
+     */
+    private void applyAltitude(MissionSettings settings) {
+        if (!settings.overridesAltitude()) {
+            return;
+        }
+        for (int handle = waypointStore.first(); handle != WaypointStore.NONE; handle = waypointStore.next(handle)) {
+            if (waypointStore.altitude(handle) != settings.altitude()) {
+                waypointStore.setAltitude(handle, settings.altitude());
             }
-
-            setResultToToast("Set Waypoint attitude successfully");
         }
+        updateMissionSummary();
+    }
 
-        DJIError error = getWaypointMissionOperator().loadMission(waypointMissionBuilder.build());
-        if (error == null) {
-            setResultToToast("loadWaypoint succeeded");
-        } else {
-            setResultToToast("loadWaypoint failed " + error.getDescription());
+    /**
+     * Shows length, ETA and battery use of the mission; the summary itself is kept up to date by the
+     * store, this only formats it.
+     */
+    private void updateMissionSummary() {
+        if (waypointStore.isEmpty()) {
+            missionSummaryText.setVisibility(View.GONE);
+            return;
         }
+        long eta = Math.round(missionSummary.etaSeconds());
+        missionSummaryText.setText(String.format(Locale.US, "%d waypoints | %.2f km | %d:%02d | %.0f%% battery",
+                missionSummary.waypointCount(), missionSummary.lengthMeters() / 1000, eta / 60, eta % 60,
+                missionSummary.batteryFraction() * 100));
+        missionSummaryText.setVisibility(View.VISIBLE);
     }
 
     private WaypointMissionOperator getWaypointMissionOperator() {
@@ -512,8 +1598,13 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
     }
 
     private void cameraUpdate() {
+        if (mapboxMap == null || !telemetry.readLatest(cameraSnapshot)
+                || !Coordinates.isValid(cameraSnapshot.latitude(), cameraSnapshot.longitude())) {
+            setResultToToast("Aircraft location unknown");
+            return;
+        }
         CameraPosition position = new CameraPosition.Builder()
-                .target(new LatLng(droneLocationLat, droneLocationLng))
+                .target(new LatLng(cameraSnapshot.latitude(), cameraSnapshot.longitude()))
                 .zoom(18)
                 .tilt(20)
                 .build();
@@ -521,28 +1612,17 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
         mapboxMap.animateCamera(CameraUpdateFactory.newCameraPosition(position), 4000);
     }
 
+    /**
+     * Asks the renderer to pull the latest telemetry on the next frame, past the adaptive rate. Telemetry
+     * itself does this through {@link LiveAircraftFeed}, this is only needed for explicit refreshes.
+     */
     private void updateDroneLocation() {
-        runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                if (symbol != null)
-                    symbolManager.delete(symbol);
-                if (checkGpsCoordinates(droneLocationLat, droneLocationLng)) {
-                    SymbolOptions symbolOptions = new SymbolOptions()
-                            .withLatLng(new LatLng(droneLocationLat, droneLocationLng))
-                            .withIconImage(ID_ICON_AIRPORT)
-                            .withIconSize(1.3f)
-                            .withSymbolSortKey(10.0f);
-                    symbol = symbolManager.create(symbolOptions);
-                    Timber.e(symbol.toString());
-                }
-            }
-        });
+        if (aircraftRenderer != null) {
+            renderRate.reset();
+            aircraftRenderer.requestFrame();
+        }
     }
 
-    private boolean checkGpsCoordinates(double latitude, double longitude) {
-        return (latitude > -90 && latitude < 90 && longitude > -180 && longitude < 180) && (latitude != 0f && longitude != 0f);    }
-
     /**
      * @Description : RETURN BTN RESPONSE FUNCTION
      */
@@ -554,41 +1634,36 @@ public class MainActivity extends FragmentActivity implements View.OnClickListen
     @Override
     public boolean onMapClick(@NonNull @NotNull LatLng point) {
         if (isAdd){
-            markWaypoint(point);
-            Waypoint mWaypoint = new Waypoint(point.getLatitude(), point.getLongitude(), altitude);
-            WaypointAction waypointAction = new WaypointAction(mAction, actionParam);
-            mWaypoint.addAction(waypointAction);
-            //Add Waypoints to Waypoint arraylist;
-            if (waypointMissionBuilder != null) {
-                waypointList.add(mWaypoint);
-                waypointMissionBuilder.waypointList(waypointList).waypointCount(waypointList.size());
-            }else
-            {
-                waypointMissionBuilder = new WaypointMission.Builder();
-                waypointList.add(mWaypoint);
-                waypointMissionBuilder.waypointList(waypointList).waypointCount(waypointList.size());
-            }
+            // The waypoint layer picks the new waypoint up and draws it on the next frame.
+            waypointStore.add(point.getLatitude(), point.getLongitude(), altitude, mAction, actionParam);
+            updateMissionSummary();
         } else{
             setResultToToast("Cannot add waypoint");
         }
         return false;
     }
 
-    private void markWaypoint(LatLng point) {
-        // create waypoint symbols
-        SymbolOptions wayPointsOptions = new SymbolOptions()
-                .withLatLng(point)
-                .withIconImage(MAKI_ICON_MARKER)
-                .withIconColor(ColorUtils.colorToRgbaString(Color.BLUE))
-                .withIconSize(1.3f)
-                .withSymbolSortKey(5.0f)
-                .withDraggable(true);
-        mWayPointSymbols = symbolManager.create(wayPointsOptions);
-        mSymbols.put(mSymbols.size(), mWayPointSymbols);
+    /**
+     * Long pressing a waypoint removes it from the mission.
+     */
+    @Override
+    public boolean onMapLongClick(@NonNull LatLng point) {
+        if (waypointLayer == null) {
+            return false;
+        }
+        PointF screenPoint = mapboxMap.getProjection().toScreenLocation(point);
+        int handle = waypointLayer.waypointAt(mapboxMap, screenPoint);
+        if (handle == WaypointStore.NONE) {
+            return false;
+        }
+        waypointStore.remove(handle);
+        updateMissionSummary();
+        setResultToToast("Waypoint removed");
+        return true;
     }
 
     private void setResultToToast(final String string){
-        MainActivity.this.runOnUiThread(new Runnable() {
+        runOnUi(new Runnable() {
             @Override
             public void run() {
                 Toast.makeText(MainActivity.this, string, Toast.LENGTH_SHORT).show();
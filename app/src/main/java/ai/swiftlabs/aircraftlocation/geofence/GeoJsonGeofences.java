@@ -0,0 +1,100 @@
+package ai.swiftlabs.aircraftlocation.geofence;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads the geofences dropped into a directory as GeoJSON files, e.g. customer boundaries and restricted
+ * zones exported from a GIS. The outer ring of each Polygon or MultiPolygon feature becomes a fence, kept
+ * out of unless its {@code kind} property is {@code keep_in}; {@code name} names it. Holes and other
+ * geometries are ignored, and a file that cannot be read is skipped with a warning.
+ */
+public final class GeoJsonGeofences {
+
+    private static final String TAG = "Geofences";
+
+    private GeoJsonGeofences() {
+    }
+
+    public static GeofenceIndex load(File directory) {
+        List<Geofence> fences = new ArrayList<>();
+        File[] files = directory.listFiles((dir, name) -> {
+            String lower = name.toLowerCase(Locale.US);
+            return lower.endsWith(".geojson") || lower.endsWith(".json");
+        });
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+                int before = fences.size();
+                try {
+                    read(new JSONObject(readFully(file)), fences);
+                } catch (IOException | JSONException | IllegalArgumentException e) {
+                    Log.w(TAG, "Skipped " + file.getName(), e);
+                    fences.subList(before, fences.size()).clear();
+                }
+            }
+        }
+        return fences.isEmpty() ? GeofenceIndex.EMPTY : new GeofenceIndex(fences);
+    }
+
+    private static void read(JSONObject collection, List<Geofence> fences) throws JSONException {
+        JSONArray features = collection.getJSONArray("features");
+        for (int i = 0; i < features.length(); i++) {
+            JSONObject feature = features.getJSONObject(i);
+            JSONObject geometry = feature.optJSONObject("geometry");
+            if (geometry == null) {
+                continue;
+            }
+            JSONObject properties = feature.optJSONObject("properties");
+            String name = properties == null ? null : properties.optString("name", null);
+            Geofence.Kind kind = properties != null && "keep_in".equalsIgnoreCase(properties.optString("kind"))
+                    ? Geofence.Kind.KEEP_IN : Geofence.Kind.KEEP_OUT;
+            String type = geometry.getString("type");
+            JSONArray coordinates = geometry.getJSONArray("coordinates");
+            if ("Polygon".equals(type)) {
+                fences.add(fence(fences.size(), name, kind, coordinates.getJSONArray(0)));
+            } else if ("MultiPolygon".equals(type)) {
+                for (int p = 0; p < coordinates.length(); p++) {
+                    fences.add(fence(fences.size(), name, kind, coordinates.getJSONArray(p).getJSONArray(0)));
+                }
+            }
+        }
+    }
+
+    /** A fence from a GeoJSON ring of [longitude, latitude] positions, which repeats its first position. */
+    private static Geofence fence(int id, String name, Geofence.Kind kind, JSONArray ring) throws JSONException {
+        int n = ring.length() - 1;
+        double[] latitudes = new double[Math.max(0, n)];
+        double[] longitudes = new double[Math.max(0, n)];
+        for (int i = 0; i < n; i++) {
+            JSONArray position = ring.getJSONArray(i);
+            longitudes[i] = position.getDouble(0);
+            latitudes[i] = position.getDouble(1);
+        }
+        return new Geofence(id, name, kind, latitudes, longitudes);
+    }
+
+    private static String readFully(File file) throws IOException {
+        StringBuilder json = new StringBuilder((int) file.length());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"))) {
+            char[] buffer = new char[8192];
+            for (int read; (read = reader.read(buffer)) != -1; ) {
+                json.append(buffer, 0, read);
+            }
+        }
+        return json.toString();
+    }
+}
@@ -0,0 +1,150 @@
+package ai.swiftlabs.aircraftlocation.map;
+
+import android.graphics.Color;
+
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.LineString;
+import com.mapbox.geojson.Point;
+import com.mapbox.mapboxsdk.maps.Style;
+import com.mapbox.mapboxsdk.style.layers.LineLayer;
+import com.mapbox.mapboxsdk.style.layers.Property;
+import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import ai.swiftlabs.aircraftlocation.geo.Coordinates;
+import ai.swiftlabs.aircraftlocation.render.BreadcrumbTrail;
+import ai.swiftlabs.aircraftlocation.render.FeatureBuffer;
+import ai.swiftlabs.aircraftlocation.render.FrameScheduler;
+import ai.swiftlabs.aircraftlocation.telemetry.TelemetryPipeline;
+import ai.swiftlabs.aircraftlocation.telemetry.TelemetrySnapshot;
+
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineCap;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineColor;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineJoin;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineOpacity;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineWidth;
+
+/**
+ * Draws where the live aircraft has been as a line from a single {@link GeoJsonSource}.
+ *
+ * <p>Every telemetry sample is offered to a {@link BreadcrumbTrail} on the telemetry thread, so the
+ * track keeps growing while the map is not drawn. On the next frame after a point was kept, only the
+ * trail segments that changed are turned into new line features; the others are reused.</p>
+ */
+public class BreadcrumbLayer implements TelemetryPipeline.Listener, FrameScheduler.FrameCallback {
+
+    public static final String SOURCE_ID = "breadcrumb-source";
+    public static final String LAYER_ID = "breadcrumb-layer";
+
+    private final TelemetryPipeline pipeline;
+    private final FrameScheduler scheduler;
+    private final GeoJsonSource source;
+    private final BreadcrumbTrail trail = new BreadcrumbTrail();
+    private final TelemetrySnapshot sample = new TelemetrySnapshot();
+    private final AtomicBoolean frameRequested = new AtomicBoolean();
+
+    // Frame thread only.
+    private final BreadcrumbTrail.Segments segments = new BreadcrumbTrail.Segments();
+    private final FeatureBuffer<Feature> features = new FeatureBuffer<>(segments.handleCount());
+    private final double[] latitudes = new double[BreadcrumbTrail.CHUNK_POINTS + 2];
+    private final double[] longitudes = new double[BreadcrumbTrail.CHUNK_POINTS + 2];
+    private int level;
+    private double latitude;
+    private double zoom;
+
+    /**
+     * @param belowLayerId layer to draw underneath, e.g. the waypoints, or {@code null}
+     */
+    public BreadcrumbLayer(Style style, TelemetryPipeline pipeline, FrameScheduler scheduler,
+                           String belowLayerId) {
+        this.pipeline = pipeline;
+        this.scheduler = scheduler;
+
+        source = new GeoJsonSource(SOURCE_ID);
+        style.addSource(source);
+
+        LineLayer layer = new LineLayer(LAYER_ID, SOURCE_ID).withProperties(
+                lineColor(Color.rgb(255, 87, 34)),
+                lineWidth(3f),
+                lineOpacity(0.8f),
+                lineCap(Property.LINE_CAP_ROUND),
+                lineJoin(Property.LINE_JOIN_ROUND));
+        if (belowLayerId != null) {
+            style.addLayerBelow(layer, belowLayerId);
+        } else {
+            style.addLayer(layer);
+        }
+        pipeline.addListener(this);
+    }
+
+    public void release() {
+        pipeline.removeListener(this);
+    }
+
+    /** Forgets the track, e.g. when a replay starts or ends. */
+    public void clear() {
+        trail.clear();
+        requestFrame();
+    }
+
+    /** Picks the trail resolution for the camera. Frame thread. */
+    public void setCamera(double latitude, double zoom) {
+        this.latitude = latitude;
+        this.zoom = zoom;
+        if (BreadcrumbTrail.levelFor(latitude, zoom) != level) {
+            requestFrame();
+        }
+    }
+
+    @Override
+    public void onTelemetry(long sequence) {
+        if (pipeline.ring().read(sequence, sample) && Coordinates.isValid(sample.latitude(), sample.longitude())
+                && trail.add(sample.timestampNanos(), sample.latitude(), sample.longitude())) {
+            requestFrame();
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameRequested.set(false);
+        level = BreadcrumbTrail.levelFor(latitude, zoom);
+        int count = trail.segments(level, segments);
+        for (int i = 0; i < segments.staleCount(); i++) {
+            features.remove(segments.staleHandle(i));
+        }
+        for (int i = 0; i < count; i++) {
+            if (segments.isDrawn(i)) {
+                continue;
+            }
+            int points = trail.copy(segments, i, latitudes, longitudes);
+            if (points < 2) {
+                features.remove(segments.handle(i));
+            } else {
+                features.put(segments.handle(i), Feature.fromGeometry(lineOf(points)));
+            }
+            segments.markDrawn(i);
+        }
+        if (features.isDirty()) {
+            source.setGeoJson(FeatureCollection.fromFeatures(features.asList()));
+            features.markClean();
+        }
+    }
+
+    private LineString lineOf(int points) {
+        List<Point> coordinates = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            coordinates.add(Point.fromLngLat(longitudes[i], latitudes[i]));
+        }
+        return LineString.fromLngLats(coordinates);
+    }
+
+    private void requestFrame() {
+        if (frameRequested.compareAndSet(false, true)) {
+            scheduler.postFrameCallback(this);
+        }
+    }
+}
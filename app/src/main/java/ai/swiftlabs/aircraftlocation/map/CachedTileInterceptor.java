@@ -0,0 +1,60 @@
+package ai.swiftlabs.aircraftlocation.map;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import ai.swiftlabs.aircraftlocation.tiles.TileCache;
+
+/**
+ * Answers the map's requests for vector tiles of one tileset from a {@link TileCache}, so prefetched
+ * mission areas draw without waiting on the network. Other requests, and tiles that are not cached, go
+ * to the network as before.
+ *
+ * <p>Installed on the map's HTTP client with {@code HttpRequestUtil.setOkHttpClient}. Runs on the HTTP
+ * dispatcher threads.</p>
+ */
+public class CachedTileInterceptor implements Interceptor {
+
+    private static final MediaType VECTOR_TILE = MediaType.parse("application/vnd.mapbox-vector-tile");
+
+    private final TileCache cache;
+    private final Pattern tilePath;
+
+    /**
+     * @param tileset the tileset id as in the tile URL, e.g. {@code mapbox.mapbox-streets-v8}
+     */
+    public CachedTileInterceptor(TileCache cache, String tileset) {
+        this.cache = cache;
+        this.tilePath = Pattern.compile("/v4/" + Pattern.quote(tileset) + "/(\\d+)/(\\d+)/(\\d+)\\.vector\\.pbf");
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Matcher matcher = tilePath.matcher(request.url().encodedPath());
+        if (!matcher.matches()) {
+            return chain.proceed(request);
+        }
+        byte[] tile = cache.get(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)),
+                Integer.parseInt(matcher.group(3)));
+        if (tile == null) {
+            return chain.proceed(request);
+        }
+        // An empty tile is one the server had no data for, which it answers with 204 as well.
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(tile.length == 0 ? 204 : 200)
+                .message(tile.length == 0 ? "No Content" : "OK")
+                .body(ResponseBody.create(VECTOR_TILE, tile))
+                .build();
+    }
+}
@@ -0,0 +1,59 @@
+package ai.swiftlabs.aircraftlocation.map;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import ai.swiftlabs.aircraftlocation.render.FrameScheduler;
+
+/**
+ * {@link FrameScheduler} backed by the main thread {@link Choreographer}.
+ * Requests from background threads hop to the main looper first, since the
+ * Choreographer instance is bound to the looper it was obtained on.
+ */
+public class ChoreographerFrameScheduler implements FrameScheduler {
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<FrameCallback, Binding> bindings = new IdentityHashMap<>();
+
+    @Override
+    public void postFrameCallback(FrameCallback callback) {
+        Binding binding;
+        synchronized (bindings) {
+            binding = bindings.get(callback);
+            if (binding == null) {
+                binding = new Binding(callback);
+                bindings.put(callback, binding);
+            }
+        }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            binding.run();
+        } else {
+            mainHandler.post(binding);
+        }
+    }
+
+    /**
+     * One wrapper per callback, reused for every frame so posting never allocates.
+     */
+    private static final class Binding implements Runnable, Choreographer.FrameCallback {
+        private final FrameCallback callback;
+
+        Binding(FrameCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            callback.doFrame(frameTimeNanos);
+        }
+    }
+}
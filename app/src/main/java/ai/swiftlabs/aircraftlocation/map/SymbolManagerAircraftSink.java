@@ -0,0 +1,95 @@
+package ai.swiftlabs.aircraftlocation.map;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.plugins.annotation.Symbol;
+import com.mapbox.mapboxsdk.plugins.annotation.SymbolManager;
+import com.mapbox.mapboxsdk.plugins.annotation.SymbolOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ai.swiftlabs.aircraftlocation.metrics.Counter;
+import ai.swiftlabs.aircraftlocation.render.AircraftPositionRenderer;
+
+/**
+ * Keeps one live {@link Symbol} per aircraft slot and moves it in place.
+ * Creates, moves and deletes of a frame are each pushed as one batch, so the annotation
+ * source is rebuilt a bounded number of times per frame however many aircraft changed.
+ * Every symbol created, moved or deleted is counted in {@code symbolUpdates}.
+ */
+public class SymbolManagerAircraftSink implements AircraftPositionRenderer.Sink {
+
+    private final SymbolManager symbolManager;
+    private final String iconImage;
+    private final Symbol[] symbols;
+    private final List<Symbol> moved;
+    private final List<Symbol> deleted;
+    private final List<SymbolOptions> created;
+    private final int[] createdSlots;
+    private final Counter symbolUpdates;
+
+    public SymbolManagerAircraftSink(SymbolManager symbolManager, String iconImage, int capacity,
+                                     Counter symbolUpdates) {
+        this.symbolManager = symbolManager;
+        this.iconImage = iconImage;
+        this.symbols = new Symbol[capacity];
+        this.moved = new ArrayList<>(capacity);
+        this.deleted = new ArrayList<>(capacity);
+        this.created = new ArrayList<>(capacity);
+        this.createdSlots = new int[capacity];
+        this.symbolUpdates = symbolUpdates;
+    }
+
+    @Override
+    public void show(int slot, double latitude, double longitude, float bearing) {
+        Symbol symbol = symbols[slot];
+        if (symbol == null) {
+            createdSlots[created.size()] = slot;
+            created.add(new SymbolOptions()
+                    .withLatLng(new LatLng(latitude, longitude))
+                    .withIconImage(iconImage)
+                    .withIconSize(1.3f)
+                    .withIconRotate(bearing)
+                    .withSymbolSortKey(10.0f));
+            return;
+        }
+        symbol.setLatLng(new LatLng(latitude, longitude));
+        symbol.setIconRotate(bearing);
+        moved.add(symbol);
+    }
+
+    @Override
+    public void hide(int slot) {
+        Symbol symbol = symbols[slot];
+        if (symbol != null) {
+            moved.remove(symbol);
+            deleted.add(symbol);
+            symbols[slot] = null;
+        }
+    }
+
+    @Override
+    public void commit() {
+        symbolUpdates.add(deleted.size() + created.size() + moved.size());
+        if (!deleted.isEmpty()) {
+            symbolManager.delete(deleted);
+            deleted.clear();
+        }
+        if (!created.isEmpty()) {
+            List<Symbol> symbolsCreated = symbolManager.create(created);
+            for (int i = 0; i < symbolsCreated.size(); i++) {
+                symbols[createdSlots[i]] = symbolsCreated.get(i);
+            }
+            created.clear();
+        }
+        if (!moved.isEmpty()) {
+            symbolManager.update(moved);
+            moved.clear();
+        }
+    }
+
+    /** Returns the live symbol of a slot, or {@code null} when the slot is not on the map. */
+    public Symbol symbolAt(int slot) {
+        return symbols[slot];
+    }
+}
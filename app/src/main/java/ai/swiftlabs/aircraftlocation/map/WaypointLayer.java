@@ -0,0 +1,157 @@
+package ai.swiftlabs.aircraftlocation.map;
+
+import android.graphics.Color;
+import android.graphics.PointF;
+
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Point;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+import com.mapbox.mapboxsdk.maps.Style;
+import com.mapbox.mapboxsdk.style.expressions.Expression;
+import com.mapbox.mapboxsdk.style.layers.SymbolLayer;
+import com.mapbox.mapboxsdk.style.sources.GeoJsonSource;
+
+import java.util.List;
+
+import ai.swiftlabs.aircraftlocation.mission.WaypointStore;
+import ai.swiftlabs.aircraftlocation.render.FeatureBuffer;
+import ai.swiftlabs.aircraftlocation.render.FrameScheduler;
+
+import static com.mapbox.mapboxsdk.style.expressions.Expression.concat;
+import static com.mapbox.mapboxsdk.style.expressions.Expression.get;
+import static com.mapbox.mapboxsdk.style.expressions.Expression.literal;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconAllowOverlap;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconColor;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconIgnorePlacement;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconImage;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.iconSize;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.textAllowOverlap;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.textField;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.textOffset;
+import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.textSize;
+
+/**
+ * Draws the waypoints of a {@link WaypointStore} from a single {@link GeoJsonSource}.
+ *
+ * <p>Each edit of the store replaces one feature in a {@link FeatureBuffer}; the source is updated
+ * once on the next frame with the whole buffer, instead of once per annotation change. Styling is
+ * data driven from the feature properties.</p>
+ */
+public class WaypointLayer implements WaypointStore.Listener, FrameScheduler.FrameCallback {
+
+    public static final String SOURCE_ID = "waypoint-source";
+    public static final String LAYER_ID = "waypoint-layer";
+
+    private static final String PROPERTY_HANDLE = "handle";
+    private static final String PROPERTY_ALTITUDE = "altitude";
+
+    private final WaypointStore store;
+    private final FrameScheduler scheduler;
+    private final GeoJsonSource source;
+    private final FeatureBuffer<Feature> features;
+    private boolean frameRequested;
+
+    /**
+     * @param belowLayerId layer to draw underneath, e.g. the aircraft symbols, or {@code null}
+     */
+    public WaypointLayer(Style style, WaypointStore store, FrameScheduler scheduler, String iconImageId,
+                         String belowLayerId) {
+        this.store = store;
+        this.scheduler = scheduler;
+        this.features = new FeatureBuffer<>(Math.max(16, store.size()));
+
+        source = new GeoJsonSource(SOURCE_ID);
+        style.addSource(source);
+
+        SymbolLayer layer = new SymbolLayer(LAYER_ID, SOURCE_ID).withProperties(
+                iconImage(iconImageId),
+                iconColor(Color.BLUE),
+                iconSize(1.3f),
+                iconAllowOverlap(true),
+                iconIgnorePlacement(true),
+                textField(concat(Expression.toString(get(PROPERTY_ALTITUDE)), literal(" m"))),
+                textSize(10f),
+                textOffset(new Float[]{0f, 1.5f}),
+                textAllowOverlap(true));
+        if (belowLayerId != null) {
+            style.addLayerBelow(layer, belowLayerId);
+        } else {
+            style.addLayer(layer);
+        }
+
+        for (int handle = store.first(); handle != WaypointStore.NONE; handle = store.next(handle)) {
+            features.put(handle, featureOf(handle));
+        }
+        store.addListener(this);
+        requestFrame();
+    }
+
+    /** Stops following the store. */
+    public void release() {
+        store.removeListener(this);
+    }
+
+    /**
+     * Returns the handle of the waypoint drawn at a screen location, or {@link WaypointStore#NONE}.
+     */
+    public int waypointAt(MapboxMap mapboxMap, PointF screenPoint) {
+        List<Feature> hits = mapboxMap.queryRenderedFeatures(screenPoint, LAYER_ID);
+        for (Feature hit : hits) {
+            if (hit.hasProperty(PROPERTY_HANDLE)) {
+                int handle = hit.getNumberProperty(PROPERTY_HANDLE).intValue();
+                if (store.contains(handle)) {
+                    return handle;
+                }
+            }
+        }
+        return WaypointStore.NONE;
+    }
+
+    @Override
+    public void onWaypointAdded(int handle) {
+        features.put(handle, featureOf(handle));
+        requestFrame();
+    }
+
+    @Override
+    public void onWaypointChanged(int handle) {
+        features.put(handle, featureOf(handle));
+        requestFrame();
+    }
+
+    @Override
+    public void onWaypointRemoved(int handle) {
+        features.remove(handle);
+        requestFrame();
+    }
+
+    @Override
+    public void onWaypointsCleared() {
+        features.clear();
+        requestFrame();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameRequested = false;
+        if (features.isDirty()) {
+            source.setGeoJson(FeatureCollection.fromFeatures(features.asList()));
+            features.markClean();
+        }
+    }
+
+    private void requestFrame() {
+        if (!frameRequested) {
+            frameRequested = true;
+            scheduler.postFrameCallback(this);
+        }
+    }
+
+    private Feature featureOf(int handle) {
+        Feature feature = Feature.fromGeometry(Point.fromLngLat(store.longitude(handle), store.latitude(handle)));
+        feature.addNumberProperty(PROPERTY_HANDLE, handle);
+        feature.addNumberProperty(PROPERTY_ALTITUDE, Math.round(store.altitude(handle)));
+        return feature;
+    }
+}
@@ -0,0 +1,164 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import dji.common.error.DJIError;
+import dji.common.mission.waypoint.Waypoint;
+import dji.common.mission.waypoint.WaypointAction;
+import dji.common.mission.waypoint.WaypointActionType;
+import dji.common.mission.waypoint.WaypointExecutionProgress;
+import dji.common.mission.waypoint.WaypointMission;
+import dji.common.mission.waypoint.WaypointMissionDownloadEvent;
+import dji.common.mission.waypoint.WaypointMissionExecutionEvent;
+import dji.common.mission.waypoint.WaypointMissionFinishedAction;
+import dji.common.mission.waypoint.WaypointMissionFlightPathMode;
+import dji.common.mission.waypoint.WaypointMissionHeadingMode;
+import dji.common.mission.waypoint.WaypointMissionUploadEvent;
+import dji.common.mission.waypoint.WaypointUploadProgress;
+import dji.sdk.mission.waypoint.WaypointMissionOperator;
+import dji.sdk.mission.waypoint.WaypointMissionOperatorListener;
+import dji.sdk.sdkmanager.DJISDKManager;
+
+/**
+ * {@link MissionOperator} on top of DJI's {@link WaypointMissionOperator}. The SDK operator is looked up
+ * lazily, since mission control only exists once the SDK is registered.
+ */
+public class DjiMissionOperator implements MissionOperator, WaypointMissionOperatorListener {
+
+    private static final String UNAVAILABLE = "Mission control unavailable";
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private WaypointMissionOperator operator;
+
+    @Override
+    public String load(MissionPlan plan) {
+        WaypointMissionOperator operator = operator();
+        if (operator == null) {
+            return UNAVAILABLE;
+        }
+        DJIError error = operator.loadMission(build(plan));
+        return error == null ? null : error.getDescription();
+    }
+
+    @Override
+    public void upload(Completion completion) {
+        WaypointMissionOperator operator = operator();
+        if (operator == null) {
+            completion.onResult(UNAVAILABLE);
+            return;
+        }
+        operator.uploadMission(error -> completion.onResult(describe(error)));
+    }
+
+    @Override
+    public void start(Completion completion) {
+        WaypointMissionOperator operator = operator();
+        if (operator == null) {
+            completion.onResult(UNAVAILABLE);
+            return;
+        }
+        operator.startMission(error -> completion.onResult(describe(error)));
+    }
+
+    @Override
+    public void stop(Completion completion) {
+        WaypointMissionOperator operator = operator();
+        if (operator == null) {
+            completion.onResult(UNAVAILABLE);
+            return;
+        }
+        operator.stopMission(error -> completion.onResult(describe(error)));
+    }
+
+    @Override
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Stops forwarding SDK events. */
+    public void release() {
+        if (operator != null) {
+            operator.removeListener(this);
+        }
+        listeners.clear();
+    }
+
+    @Override
+    public void onDownloadUpdate(@NonNull WaypointMissionDownloadEvent event) {
+    }
+
+    @Override
+    public void onUploadUpdate(@NonNull WaypointMissionUploadEvent event) {
+        WaypointUploadProgress progress = event.getProgress();
+        if (progress == null) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            listener.onUploadProgress(progress.uploadedWaypointIndex + 1, progress.totalWaypointCount);
+        }
+    }
+
+    @Override
+    public void onExecutionUpdate(@NonNull WaypointMissionExecutionEvent event) {
+        WaypointExecutionProgress progress = event.getProgress();
+        if (progress == null) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            listener.onExecutionProgress(progress.targetWaypointIndex, progress.totalWaypointCount);
+        }
+    }
+
+    @Override
+    public void onExecutionStart() {
+    }
+
+    @Override
+    public void onExecutionFinish(@Nullable DJIError error) {
+        for (Listener listener : listeners) {
+            listener.onExecutionFinish(describe(error));
+        }
+    }
+
+    static WaypointMission build(MissionPlan plan) {
+        MissionSettings settings = plan.settings();
+        List<Waypoint> waypoints = new ArrayList<>(plan.size());
+        for (int i = 0; i < plan.size(); i++) {
+            Waypoint waypoint = new Waypoint(plan.latitude(i), plan.longitude(i), plan.altitude(i));
+            waypoint.addAction(new WaypointAction(WaypointActionType.valueOf(plan.action(i).name()),
+                    plan.actionParam(i)));
+            waypoints.add(waypoint);
+        }
+        return new WaypointMission.Builder()
+                .finishedAction(WaypointMissionFinishedAction.valueOf(settings.finishedAction().name()))
+                .headingMode(WaypointMissionHeadingMode.valueOf(settings.headingMode().name()))
+                .autoFlightSpeed(settings.speed())
+                .maxFlightSpeed(settings.speed())
+                .flightPathMode(WaypointMissionFlightPathMode.NORMAL)
+                .waypointList(waypoints)
+                .waypointCount(waypoints.size())
+                .build();
+    }
+
+    private static String describe(DJIError error) {
+        return error == null ? null : error.getDescription();
+    }
+
+    private WaypointMissionOperator operator() {
+        if (operator == null && DJISDKManager.getInstance().getMissionControl() != null) {
+            operator = DJISDKManager.getInstance().getMissionControl().getWaypointMissionOperator();
+            operator.addListener(this);
+        }
+        return operator;
+    }
+}
@@ -0,0 +1,128 @@
+package ai.swiftlabs.aircraftlocation.sdk;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import ai.swiftlabs.aircraftlocation.DJIDemoApplication;
+import ai.swiftlabs.aircraftlocation.mission.MissionOperator;
+import dji.common.battery.BatteryState;
+import dji.common.flightcontroller.Attitude;
+import dji.common.flightcontroller.FlightControllerState;
+import dji.common.flightcontroller.LocationCoordinate3D;
+import dji.sdk.base.BaseProduct;
+import dji.sdk.battery.Battery;
+import dji.sdk.flightcontroller.FlightController;
+import dji.sdk.products.Aircraft;
+
+/**
+ * {@link AircraftSdk} on top of DJI Mobile SDK. Subscribed to {@link #COMPONENTS} of the
+ * {@link ConnectionEventBus}, it looks up the flight controller or battery again when that component or the
+ * product changed, and registers the callbacks set so far only with an instance it has not registered them
+ * with yet.
+ */
+public class DjiAircraftSdk implements AircraftSdk, ConnectionEventBus.Listener {
+
+    public static final Set<ConnectionEventBus.Component> COMPONENTS = EnumSet.of(
+            ConnectionEventBus.Component.PRODUCT,
+            ConnectionEventBus.Component.FLIGHT_CONTROLLER,
+            ConnectionEventBus.Component.BATTERY);
+
+    private final MissionOperator missionOperator;
+    private final List<ConnectionListener> connectionListeners = new CopyOnWriteArrayList<>();
+    private FlightController flightController;
+    private Battery battery;
+    // The SDK callbacks wrapping the ones set, made once per set.
+    private FlightControllerState.Callback stateCallback;
+    private BatteryState.Callback batteryCallback;
+    private boolean connected;
+
+    public DjiAircraftSdk(MissionOperator missionOperator) {
+        this.missionOperator = missionOperator;
+    }
+
+    @Override
+    public void onChange(ConnectionEventBus.Change change) {
+        boolean changed;
+        boolean productConnected;
+        synchronized (this) {
+            BaseProduct product = DJIDemoApplication.getProductInstance();
+            productConnected = change.isConnected(ConnectionEventBus.Component.PRODUCT);
+            boolean productChanged = change.changed(ConnectionEventBus.Component.PRODUCT);
+            if (productConnected && product instanceof Aircraft) {
+                // Keep the last known components while disconnected, as the SDK keeps their callbacks.
+                FlightController currentFlightController = ((Aircraft) product).getFlightController();
+                if ((productChanged || change.changed(ConnectionEventBus.Component.FLIGHT_CONTROLLER))
+                        && currentFlightController != null && currentFlightController != flightController) {
+                    flightController = currentFlightController;
+                    flightController.setStateCallback(stateCallback);
+                }
+                Battery currentBattery = product.getBattery();
+                if ((productChanged || change.changed(ConnectionEventBus.Component.BATTERY))
+                        && currentBattery != null && currentBattery != battery) {
+                    battery = currentBattery;
+                    battery.setStateCallback(batteryCallback);
+                }
+            }
+            changed = connected != productConnected;
+            connected = productConnected;
+        }
+        if (changed) {
+            for (ConnectionListener listener : connectionListeners) {
+                listener.onConnectionChanged(productConnected);
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void addConnectionListener(ConnectionListener listener) {
+        connectionListeners.add(listener);
+    }
+
+    @Override
+    public void removeConnectionListener(ConnectionListener listener) {
+        connectionListeners.remove(listener);
+    }
+
+    @Override
+    public synchronized void setStateCallback(StateCallback callback) {
+        stateCallback = callback == null ? null : state -> {
+            LocationCoordinate3D location = state.getAircraftLocation();
+            Attitude attitude = state.getAttitude();
+            // System.nanoTime() is also the clock of Choreographer frame times, see LiveAircraftFeed.
+            callback.onState(System.nanoTime(),
+                    location.getLatitude(),
+                    location.getLongitude(),
+                    location.getAltitude(),
+                    state.getVelocityX(),
+                    state.getVelocityY(),
+                    state.getVelocityZ(),
+                    (float) attitude.pitch,
+                    (float) attitude.roll,
+                    (float) attitude.yaw);
+        };
+        if (flightController != null) {
+            flightController.setStateCallback(stateCallback);
+        }
+    }
+
+    @Override
+    public synchronized void setBatteryCallback(BatteryCallback callback) {
+        batteryCallback = callback == null ? null
+                : state -> callback.onBatteryChanged(state.getChargeRemainingInPercent());
+        if (battery != null) {
+            battery.setStateCallback(batteryCallback);
+        }
+    }
+
+    @Override
+    public MissionOperator missionOperator() {
+        return missionOperator;
+    }
+}
@@ -0,0 +1,144 @@
+package ai.swiftlabs.aircraftlocation.fleet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import ai.swiftlabs.aircraftlocation.render.AircraftPositionRenderer;
+import ai.swiftlabs.aircraftlocation.render.FrameScheduler;
+import ai.swiftlabs.aircraftlocation.render.VisibleAircraftProducer;
+
+/**
+ * Per-frame cost of rendering a large fleet of which 50 aircraft are inside the viewport.
+ *
+ * <p>{@code frame} moves the visible aircraft and renders through {@link VisibleAircraftProducer}; its
+ * cost should stay flat as {@code aircraft} grows. {@code frameWithoutIndex} pushes every aircraft to
+ * the sink, which is what rendering without a spatial index amounts to. {@code ingest} is the cost of
+ * one position update, grid maintenance included.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class FleetRenderBenchmark {
+
+    private static final int VISIBLE = 50;
+    private static final double SOUTH = -1.40;
+    private static final double WEST = 36.80;
+    private static final double NORTH = -1.20;
+    private static final double EAST = 37.00;
+
+    @Param({"1000", "10000", "100000"})
+    public int aircraft;
+
+    private AircraftRegistry registry;
+    private AircraftPositionRenderer renderer;
+    private AircraftPositionRenderer unindexedRenderer;
+    private CountingSink sink;
+    private int frame;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        registry = new AircraftRegistry(aircraft, new SpatialGrid());
+        for (int i = 0; i < aircraft; i++) {
+            int index = registry.register("sim-" + i);
+            double lat;
+            double lng;
+            if (i < VISIBLE) {
+                lat = SOUTH + random.nextDouble() * (NORTH - SOUTH);
+                lng = WEST + random.nextDouble() * (EAST - WEST);
+            } else {
+                // Spread the rest over East Africa, outside the viewport.
+                do {
+                    lat = -12 + random.nextDouble() * 17;
+                    lng = 29 + random.nextDouble() * 13;
+                } while (lat >= SOUTH && lat <= NORTH && lng >= WEST && lng <= EAST);
+            }
+            registry.update(index, lat, lng, 100f, random.nextFloat() * 360f, 0);
+        }
+
+        sink = new CountingSink();
+        FrameScheduler manual = new FrameScheduler() {
+            @Override
+            public void postFrameCallback(FrameCallback callback) {
+            }
+        };
+        renderer = new AircraftPositionRenderer(manual, sink, 256);
+        VisibleAircraftProducer visible = new VisibleAircraftProducer(registry, 256);
+        visible.setViewport(SOUTH, WEST, NORTH, EAST);
+        renderer.addProducer(visible);
+        renderer.doFrame(0);
+        if (visible.visibleCount() != VISIBLE) {
+            throw new IllegalStateException("expected " + VISIBLE + " visible, got " + visible.visibleCount());
+        }
+
+        unindexedRenderer = new AircraftPositionRenderer(manual, sink, aircraft);
+        unindexedRenderer.addProducer(new AircraftPositionRenderer.Producer() {
+            @Override
+            public void produce(AircraftPositionRenderer renderer, long frameTimeNanos) {
+                for (int i = 0; i < registry.size(); i++) {
+                    renderer.show(i, registry.latitude(i), registry.longitude(i), registry.heading(i));
+                }
+            }
+        });
+    }
+
+    @Benchmark
+    public long frame() {
+        moveVisible();
+        renderer.doFrame(frame);
+        return sink.shown;
+    }
+
+    @Benchmark
+    public long frameWithoutIndex() {
+        moveVisible();
+        unindexedRenderer.doFrame(frame);
+        return sink.shown;
+    }
+
+    @Benchmark
+    public int ingest() {
+        int index = next;
+        next = next + 1 == aircraft ? 0 : next + 1;
+        double drift = ((frame++ & 1) == 0 ? 1 : -1) * 1e-4;
+        registry.update(index, registry.latitude(index) + drift, registry.longitude(index) + drift,
+                100f, registry.heading(index), frame);
+        return index;
+    }
+
+    private void moveVisible() {
+        double drift = ((frame++ & 1) == 0 ? 1 : -1) * 1e-5;
+        for (int i = 0; i < VISIBLE; i++) {
+            registry.update(i, registry.latitude(i) + drift, registry.longitude(i) + drift,
+                    100f, registry.heading(i), frame);
+        }
+    }
+
+    static final class CountingSink implements AircraftPositionRenderer.Sink {
+        long shown;
+
+        @Override
+        public void show(int slot, double latitude, double longitude, float bearing) {
+            shown++;
+        }
+
+        @Override
+        public void hide(int slot) {
+        }
+
+        @Override
+        public void commit() {
+        }
+    }
+}
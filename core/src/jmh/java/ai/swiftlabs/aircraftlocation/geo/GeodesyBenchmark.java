@@ -0,0 +1,94 @@
+package ai.swiftlabs.aircraftlocation.geo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of each {@link Geodesy} formula over a 1,024-point path, against its accuracy.
+ *
+ * <p>Scores are per leg. At the end of each trial the worst relative error of the faster formulas
+ * against {@link Geodesy#vincenty} on the same legs is printed, in parts per million; legs are up to
+ * {@code legMeters} long.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class GeodesyBenchmark {
+
+    private static final int POINTS = 1024;
+
+    @Param({"100", "2000", "10000"})
+    public double legMeters;
+
+    private final double[] latitudes = new double[POINTS];
+    private final double[] longitudes = new double[POINTS];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        latitudes[0] = -1.30;
+        longitudes[0] = 36.89;
+        for (int i = 1; i < POINTS; i++) {
+            double distance = random.nextDouble() * legMeters;
+            double bearing = random.nextDouble() * 2 * Math.PI;
+            double lat = latitudes[i - 1] + Math.toDegrees(distance * Math.cos(bearing) / Geodesy.EARTH_RADIUS_METERS);
+            latitudes[i] = Math.max(-70, Math.min(70, lat));
+            longitudes[i] = longitudes[i - 1] + Math.toDegrees(distance * Math.sin(bearing)
+                    / Geodesy.EARTH_RADIUS_METERS / Math.cos(Math.toRadians(latitudes[i - 1])));
+        }
+    }
+
+    /** Accuracy does not depend on timing, so it is measured once and printed with the trial output. */
+    @TearDown(Level.Trial)
+    public void reportAccuracy() {
+        System.out.printf("max error vs vincenty, %.0f m legs: haversine %.1f ppm, equirectangular %.1f ppm"
+                        + " (equirectangular vs haversine %.3f ppm)%n", legMeters,
+                maxErrorPpm(Geodesy.Formula.HAVERSINE, Geodesy.Formula.VINCENTY),
+                maxErrorPpm(Geodesy.Formula.EQUIRECTANGULAR, Geodesy.Formula.VINCENTY),
+                maxErrorPpm(Geodesy.Formula.EQUIRECTANGULAR, Geodesy.Formula.HAVERSINE));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS - 1)
+    public double haversine() {
+        return Geodesy.pathLength(Geodesy.Formula.HAVERSINE, latitudes, longitudes, POINTS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS - 1)
+    public double vincenty() {
+        return Geodesy.pathLength(Geodesy.Formula.VINCENTY, latitudes, longitudes, POINTS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS - 1)
+    public double equirectangular() {
+        return Geodesy.pathLength(Geodesy.Formula.EQUIRECTANGULAR, latitudes, longitudes, POINTS);
+    }
+
+    private double maxErrorPpm(Geodesy.Formula formula, Geodesy.Formula reference) {
+        double worst = 0;
+        for (int i = 1; i < POINTS; i++) {
+            double expected = Geodesy.distance(reference, latitudes[i - 1], longitudes[i - 1], latitudes[i],
+                    longitudes[i]);
+            if (expected < 1) {
+                continue;
+            }
+            double value = Geodesy.distance(formula, latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+            worst = Math.max(worst, Math.abs(value - expected) / expected * 1e6);
+        }
+        return worst;
+    }
+}
@@ -0,0 +1,131 @@
+package ai.swiftlabs.aircraftlocation.geofence;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import ai.swiftlabs.aircraftlocation.mission.ActionType;
+import ai.swiftlabs.aircraftlocation.mission.MissionLimits;
+import ai.swiftlabs.aircraftlocation.mission.MissionPlan;
+import ai.swiftlabs.aircraftlocation.mission.MissionSettings;
+import ai.swiftlabs.aircraftlocation.mission.MissionValidator;
+import ai.swiftlabs.aircraftlocation.mission.WaypointStore;
+
+/**
+ * Geofence checks over {@code fences} polygons of {@code vertices} vertices each, a few hundred meters
+ * across and scattered over a 2&deg; square: one live sample through the {@link GeofenceMonitor}, the same
+ * point tested against every fence as it would be without the index, and the validation of a 1000-waypoint
+ * survey mission. The live check should stay flat as fences are added.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class GeofenceBenchmark {
+
+    private static final int SAMPLES = 4096;
+    private static final int MISSION_WAYPOINTS = 1000;
+    // The missions and the flight are kept within the area under the fences.
+    private static final double SOUTH = -1;
+    private static final double WEST = 36;
+    private static final double SIZE = 2;
+
+    @Param({"100", "10000"})
+    public int fences;
+
+    @Param({"8", "256"})
+    public int vertices;
+
+    private GeofenceIndex index;
+    private GeofenceMonitor monitor;
+    private MissionValidator validator;
+    private MissionPlan mission;
+    private final double[] latitudes = new double[SAMPLES];
+    private final double[] longitudes = new double[SAMPLES];
+    private int sample;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<Geofence> list = new ArrayList<>(fences);
+        for (int id = 0; id < fences; id++) {
+            double lat = SOUTH + random.nextDouble() * SIZE;
+            double lng = WEST + random.nextDouble() * SIZE;
+            double[] lats = new double[vertices];
+            double[] lngs = new double[vertices];
+            for (int i = 0; i < vertices; i++) {
+                double angle = 2 * Math.PI * i / vertices;
+                double radius = (0.5 + random.nextDouble()) * 0.003;
+                lats[i] = lat + radius * Math.sin(angle);
+                lngs[i] = lng + radius * Math.cos(angle);
+            }
+            list.add(new Geofence(id, null, id % 10 == 0 ? Geofence.Kind.KEEP_IN : Geofence.Kind.KEEP_OUT,
+                    lats, lngs));
+        }
+        index = new GeofenceIndex(list);
+        monitor = new GeofenceMonitor(index, GeofenceMonitor.DEFAULT_HYSTERESIS_METERS,
+                new GeofenceMonitor.Listener() {
+                    @Override
+                    public void onFenceChanged(Geofence fence, boolean inside) {
+                    }
+
+                    @Override
+                    public void onBreachChanged(boolean breached) {
+                    }
+                });
+        validator = new MissionValidator(MissionLimits.DJI_WAYPOINT_V1, index);
+
+        // A straight flight at 10 m/s sampled at 10 Hz, wrapping round.
+        double lat = SOUTH + SIZE / 2;
+        double lng = WEST + 0.1;
+        for (int i = 0; i < SAMPLES; i++) {
+            latitudes[i] = lat;
+            longitudes[i] = lng + i * 1e-5;
+        }
+        WaypointStore store = new WaypointStore();
+        for (int i = 0; i < MISSION_WAYPOINTS; i++) {
+            // Survey lines 100 m apart, 10 waypoints each.
+            int line = i / 10;
+            int along = line % 2 == 0 ? i % 10 : 9 - i % 10;
+            store.add(lat + line * 1e-3, lng + along * 1e-3, 60f, ActionType.START_TAKE_PHOTO, 0);
+        }
+        mission = MissionPlan.snapshot(store, new MissionSettings(60f, 10f, MissionSettings.FinishedAction.GO_HOME,
+                MissionSettings.HeadingMode.AUTO));
+    }
+
+    @Benchmark
+    public int liveSample() {
+        int i = sample++ & (SAMPLES - 1);
+        monitor.update(latitudes[i], longitudes[i]);
+        return monitor.insideCount();
+    }
+
+    @Benchmark
+    public int liveSampleWithoutIndex() {
+        int i = sample++ & (SAMPLES - 1);
+        double lat = latitudes[i];
+        double lng = longitudes[i];
+        int inside = 0;
+        for (int fence = 0; fence < index.size(); fence++) {
+            if (index.fence(fence).contains(lat, lng)) {
+                inside++;
+            }
+        }
+        return inside;
+    }
+
+    @Benchmark
+    public int validateMission() {
+        return validator.validate(mission).size();
+    }
+}
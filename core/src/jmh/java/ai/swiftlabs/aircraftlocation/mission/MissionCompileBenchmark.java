@@ -0,0 +1,89 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mission build time against waypoint count.
+ *
+ * <p>{@code compile} is the whole {@link MissionCompiler} pass the Upload button triggers: snapshot,
+ * settings, validation and a load into a target that accepts everything, with both executors running
+ * inline. Validation uses the DJI limits without the waypoint cap, so large routes are validated in full
+ * instead of being rejected on their size. {@code segment} is the extra work for routes over the cap:
+ * splitting into {@link MissionSegmenter} segments and validating each one.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class MissionCompileBenchmark {
+
+    private static final MissionSettings SETTINGS = new MissionSettings(60f, 10f,
+            MissionSettings.FinishedAction.GO_HOME, MissionSettings.HeadingMode.AUTO);
+    private static final MissionLimits UNCAPPED = new MissionLimits(2, Integer.MAX_VALUE, 0.5, 2000, -200, 500, 15);
+
+    @Param({"10", "99", "1000", "10000"})
+    public int waypoints;
+
+    private WaypointStore store;
+    private MissionPlan route;
+    private MissionCompiler compiler;
+    private final MissionValidator segmentValidator = new MissionValidator(MissionLimits.DJI_WAYPOINT_V1);
+    private MissionCompiler.Report report;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new WaypointStore(waypoints);
+        for (int i = 0; i < waypoints; i++) {
+            // A survey-like zig-zag, 20 m between lines.
+            store.add(-1.30 + i * 1.8e-4, 36.89 + (i % 2) * 9e-4, 60f, ActionType.START_TAKE_PHOTO, 0);
+        }
+        route = MissionPlan.snapshot(store, SETTINGS);
+        Executor inline = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        compiler = new MissionCompiler(new MissionValidator(UNCAPPED), new MissionCompiler.Target() {
+            @Override
+            public String load(MissionPlan plan) {
+                return null;
+            }
+        }, inline, inline);
+    }
+
+    @Benchmark
+    public MissionCompiler.Outcome compile() {
+        compiler.compile(store, SETTINGS, new MissionCompiler.Callback() {
+            @Override
+            public void onCompiled(MissionCompiler.Report compiled) {
+                report = compiled;
+            }
+        });
+        if (report.outcome() != MissionCompiler.Outcome.LOADED) {
+            throw new IllegalStateException(report.toString());
+        }
+        return report.outcome();
+    }
+
+    @Benchmark
+    public int segment() {
+        List<MissionPlan> segments = MissionSegmenter.split(route, MissionLimits.DJI_WAYPOINT_V1.maxWaypoints());
+        int violations = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            violations += segmentValidator.validate(segments.get(i)).size();
+        }
+        return violations;
+    }
+}
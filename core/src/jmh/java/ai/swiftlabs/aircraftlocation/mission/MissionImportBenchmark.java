@@ -0,0 +1,171 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import and export throughput of {@link MissionImporter} and {@link MissionExporter}.
+ *
+ * <p>{@code importRoute} reads a route the way survey teams hand them over: a single KML or GeoJSON
+ * LineString, or a CSV row per vertex, of 1,000 or 100,000 vertices 10 m apart with altitudes. The files
+ * are in memory, so this is parsing alone; the store is reused. {@code importExported} reads what
+ * {@code exportMission} writes, a Point with its action per waypoint; exporting writes to a writer that
+ * only counts characters. File sizes are printed at the start of the trial, for megabytes per second.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class MissionImportBenchmark {
+
+    private static final MissionSettings SETTINGS = new MissionSettings(Float.NaN, 10f,
+            MissionSettings.FinishedAction.GO_HOME, MissionSettings.HeadingMode.AUTO);
+
+    @Param({"KML", "GEOJSON", "CSV"})
+    public MissionFormat format;
+
+    @Param({"1000", "100000"})
+    public int vertices;
+
+    private final MissionImporter importer = new MissionImporter(60f, ActionType.START_TAKE_PHOTO, 0,
+            MissionImporter.DEFAULT_MAX_WAYPOINTS);
+    private WaypointStore store;
+    private MissionPlan plan;
+    private byte[] route;
+    private byte[] exported;
+    private final CountingWriter sink = new CountingWriter();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        store = new WaypointStore(vertices);
+        WaypointStore source = new WaypointStore(vertices);
+        for (int i = 0; i < vertices; i++) {
+            source.add(latitude(i), longitude(i), altitude(i), ActionType.START_TAKE_PHOTO, i % 3);
+        }
+        plan = MissionPlan.snapshot(source, SETTINGS);
+        route = route().getBytes(MissionImporter.UTF_8);
+        exported = export();
+        System.out.printf(Locale.US, "%s, %d vertices: route %.2f MB, exported %.2f MB%n", format, vertices,
+                route.length / 1e6, exported.length / 1e6);
+    }
+
+    @Benchmark
+    public int importRoute() throws IOException {
+        store.clear();
+        return importer.read(new ByteArrayInputStream(route), format, store, null);
+    }
+
+    @Benchmark
+    public int importExported() throws IOException {
+        store.clear();
+        return importer.read(new ByteArrayInputStream(exported), format, store, null);
+    }
+
+    @Benchmark
+    public long exportMission() throws IOException {
+        sink.count = 0;
+        MissionExporter.write(plan, format, sink);
+        return sink.count;
+    }
+
+    private byte[] export() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(vertices * 64);
+        Writer out = new BufferedWriter(new OutputStreamWriter(bytes, MissionImporter.UTF_8));
+        MissionExporter.write(plan, format, out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /** Counts what is written, so that exporting is measured without encoding or storing the file. */
+    private static final class CountingWriter extends Writer {
+        long count;
+
+        @Override
+        public void write(int c) {
+            count++;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void write(String text, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /** The route as a GIS would write it, with coordinates in full double precision. */
+    private String route() {
+        StringBuilder out = new StringBuilder(vertices * 48);
+        switch (format) {
+            case KML:
+                out.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                        .append("<kml xmlns=\"http://www.opengis.net/kml/2.2\"><Document>")
+                        .append("<Placemark><name>Route</name><LineString>")
+                        .append("<altitudeMode>relativeToGround</altitudeMode><coordinates>\n");
+                for (int i = 0; i < vertices; i++) {
+                    out.append(longitude(i)).append(',').append(latitude(i)).append(',').append(altitude(i))
+                            .append('\n');
+                }
+                out.append("</coordinates></LineString></Placemark></Document></kml>\n");
+                break;
+            case GEOJSON:
+                out.append("{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",")
+                        .append("\"properties\":{\"name\":\"Route\"},")
+                        .append("\"geometry\":{\"type\":\"LineString\",\"coordinates\":[");
+                for (int i = 0; i < vertices; i++) {
+                    out.append(i == 0 ? "[" : ",[").append(longitude(i)).append(',').append(latitude(i))
+                            .append(',').append(altitude(i)).append(']');
+                }
+                out.append("]}}]}\n");
+                break;
+            default:
+                out.append("latitude,longitude,altitude\n");
+                for (int i = 0; i < vertices; i++) {
+                    out.append(latitude(i)).append(',').append(longitude(i)).append(',').append(altitude(i))
+                            .append('\n');
+                }
+                break;
+        }
+        return out.toString();
+    }
+
+    // Lines 30 m apart with a vertex every 10 m.
+    private static double latitude(int i) {
+        return -1.30 + (i / 100) * 2.7e-4;
+    }
+
+    private static double longitude(int i) {
+        int along = (i / 100) % 2 == 0 ? i % 100 : 99 - i % 100;
+        return 36.89 + along * 9e-5;
+    }
+
+    private static float altitude(int i) {
+        return 60f + (i % 7) * 0.5f;
+    }
+}
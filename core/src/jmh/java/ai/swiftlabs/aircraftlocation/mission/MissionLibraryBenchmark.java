@@ -0,0 +1,187 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and loading missions in the {@link MissionLibrary} format against JSON.
+ *
+ * <p>{@code encode}/{@code decode} are the binary body in memory, {@code encodeJson}/{@code decodeJson}
+ * the same mission as the JSON a hand-written writer and scanner produce and read, without a library's
+ * overhead. {@code load} decodes the mission from a file-backed library of 2,000 missions, and
+ * {@code open} and {@code search} read and filter that library's index. Body sizes are printed at the
+ * start of the trial.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class MissionLibraryBenchmark {
+
+    private static final MissionSettings SETTINGS = new MissionSettings(60f, 10f,
+            MissionSettings.FinishedAction.GO_HOME, MissionSettings.HeadingMode.AUTO);
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int LIBRARY_MISSIONS = 2000;
+
+    @Param({"100", "10000"})
+    public int waypoints;
+
+    private MissionPlan plan;
+    private ByteBuffer body;
+    private int bodyBytes;
+    private byte[] json;
+    private File directory;
+    private MissionLibrary library;
+    private long id;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        plan = survey(-1.30, 36.89, waypoints);
+        body = ByteBuffer.allocate(MissionLibraryFormat.maxBodyBytes(waypoints)).order(ByteOrder.LITTLE_ENDIAN);
+        MissionLibraryFormat.encode(plan, body);
+        bodyBytes = body.position();
+        json = writeJson();
+
+        directory = File.createTempFile("missions", "");
+        if (!directory.delete() || !directory.mkdir()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        library = MissionLibrary.open(directory);
+        for (int i = 0; i < LIBRARY_MISSIONS; i++) {
+            library.save("Site " + i, survey(-1.30 + (i % 50) * 0.01, 36.89 + (i / 50) * 0.01, 20));
+        }
+        id = library.save("Benchmark", plan).id();
+        System.out.printf(Locale.US, "%d waypoints: binary %d bytes, JSON %d bytes%n", waypoints, bodyBytes,
+                json.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        library.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public int encode() {
+        body.clear();
+        MissionLibraryFormat.encode(plan, body);
+        return body.position();
+    }
+
+    @Benchmark
+    public MissionPlan decode() {
+        body.position(0);
+        return MissionLibraryFormat.decode(body, bodyBytes);
+    }
+
+    @Benchmark
+    public int encodeJson() {
+        return writeJson().length;
+    }
+
+    @Benchmark
+    public MissionPlan decodeJson() {
+        return readJson(json);
+    }
+
+    @Benchmark
+    public MissionPlan load() throws IOException {
+        return library.load(id);
+    }
+
+    @Benchmark
+    public int open() throws IOException {
+        try (MissionLibrary reopened = MissionLibrary.open(directory)) {
+            return reopened.size();
+        }
+    }
+
+    @Benchmark
+    public List<MissionLibrary.Entry> search() {
+        return library.search("site 1", -1.2, 36.9, -1.0, 37.0);
+    }
+
+    private byte[] writeJson() {
+        StringBuilder out = new StringBuilder(waypoints * 96);
+        MissionSettings settings = plan.settings();
+        out.append("{\"altitude\":").append(settings.altitude())
+                .append(",\"speed\":").append(settings.speed())
+                .append(",\"finishedAction\":").append(settings.finishedAction().ordinal())
+                .append(",\"headingMode\":").append(settings.headingMode().ordinal())
+                .append(",\"waypoints\":[");
+        for (int i = 0; i < plan.size(); i++) {
+            out.append(i == 0 ? "{" : ",{")
+                    .append("\"latitude\":").append(plan.latitude(i))
+                    .append(",\"longitude\":").append(plan.longitude(i))
+                    .append(",\"altitude\":").append(plan.altitude(i))
+                    .append(",\"action\":").append(plan.action(i).ordinal())
+                    .append(",\"actionParam\":").append(plan.actionParam(i))
+                    .append('}');
+        }
+        return out.append("]}").toString().getBytes(UTF_8);
+    }
+
+    /** Reads what {@link #writeJson()} writes, taking each value in order after its key. */
+    private static MissionPlan readJson(byte[] bytes) {
+        String text = new String(bytes, UTF_8);
+        int[] at = {0};
+        float altitudeSetting = (float) number(text, at);
+        float speed = (float) number(text, at);
+        MissionSettings settings = new MissionSettings(altitudeSetting, speed,
+                MissionSettings.FinishedAction.values()[(int) number(text, at)],
+                MissionSettings.HeadingMode.values()[(int) number(text, at)]);
+        WaypointStore store = new WaypointStore();
+        at[0] = text.indexOf('[', at[0]);
+        while (text.indexOf(':', at[0]) >= 0) {
+            double latitude = number(text, at);
+            double longitude = number(text, at);
+            float altitude = (float) number(text, at);
+            ActionType action = ActionType.fromCode((int) number(text, at));
+            store.add(latitude, longitude, altitude, action, (int) number(text, at));
+        }
+        return MissionPlan.snapshot(store, settings);
+    }
+
+    private static double number(String text, int[] at) {
+        int start = text.indexOf(':', at[0]) + 1;
+        int end = start;
+        while (end < text.length() && ",}]".indexOf(text.charAt(end)) < 0) {
+            end++;
+        }
+        at[0] = end;
+        return Double.parseDouble(text.substring(start, end));
+    }
+
+    private static MissionPlan survey(double latitude, double longitude, int waypoints) {
+        WaypointStore store = new WaypointStore(waypoints);
+        for (int i = 0; i < waypoints; i++) {
+            // Lines 30 m apart with a photo every 10 m.
+            int line = i / 50;
+            int along = line % 2 == 0 ? i % 50 : 49 - i % 50;
+            store.add(latitude + line * 2.7e-4, longitude + along * 9e-5, 60f, ActionType.START_TAKE_PHOTO, 0);
+        }
+        return MissionPlan.snapshot(store, SETTINGS);
+    }
+}
@@ -0,0 +1,88 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@link PathOptimizer} stages on missions of 100 to 5,000 waypoints.
+ *
+ * <p>{@code reorder} runs on waypoints scattered over a 5 km square in random order; the simplifiers run
+ * on a meandering 2 m-noise track, the shape a hand-drawn or imported route has. The distance each stage
+ * saves is printed at the end of the trial.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class PathOptimizerBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    public int waypoints;
+
+    private final PathOptimizer optimizer = new PathOptimizer();
+    private final PathOptimizer.Options reorder =
+            new PathOptimizer.Options(true, PathOptimizer.Simplification.NONE, 0);
+    private final PathOptimizer.Options douglasPeucker =
+            new PathOptimizer.Options(false, PathOptimizer.Simplification.DOUGLAS_PEUCKER, 5);
+    private final PathOptimizer.Options visvalingam =
+            new PathOptimizer.Options(false, PathOptimizer.Simplification.VISVALINGAM, 5);
+    private MissionPlan scattered;
+    private MissionPlan track;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MissionSettings settings = new MissionSettings(Float.NaN, 10f, MissionSettings.FinishedAction.GO_HOME,
+                MissionSettings.HeadingMode.AUTO);
+        Random random = new Random(11);
+        WaypointStore store = new WaypointStore(waypoints);
+        for (int i = 0; i < waypoints; i++) {
+            store.add(-1.30 + random.nextDouble() * 0.045, 36.89 + random.nextDouble() * 0.045, 60f,
+                    ActionType.START_TAKE_PHOTO, 0);
+        }
+        scattered = MissionPlan.snapshot(store, settings);
+
+        store.clear();
+        double heading = 0;
+        double lat = -1.30;
+        double lng = 36.89;
+        for (int i = 0; i < waypoints; i++) {
+            heading += random.nextGaussian() * 0.05;
+            lat += Math.cos(heading) * 20 / 111195 + random.nextGaussian() * 2 / 111195;
+            lng += Math.sin(heading) * 20 / 111195 + random.nextGaussian() * 2 / 111195;
+            store.add(lat, lng, 60f, ActionType.START_TAKE_PHOTO, 0);
+        }
+        track = MissionPlan.snapshot(store, settings);
+    }
+
+    @Benchmark
+    public PathOptimizer.Result reorder() throws InterruptedException {
+        return optimizer.optimize(scattered, reorder);
+    }
+
+    @Benchmark
+    public PathOptimizer.Result douglasPeucker() throws InterruptedException {
+        return optimizer.optimize(track, douglasPeucker);
+    }
+
+    @Benchmark
+    public PathOptimizer.Result visvalingam() throws InterruptedException {
+        return optimizer.optimize(track, visvalingam);
+    }
+
+    @TearDown(Level.Trial)
+    public void reportSavings() throws InterruptedException {
+        System.out.printf("%d waypoints: reorder %s; douglas-peucker %s; visvalingam %s%n", waypoints,
+                optimizer.optimize(scattered, reorder), optimizer.optimize(track, douglasPeucker),
+                optimizer.optimize(track, visvalingam));
+    }
+}
@@ -0,0 +1,113 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import ai.swiftlabs.aircraftlocation.render.FeatureBuffer;
+
+/**
+ * Java-side latency of adding a waypoint to a mission that already has 10, 100 or 1,000 of them.
+ *
+ * <p>{@code bufferedAdd} is the store plus {@link FeatureBuffer} path used by the waypoint layer; the
+ * new waypoint is removed again so the mission size stays put. {@code annotationAdd} models the
+ * annotation plugin, which serialises every annotation into a new GeoJSON document on each create.
+ * The single native source update per frame is not part of either number.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class WaypointAddBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int waypoints;
+
+    private WaypointStore store;
+    private FeatureBuffer<PointFeature> features;
+    private List<PointFeature> annotations;
+    private StringBuilder json;
+    private int tick;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new WaypointStore(waypoints + 1);
+        features = new FeatureBuffer<>(waypoints + 1);
+        annotations = new ArrayList<>(waypoints + 1);
+        json = new StringBuilder(64 * (waypoints + 1));
+        for (int i = 0; i < waypoints; i++) {
+            int handle = store.add(-1.30 + i * 1e-4, 36.89 + i * 1e-4, 100f, ActionType.START_TAKE_PHOTO, 0);
+            PointFeature feature = new PointFeature(handle, store.latitude(handle), store.longitude(handle), 100f);
+            features.put(handle, feature);
+            annotations.add(feature);
+        }
+    }
+
+    @Benchmark
+    public int bufferedAdd() {
+        double offset = (tick++ & 255) * 1e-6;
+        int handle = store.add(-1.29 + offset, 36.90 + offset, 100f, ActionType.START_TAKE_PHOTO, 0);
+        features.put(handle, new PointFeature(handle, store.latitude(handle), store.longitude(handle), 100f));
+        int size = features.size();
+        store.remove(handle);
+        features.remove(handle);
+        return size;
+    }
+
+    @Benchmark
+    public int bufferedMove() {
+        int handle = tick++ % waypoints;
+        double offset = (tick & 255) * 1e-6;
+        store.move(handle, -1.30 + offset, 36.89 + offset);
+        features.put(handle, new PointFeature(handle, store.latitude(handle), store.longitude(handle), 100f));
+        return features.size();
+    }
+
+    @Benchmark
+    public int annotationAdd() {
+        double offset = (tick++ & 255) * 1e-6;
+        annotations.add(new PointFeature(waypoints, -1.29 + offset, 36.90 + offset, 100f));
+        json.setLength(0);
+        json.append("{\"type\":\"FeatureCollection\",\"features\":[");
+        for (int i = 0; i < annotations.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            annotations.get(i).appendTo(json);
+        }
+        json.append("]}");
+        annotations.remove(annotations.size() - 1);
+        return json.length();
+    }
+
+    /** Stand-in for {@code com.mapbox.geojson.Feature}: a point with two number properties. */
+    static final class PointFeature {
+        final int handle;
+        final double latitude;
+        final double longitude;
+        final float altitude;
+
+        PointFeature(int handle, double latitude, double longitude, float altitude) {
+            this.handle = handle;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.altitude = altitude;
+        }
+
+        void appendTo(StringBuilder out) {
+            out.append("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[")
+                    .append(longitude).append(',').append(latitude)
+                    .append("]},\"properties\":{\"handle\":").append(handle)
+                    .append(",\"altitude\":").append(altitude).append("}}");
+        }
+    }
+}
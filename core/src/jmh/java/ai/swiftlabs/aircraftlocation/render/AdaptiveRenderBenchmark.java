@@ -0,0 +1,240 @@
+package ai.swiftlabs.aircraftlocation.render;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import ai.swiftlabs.aircraftlocation.fleet.AircraftRegistry;
+import ai.swiftlabs.aircraftlocation.mission.ActionType;
+import ai.swiftlabs.aircraftlocation.mission.MissionOperator;
+import ai.swiftlabs.aircraftlocation.mission.MissionPlan;
+import ai.swiftlabs.aircraftlocation.mission.MissionSettings;
+import ai.swiftlabs.aircraftlocation.mission.WaypointStore;
+import ai.swiftlabs.aircraftlocation.sdk.AircraftSdk;
+import ai.swiftlabs.aircraftlocation.sdk.SimulatedAircraft;
+import ai.swiftlabs.aircraftlocation.telemetry.TelemetryPipeline;
+
+/**
+ * Map work for one flight, drawing every sample ({@code fixed}) against drawing through an
+ * {@link AdaptiveRenderRate} ({@code adaptive}).
+ *
+ * <p>The flight is a 20-waypoint survey leg flown once on {@link SimulatedAircraft} at 10 Hz telemetry,
+ * about three minutes of aircraft time. Each operation replays its samples through the app's render path
+ * against a 60 Hz display, so the score is the CPU cost of drawing the whole flight. On a phone the energy
+ * goes mostly to waking up for frames and to rebuilding the symbol source; the counters report both as
+ * {@code wakeups} and {@code mapUpdates}, summed with {@code flights} so they can be read per flight.</p>
+ *
+ * <p>{@code scenario} sets the camera and app state: following the aircraft at zoom 17, an overview at
+ * zoom 11, the whole region at zoom 3, zoom 15 looking elsewhere, the activity paused, and zoom 17 on a
+ * phone with 8% battery.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class AdaptiveRenderBenchmark {
+
+    private static final double HOME_LATITUDE = -1.30;
+    private static final double HOME_LONGITUDE = 36.89;
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+    /** A 1080 x 2280 px phone screen. */
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 2280;
+    private static final double METERS_PER_DEGREE = 111_320;
+
+    @Param({"follow", "overview", "zoomedOut", "offscreen", "paused", "lowBattery"})
+    public String scenario;
+
+    private Flight flight;
+    private double zoom;
+    private double south;
+    private double west;
+    private double north;
+    private double east;
+
+    @Setup
+    public void setUp() {
+        flight = Flight.fly();
+        double centerLatitude = HOME_LATITUDE + 10 * 1.8e-4;
+        double centerLongitude = HOME_LONGITUDE;
+        zoom = 17;
+        if ("overview".equals(scenario)) {
+            zoom = 11;
+        } else if ("zoomedOut".equals(scenario)) {
+            zoom = 3;
+        } else if ("offscreen".equals(scenario)) {
+            zoom = 15;
+            centerLongitude += 0.1;
+        }
+        double metersPerPixel = AdaptiveRenderRate.metersPerPixel(centerLatitude, zoom);
+        double halfHeight = SCREEN_HEIGHT * metersPerPixel / METERS_PER_DEGREE / 2;
+        double halfWidth = SCREEN_WIDTH * metersPerPixel / METERS_PER_DEGREE / 2;
+        south = centerLatitude - halfHeight;
+        west = centerLongitude - halfWidth;
+        north = centerLatitude + halfHeight;
+        east = centerLongitude + halfWidth;
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Work {
+        public long flights;
+        public long wakeups;
+        public long mapUpdates;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            flights = 0;
+            wakeups = 0;
+            mapUpdates = 0;
+        }
+    }
+
+    @Benchmark
+    public long fixed(Work work) {
+        return draw(null, work);
+    }
+
+    @Benchmark
+    public long adaptive(Work work) {
+        AdaptiveRenderRate rate = new AdaptiveRenderRate();
+        rate.setZoom(zoom);
+        rate.setViewport(south, west, north, east);
+        if ("paused".equals(scenario)) {
+            rate.setLifecycle(AdaptiveRenderRate.Lifecycle.PAUSED);
+        } else if ("lowBattery".equals(scenario)) {
+            rate.setBattery(8, false);
+        }
+        return draw(rate, work);
+    }
+
+    private long draw(AdaptiveRenderRate rate, Work work) {
+        TelemetryPipeline pipeline = new TelemetryPipeline();
+        CountingDisplay display = new CountingDisplay();
+        AircraftRendererBenchmark.CountingSink sink = new AircraftRendererBenchmark.CountingSink();
+        AircraftPositionRenderer renderer = new AircraftPositionRenderer(display, sink, 1);
+        AircraftRegistry registry = new AircraftRegistry();
+        new LiveAircraftFeed(pipeline, renderer, registry, registry.register("live"), null, rate, null).attach();
+        VisibleAircraftProducer visible = new VisibleAircraftProducer(registry, 1);
+        visible.setViewport(south, west, north, east);
+        renderer.addProducer(visible);
+
+        Flight samples = flight;
+        long frameTime = samples.timestampNanos[0];
+        for (int i = 0; i < samples.size; i++) {
+            long timestamp = samples.timestampNanos[i];
+            while (frameTime < timestamp) {
+                display.pump(frameTime);
+                frameTime += FRAME_NANOS;
+            }
+            pipeline.publish(timestamp, samples.latitude[i], samples.longitude[i], samples.altitude[i],
+                    0f, 0f, 0f, 0f, 0f, samples.yaw[i]);
+        }
+        display.pump(frameTime);
+        work.flights++;
+        work.wakeups += display.wakeups;
+        work.mapUpdates += sink.commits;
+        return sink.commits;
+    }
+
+    /** A frame scheduler that counts the frames it runs, each of which wakes the phone up. */
+    static final class CountingDisplay implements FrameScheduler {
+        private FrameCallback pending;
+        long wakeups;
+
+        @Override
+        public void postFrameCallback(FrameCallback callback) {
+            pending = callback;
+        }
+
+        void pump(long frameTimeNanos) {
+            FrameCallback callback = pending;
+            pending = null;
+            if (callback != null) {
+                wakeups++;
+                callback.doFrame(frameTimeNanos);
+            }
+        }
+    }
+
+    /** The state samples of one simulated mission, from start to landing. */
+    static final class Flight implements AircraftSdk.StateCallback {
+        int size;
+        long[] timestampNanos = new long[4096];
+        double[] latitude = new double[4096];
+        double[] longitude = new double[4096];
+        float[] altitude = new float[4096];
+        float[] yaw = new float[4096];
+
+        static Flight fly() {
+            WaypointStore store = new WaypointStore();
+            for (int i = 1; i <= 20; i++) {
+                store.add(HOME_LATITUDE + i * 1.8e-4, HOME_LONGITUDE + (i % 2) * 4.5e-4, 60f,
+                        ActionType.START_TAKE_PHOTO, 0);
+            }
+            MissionPlan plan = MissionPlan.snapshot(store, new MissionSettings(60f, 8f,
+                    MissionSettings.FinishedAction.GO_HOME, MissionSettings.HeadingMode.AUTO));
+            SimulatedAircraft aircraft = new SimulatedAircraft(HOME_LATITUDE, HOME_LONGITUDE, 1);
+            final boolean[] finished = new boolean[1];
+            MissionOperator operator = aircraft.missionOperator();
+            operator.addListener(new MissionOperator.Listener() {
+                @Override
+                public void onUploadProgress(int uploadedWaypoints, int totalWaypoints) {
+                }
+
+                @Override
+                public void onExecutionProgress(int targetWaypoint, int totalWaypoints) {
+                }
+
+                @Override
+                public void onExecutionFinish(String error) {
+                    finished[0] = true;
+                }
+            });
+            MissionOperator.Completion ignore = new MissionOperator.Completion() {
+                @Override
+                public void onResult(String error) {
+                }
+            };
+            operator.load(plan);
+            operator.upload(ignore);
+            aircraft.advance(TimeUnit.SECONDS.toNanos(10));
+            Flight flight = new Flight();
+            aircraft.setStateCallback(flight);
+            operator.start(ignore);
+            while (!finished[0] || aircraft.isFlying()) {
+                aircraft.advance(TimeUnit.SECONDS.toNanos(1));
+            }
+            return flight;
+        }
+
+        @Override
+        public void onState(long timestampNanos, double latitude, double longitude, float altitude,
+                            float velocityNorth, float velocityEast, float velocityDown,
+                            float pitch, float roll, float yaw) {
+            if (size == this.timestampNanos.length) {
+                int capacity = size * 2;
+                this.timestampNanos = Arrays.copyOf(this.timestampNanos, capacity);
+                this.latitude = Arrays.copyOf(this.latitude, capacity);
+                this.longitude = Arrays.copyOf(this.longitude, capacity);
+                this.altitude = Arrays.copyOf(this.altitude, capacity);
+                this.yaw = Arrays.copyOf(this.yaw, capacity);
+            }
+            this.timestampNanos[size] = timestampNanos;
+            this.latitude[size] = latitude;
+            this.longitude[size] = longitude;
+            this.altitude[size] = altitude;
+            this.yaw[size] = yaw;
+            size++;
+        }
+    }
+}
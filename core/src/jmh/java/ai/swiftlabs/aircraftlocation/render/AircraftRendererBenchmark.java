@@ -0,0 +1,159 @@
+package ai.swiftlabs.aircraftlocation.render;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import ai.swiftlabs.aircraftlocation.fleet.AircraftRegistry;
+import ai.swiftlabs.aircraftlocation.telemetry.TelemetryPipeline;
+
+/**
+ * Cost of one telemetry tick on the render path.
+ *
+ * <p>{@code coalesced} publishes into a {@link TelemetryPipeline} and runs the same producers as the
+ * app ({@link LiveAircraftFeed} into an {@link AircraftRegistry}, then {@link VisibleAircraftProducer}),
+ * pumping a frame every {@code ticksPerFrame} ticks; {@code deleteAndCreate} models the previous behaviour where every tick
+ * deleted the symbol and created a new one. Run with {@code -prof gc} for allocations per tick;
+ * {@code sourceRebuilds / ticks} is how often the annotation GeoJSON source would have been
+ * regenerated per tick.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class AircraftRendererBenchmark {
+
+    /** 10 Hz telemetry against 60 Hz frames is 1, a fleet of 20 aircraft at 10 Hz is about 4. */
+    @Param({"1", "4", "20"})
+    public int ticksPerFrame;
+
+    private ManualFrameScheduler scheduler;
+    private CountingSink sink;
+    private TelemetryPipeline pipeline;
+    private LegacySymbolManager legacy;
+    private int tick;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        scheduler = new ManualFrameScheduler();
+        sink = new CountingSink();
+        pipeline = new TelemetryPipeline();
+        AircraftPositionRenderer renderer = new AircraftPositionRenderer(scheduler, sink, 1);
+        AircraftRegistry registry = new AircraftRegistry();
+        new LiveAircraftFeed(pipeline, renderer, registry, registry.register("live")).attach();
+        VisibleAircraftProducer visible = new VisibleAircraftProducer(registry, 1);
+        visible.setViewport(-2, 36, -1, 37);
+        renderer.addProducer(visible);
+        scheduler.pump(0);
+        legacy = new LegacySymbolManager();
+        tick = 0;
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Rebuilds {
+        public long sourceRebuilds;
+        public long ticks;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            sourceRebuilds = 0;
+            ticks = 0;
+        }
+    }
+
+    @Benchmark
+    public void coalesced(Rebuilds rebuilds) {
+        double offset = (tick & 1023) * 1e-6;
+        pipeline.publish(tick, -1.304321 + offset, 36.891058 + offset, 100f, 5f, 0f, 0f, 0f, 0f, tick & 359);
+        if (++tick % ticksPerFrame == 0) {
+            long before = sink.commits;
+            scheduler.pump(tick);
+            rebuilds.sourceRebuilds += sink.commits - before;
+        }
+        rebuilds.ticks++;
+    }
+
+    @Benchmark
+    public void deleteAndCreate(Rebuilds rebuilds, Blackhole blackhole) {
+        double offset = (tick & 1023) * 1e-6;
+        legacy.delete();
+        blackhole.consume(legacy.create(new double[]{-1.304321 + offset, 36.891058 + offset}, tick & 359));
+        tick++;
+        rebuilds.sourceRebuilds += 2;
+        rebuilds.ticks++;
+    }
+
+    static final class ManualFrameScheduler implements FrameScheduler {
+        private FrameCallback pending;
+
+        @Override
+        public void postFrameCallback(FrameCallback callback) {
+            pending = callback;
+        }
+
+        void pump(long frameTimeNanos) {
+            FrameCallback callback = pending;
+            pending = null;
+            if (callback != null) {
+                callback.doFrame(frameTimeNanos);
+            }
+        }
+    }
+
+    static final class CountingSink implements AircraftPositionRenderer.Sink {
+        long commits;
+        double lastLat;
+        double lastLng;
+        float lastBearing;
+
+        @Override
+        public void show(int slot, double latitude, double longitude, float bearing) {
+            lastLat = latitude;
+            lastLng = longitude;
+            lastBearing = bearing;
+        }
+
+        @Override
+        public void hide(int slot) {
+        }
+
+        @Override
+        public void commit() {
+            commits++;
+        }
+    }
+
+    /**
+     * Stand-in for the annotation plugin: each create allocates options and a symbol with its own
+     * property map, which is what the per-tick recreate used to cost on the Java side.
+     */
+    static final class LegacySymbolManager {
+        private Object symbol;
+
+        Object create(double[] latLng, float bearing) {
+            HashMap<String, Object> properties = new HashMap<>();
+            properties.put("icon-image", "airport");
+            properties.put("icon-size", 1.3f);
+            properties.put("icon-rotate", bearing);
+            properties.put("symbol-sort-key", 10.0f);
+            properties.put("latlng", latLng);
+            symbol = properties;
+            return symbol;
+        }
+
+        void delete() {
+            symbol = null;
+        }
+    }
+}
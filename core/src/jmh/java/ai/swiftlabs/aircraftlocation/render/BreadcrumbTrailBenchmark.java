@@ -0,0 +1,75 @@
+package ai.swiftlabs.aircraftlocation.render;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one telemetry sample on the breadcrumb trail: adding it, then finding and copying the segments
+ * that changed, as the map layer does on the next frame. {@code trackSamples} is how much was flown before
+ * measuring; the score should not grow with it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class BreadcrumbTrailBenchmark {
+
+    private static final long SAMPLE_NANOS = 100_000_000L;
+    // About 1.1 m north per sample, zig-zagging east and west so turns are kept too.
+    private static final long ZIGZAG_SAMPLES = 200;
+
+    @Param({"1000", "1000000"})
+    public int trackSamples;
+
+    @Param({"0", "2"})
+    public int displayLevel;
+
+    private BreadcrumbTrail trail;
+    private BreadcrumbTrail.Segments segments;
+    private final double[] latitudes = new double[BreadcrumbTrail.CHUNK_POINTS + 2];
+    private final double[] longitudes = new double[BreadcrumbTrail.CHUNK_POINTS + 2];
+    private long sample;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        trail = new BreadcrumbTrail();
+        segments = new BreadcrumbTrail.Segments();
+        for (sample = 0; sample < trackSamples; sample++) {
+            add();
+        }
+        draw();
+    }
+
+    @Benchmark
+    public int addAndRedraw() {
+        add();
+        sample++;
+        return draw();
+    }
+
+    private void add() {
+        long leg = sample % ZIGZAG_SAMPLES;
+        double across = (sample / ZIGZAG_SAMPLES) % 2 == 0 ? leg : ZIGZAG_SAMPLES - leg;
+        trail.add(sample * SAMPLE_NANOS, -1.3 + sample * 1e-5, 36.89 + across * 2e-6);
+    }
+
+    private int draw() {
+        int points = 0;
+        int count = trail.segments(displayLevel, segments);
+        for (int i = 0; i < count; i++) {
+            if (!segments.isDrawn(i)) {
+                points += trail.copy(segments, i, latitudes, longitudes);
+                segments.markDrawn(i);
+            }
+        }
+        return points;
+    }
+}
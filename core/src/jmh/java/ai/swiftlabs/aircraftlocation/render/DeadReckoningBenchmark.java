@@ -0,0 +1,63 @@
+package ai.swiftlabs.aircraftlocation.render;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import ai.swiftlabs.aircraftlocation.fleet.AircraftRegistry;
+import ai.swiftlabs.aircraftlocation.telemetry.TelemetryPipeline;
+
+/**
+ * Cost of one 60 Hz display frame of the live aircraft, animated by a {@link DeadReckoningPredictor}
+ * between 10 Hz samples. Every sixth frame reads a new sample. Run with {@code -prof gc}:
+ * {@code gc.alloc.rate.norm} should be zero.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class DeadReckoningBenchmark {
+
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+
+    private AircraftRendererBenchmark.ManualFrameScheduler display;
+    private AircraftRendererBenchmark.CountingSink sink;
+    private TelemetryPipeline pipeline;
+    private long frame;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        display = new AircraftRendererBenchmark.ManualFrameScheduler();
+        sink = new AircraftRendererBenchmark.CountingSink();
+        pipeline = new TelemetryPipeline();
+        AircraftPositionRenderer renderer = new AircraftPositionRenderer(display, sink, 1);
+        AircraftRegistry registry = new AircraftRegistry();
+        AdaptiveRenderRate rate = new AdaptiveRenderRate();
+        rate.setZoom(17);
+        new LiveAircraftFeed(pipeline, renderer, registry, registry.register("live"), null, rate,
+                new DeadReckoningPredictor()).attach();
+        VisibleAircraftProducer visible = new VisibleAircraftProducer(registry, 1);
+        visible.setViewport(-2, 36, -1, 37);
+        renderer.addProducer(visible);
+        frame = 0;
+    }
+
+    @Benchmark
+    public double predictedFrame() {
+        long now = frame * FRAME_NANOS;
+        if (frame % 6 == 0) {
+            // 8 m/s towards north-east, with the position a little off the prediction.
+            double offset = (frame & 1023) * 1e-6;
+            pipeline.publish(now, -1.304321 + offset, 36.891058 + offset, 60f, 5.6f, 5.6f, 0f, 0f, 0f, 45f);
+        }
+        display.pump(now);
+        frame++;
+        return sink.lastLat;
+    }
+}
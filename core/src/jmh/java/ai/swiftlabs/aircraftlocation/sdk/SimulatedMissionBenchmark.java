@@ -0,0 +1,90 @@
+package ai.swiftlabs.aircraftlocation.sdk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import ai.swiftlabs.aircraftlocation.mission.ActionType;
+import ai.swiftlabs.aircraftlocation.mission.MissionOperator;
+import ai.swiftlabs.aircraftlocation.mission.MissionPlan;
+import ai.swiftlabs.aircraftlocation.mission.MissionSettings;
+import ai.swiftlabs.aircraftlocation.mission.WaypointStore;
+import ai.swiftlabs.aircraftlocation.telemetry.FlightStateTelemetryAdapter;
+import ai.swiftlabs.aircraftlocation.telemetry.TelemetryPipeline;
+
+/**
+ * A whole mission on {@link SimulatedAircraft}, headless: load, upload, start, then fly a 99-waypoint
+ * survey leg and return home with every state sample published into a {@link TelemetryPipeline} through the
+ * app's {@link FlightStateTelemetryAdapter}. The score is the wall-clock cost of one simulated flight
+ * (about 19 minutes of aircraft time), so it tracks the telemetry and mission paths together.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class SimulatedMissionBenchmark {
+
+    private static final double HOME_LATITUDE = -1.30;
+    private static final double HOME_LONGITUDE = 36.89;
+
+    @Param({"10", "50"})
+    public int stateRateHz;
+
+    private MissionPlan plan;
+
+    @Setup
+    public void setUp() {
+        WaypointStore store = new WaypointStore();
+        for (int i = 1; i <= 99; i++) {
+            // A zig-zag 50 m wide advancing 20 m per waypoint.
+            store.add(HOME_LATITUDE + i * 1.8e-4, HOME_LONGITUDE + (i % 2) * 4.5e-4, 60f,
+                    ActionType.START_TAKE_PHOTO, 0);
+        }
+        plan = MissionPlan.snapshot(store, new MissionSettings(60f, 8f,
+                MissionSettings.FinishedAction.GO_HOME, MissionSettings.HeadingMode.AUTO));
+    }
+
+    @Benchmark
+    public long flyMission() {
+        SimulatedAircraft aircraft = new SimulatedAircraft(HOME_LATITUDE, HOME_LONGITUDE, 1);
+        aircraft.setStateRateHz(stateRateHz);
+        TelemetryPipeline pipeline = new TelemetryPipeline();
+        aircraft.setStateCallback(new FlightStateTelemetryAdapter(pipeline));
+        final boolean[] finished = new boolean[1];
+        MissionOperator operator = aircraft.missionOperator();
+        operator.addListener(new MissionOperator.Listener() {
+            @Override
+            public void onUploadProgress(int uploadedWaypoints, int totalWaypoints) {
+            }
+
+            @Override
+            public void onExecutionProgress(int targetWaypoint, int totalWaypoints) {
+            }
+
+            @Override
+            public void onExecutionFinish(String error) {
+                finished[0] = true;
+            }
+        });
+        MissionOperator.Completion ignore = new MissionOperator.Completion() {
+            @Override
+            public void onResult(String error) {
+            }
+        };
+        operator.load(plan);
+        operator.upload(ignore);
+        aircraft.advance(TimeUnit.SECONDS.toNanos(10));
+        operator.start(ignore);
+        long second = TimeUnit.SECONDS.toNanos(1);
+        while (!finished[0] || aircraft.isFlying()) {
+            aircraft.advance(second);
+        }
+        return pipeline.latestSequence();
+    }
+}
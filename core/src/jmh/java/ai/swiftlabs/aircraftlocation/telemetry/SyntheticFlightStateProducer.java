@@ -0,0 +1,75 @@
+package ai.swiftlabs.aircraftlocation.telemetry;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stands in for the DJI {@code FlightControllerState} callback thread: publishes the same fields the
+ * app reads from {@code FlightControllerState} at a fixed rate, for an aircraft circling at 10 m/s.
+ *
+ * <p>The roll field carries a checksum of the position bits so readers can detect torn samples.</p>
+ */
+public final class SyntheticFlightStateProducer implements Runnable {
+
+    private static final double CENTER_LAT = -1.304321;
+    private static final double CENTER_LNG = 36.891058;
+    private static final double RADIUS_DEG = 0.002;
+    private static final double METERS_PER_DEG = 111_320.0;
+    private static final double SPEED = 10.0;
+
+    private final TelemetryPipeline pipeline;
+    private final long periodNanos;
+    private volatile boolean running = true;
+    private Thread thread;
+
+    public SyntheticFlightStateProducer(TelemetryPipeline pipeline, int rateHz) {
+        this.pipeline = pipeline;
+        this.periodNanos = 1_000_000_000L / rateHz;
+    }
+
+    public void start() {
+        thread = new Thread(this, "synthetic-flight-state");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.join();
+        }
+    }
+
+    @Override
+    public void run() {
+        long next = System.nanoTime();
+        long tick = 0;
+        while (running) {
+            publish(pipeline, tick++, next);
+            next += periodNanos;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+    /** Publishes the state of the synthetic flight at the given tick. */
+    public static void publish(TelemetryPipeline pipeline, long tick, long timestampNanos) {
+        double angularSpeed = SPEED / (RADIUS_DEG * METERS_PER_DEG);
+        double angle = tick * 0.1 * angularSpeed;
+        double sin = Math.sin(angle);
+        double cos = Math.cos(angle);
+        double latitude = CENTER_LAT + RADIUS_DEG * sin;
+        double longitude = CENTER_LNG + RADIUS_DEG * cos;
+        float velocityNorth = (float) (SPEED * cos);
+        float velocityEast = (float) (-SPEED * sin);
+        float yaw = (float) Math.toDegrees(Math.atan2(velocityEast, velocityNorth));
+        pipeline.publish(timestampNanos, latitude, longitude, 100f,
+                velocityNorth, velocityEast, 0f, -5f, checksum(latitude, longitude), yaw);
+    }
+
+    public static float checksum(double latitude, double longitude) {
+        long bits = Double.doubleToRawLongBits(latitude) ^ Double.doubleToRawLongBits(longitude);
+        return (float) ((bits ^ (bits >>> 32)) & 0xFFFF);
+    }
+}
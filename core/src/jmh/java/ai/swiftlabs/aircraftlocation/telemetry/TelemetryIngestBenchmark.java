@@ -0,0 +1,95 @@
+package ai.swiftlabs.aircraftlocation.telemetry;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Telemetry ingestion under a synthetic flight controller.
+ *
+ * <p>{@code readLatest} runs several consumer threads (map, camera follow, logging) pulling the newest
+ * snapshot while {@link SyntheticFlightStateProducer} publishes at 10-200 Hz; {@code tornReads} must
+ * stay 0. {@code publish} is the writer-side cost per sample with no readers attached.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TelemetryIngestBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Feed {
+        @Param({"10", "50", "100", "200"})
+        public int rateHz;
+
+        TelemetryPipeline pipeline;
+        SyntheticFlightStateProducer producer;
+
+        @Setup(Level.Trial)
+        public void start() {
+            pipeline = new TelemetryPipeline();
+            producer = new SyntheticFlightStateProducer(pipeline, rateHz);
+            producer.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws InterruptedException {
+            producer.stop();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Consumer {
+        final TelemetrySnapshot snapshot = new TelemetrySnapshot();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Consistency {
+        public long tornReads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tornReads = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class WriterOnly {
+        TelemetryPipeline pipeline;
+        long tick;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            pipeline = new TelemetryPipeline();
+            tick = 0;
+        }
+    }
+
+    @Benchmark
+    @Threads(3)
+    public double readLatest(Feed feed, Consumer consumer, Consistency consistency) {
+        TelemetrySnapshot snapshot = consumer.snapshot;
+        if (feed.pipeline.readLatest(snapshot)
+                && snapshot.roll() != SyntheticFlightStateProducer.checksum(snapshot.latitude(), snapshot.longitude())) {
+            consistency.tornReads++;
+        }
+        return snapshot.latitude();
+    }
+
+    @Benchmark
+    public long publish(WriterOnly writer) {
+        long tick = writer.tick++;
+        SyntheticFlightStateProducer.publish(writer.pipeline, tick, tick);
+        return writer.pipeline.latestSequence();
+    }
+}
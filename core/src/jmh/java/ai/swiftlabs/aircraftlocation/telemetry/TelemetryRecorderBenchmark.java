@@ -0,0 +1,90 @@
+package ai.swiftlabs.aircraftlocation.telemetry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sustained recording rate of {@link TelemetryRecorder}.
+ *
+ * <p>{@code publishAndRecord} is the full cost on the SDK callback thread: publishing a sample into the
+ * pipeline with the recorder attached, to compare against {@code TelemetryIngestBenchmark.publish}. Each
+ * iteration records {@value #BATCH} samples (64 MB) into a fresh log that is deleted afterwards, so the
+ * disk does not fill up; records per second is {@value #BATCH} divided by the time per iteration. The
+ * gc profiler's {@code gc.alloc.rate.norm} should stay at 0 bytes per record, and the teardown prints
+ * how many rollovers had to map a segment on the writer thread.</p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = TelemetryRecorderBenchmark.BATCH)
+@Measurement(iterations = 10, batchSize = TelemetryRecorderBenchmark.BATCH)
+public class TelemetryRecorderBenchmark {
+
+    static final int BATCH = 1_000_000;
+
+    @State(Scope.Thread)
+    public static class Log {
+        @Param({"4", "64"})
+        public int segmentMegabytes;
+
+        @Param({"100", "1000"})
+        public long syncIntervalMillis;
+
+        TelemetryPipeline pipeline;
+        TelemetryRecorder recorder;
+        File directory;
+        long tick;
+        int synchronousRolls;
+        int segments;
+
+        @Setup(Level.Iteration)
+        public void open() throws IOException {
+            directory = Files.createTempDirectory("tlog").toFile();
+            pipeline = new TelemetryPipeline();
+            recorder = new TelemetryRecorder(pipeline.ring(), directory, "bench", segmentMegabytes << 20,
+                    syncIntervalMillis);
+            pipeline.addListener(recorder);
+        }
+
+        @TearDown(Level.Iteration)
+        public void close() throws IOException {
+            pipeline.removeListener(recorder);
+            recorder.close();
+            synchronousRolls += recorder.synchronousRolls();
+            File[] files = directory.listFiles();
+            if (files != null) {
+                segments += files.length;
+                for (File file : files) {
+                    Files.delete(file.toPath());
+                }
+            }
+            Files.delete(directory.toPath());
+        }
+
+        @TearDown(Level.Trial)
+        public void report() {
+            System.out.println("\nsegments " + segments + ", synchronous rolls " + synchronousRolls);
+        }
+    }
+
+    @Benchmark
+    public long publishAndRecord(Log log) {
+        long tick = log.tick++;
+        SyntheticFlightStateProducer.publish(log.pipeline, tick, tick);
+        return log.pipeline.latestSequence();
+    }
+}
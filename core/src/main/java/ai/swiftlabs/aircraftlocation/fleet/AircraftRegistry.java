@@ -0,0 +1,202 @@
+package ai.swiftlabs.aircraftlocation.fleet;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Every aircraft the ground station knows about, live or replayed, keyed by serial number or any other
+ * stable id.
+ *
+ * <p>State is stored column-wise in primitive arrays indexed by a dense aircraft index handed out by
+ * {@link #register(String)}, and positions are mirrored into a {@link SpatialGrid} so that the map only
+ * has to look at aircraft inside the viewport. Updating an aircraft does not allocate.</p>
+ *
+ * <p>Not thread-safe; the registry is owned by the frame thread and fed by renderer producers.</p>
+ */
+public final class AircraftRegistry {
+
+    private final Map<String, Integer> indexById = new HashMap<>();
+    private final SpatialGrid grid;
+    private final Collector collector = new Collector();
+
+    private String[] ids;
+    private double[] latitude;
+    private double[] longitude;
+    private float[] altitude;
+    private float[] heading;
+    private long[] updatedNanos;
+    private int[] version;
+    private boolean[] positioned;
+    private int size;
+
+    public AircraftRegistry() {
+        this(16, new SpatialGrid());
+    }
+
+    public AircraftRegistry(int expectedAircraft, SpatialGrid grid) {
+        int capacity = Math.max(1, expectedAircraft);
+        this.grid = grid;
+        ids = new String[capacity];
+        latitude = new double[capacity];
+        longitude = new double[capacity];
+        altitude = new float[capacity];
+        heading = new float[capacity];
+        updatedNanos = new long[capacity];
+        version = new int[capacity];
+        positioned = new boolean[capacity];
+    }
+
+    /** Returns the index of an aircraft, adding it without a position if it is new. */
+    public int register(String id) {
+        Integer existing = indexById.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == ids.length) {
+            grow(size * 2);
+        }
+        int index = size++;
+        ids[index] = id;
+        indexById.put(id, index);
+        return index;
+    }
+
+    /** Index of a registered aircraft, or -1. */
+    public int indexOf(String id) {
+        Integer index = indexById.get(id);
+        return index == null ? -1 : index;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void update(int index, double latitude, double longitude, float altitude, float heading,
+                       long timestampNanos) {
+        checkIndex(index);
+        this.latitude[index] = latitude;
+        this.longitude[index] = longitude;
+        this.altitude[index] = altitude;
+        this.heading[index] = heading;
+        this.updatedNanos[index] = timestampNanos;
+        this.positioned[index] = true;
+        this.version[index]++;
+        grid.put(index, latitude, longitude);
+    }
+
+    /** Marks the position of an aircraft unknown, e.g. lost GPS fix or end of a replayed track. */
+    public void clearPosition(int index) {
+        checkIndex(index);
+        if (positioned[index]) {
+            positioned[index] = false;
+            version[index]++;
+            grid.remove(index);
+        }
+    }
+
+    /**
+     * Collects the aircraft inside a box into {@code out}. A box whose west edge is greater than its
+     * east edge is taken to cross the antimeridian.
+     *
+     * @return how many aircraft are inside, which may exceed {@code out.length}; only the first
+     *         {@code out.length} of them are written
+     */
+    public int query(double south, double west, double north, double east, int[] out) {
+        collector.reset(south, north, out);
+        if (west <= east) {
+            collector.west = west;
+            collector.east = east;
+            grid.query(south, west, north, east, collector);
+        } else {
+            collector.west = west;
+            collector.east = 180;
+            grid.query(south, west, north, 180, collector);
+            collector.west = -180;
+            collector.east = east;
+            grid.query(south, -180, north, east, collector);
+        }
+        return collector.count;
+    }
+
+    public String id(int index) {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    public boolean hasPosition(int index) {
+        return positioned[index];
+    }
+
+    public double latitude(int index) {
+        return latitude[index];
+    }
+
+    public double longitude(int index) {
+        return longitude[index];
+    }
+
+    public float altitude(int index) {
+        return altitude[index];
+    }
+
+    public float heading(int index) {
+        return heading[index];
+    }
+
+    public long updatedNanos(int index) {
+        return updatedNanos[index];
+    }
+
+    /** Incremented on every change of an aircraft, lets consumers skip unchanged ones. */
+    public int version(int index) {
+        return version[index];
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        latitude = Arrays.copyOf(latitude, capacity);
+        longitude = Arrays.copyOf(longitude, capacity);
+        altitude = Arrays.copyOf(altitude, capacity);
+        heading = Arrays.copyOf(heading, capacity);
+        updatedNanos = Arrays.copyOf(updatedNanos, capacity);
+        version = Arrays.copyOf(version, capacity);
+        positioned = Arrays.copyOf(positioned, capacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("aircraft " + index + " outside [0, " + size + ")");
+        }
+    }
+
+    /** Filters grid candidates by exact bounds; reused for every query. */
+    private final class Collector implements SpatialGrid.Visitor {
+        double south;
+        double north;
+        double west;
+        double east;
+        int[] out;
+        int count;
+
+        void reset(double south, double north, int[] out) {
+            this.south = south;
+            this.north = north;
+            this.out = out;
+            this.count = 0;
+        }
+
+        @Override
+        public void visit(int item) {
+            double lat = latitude[item];
+            double lng = longitude[item];
+            if (lat < south || lat > north || lng < west || lng > east) {
+                return;
+            }
+            if (count < out.length) {
+                out[count] = item;
+            }
+            count++;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package ai.swiftlabs.aircraftlocation.fleet;
+
+import java.util.Arrays;
+
+/**
+ * Hashed uniform grid over latitude/longitude, indexing items by small integer ids.
+ *
+ * <p>Each occupied cell keeps an intrusive doubly linked list of its items, so inserting, moving and
+ * removing an item is O(1) and allocation-free once the arrays have grown. A query visits either the
+ * cells under the requested box or, when that box spans more cells than are occupied (zoomed far out),
+ * the occupied cells themselves. Candidates are reported per cell; callers filter exact bounds.</p>
+ *
+ * <p>Not thread-safe.</p>
+ */
+public final class SpatialGrid {
+
+    /** About 5.5 km at the equator, a few cells per viewport at typical tracking zooms. */
+    public static final double DEFAULT_CELL_SIZE_DEGREES = 0.05;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int NONE = -1;
+
+    public interface Visitor {
+        void visit(int item);
+    }
+
+    private final double cellSize;
+
+    // Open-addressing table of cells.
+    private long[] keys;
+    private int[] heads;
+    private int[] counts;
+    private int usedSlots;
+    private int liveCells;
+
+    // Per item.
+    private int[] cellOf;
+    private int[] next;
+    private int[] prev;
+
+    public SpatialGrid() {
+        this(DEFAULT_CELL_SIZE_DEGREES, 64);
+    }
+
+    public SpatialGrid(double cellSizeDegrees, int expectedItems) {
+        if (!(cellSizeDegrees > 0)) {
+            throw new IllegalArgumentException("cell size must be positive: " + cellSizeDegrees);
+        }
+        cellSize = cellSizeDegrees;
+        allocateTable(tableSizeFor(Math.max(16, expectedItems)));
+        int items = Math.max(16, expectedItems);
+        cellOf = new int[items];
+        next = new int[items];
+        prev = new int[items];
+        Arrays.fill(cellOf, NONE);
+    }
+
+    public double cellSizeDegrees() {
+        return cellSize;
+    }
+
+    /** Number of cells that currently hold at least one item. */
+    public int occupiedCells() {
+        return liveCells;
+    }
+
+    public boolean contains(int item) {
+        return item < cellOf.length && cellOf[item] != NONE;
+    }
+
+    /**
+     * Inserts or moves an item. Moving within the same cell is a no-op.
+     */
+    public void put(int item, double latitude, double longitude) {
+        ensureItemCapacity(item + 1);
+        long key = keyOf(latitude, longitude);
+        int current = cellOf[item];
+        if (current != NONE) {
+            if (keys[current] == key) {
+                return;
+            }
+            unlink(item, current);
+        }
+        link(item, findOrCreate(key));
+    }
+
+    public void remove(int item) {
+        if (item < cellOf.length && cellOf[item] != NONE) {
+            unlink(item, cellOf[item]);
+        }
+    }
+
+    /**
+     * Visits every item whose cell intersects the box. The box must not cross the antimeridian.
+     */
+    public void query(double south, double west, double north, double east, Visitor visitor) {
+        long minX = cellIndex(west);
+        long maxX = cellIndex(east);
+        long minY = cellIndex(south);
+        long maxY = cellIndex(north);
+        long boxCells = (maxX - minX + 1) * (maxY - minY + 1);
+        if (boxCells > keys.length) {
+            // Cheaper to walk the table than to probe every cell under the box.
+            for (int slot = 0; slot < keys.length; slot++) {
+                long key = keys[slot];
+                if (key == EMPTY || counts[slot] == 0) {
+                    continue;
+                }
+                long x = (int) key;
+                long y = key >> 32;
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                    visitCell(slot, visitor);
+                }
+            }
+            return;
+        }
+        for (long y = minY; y <= maxY; y++) {
+            for (long x = minX; x <= maxX; x++) {
+                int slot = find(key(x, y));
+                if (slot != NONE) {
+                    visitCell(slot, visitor);
+                }
+            }
+        }
+    }
+
+    private void visitCell(int slot, Visitor visitor) {
+        for (int item = heads[slot]; item != NONE; item = next[item]) {
+            visitor.visit(item);
+        }
+    }
+
+    private void link(int item, int slot) {
+        int head = heads[slot];
+        next[item] = head;
+        prev[item] = NONE;
+        if (head != NONE) {
+            prev[head] = item;
+        }
+        heads[slot] = item;
+        cellOf[item] = slot;
+        if (counts[slot]++ == 0) {
+            liveCells++;
+        }
+    }
+
+    private void unlink(int item, int slot) {
+        int before = prev[item];
+        int after = next[item];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            heads[slot] = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        }
+        cellOf[item] = NONE;
+        if (--counts[slot] == 0) {
+            liveCells--;
+        }
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long existing = keys[slot];
+            if (existing == key) {
+                return slot;
+            }
+            if (existing == EMPTY) {
+                return NONE;
+            }
+        }
+    }
+
+    private int findOrCreate(long key) {
+        int slot = find(key);
+        if (slot != NONE) {
+            return slot;
+        }
+        if ((usedSlots + 1) * 2 > keys.length) {
+            rehash();
+        }
+        int mask = keys.length - 1;
+        slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        heads[slot] = NONE;
+        counts[slot] = 0;
+        usedSlots++;
+        return slot;
+    }
+
+    /**
+     * Rebuilds the table without the cells that emptied out as aircraft moved on, growing it only if
+     * the live cells need the room.
+     */
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        int[] oldCounts = counts;
+        allocateTable(Math.max(oldKeys.length, tableSizeFor(liveCells * 4 + 4)));
+        int mask = keys.length - 1;
+        for (int old = 0; old < oldKeys.length; old++) {
+            if (oldKeys[old] == EMPTY || oldCounts[old] == 0) {
+                continue;
+            }
+            int slot = hash(oldKeys[old]) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[old];
+            heads[slot] = oldHeads[old];
+            counts[slot] = oldCounts[old];
+            usedSlots++;
+            liveCells++;
+            for (int item = oldHeads[old]; item != NONE; item = next[item]) {
+                cellOf[item] = slot;
+            }
+        }
+    }
+
+    private void allocateTable(int size) {
+        keys = new long[size];
+        heads = new int[size];
+        counts = new int[size];
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(heads, NONE);
+        usedSlots = 0;
+        liveCells = 0;
+    }
+
+    private void ensureItemCapacity(int items) {
+        if (items <= cellOf.length) {
+            return;
+        }
+        int size = Math.max(items, cellOf.length * 2);
+        int oldSize = cellOf.length;
+        cellOf = Arrays.copyOf(cellOf, size);
+        next = Arrays.copyOf(next, size);
+        prev = Arrays.copyOf(prev, size);
+        Arrays.fill(cellOf, oldSize, size, NONE);
+    }
+
+    private long keyOf(double latitude, double longitude) {
+        return key(cellIndex(longitude), cellIndex(latitude));
+    }
+
+    private long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / cellSize);
+    }
+
+    private static long key(long x, long y) {
+        return (y << 32) | (x & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int entries) {
+        int size = Integer.highestOneBit(Math.max(entries, 8) - 1) << 1;
+        return Math.max(size, 16);
+    }
+}
@@ -0,0 +1,19 @@
+package ai.swiftlabs.aircraftlocation.geo;
+
+/**
+ * Coordinate sanity checks shared by the telemetry, map and mission code.
+ */
+public final class Coordinates {
+
+    private Coordinates() {
+    }
+
+    /**
+     * Returns whether a GPS fix looks usable. The SDK reports 0/0 (and NaN) before the aircraft
+     * has a fix, those are rejected together with anything outside the valid range.
+     */
+    public static boolean isValid(double latitude, double longitude) {
+        return (latitude > -90 && latitude < 90 && longitude > -180 && longitude < 180)
+                && (latitude != 0f && longitude != 0f);
+    }
+}
@@ -0,0 +1,191 @@
+package ai.swiftlabs.aircraftlocation.geo;
+
+/**
+ * Distances and bearings between WGS84 coordinates, in degrees in and meters out.
+ *
+ * <p>Three formulas trade accuracy for speed:</p>
+ * <ul>
+ *     <li>{@link #vincenty} solves the inverse problem on the WGS84 ellipsoid, accurate to well under a
+ *     millimeter, at the cost of an iteration.</li>
+ *     <li>{@link #haversine} works on a sphere of mean radius; it is within 0.6% of the ellipsoidal
+ *     distance everywhere.</li>
+ *     <li>{@link #equirectangular} projects the leg onto a plane at its mean latitude. It needs one
+ *     cosine and a square root, and stays within {@link #EQUIRECTANGULAR_MAX_RELATIVE_ERROR} of haversine
+ *     for legs up to {@link #EQUIRECTANGULAR_MAX_LEG_METERS} at latitudes within
+ *     &plusmn;{@link #EQUIRECTANGULAR_MAX_LATITUDE}&deg;, enough for any leg the SDK accepts
+ *     (2 km at most).</li>
+ * </ul>
+ *
+ * <p>The batch methods work on parallel latitude/longitude arrays such as those filled by
+ * {@code WaypointStore.copyTo} and do not allocate.</p>
+ */
+public final class Geodesy {
+
+    /** Mean Earth radius (IUGG), in meters. */
+    public static final double EARTH_RADIUS_METERS = 6371008.8;
+
+    public static final double EQUIRECTANGULAR_MAX_LEG_METERS = 10000;
+    public static final double EQUIRECTANGULAR_MAX_LATITUDE = 70;
+    public static final double EQUIRECTANGULAR_MAX_RELATIVE_ERROR = 1e-5;
+
+    private static final double WGS84_A = 6378137.0;
+    private static final double WGS84_F = 1 / 298.257223563;
+    private static final double WGS84_B = WGS84_A * (1 - WGS84_F);
+    private static final int VINCENTY_MAX_ITERATIONS = 200;
+    private static final double VINCENTY_TOLERANCE = 1e-12;
+
+    public enum Formula {
+        HAVERSINE,
+        VINCENTY,
+        EQUIRECTANGULAR
+    }
+
+    private Geodesy() {
+    }
+
+    public static double distance(Formula formula, double lat1, double lng1, double lat2, double lng2) {
+        switch (formula) {
+            case VINCENTY:
+                return vincenty(lat1, lng1, lat2, lng2);
+            case EQUIRECTANGULAR:
+                return equirectangular(lat1, lng1, lat2, lng2);
+            case HAVERSINE:
+            default:
+                return haversine(lat1, lng1, lat2, lng2);
+        }
+    }
+
+    /** Great-circle distance on a sphere of {@link #EARTH_RADIUS_METERS}. */
+    public static double haversine(double lat1, double lng1, double lat2, double lng2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double sinDPhi = Math.sin((phi2 - phi1) / 2);
+        double sinDLambda = Math.sin(Math.toRadians(lng2 - lng1) / 2);
+        double a = sinDPhi * sinDPhi + Math.cos(phi1) * Math.cos(phi2) * sinDLambda * sinDLambda;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Planar approximation at the mean latitude of the leg. See the class comment for its error bound;
+     * longitudes are wrapped, so legs across the antimeridian are measured the short way.
+     */
+    public static double equirectangular(double lat1, double lng1, double lat2, double lng2) {
+        double x = Math.toRadians(wrapLongitude(lng2 - lng1)) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double y = Math.toRadians(lat2 - lat1);
+        return EARTH_RADIUS_METERS * Math.sqrt(x * x + y * y);
+    }
+
+    /**
+     * Ellipsoidal distance on WGS84 (Vincenty's inverse formula). Nearly antipodal points, where the
+     * iteration does not converge, fall back to {@link #haversine}.
+     */
+    public static double vincenty(double lat1, double lng1, double lat2, double lng2) {
+        double u1 = Math.atan((1 - WGS84_F) * Math.tan(Math.toRadians(lat1)));
+        double u2 = Math.atan((1 - WGS84_F) * Math.tan(Math.toRadians(lat2)));
+        double sinU1 = Math.sin(u1);
+        double cosU1 = Math.cos(u1);
+        double sinU2 = Math.sin(u2);
+        double cosU2 = Math.cos(u2);
+        double l = Math.toRadians(lng2 - lng1);
+
+        double lambda = l;
+        double sinSigma;
+        double cosSigma;
+        double sigma;
+        double cosSqAlpha;
+        double cos2SigmaM;
+        int iterations = 0;
+        while (true) {
+            double sinLambda = Math.sin(lambda);
+            double cosLambda = Math.cos(lambda);
+            double t1 = cosU2 * sinLambda;
+            double t2 = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda;
+            sinSigma = Math.sqrt(t1 * t1 + t2 * t2);
+            if (sinSigma == 0) {
+                return 0;
+            }
+            cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+            sigma = Math.atan2(sinSigma, cosSigma);
+            double sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma;
+            cosSqAlpha = 1 - sinAlpha * sinAlpha;
+            // Both points on the equator: cos2SigmaM is undefined and drops out of the formula.
+            cos2SigmaM = cosSqAlpha == 0 ? 0 : cosSigma - 2 * sinU1 * sinU2 / cosSqAlpha;
+            double c = WGS84_F / 16 * cosSqAlpha * (4 + WGS84_F * (4 - 3 * cosSqAlpha));
+            double previous = lambda;
+            lambda = l + (1 - c) * WGS84_F * sinAlpha
+                    * (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+            if (Math.abs(lambda - previous) <= VINCENTY_TOLERANCE) {
+                break;
+            }
+            if (++iterations == VINCENTY_MAX_ITERATIONS) {
+                return haversine(lat1, lng1, lat2, lng2);
+            }
+        }
+
+        double uSq = cosSqAlpha * (WGS84_A * WGS84_A - WGS84_B * WGS84_B) / (WGS84_B * WGS84_B);
+        double a = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+        double b = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+        double deltaSigma = b * sinSigma * (cos2SigmaM + b / 4 * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)
+                - b / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaM * cos2SigmaM)));
+        return WGS84_B * a * (sigma - deltaSigma);
+    }
+
+    /** Initial great-circle bearing from the first point to the second, in degrees [0, 360). */
+    public static double initialBearing(double lat1, double lng1, double lat2, double lng2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dLambda = Math.toRadians(lng2 - lng1);
+        double y = Math.sin(dLambda) * Math.cos(phi2);
+        double x = Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1) * Math.cos(phi2) * Math.cos(dLambda);
+        double bearing = Math.toDegrees(Math.atan2(y, x));
+        return bearing < 0 ? bearing + 360 : bearing;
+    }
+
+    /**
+     * Total length of the path through the first {@code count} points.
+     */
+    public static double pathLength(Formula formula, double[] latitudes, double[] longitudes, int count) {
+        double length = 0;
+        for (int i = 1; i < count; i++) {
+            length += distance(formula, latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+        }
+        return length;
+    }
+
+    /**
+     * Writes the length of each leg into {@code out}: {@code out[i]} is the leg ending at point
+     * {@code i + 1}, so {@code out} needs {@code count - 1} entries.
+     *
+     * @return the total length
+     */
+    public static double legLengths(Formula formula, double[] latitudes, double[] longitudes, int count,
+                                    double[] out) {
+        double length = 0;
+        for (int i = 1; i < count; i++) {
+            double leg = distance(formula, latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+            out[i - 1] = leg;
+            length += leg;
+        }
+        return length;
+    }
+
+    /**
+     * Writes the initial bearing of each leg into {@code out}, indexed like {@link #legLengths}.
+     */
+    public static void bearings(double[] latitudes, double[] longitudes, int count, double[] out) {
+        for (int i = 1; i < count; i++) {
+            out[i - 1] = initialBearing(latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+        }
+    }
+
+    /** Wraps a longitude difference into [-180, 180]. */
+    static double wrapLongitude(double degrees) {
+        if (degrees > 180) {
+            return degrees - 360;
+        }
+        if (degrees < -180) {
+            return degrees + 360;
+        }
+        return degrees;
+    }
+}
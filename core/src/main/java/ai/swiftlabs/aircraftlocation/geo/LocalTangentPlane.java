@@ -0,0 +1,47 @@
+package ai.swiftlabs.aircraftlocation.geo;
+
+/**
+ * Flat east/north coordinates in meters around an origin, for geometry over areas of a few tens of
+ * kilometers. Uses the same equirectangular projection as {@link Geodesy#equirectangular}, so distances
+ * measured in the plane carry the same error bound.
+ */
+public final class LocalTangentPlane {
+
+    private final double originLatitude;
+    private final double originLongitude;
+    private final double metersPerDegreeLat;
+    private final double metersPerDegreeLng;
+
+    public LocalTangentPlane(double originLatitude, double originLongitude) {
+        this.originLatitude = originLatitude;
+        this.originLongitude = originLongitude;
+        this.metersPerDegreeLat = Math.toRadians(Geodesy.EARTH_RADIUS_METERS);
+        this.metersPerDegreeLng = metersPerDegreeLat * Math.cos(Math.toRadians(originLatitude));
+    }
+
+    public double originLatitude() {
+        return originLatitude;
+    }
+
+    public double originLongitude() {
+        return originLongitude;
+    }
+
+    /** Meters east of the origin. */
+    public double east(double longitude) {
+        return Geodesy.wrapLongitude(longitude - originLongitude) * metersPerDegreeLng;
+    }
+
+    /** Meters north of the origin. */
+    public double north(double latitude) {
+        return (latitude - originLatitude) * metersPerDegreeLat;
+    }
+
+    public double latitude(double north) {
+        return originLatitude + north / metersPerDegreeLat;
+    }
+
+    public double longitude(double east) {
+        return Geodesy.wrapLongitude(originLongitude + east / metersPerDegreeLng);
+    }
+}
@@ -0,0 +1,261 @@
+package ai.swiftlabs.aircraftlocation.geofence;
+
+import java.util.Arrays;
+
+import ai.swiftlabs.aircraftlocation.geo.Geodesy;
+
+/**
+ * A polygon the aircraft must stay inside ({@link Kind#KEEP_IN}, e.g. a customer's site boundary) or out of
+ * ({@link Kind#KEEP_OUT}, e.g. a restricted zone).
+ *
+ * <p>Vertices are in degrees, without repeating the first one at the end. Edges are straight in
+ * latitude/longitude, which for fences of a few tens of kilometers is within meters of the geodesic; fences
+ * must not cross the antimeridian.</p>
+ *
+ * <p>Large polygons are cut into latitude bands, each listing the edges that overlap it, so containment
+ * looks at the edges of one band rather than all of them and the segment and distance tests at the bands
+ * they span. None of the tests allocate. Immutable.</p>
+ */
+public final class Geofence {
+
+    public enum Kind {
+        KEEP_IN,
+        KEEP_OUT
+    }
+
+    /** About this many edges to a band. */
+    private static final int EDGES_PER_BAND = 8;
+    private static final int MAX_BANDS = 1024;
+    private static final double METERS_PER_DEGREE = Math.toRadians(Geodesy.EARTH_RADIUS_METERS);
+
+    private final int id;
+    private final String name;
+    private final Kind kind;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double minLatitude;
+    private final double minLongitude;
+    private final double maxLatitude;
+    private final double maxLongitude;
+
+    // Edge i runs from vertex i to vertex i + 1; band b lists bandEdges[bandStart[b]..bandStart[b + 1]).
+    private final int bands;
+    private final double bandHeight;
+    private final int[] bandStart;
+    private final int[] bandEdges;
+
+    public Geofence(int id, String name, Kind kind, double[] latitudes, double[] longitudes) {
+        int n = latitudes.length;
+        if (n < 3 || longitudes.length != n) {
+            throw new IllegalArgumentException("fence " + id + ": " + n + " latitudes, " + longitudes.length
+                    + " longitudes");
+        }
+        double minLat = Double.POSITIVE_INFINITY;
+        double minLng = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        double maxLng = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            double lat = latitudes[i];
+            double lng = longitudes[i];
+            if (!(lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180)) {
+                throw new IllegalArgumentException("fence " + id + ": vertex " + i + " at " + lat + ", " + lng);
+            }
+            minLat = Math.min(minLat, lat);
+            maxLat = Math.max(maxLat, lat);
+            minLng = Math.min(minLng, lng);
+            maxLng = Math.max(maxLng, lng);
+        }
+        if (maxLng - minLng > 180) {
+            throw new IllegalArgumentException("fence " + id + " crosses the antimeridian");
+        }
+        this.id = id;
+        this.name = name;
+        this.kind = kind;
+        this.latitudes = latitudes.clone();
+        this.longitudes = longitudes.clone();
+        this.minLatitude = minLat;
+        this.minLongitude = minLng;
+        this.maxLatitude = maxLat;
+        this.maxLongitude = maxLng;
+
+        bands = maxLat > minLat ? Math.max(1, Math.min(MAX_BANDS, n / EDGES_PER_BAND)) : 1;
+        bandHeight = (maxLat - minLat) / bands;
+        bandStart = new int[bands + 1];
+        for (int i = 0; i < n; i++) {
+            for (int b = firstBand(i), last = lastBand(i); b <= last; b++) {
+                bandStart[b + 1]++;
+            }
+        }
+        for (int b = 0; b < bands; b++) {
+            bandStart[b + 1] += bandStart[b];
+        }
+        bandEdges = new int[bandStart[bands]];
+        int[] fill = Arrays.copyOf(bandStart, bands);
+        for (int i = 0; i < n; i++) {
+            for (int b = firstBand(i), last = lastBand(i); b <= last; b++) {
+                bandEdges[fill[b]++] = i;
+            }
+        }
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    public int vertexCount() {
+        return latitudes.length;
+    }
+
+    public double latitude(int vertex) {
+        return latitudes[vertex];
+    }
+
+    public double longitude(int vertex) {
+        return longitudes[vertex];
+    }
+
+    public double minLatitude() {
+        return minLatitude;
+    }
+
+    public double minLongitude() {
+        return minLongitude;
+    }
+
+    public double maxLatitude() {
+        return maxLatitude;
+    }
+
+    public double maxLongitude() {
+        return maxLongitude;
+    }
+
+    /** Whether the point is inside the polygon, by the even-odd rule; points on an edge may go either way. */
+    public boolean contains(double latitude, double longitude) {
+        if (!(latitude >= minLatitude && latitude <= maxLatitude
+                && longitude >= minLongitude && longitude <= maxLongitude)) {
+            return false;
+        }
+        int band = band(latitude);
+        boolean inside = false;
+        for (int k = bandStart[band], end = bandStart[band + 1]; k < end; k++) {
+            int i = bandEdges[k];
+            int j = i + 1 == latitudes.length ? 0 : i + 1;
+            double lat1 = latitudes[i];
+            double lat2 = latitudes[j];
+            if ((lat1 > latitude) != (lat2 > latitude)) {
+                double crossing = longitudes[i] + (latitude - lat1) / (lat2 - lat1) * (longitudes[j] - longitudes[i]);
+                if (longitude < crossing) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    /** Whether the segment between two points touches or crosses the polygon's boundary. */
+    public boolean crosses(double lat1, double lng1, double lat2, double lng2) {
+        double segmentMinLat = Math.min(lat1, lat2);
+        double segmentMaxLat = Math.max(lat1, lat2);
+        if (segmentMaxLat < minLatitude || segmentMinLat > maxLatitude
+                || Math.max(lng1, lng2) < minLongitude || Math.min(lng1, lng2) > maxLongitude) {
+            return false;
+        }
+        for (int b = band(segmentMinLat), last = band(segmentMaxLat); b <= last; b++) {
+            for (int k = bandStart[b], end = bandStart[b + 1]; k < end; k++) {
+                int i = bandEdges[k];
+                int j = i + 1 == latitudes.length ? 0 : i + 1;
+                if (segmentsIntersect(lat1, lng1, lat2, lng2, latitudes[i], longitudes[i], latitudes[j],
+                        longitudes[j])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Distance from the point to the nearest edge in meters, in the flat approximation of
+     * {@link Geodesy#equirectangular}, or {@code limitMeters} when no edge is that close.
+     */
+    public double distanceToBoundary(double latitude, double longitude, double limitMeters) {
+        double limitLat = limitMeters / METERS_PER_DEGREE;
+        double metersPerDegreeLng = METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        double limitLng = metersPerDegreeLng > 0 ? limitMeters / metersPerDegreeLng : 360;
+        if (latitude + limitLat < minLatitude || latitude - limitLat > maxLatitude
+                || longitude + limitLng < minLongitude || longitude - limitLng > maxLongitude) {
+            return limitMeters;
+        }
+        double best = limitMeters * limitMeters;
+        for (int b = band(latitude - limitLat), last = band(latitude + limitLat); b <= last; b++) {
+            for (int k = bandStart[b], end = bandStart[b + 1]; k < end; k++) {
+                int i = bandEdges[k];
+                int j = i + 1 == latitudes.length ? 0 : i + 1;
+                // Relative to the point, in meters.
+                double y1 = (latitudes[i] - latitude) * METERS_PER_DEGREE;
+                double x1 = (longitudes[i] - longitude) * metersPerDegreeLng;
+                double dy = (latitudes[j] - latitudes[i]) * METERS_PER_DEGREE;
+                double dx = (longitudes[j] - longitudes[i]) * metersPerDegreeLng;
+                double lengthSquared = dx * dx + dy * dy;
+                double t = lengthSquared > 0 ? Math.max(0, Math.min(1, -(x1 * dx + y1 * dy) / lengthSquared)) : 0;
+                double x = x1 + t * dx;
+                double y = y1 + t * dy;
+                best = Math.min(best, x * x + y * y);
+            }
+        }
+        return Math.sqrt(best);
+    }
+
+    @Override
+    public String toString() {
+        return name == null ? "#" + id : name;
+    }
+
+    private int band(double latitude) {
+        int band = (int) ((latitude - minLatitude) / bandHeight);
+        return band < 0 ? 0 : band >= bands ? bands - 1 : band;
+    }
+
+    private int firstBand(int edge) {
+        int next = edge + 1 == latitudes.length ? 0 : edge + 1;
+        return bandHeight > 0 ? band(Math.min(latitudes[edge], latitudes[next])) : 0;
+    }
+
+    private int lastBand(int edge) {
+        int next = edge + 1 == latitudes.length ? 0 : edge + 1;
+        return bandHeight > 0 ? band(Math.max(latitudes[edge], latitudes[next])) : 0;
+    }
+
+    static boolean segmentsIntersect(double ay, double ax, double by, double bx,
+                                     double cy, double cx, double dy, double dx) {
+        double d1 = cross(cy, cx, dy, dx, ay, ax);
+        double d2 = cross(cy, cx, dy, dx, by, bx);
+        double d3 = cross(ay, ax, by, bx, cy, cx);
+        double d4 = cross(ay, ax, by, bx, dy, dx);
+        if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+            return true;
+        }
+        return (d1 == 0 && onSegment(cy, cx, dy, dx, ay, ax))
+                || (d2 == 0 && onSegment(cy, cx, dy, dx, by, bx))
+                || (d3 == 0 && onSegment(ay, ax, by, bx, cy, cx))
+                || (d4 == 0 && onSegment(ay, ax, by, bx, dy, dx));
+    }
+
+    /** Which side of p->q the point r is on. */
+    private static double cross(double py, double px, double qy, double qx, double ry, double rx) {
+        return (qx - px) * (ry - py) - (qy - py) * (rx - px);
+    }
+
+    /** Whether r, known to be on the line through p and q, is between them. */
+    private static boolean onSegment(double py, double px, double qy, double qx, double ry, double rx) {
+        return Math.min(px, qx) <= rx && rx <= Math.max(px, qx) && Math.min(py, qy) <= ry && ry <= Math.max(py, qy);
+    }
+}
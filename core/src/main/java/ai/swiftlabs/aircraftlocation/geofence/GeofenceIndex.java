@@ -0,0 +1,153 @@
+package ai.swiftlabs.aircraftlocation.geofence;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Packed R-tree over the bounding boxes of a fixed set of {@link Geofence}s, bulk-loaded with
+ * Sort-Tile-Recursive: fences are sorted into vertical slices by longitude, each slice by latitude, and
+ * packed {@value #NODE_CAPACITY} to a leaf; each level above groups the one below in order.
+ *
+ * <p>Boxes are kept level by level in flat arrays, so a node's children are found by index rather than
+ * through references and the whole tree is a handful of arrays. Queries descend recursively and neither
+ * they nor the fence tests allocate; candidates are reported by box, callers test the polygons.</p>
+ *
+ * <p>Fences are numbered {@code 0..size() - 1} in the index's own order. Immutable and thread-safe.</p>
+ */
+public final class GeofenceIndex {
+
+    public static final int NODE_CAPACITY = 16;
+
+    private static final Comparator<Geofence> BY_CENTER_LONGITUDE = new Comparator<Geofence>() {
+        @Override
+        public int compare(Geofence a, Geofence b) {
+            return Double.compare(a.minLongitude() + a.maxLongitude(), b.minLongitude() + b.maxLongitude());
+        }
+    };
+
+    private static final Comparator<Geofence> BY_CENTER_LATITUDE = new Comparator<Geofence>() {
+        @Override
+        public int compare(Geofence a, Geofence b) {
+            return Double.compare(a.minLatitude() + a.maxLatitude(), b.minLatitude() + b.maxLatitude());
+        }
+    };
+
+    // After the comparators, which it uses.
+    public static final GeofenceIndex EMPTY = new GeofenceIndex(Collections.<Geofence>emptyList());
+
+    public interface Visitor {
+        void visit(int fence);
+    }
+
+    private final Geofence[] fences;
+    private final int keepIn;
+    // Level 0 holds the fences' own boxes; levelStart[levels] is the number of boxes.
+    private final int[] levelStart;
+    private final double[] minLat;
+    private final double[] minLng;
+    private final double[] maxLat;
+    private final double[] maxLng;
+
+    public GeofenceIndex(List<Geofence> fences) {
+        int n = fences.size();
+        Geofence[] sorted = fences.toArray(new Geofence[n]);
+        int leaves = (n + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int slices = (int) Math.ceil(Math.sqrt(leaves));
+        int perSlice = slices == 0 ? 0 : ((leaves + slices - 1) / slices) * NODE_CAPACITY;
+        Arrays.sort(sorted, BY_CENTER_LONGITUDE);
+        for (int start = 0; start < n; start += perSlice) {
+            Arrays.sort(sorted, start, Math.min(n, start + perSlice), BY_CENTER_LATITUDE);
+        }
+        this.fences = sorted;
+
+        int levels = 1;
+        int boxes = n;
+        for (int size = n; size > 1; levels++) {
+            size = (size + NODE_CAPACITY - 1) / NODE_CAPACITY;
+            boxes += size;
+        }
+        levelStart = new int[levels + 1];
+        minLat = new double[boxes];
+        minLng = new double[boxes];
+        maxLat = new double[boxes];
+        maxLng = new double[boxes];
+        int keepInCount = 0;
+        for (int i = 0; i < n; i++) {
+            Geofence fence = sorted[i];
+            minLat[i] = fence.minLatitude();
+            minLng[i] = fence.minLongitude();
+            maxLat[i] = fence.maxLatitude();
+            maxLng[i] = fence.maxLongitude();
+            if (fence.kind() == Geofence.Kind.KEEP_IN) {
+                keepInCount++;
+            }
+        }
+        keepIn = keepInCount;
+        levelStart[1] = n;
+        for (int level = 1; level < levels; level++) {
+            int childStart = levelStart[level - 1];
+            int childEnd = levelStart[level];
+            int node = childEnd;
+            for (int child = childStart; child < childEnd; child += NODE_CAPACITY, node++) {
+                minLat[node] = Double.POSITIVE_INFINITY;
+                minLng[node] = Double.POSITIVE_INFINITY;
+                maxLat[node] = Double.NEGATIVE_INFINITY;
+                maxLng[node] = Double.NEGATIVE_INFINITY;
+                for (int c = child, end = Math.min(childEnd, child + NODE_CAPACITY); c < end; c++) {
+                    minLat[node] = Math.min(minLat[node], minLat[c]);
+                    minLng[node] = Math.min(minLng[node], minLng[c]);
+                    maxLat[node] = Math.max(maxLat[node], maxLat[c]);
+                    maxLng[node] = Math.max(maxLng[node], maxLng[c]);
+                }
+            }
+            levelStart[level + 1] = node;
+        }
+    }
+
+    public int size() {
+        return fences.length;
+    }
+
+    public Geofence fence(int fence) {
+        return fences[fence];
+    }
+
+    /** Number of {@link Geofence.Kind#KEEP_IN} fences; with none, the aircraft may fly anywhere not kept out. */
+    public int keepInCount() {
+        return keepIn;
+    }
+
+    /** Visits every fence whose bounding box intersects the given one, in no particular order. */
+    public void search(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude,
+                       Visitor visitor) {
+        if (fences.length > 0) {
+            int root = levelStart.length - 2;
+            search(root, levelStart[root], minLatitude, minLongitude, maxLatitude, maxLongitude, visitor);
+        }
+    }
+
+    /** Visits every fence whose bounding box contains the point; the polygon may not. */
+    public void search(double latitude, double longitude, Visitor visitor) {
+        search(latitude, longitude, latitude, longitude, visitor);
+    }
+
+    private void search(int level, int node, double queryMinLat, double queryMinLng, double queryMaxLat,
+                        double queryMaxLng, Visitor visitor) {
+        if (minLat[node] > queryMaxLat || maxLat[node] < queryMinLat
+                || minLng[node] > queryMaxLng || maxLng[node] < queryMinLng) {
+            return;
+        }
+        if (level == 0) {
+            visitor.visit(node);
+            return;
+        }
+        int childStart = levelStart[level - 1];
+        int first = childStart + (node - levelStart[level]) * NODE_CAPACITY;
+        int end = Math.min(levelStart[level], first + NODE_CAPACITY);
+        for (int child = first; child < end; child++) {
+            search(level - 1, child, queryMinLat, queryMinLng, queryMaxLat, queryMaxLng, visitor);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package ai.swiftlabs.aircraftlocation.geofence;
+
+import ai.swiftlabs.aircraftlocation.geo.Geodesy;
+
+/**
+ * Follows the live aircraft through a {@link GeofenceIndex}, one position at a time, and reports when it
+ * enters or leaves a fence and when it starts or stops breaching them: inside a
+ * {@link Geofence.Kind#KEEP_OUT} fence, or outside every {@link Geofence.Kind#KEEP_IN} fence when there
+ * are any.
+ *
+ * <p>With hysteresis: once the first position has settled the state, a fence only changes state when the
+ * aircraft is more than the hysteresis distance past its boundary, so GPS noise along an edge does not
+ * raise an alert per sample. Each update looks only at the fences whose box is within that distance, plus
+ * those the aircraft was inside; updates do not allocate.</p>
+ *
+ * <p>Not thread-safe; call it from one thread, such as the telemetry writer.</p>
+ */
+public final class GeofenceMonitor {
+
+    public static final double DEFAULT_HYSTERESIS_METERS = 10;
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(Geodesy.EARTH_RADIUS_METERS);
+
+    public interface Listener {
+        /** The aircraft entered or left a fence. */
+        void onFenceChanged(Geofence fence, boolean inside);
+
+        void onBreachChanged(boolean breached);
+    }
+
+    private final GeofenceIndex index;
+    private final double hysteresisMeters;
+    private final Listener listener;
+
+    private final boolean[] inside;
+    // The fences inside, in no order, and each one's place in it.
+    private final int[] insideList;
+    private final int[] insidePosition;
+    private int insideCount;
+    private int keepInInside;
+    private int keepOutInside;
+    // The update each fence was last seen by, to find those that fell out of range.
+    private final int[] seenBy;
+    private int update;
+    private boolean settled;
+    private boolean breached;
+
+    private double latitude;
+    private double longitude;
+    private final GeofenceIndex.Visitor visitor = new GeofenceIndex.Visitor() {
+        @Override
+        public void visit(int fence) {
+            seenBy[fence] = update;
+            Geofence geofence = index.fence(fence);
+            boolean contains = geofence.contains(latitude, longitude);
+            if (contains != inside[fence] && (!settled
+                    || geofence.distanceToBoundary(latitude, longitude, hysteresisMeters) >= hysteresisMeters)) {
+                set(fence, contains);
+            }
+        }
+    };
+
+    public GeofenceMonitor(GeofenceIndex index, double hysteresisMeters, Listener listener) {
+        this.index = index;
+        this.hysteresisMeters = hysteresisMeters;
+        this.listener = listener;
+        int n = index.size();
+        inside = new boolean[n];
+        insideList = new int[n];
+        insidePosition = new int[n];
+        seenBy = new int[n];
+    }
+
+    public GeofenceIndex index() {
+        return index;
+    }
+
+    /** Checks the aircraft's position against the fences, calling the listener for what changed. */
+    public void update(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        update++;
+        double marginLat = hysteresisMeters / METERS_PER_DEGREE;
+        double metersPerDegreeLng = METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        double marginLng = metersPerDegreeLng > 0 ? hysteresisMeters / metersPerDegreeLng : 180;
+        index.search(latitude - marginLat, longitude - marginLng, latitude + marginLat, longitude + marginLng,
+                visitor);
+        // More than the hysteresis away from a fence's box is well outside it.
+        for (int i = insideCount - 1; i >= 0; i--) {
+            int fence = insideList[i];
+            if (seenBy[fence] != update) {
+                set(fence, false);
+            }
+        }
+        boolean nowBreached = keepOutInside > 0 || (index.keepInCount() > 0 && keepInInside == 0);
+        if (nowBreached != breached || !settled) {
+            settled = true;
+            breached = nowBreached;
+            listener.onBreachChanged(nowBreached);
+        }
+    }
+
+    public boolean isInside(int fence) {
+        return inside[fence];
+    }
+
+    /** Number of fences the aircraft is inside. */
+    public int insideCount() {
+        return insideCount;
+    }
+
+    public boolean isBreached() {
+        return breached;
+    }
+
+    private void set(int fence, boolean nowInside) {
+        inside[fence] = nowInside;
+        Geofence geofence = index.fence(fence);
+        int delta = nowInside ? 1 : -1;
+        if (geofence.kind() == Geofence.Kind.KEEP_IN) {
+            keepInInside += delta;
+        } else {
+            keepOutInside += delta;
+        }
+        if (nowInside) {
+            insidePosition[fence] = insideCount;
+            insideList[insideCount++] = fence;
+        } else {
+            int last = insideList[--insideCount];
+            int position = insidePosition[fence];
+            insideList[position] = last;
+            insidePosition[last] = position;
+        }
+        listener.onFenceChanged(geofence, nowInside);
+    }
+}
@@ -0,0 +1,23 @@
+package ai.swiftlabs.aircraftlocation.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A count that only goes up, such as symbol updates. Safe to update from any thread; never allocates.
+ */
+public final class Counter {
+
+    private final AtomicLong count = new AtomicLong();
+
+    public void increment() {
+        count.incrementAndGet();
+    }
+
+    public void add(long delta) {
+        count.addAndGet(delta);
+    }
+
+    public long count() {
+        return count.get();
+    }
+}
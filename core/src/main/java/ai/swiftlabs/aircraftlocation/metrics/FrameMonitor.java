@@ -0,0 +1,44 @@
+package ai.swiftlabs.aircraftlocation.metrics;
+
+/**
+ * Counts rendered and dropped display frames from the frame times of a callback that runs on every frame,
+ * such as a self-reposting {@code Choreographer.FrameCallback}.
+ *
+ * <p>A gap of more than half a frame interval past the expected one counts the frames that fit in it as
+ * dropped. Call {@link #reset} when monitoring pauses, so the pause is not counted. Frame thread only.</p>
+ */
+public final class FrameMonitor {
+
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final long frameIntervalNanos;
+    private final Counter frames;
+    private final Counter droppedFrames;
+    private final LatencyHistogram frameIntervals;
+    private long lastFrameNanos = NONE;
+
+    public FrameMonitor(long frameIntervalNanos, Counter frames, Counter droppedFrames,
+                        LatencyHistogram frameIntervals) {
+        this.frameIntervalNanos = frameIntervalNanos;
+        this.frames = frames;
+        this.droppedFrames = droppedFrames;
+        this.frameIntervals = frameIntervals;
+    }
+
+    public void onFrame(long frameTimeNanos) {
+        if (lastFrameNanos != NONE) {
+            long interval = frameTimeNanos - lastFrameNanos;
+            frameIntervals.record(interval);
+            long missed = (interval + frameIntervalNanos / 2) / frameIntervalNanos - 1;
+            if (missed > 0) {
+                droppedFrames.add(missed);
+            }
+        }
+        frames.increment();
+        lastFrameNanos = frameTimeNanos;
+    }
+
+    public void reset() {
+        lastFrameNanos = NONE;
+    }
+}
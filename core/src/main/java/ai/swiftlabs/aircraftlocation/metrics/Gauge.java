@@ -0,0 +1,42 @@
+package ai.swiftlabs.aircraftlocation.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A level that goes up and down, such as a queue depth, with its high-water mark. Safe to update from any
+ * thread; never allocates.
+ */
+public final class Gauge {
+
+    private final AtomicLong value = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void set(long value) {
+        this.value.set(value);
+        raiseMax(value);
+    }
+
+    public void increment() {
+        raiseMax(value.incrementAndGet());
+    }
+
+    public void decrement() {
+        value.decrementAndGet();
+    }
+
+    public long value() {
+        return value.get();
+    }
+
+    /** Highest value seen since the gauge was created. */
+    public long max() {
+        return max.get();
+    }
+
+    private void raiseMax(long value) {
+        long current;
+        do {
+            current = max.get();
+        } while (value > current && !max.compareAndSet(current, value));
+    }
+}
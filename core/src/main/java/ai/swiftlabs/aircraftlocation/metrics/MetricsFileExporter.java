@@ -0,0 +1,92 @@
+package ai.swiftlabs.aircraftlocation.metrics;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends a {@link MetricsRegistry.Snapshot} to a file at a fixed period, one JSON object per line, so runs
+ * can be compared offline. Counter rates cover the period before each line.
+ *
+ * <p>A write failure stops the export and is kept for {@link #failure}; metrics are never worth crashing
+ * for.</p>
+ */
+public final class MetricsFileExporter implements Closeable {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final MetricsRegistry registry;
+    private final File file;
+    private final StringBuilder line = new StringBuilder(1024);
+    private ScheduledFuture<?> task;
+    private MetricsRegistry.Snapshot previous;
+    private IOException failure;
+
+    public MetricsFileExporter(MetricsRegistry registry, File file) {
+        this.registry = registry;
+        this.file = file;
+    }
+
+    public synchronized void start(ScheduledExecutorService scheduler, long periodMillis) {
+        if (task != null) {
+            throw new IllegalStateException("export already started");
+        }
+        previous = registry.snapshot(System.nanoTime());
+        task = scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                export();
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Appends one snapshot now. */
+    public synchronized void export() {
+        if (failure != null) {
+            return;
+        }
+        MetricsRegistry.Snapshot snapshot = registry.snapshot(System.nanoTime());
+        line.setLength(0);
+        snapshot.appendJson(line, System.currentTimeMillis(), previous);
+        line.append('\n');
+        previous = snapshot;
+        try {
+            OutputStream out = new FileOutputStream(file, true);
+            try {
+                out.write(line.toString().getBytes(UTF_8));
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            failure = e;
+            if (task != null) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    /** The write error that stopped the export, or {@code null}. */
+    public synchronized IOException failure() {
+        return failure;
+    }
+
+    public File file() {
+        return file;
+    }
+
+    /** Stops the periodic export after writing a last snapshot. */
+    @Override
+    public synchronized void close() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+            export();
+        }
+    }
+}
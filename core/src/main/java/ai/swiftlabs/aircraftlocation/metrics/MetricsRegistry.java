@@ -0,0 +1,166 @@
+package ai.swiftlabs.aircraftlocation.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Named {@link Counter}s, {@link Gauge}s and {@link LatencyHistogram}s, read together as a
+ * {@link Snapshot}.
+ *
+ * <p>Instrumented code looks its metrics up once and keeps the objects, so recording never touches the
+ * registry. Snapshots are taken by readers such as the performance overlay or the
+ * {@link MetricsFileExporter}; each keeps its own previous snapshot to turn counts into rates.</p>
+ */
+public final class MetricsRegistry {
+
+    private final List<String> names = new ArrayList<>();
+    private final List<Object> metrics = new ArrayList<>();
+
+    public Counter counter(String name) {
+        return get(name, Counter.class);
+    }
+
+    public Gauge gauge(String name) {
+        return get(name, Gauge.class);
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return get(name, LatencyHistogram.class);
+    }
+
+    /** Adds a histogram owned by other code, such as the mission link statistics. */
+    public void register(String name, LatencyHistogram histogram) {
+        add(name, histogram);
+    }
+
+    /** Adds a counter owned by other code, such as one that outlives the activity. */
+    public void register(String name, Counter counter) {
+        add(name, counter);
+    }
+
+    public synchronized Snapshot snapshot(long timestampNanos) {
+        int size = names.size();
+        Snapshot snapshot = new Snapshot(timestampNanos, names.toArray(new String[size]), new Class<?>[size],
+                new double[size][]);
+        for (int i = 0; i < size; i++) {
+            Object metric = metrics.get(i);
+            snapshot.types[i] = metric.getClass();
+            if (metric instanceof Counter) {
+                snapshot.values[i] = new double[] {((Counter) metric).count()};
+            } else if (metric instanceof Gauge) {
+                snapshot.values[i] = new double[] {((Gauge) metric).value(), ((Gauge) metric).max()};
+            } else {
+                LatencyHistogram histogram = (LatencyHistogram) metric;
+                snapshot.values[i] = new double[] {histogram.count(), histogram.meanMillis(),
+                        histogram.percentileMillis(50), histogram.percentileMillis(90),
+                        histogram.percentileMillis(99), histogram.maxMillis()};
+            }
+        }
+        return snapshot;
+    }
+
+    private synchronized void add(String name, Object metric) {
+        if (names.contains(name)) {
+            throw new IllegalArgumentException("metric " + name + " already registered");
+        }
+        names.add(name);
+        metrics.add(metric);
+    }
+
+    private synchronized <T> T get(String name, Class<T> type) {
+        int index = names.indexOf(name);
+        if (index >= 0) {
+            Object metric = metrics.get(index);
+            if (!type.isInstance(metric)) {
+                throw new IllegalArgumentException("metric " + name + " is a " + metric.getClass().getSimpleName());
+            }
+            return type.cast(metric);
+        }
+        Object metric = type == Counter.class ? new Counter()
+                : type == Gauge.class ? new Gauge()
+                : new LatencyHistogram();
+        names.add(name);
+        metrics.add(metric);
+        return type.cast(metric);
+    }
+
+    /**
+     * The values of every metric at one point in time. Counters are cumulative; {@link #appendText} and
+     * {@link #appendJson} add their rate since a previous snapshot. Histogram percentiles cover everything
+     * recorded since start.
+     */
+    public static final class Snapshot {
+        private final long timestampNanos;
+        private final String[] names;
+        private final Class<?>[] types;
+        private final double[][] values;
+
+        Snapshot(long timestampNanos, String[] names, Class<?>[] types, double[][] values) {
+            this.timestampNanos = timestampNanos;
+            this.names = names;
+            this.types = types;
+            this.values = values;
+        }
+
+        public long timestampNanos() {
+            return timestampNanos;
+        }
+
+        /** Count of a counter or histogram, value of a gauge, or -1 for an unknown name. */
+        public long value(String name) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return (long) values[i][0];
+                }
+            }
+            return -1;
+        }
+
+        /** One line per metric, for the overlay. */
+        public void appendText(StringBuilder out, Snapshot previous) {
+            for (int i = 0; i < names.length; i++) {
+                double[] v = values[i];
+                out.append(names[i]).append(' ');
+                if (types[i] == Counter.class) {
+                    out.append(String.format(Locale.US, "%.0f (%.1f/s)", v[0], rate(previous, i)));
+                } else if (types[i] == Gauge.class) {
+                    out.append(String.format(Locale.US, "%.0f (max %.0f)", v[0], v[1]));
+                } else {
+                    out.append(String.format(Locale.US, "n=%.0f p50 %.1f p90 %.1f p99 %.1f max %.1f ms",
+                            v[0], v[2], v[3], v[4], v[5]));
+                }
+                out.append('\n');
+            }
+        }
+
+        /** One JSON object, without a line break. */
+        public void appendJson(StringBuilder out, long wallClockMillis, Snapshot previous) {
+            out.append("{\"timeMillis\":").append(wallClockMillis);
+            for (int i = 0; i < names.length; i++) {
+                double[] v = values[i];
+                out.append(",\"").append(names[i]).append("\":");
+                if (types[i] == Counter.class) {
+                    out.append(String.format(Locale.US, "{\"count\":%.0f,\"perSecond\":%.2f}", v[0],
+                            rate(previous, i)));
+                } else if (types[i] == Gauge.class) {
+                    out.append(String.format(Locale.US, "{\"value\":%.0f,\"max\":%.0f}", v[0], v[1]));
+                } else {
+                    out.append(String.format(Locale.US, "{\"count\":%.0f,\"meanMs\":%.3f,\"p50Ms\":%.3f,"
+                            + "\"p90Ms\":%.3f,\"p99Ms\":%.3f,\"maxMs\":%.3f}", v[0], v[1], v[2], v[3], v[4], v[5]));
+                }
+            }
+            out.append('}');
+        }
+
+        /** Per second since the previous snapshot, 0 without one. Counters registered since count from 0. */
+        private double rate(Snapshot previous, int index) {
+            if (previous == null || timestampNanos <= previous.timestampNanos) {
+                return 0;
+            }
+            long before = previous.value(names[index]);
+            double delta = values[index][0] - Math.max(0, before);
+            return delta * 1e9 / (timestampNanos - previous.timestampNanos);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ai.swiftlabs.aircraftlocation.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The values recorded over the last few seconds, for percentiles that follow the current conditions rather
+ * than the whole session like a {@link LatencyHistogram}.
+ *
+ * <p>Keeps up to {@code capacity} timestamped values in a ring; a value drops out once it is older than the
+ * window or overwritten. Percentiles are exact over what is kept. Neither recording nor reading allocates.
+ * Thread-safe.</p>
+ */
+public final class RollingSamples {
+
+    private final long windowNanos;
+    private final long[] timestamps;
+    private final long[] values;
+    private final long[] sorted;
+    private int next;
+    private int size;
+
+    public RollingSamples(long windowMillis, int capacity) {
+        if (windowMillis <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("window " + windowMillis + " ms, capacity " + capacity);
+        }
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.timestamps = new long[capacity];
+        this.values = new long[capacity];
+        this.sorted = new long[capacity];
+    }
+
+    public long windowNanos() {
+        return windowNanos;
+    }
+
+    public synchronized void record(long timestampNanos, long value) {
+        timestamps[next] = timestampNanos;
+        values[next] = value;
+        next = (next + 1) % values.length;
+        size = Math.min(size + 1, values.length);
+    }
+
+    /** Values recorded within the window before {@code nowNanos}. */
+    public synchronized int count(long nowNanos) {
+        return collect(nowNanos);
+    }
+
+    /**
+     * The value at a percentile of those within the window, nearest rank, or -1 when there are none.
+     *
+     * @param percentile between 0 and 100
+     */
+    public synchronized long percentile(long nowNanos, double percentile) {
+        int n = collect(nowNanos);
+        if (n == 0) {
+            return -1;
+        }
+        Arrays.sort(sorted, 0, n);
+        int rank = (int) Math.ceil(percentile / 100 * n);
+        return sorted[Math.max(0, Math.min(n, rank) - 1)];
+    }
+
+    public synchronized long max(long nowNanos) {
+        int n = collect(nowNanos);
+        long max = -1;
+        for (int i = 0; i < n; i++) {
+            max = Math.max(max, sorted[i]);
+        }
+        return max;
+    }
+
+    public synchronized void clear() {
+        size = 0;
+        next = 0;
+    }
+
+    /** Copies the values within the window into {@link #sorted}, unsorted yet, and returns how many. */
+    private int collect(long nowNanos) {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            int index = (next - 1 - i + values.length) % values.length;
+            if (nowNanos - timestamps[index] > windowNanos) {
+                // Older ones are older still.
+                break;
+            }
+            sorted[n++] = values[index];
+        }
+        return n;
+    }
+}
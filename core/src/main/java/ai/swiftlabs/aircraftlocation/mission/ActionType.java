@@ -0,0 +1,21 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+/**
+ * Waypoint actions the app uses, named after {@code dji.common.mission.waypoint.WaypointActionType}
+ * so the two map onto each other by name.
+ */
+public enum ActionType {
+    STAY,
+    START_TAKE_PHOTO,
+    START_RECORD,
+    STOP_RECORD,
+    ROTATE_AIRCRAFT,
+    GIMBAL_PITCH;
+
+    private static final ActionType[] VALUES = values();
+
+    /** Inverse of {@link #ordinal()}, without cloning the values array. */
+    public static ActionType fromCode(int code) {
+        return VALUES[code];
+    }
+}
@@ -0,0 +1,80 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops sending commands over a link that keeps failing.
+ *
+ * <p>After {@code failureThreshold} consecutive failed attempts the breaker opens and rejects every
+ * request for {@code openMillis}. It then lets a single probe through (half-open); a success closes it
+ * again, a failure reopens it for another period.</p>
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean probing;
+    private int openings;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be at least 1, got " + failureThreshold);
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    }
+
+    /** Whether an attempt may be made now; a {@code true} must be followed by a success or failure. */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probing) {
+                return false;
+            }
+            probing = true;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probing = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                openings++;
+            }
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+            probing = false;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /** How many times the breaker has opened. */
+    public synchronized int openings() {
+        return openings;
+    }
+}
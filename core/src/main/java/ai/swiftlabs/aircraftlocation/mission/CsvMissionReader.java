@@ -0,0 +1,169 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * The CSV scanner of {@link MissionImporter}. Fields are separated by commas, semicolons or tabs, whichever
+ * comes first in the file, and may be quoted. The first row is a header if any of its fields is not a
+ * number; otherwise columns are taken as latitude, longitude, altitude, action and action parameter. Rows
+ * are read a character at a time into one bounded field, never a whole line.
+ */
+final class CsvMissionReader {
+
+    private static final int LATITUDE = 0;
+    private static final int LONGITUDE = 1;
+    private static final int ALTITUDE = 2;
+    private static final int ACTION = 3;
+    private static final int ACTION_PARAM = 4;
+    private static final int NONE = -1;
+    private static final int MAX_COLUMNS = 256;
+
+    private final MissionImporter importer;
+    private final MissionImporter.Token field = new MissionImporter.Token();
+    private final char[] buffer = new char[8192];
+    // What each column holds, by position until a header row says otherwise.
+    private int[] columns = {LATITUDE, LONGITUDE, ALTITUDE, ACTION, ACTION_PARAM};
+    private final int[] headerColumns = new int[MAX_COLUMNS];
+    private final double[] values = new double[5];
+    private ActionType action;
+    private char delimiter;
+    private boolean firstRow = true;
+    private boolean header;
+    private int column;
+    private boolean quoted;
+    private boolean rowEmpty = true;
+
+    CsvMissionReader(MissionImporter importer) {
+        this.importer = importer;
+    }
+
+    void read(Reader reader) throws IOException {
+        startRow();
+        boolean afterQuote = false;
+        for (int read; (read = reader.read(buffer)) != -1; ) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (quoted) {
+                    if (c == '"') {
+                        quoted = false;
+                        afterQuote = true;
+                    } else {
+                        field.append(c);
+                    }
+                    continue;
+                }
+                if (c == '"') {
+                    if (afterQuote) {
+                        // An escaped quote, "".
+                        field.append('"');
+                    }
+                    quoted = true;
+                    afterQuote = false;
+                    continue;
+                }
+                afterQuote = false;
+                if (c == '\n') {
+                    endRow();
+                } else if (c == '\r') {
+                    continue;
+                } else if (isDelimiter(c)) {
+                    endField();
+                } else if (c > ' ' || !field.isEmpty()) {
+                    field.append(c);
+                    rowEmpty = false;
+                }
+            }
+        }
+        endRow();
+    }
+
+    private boolean isDelimiter(char c) {
+        if (delimiter == 0 && (c == ',' || c == ';' || c == '\t')) {
+            delimiter = c;
+        }
+        return c == delimiter;
+    }
+
+    private void startRow() {
+        column = 0;
+        rowEmpty = true;
+        action = null;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Double.NaN;
+        }
+    }
+
+    private void endField() {
+        if (!field.isEmpty()) {
+            rowEmpty = false;
+        }
+        if (firstRow && column < MAX_COLUMNS) {
+            headerColumns[column] = columnFor(field);
+            if (!field.isEmpty() && Double.isNaN(field.number())) {
+                header = true;
+            }
+        }
+        int value = column < columns.length ? columns[column] : NONE;
+        if (value == ACTION) {
+            action = field.action();
+        } else if (value != NONE) {
+            values[value] = field.number();
+        }
+        field.clear();
+        column++;
+    }
+
+    private void endRow() throws IOException {
+        endField();
+        if (rowEmpty) {
+            startRow();
+            return;
+        }
+        if (firstRow) {
+            firstRow = false;
+            if (header) {
+                columns = new int[Math.min(column, MAX_COLUMNS)];
+                System.arraycopy(headerColumns, 0, columns, 0, columns.length);
+                if (!hasColumn(LATITUDE) || !hasColumn(LONGITUDE)) {
+                    throw new IOException("No latitude and longitude columns in the CSV header");
+                }
+                startRow();
+                return;
+            }
+        }
+        double param = values[ACTION_PARAM];
+        importer.add(values[LATITUDE], values[LONGITUDE], values[ALTITUDE], action,
+                Double.isNaN(param) ? 0 : (int) param);
+        startRow();
+    }
+
+    private boolean hasColumn(int value) {
+        for (int column : columns) {
+            if (column == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Recognises e.g. "lat", "Longitude", "lng", "altitude(m)", "height" and "action_param". */
+    private static int columnFor(MissionImporter.Token name) {
+        if (name.startsWith("lat")) {
+            return LATITUDE;
+        }
+        if (name.startsWith("lon") || name.startsWith("lng")) {
+            return LONGITUDE;
+        }
+        if (name.startsWith("alt") || name.startsWith("height")) {
+            return ALTITUDE;
+        }
+        if (name.is("action") || name.is("actiontype")) {
+            return ACTION;
+        }
+        if (name.is("actionparam") || name.is("action_param") || name.is("param")) {
+            return ACTION_PARAM;
+        }
+        return NONE;
+    }
+}
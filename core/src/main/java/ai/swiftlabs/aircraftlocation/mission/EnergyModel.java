@@ -0,0 +1,35 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+/**
+ * First-order energy estimate for a mission: constant cruise power for the flight time plus the
+ * potential energy of every climb, divided by the propulsion efficiency.
+ */
+public final class EnergyModel {
+
+    /** Roughly a Mavic 2: 59 Wh battery, about 30 minutes at 115 W, 0.9 kg. */
+    public static final EnergyModel DEFAULT = new EnergyModel(115, 0.9, 0.5, 59.3);
+
+    private static final double GRAVITY = 9.80665;
+
+    private final double cruisePowerWatts;
+    private final double massKg;
+    private final double climbEfficiency;
+    private final double batteryWattHours;
+
+    public EnergyModel(double cruisePowerWatts, double massKg, double climbEfficiency, double batteryWattHours) {
+        this.cruisePowerWatts = cruisePowerWatts;
+        this.massKg = massKg;
+        this.climbEfficiency = climbEfficiency;
+        this.batteryWattHours = batteryWattHours;
+    }
+
+    /** Watt-hours needed to fly for {@code seconds} and climb {@code ascentMeters} in total. */
+    public double energyWattHours(double seconds, double ascentMeters) {
+        double joules = cruisePowerWatts * seconds + massKg * GRAVITY * ascentMeters / climbEfficiency;
+        return joules / 3600;
+    }
+
+    public double batteryWattHours() {
+        return batteryWattHours;
+    }
+}
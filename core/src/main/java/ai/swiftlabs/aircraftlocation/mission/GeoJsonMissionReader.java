@@ -0,0 +1,385 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * The GeoJSON scanner of {@link MissionImporter}: a pull parser over a character buffer that descends into
+ * {@code features}, {@code geometry}, {@code geometries}, {@code coordinates} and a Feature's
+ * {@code properties}, and skips everything else without keeping it.
+ *
+ * <p>Positions are added as they are read, one held back so that a ring's closing position can be dropped.
+ * Only a Point's position waits for the end of its Feature, as the properties that apply to it may come
+ * after the geometry. Whether an array of positions is a ring is told by its nesting, which Polygons and
+ * MultiPolygons share with MultiLineStrings; a {@code type} seen before the coordinates tells them apart.</p>
+ */
+final class GeoJsonMissionReader {
+
+    private static final int MAX_DEPTH = 64;
+
+    private final MissionImporter importer;
+    private final MissionImporter.Token token = new MissionImporter.Token();
+    private final char[] buffer = new char[8192];
+    private Reader reader;
+    private int position;
+    private int limit;
+    private long consumed;
+
+    // The position just read.
+    private double latitude;
+    private double longitude;
+    private double altitude;
+    // The Feature being read: its Point, and its properties so far.
+    private boolean pointPending;
+    private double pointLatitude;
+    private double pointLongitude;
+    private double pointAltitude;
+    private double propertyAltitude;
+    private ActionType propertyAction;
+    private int propertyActionParam;
+    private boolean lines;
+
+    GeoJsonMissionReader(MissionImporter importer) {
+        this.importer = importer;
+    }
+
+    void read(Reader reader) throws IOException {
+        this.reader = reader;
+        if (peek() != '{') {
+            throw error("expected an object");
+        }
+        // The top level may be a collection, a Feature or a bare geometry; read it as a Feature.
+        readObject(0, true);
+    }
+
+    private void readObject(int depth, boolean feature) throws IOException {
+        checkDepth(depth);
+        expect('{');
+        if (feature) {
+            startFeature();
+        }
+        if (peek() != '}') {
+            do {
+                readString();
+                expect(':');
+                if (token.is("features") || token.is("geometries")) {
+                    readObjects(depth + 1, token.is("features"));
+                } else if (token.is("geometry")) {
+                    if (peek() == '{') {
+                        readObject(depth + 1, false);
+                    } else {
+                        skipValue(depth + 1);
+                    }
+                } else if (token.is("coordinates")) {
+                    readCoordinates(depth + 1);
+                } else if (token.is("properties") && feature && peek() == '{') {
+                    readProperties(depth + 1);
+                } else if (token.is("type") && peek() == '"') {
+                    readString();
+                    lines = token.is("LineString") || token.is("MultiLineString");
+                } else {
+                    skipValue(depth + 1);
+                }
+            } while (skipIf(','));
+        }
+        expect('}');
+        if (feature) {
+            endFeature();
+        }
+    }
+
+    private void readObjects(int depth, boolean features) throws IOException {
+        if (peek() != '[') {
+            skipValue(depth);
+            return;
+        }
+        expect('[');
+        if (peek() != ']') {
+            do {
+                if (peek() == '{') {
+                    readObject(depth + 1, features);
+                } else {
+                    skipValue(depth + 1);
+                }
+            } while (skipIf(','));
+        }
+        expect(']');
+    }
+
+    private void readProperties(int depth) throws IOException {
+        expect('{');
+        if (peek() != '}') {
+            do {
+                readString();
+                expect(':');
+                if (token.is("altitude")) {
+                    propertyAltitude = readNumber(depth);
+                } else if (token.is("action")) {
+                    readScalar(depth);
+                    propertyAction = token.action();
+                } else if (token.is("actionParam")) {
+                    double param = readNumber(depth);
+                    propertyActionParam = Double.isNaN(param) ? 0 : (int) param;
+                } else {
+                    skipValue(depth + 1);
+                }
+            } while (skipIf(','));
+        }
+        expect('}');
+    }
+
+    private void startFeature() {
+        pointPending = false;
+        propertyAltitude = Double.NaN;
+        propertyAction = null;
+        propertyActionParam = 0;
+        lines = false;
+    }
+
+    private void endFeature() throws IOException {
+        if (pointPending) {
+            pointPending = false;
+            importer.add(pointLatitude, pointLongitude, Double.isNaN(propertyAltitude) ? pointAltitude
+                    : propertyAltitude, propertyAction, propertyActionParam);
+        }
+    }
+
+    private void readCoordinates(int depth) throws IOException {
+        if (peek() != '[') {
+            skipValue(depth);
+            return;
+        }
+        if (readCoordinateArray(depth, 0)) {
+            if (pointPending) {
+                // More than one Point to the Feature, e.g. a GeometryCollection.
+                importer.add(pointLatitude, pointLongitude, pointAltitude, null, 0);
+            }
+            pointPending = true;
+            pointLatitude = latitude;
+            pointLongitude = longitude;
+            pointAltitude = altitude;
+        }
+    }
+
+    /**
+     * Reads an array at a nesting level within {@code coordinates}. Returns {@code true} if it was a
+     * position, left in {@link #latitude}, {@link #longitude} and {@link #altitude}; arrays of positions are
+     * added to the importer.
+     */
+    private boolean readCoordinateArray(int depth, int level) throws IOException {
+        checkDepth(depth);
+        expect('[');
+        int c = peek();
+        if (c != '[' && c != ']') {
+            readPosition(depth);
+            return true;
+        }
+        int positions = 0;
+        boolean held = false;
+        double firstLatitude = 0;
+        double firstLongitude = 0;
+        double heldLatitude = 0;
+        double heldLongitude = 0;
+        double heldAltitude = 0;
+        if (c != ']') {
+            do {
+                if (peek() != '[') {
+                    skipValue(depth + 1);
+                } else if (readCoordinateArray(depth + 1, level + 1)) {
+                    if (held) {
+                        importer.add(heldLatitude, heldLongitude, heldAltitude, null, 0);
+                    } else {
+                        firstLatitude = latitude;
+                        firstLongitude = longitude;
+                    }
+                    held = true;
+                    heldLatitude = latitude;
+                    heldLongitude = longitude;
+                    heldAltitude = altitude;
+                    positions++;
+                }
+            } while (skipIf(','));
+        }
+        expect(']');
+        boolean closesRing = level > 0 && !lines && positions >= 4
+                && heldLatitude == firstLatitude && heldLongitude == firstLongitude;
+        if (held && !closesRing) {
+            importer.add(heldLatitude, heldLongitude, heldAltitude, null, 0);
+        }
+        return false;
+    }
+
+    /** Reads [longitude, latitude, altitude?, ...] after its opening bracket. */
+    private void readPosition(int depth) throws IOException {
+        longitude = Double.NaN;
+        latitude = Double.NaN;
+        altitude = Double.NaN;
+        int index = 0;
+        do {
+            double value = readNumber(depth);
+            if (index == 0) {
+                longitude = value;
+            } else if (index == 1) {
+                latitude = value;
+            } else if (index == 2) {
+                altitude = value;
+            }
+            index++;
+        } while (skipIf(','));
+        expect(']');
+    }
+
+    /** A number, or NaN for any other value. */
+    private double readNumber(int depth) throws IOException {
+        int c = peek();
+        if (c == '-' || (c >= '0' && c <= '9')) {
+            readScalar(depth);
+            return token.number();
+        }
+        skipValue(depth + 1);
+        return Double.NaN;
+    }
+
+    /** Reads a string, number or literal into the token; skips anything else. */
+    private void readScalar(int depth) throws IOException {
+        token.clear();
+        int c = peek();
+        if (c == '"') {
+            readString();
+        } else if (c == '{' || c == '[') {
+            skipValue(depth + 1);
+        } else {
+            while ((c = peekRaw()) != -1 && c != ',' && c != '}' && c != ']' && c > ' ') {
+                token.append((char) c);
+                position++;
+            }
+        }
+    }
+
+    private void readString() throws IOException {
+        expect('"');
+        token.clear();
+        for (int c; (c = nextRaw()) != '"'; ) {
+            if (c == -1) {
+                throw error("unterminated string");
+            }
+            if (c == '\\') {
+                c = nextRaw();
+                switch (c) {
+                    case 'b':
+                        c = '\b';
+                        break;
+                    case 'f':
+                        c = '\f';
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                    case 't':
+                        c = '\t';
+                        break;
+                    case 'u':
+                        c = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(nextRaw(), 16);
+                            if (digit < 0) {
+                                throw error("bad \\u escape");
+                            }
+                            c = c * 16 + digit;
+                        }
+                        break;
+                    case -1:
+                        throw error("unterminated string");
+                    default:
+                        break;
+                }
+            }
+            token.append((char) c);
+        }
+    }
+
+    private void skipValue(int depth) throws IOException {
+        checkDepth(depth);
+        int c = peek();
+        if (c == '{' || c == '[') {
+            char close = c == '{' ? '}' : ']';
+            position++;
+            if (peek() != close) {
+                do {
+                    if (c == '{') {
+                        readString();
+                        expect(':');
+                    }
+                    skipValue(depth + 1);
+                } while (skipIf(','));
+            }
+            expect(close);
+        } else if (c == '"') {
+            readString();
+        } else if (c == -1) {
+            throw error("unexpected end");
+        } else {
+            while ((c = peekRaw()) != -1 && c != ',' && c != '}' && c != ']' && c > ' ') {
+                position++;
+            }
+        }
+    }
+
+    private static void checkDepth(int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("GeoJSON nested deeper than " + MAX_DEPTH);
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        if (peek() != expected) {
+            throw error("expected '" + expected + "'");
+        }
+        position++;
+    }
+
+    private boolean skipIf(char c) throws IOException {
+        if (peek() == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /** The next character that is not whitespace, without consuming it, or -1 at the end. */
+    private int peek() throws IOException {
+        int c;
+        while ((c = peekRaw()) != -1 && c <= ' ') {
+            position++;
+        }
+        return c;
+    }
+
+    private int peekRaw() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private int nextRaw() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        consumed += limit;
+        position = 0;
+        limit = Math.max(0, reader.read(buffer));
+        return limit > 0;
+    }
+
+    private IOException error(String message) {
+        return new IOException("Malformed GeoJSON at character " + (consumed + position) + ": " + message);
+    }
+}
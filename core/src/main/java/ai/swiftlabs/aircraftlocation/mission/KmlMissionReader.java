@@ -0,0 +1,291 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+/**
+ * The KML reader of {@link MissionImporter}, a SAX handler. A {@code coordinates} element, which may hold
+ * tens of thousands of tuples, is parsed as its characters arrive rather than collected first; a Point's
+ * position waits for the end of its Placemark, as the ExtendedData that applies to it may come after the
+ * geometry. Document type declarations and external entities are turned off where the parser allows, so
+ * a file cannot make it fetch anything.
+ */
+final class KmlMissionReader extends DefaultHandler {
+
+    private final MissionImporter importer;
+    private final MissionImporter.Token number = new MissionImporter.Token();
+    private final MissionImporter.Token text = new MissionImporter.Token();
+
+    // Parsing a coordinates element: the tuple so far, and whether a comma or whitespace came last.
+    private boolean inCoordinates;
+    private final double[] tuple = new double[3];
+    private int tupleSize;
+    private boolean afterComma;
+    private boolean afterSpace;
+    // The geometry being read. Positions of lines and rings are held back by one to drop a ring's closing
+    // vertex.
+    private boolean point;
+    private boolean ring;
+    private boolean relativeAltitude;
+    private int innerBoundary;
+    private int positions;
+    private boolean held;
+    private double firstLatitude;
+    private double firstLongitude;
+    private double heldLatitude;
+    private double heldLongitude;
+    private double heldAltitude;
+    // The Placemark being read: its Point, and its ExtendedData so far.
+    private boolean inPlacemark;
+    private boolean pointPending;
+    private double pointLatitude;
+    private double pointLongitude;
+    private double pointAltitude;
+    private double dataAltitude;
+    private ActionType dataAction;
+    private int dataActionParam;
+    private String dataName;
+    private boolean inText;
+
+    KmlMissionReader(MissionImporter importer) {
+        this.importer = importer;
+    }
+
+    void read(InputStream in) throws IOException {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        setFeature(factory, "http://apache.org/xml/features/disallow-doctype-decl", true);
+        setFeature(factory, "http://xml.org/sax/features/external-general-entities", false);
+        setFeature(factory, "http://xml.org/sax/features/external-parameter-entities", false);
+        try {
+            factory.newSAXParser().parse(new InputSource(in), this);
+        } catch (ParserConfigurationException e) {
+            throw new IOException(e);
+        } catch (SAXException e) {
+            if (e.getException() instanceof IOException) {
+                throw (IOException) e.getException();
+            }
+            throw new IOException("Malformed KML: " + e.getMessage(), e);
+        }
+    }
+
+    private static void setFeature(SAXParserFactory factory, String feature, boolean value) {
+        try {
+            factory.setFeature(feature, value);
+        } catch (ParserConfigurationException | SAXException e) {
+            // Not every parser knows every feature; Android's does not resolve external entities anyway.
+        }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        String name = localName.isEmpty() ? qName : localName;
+        switch (name) {
+            case "Placemark":
+                inPlacemark = true;
+                pointPending = false;
+                dataAltitude = Double.NaN;
+                dataAction = null;
+                dataActionParam = 0;
+                break;
+            case "Point":
+            case "LineString":
+                point = name.equals("Point");
+                ring = false;
+                relativeAltitude = false;
+                break;
+            case "Polygon":
+                relativeAltitude = false;
+                break;
+            case "LinearRing":
+                // Within a Polygon, which has the altitudeMode.
+                point = false;
+                ring = true;
+                break;
+            case "innerBoundaryIs":
+                innerBoundary++;
+                break;
+            case "coordinates":
+                if (innerBoundary == 0) {
+                    inCoordinates = true;
+                    number.clear();
+                    tupleSize = 0;
+                    afterComma = false;
+                    afterSpace = false;
+                    positions = 0;
+                    held = false;
+                }
+                break;
+            case "Data":
+            case "SimpleData":
+                dataName = attributes.getValue("name");
+                startText(name.equals("SimpleData"));
+                break;
+            case "value":
+            case "altitudeMode":
+                startText(true);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void characters(char[] chars, int start, int length) throws SAXException {
+        if (inText) {
+            for (int i = start, end = start + length; i < end; i++) {
+                if (chars[i] > ' ' || !text.isEmpty()) {
+                    text.append(chars[i]);
+                }
+            }
+        }
+        if (!inCoordinates) {
+            return;
+        }
+        try {
+            for (int i = start, end = start + length; i < end; i++) {
+                char c = chars[i];
+                if (c == ',') {
+                    endNumber();
+                    afterComma = true;
+                    afterSpace = false;
+                } else if (c <= ' ') {
+                    if (!number.isEmpty()) {
+                        endNumber();
+                    }
+                    afterSpace = true;
+                } else {
+                    // Whitespace separates tuples, unless it follows a comma, as in "36.89, -1.30".
+                    if (afterSpace && !afterComma) {
+                        endTuple();
+                    }
+                    number.append(c);
+                    afterComma = false;
+                    afterSpace = false;
+                }
+            }
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        String name = localName.isEmpty() ? qName : localName;
+        try {
+            switch (name) {
+                case "coordinates":
+                    if (inCoordinates) {
+                        if (!number.isEmpty()) {
+                            endNumber();
+                        }
+                        endTuple();
+                        inCoordinates = false;
+                        boolean closesRing = ring && positions >= 4
+                                && heldLatitude == firstLatitude && heldLongitude == firstLongitude;
+                        if (held && !closesRing) {
+                            importer.add(heldLatitude, heldLongitude, heldAltitude, null, 0);
+                        }
+                        held = false;
+                    }
+                    break;
+                case "innerBoundaryIs":
+                    innerBoundary--;
+                    break;
+                case "altitudeMode":
+                    relativeAltitude = text.is("relativeToGround");
+                    inText = false;
+                    break;
+                case "value":
+                case "SimpleData":
+                    if (inText) {
+                        applyData();
+                    }
+                    inText = false;
+                    break;
+                case "Data":
+                    dataName = null;
+                    inText = false;
+                    break;
+                case "Placemark":
+                    if (pointPending) {
+                        pointPending = false;
+                        importer.add(pointLatitude, pointLongitude,
+                                Double.isNaN(dataAltitude) ? pointAltitude : dataAltitude, dataAction,
+                                dataActionParam);
+                    }
+                    inPlacemark = false;
+                    break;
+                default:
+                    break;
+            }
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    private void startText(boolean capture) {
+        text.clear();
+        inText = capture;
+    }
+
+    private void applyData() {
+        if ("action".equals(dataName)) {
+            dataAction = text.action();
+        } else if ("actionParam".equals(dataName)) {
+            double param = text.number();
+            dataActionParam = Double.isNaN(param) ? 0 : (int) param;
+        } else if ("altitude".equals(dataName)) {
+            dataAltitude = text.number();
+        }
+    }
+
+    private void endNumber() {
+        if (tupleSize < tuple.length) {
+            tuple[tupleSize] = number.number();
+        }
+        tupleSize++;
+        number.clear();
+    }
+
+    /** A tuple is longitude,latitude[,altitude]. */
+    private void endTuple() throws IOException {
+        if (tupleSize >= 2) {
+            position(tuple[1], tuple[0], tupleSize >= 3 && relativeAltitude ? tuple[2] : Double.NaN);
+        }
+        tupleSize = 0;
+    }
+
+    private void position(double latitude, double longitude, double altitude) throws IOException {
+        if (point && inPlacemark) {
+            if (pointPending) {
+                // More than one Point to the Placemark, e.g. a MultiGeometry.
+                importer.add(pointLatitude, pointLongitude, pointAltitude, null, 0);
+            }
+            pointPending = true;
+            pointLatitude = latitude;
+            pointLongitude = longitude;
+            pointAltitude = altitude;
+            return;
+        }
+        if (held) {
+            importer.add(heldLatitude, heldLongitude, heldAltitude, null, 0);
+        } else {
+            firstLatitude = latitude;
+            firstLongitude = longitude;
+        }
+        held = true;
+        heldLatitude = latitude;
+        heldLongitude = longitude;
+        heldAltitude = altitude;
+        positions++;
+    }
+}
@@ -0,0 +1,99 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.util.Arrays;
+
+/**
+ * Collects streamed survey waypoints into {@link MissionPlan}s of at most {@code maxWaypoints} each.
+ *
+ * <p>Chunks are cut at the end of a flight line where possible, so every mission starts at the beginning
+ * of a line and the aircraft never stops halfway along one. Only a line longer than a whole chunk is
+ * split mid-line.</p>
+ *
+ * <p>The chunks are flown one after another, so only the last has the mission's finished action; the
+ * others end with {@link MissionSettings.FinishedAction#NO_ACTION}, as in {@link MissionSegmenter}, rather
+ * than sending the aircraft home in the middle of the survey.</p>
+ */
+public final class MissionChunker implements SurveyGridGenerator.Sink {
+
+    public interface Listener {
+        /** Called with each full chunk, in flight order. */
+        void onChunk(MissionPlan chunk, int index);
+    }
+
+    private final MissionSettings settings;
+    private final MissionSettings intermediate;
+    private final int maxWaypoints;
+    private final float altitude;
+    private final ActionType action;
+    private final int actionParam;
+    private final Listener listener;
+
+    private final double[] latitude;
+    private final double[] longitude;
+    private int count;
+    private int lineBoundary;
+    private int chunks;
+
+    public MissionChunker(MissionSettings settings, int maxWaypoints, float altitude, ActionType action,
+                          int actionParam, Listener listener) {
+        if (maxWaypoints < 2) {
+            throw new IllegalArgumentException("chunks need room for at least 2 waypoints, got " + maxWaypoints);
+        }
+        this.settings = settings;
+        this.intermediate = new MissionSettings(settings.altitude(), settings.speed(),
+                MissionSettings.FinishedAction.NO_ACTION, settings.headingMode());
+        this.maxWaypoints = maxWaypoints;
+        this.altitude = altitude;
+        this.action = action;
+        this.actionParam = actionParam;
+        this.listener = listener;
+        this.latitude = new double[maxWaypoints];
+        this.longitude = new double[maxWaypoints];
+    }
+
+    @Override
+    public void onWaypoint(double latitude, double longitude) {
+        if (count == maxWaypoints) {
+            // A waypoint follows, so this is not the last chunk.
+            emit(lineBoundary > 0 ? lineBoundary : count, intermediate);
+        }
+        this.latitude[count] = latitude;
+        this.longitude[count] = longitude;
+        count++;
+    }
+
+    @Override
+    public void onLineEnd() {
+        lineBoundary = count;
+    }
+
+    /** Emits the last, partial chunk. */
+    public void finish() {
+        if (count > 0) {
+            emit(count, settings);
+        }
+    }
+
+    /** Number of chunks emitted so far. */
+    public int chunkCount() {
+        return chunks;
+    }
+
+    private void emit(int size, MissionSettings settings) {
+        float[] altitudes = new float[size];
+        Arrays.fill(altitudes, altitude);
+        byte[] actions = new byte[size];
+        Arrays.fill(actions, (byte) action.ordinal());
+        int[] actionParams = new int[size];
+        Arrays.fill(actionParams, actionParam);
+        MissionPlan chunk = new MissionPlan(settings, size, Arrays.copyOf(latitude, size),
+                Arrays.copyOf(longitude, size), altitudes, actions, actionParams);
+
+        int remaining = count - size;
+        System.arraycopy(latitude, size, latitude, 0, remaining);
+        System.arraycopy(longitude, size, longitude, 0, remaining);
+        count = remaining;
+        lineBoundary = 0;
+        listener.onChunk(chunk, chunks++);
+    }
+}
@@ -0,0 +1,268 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns the waypoints being edited into a loaded SDK mission without blocking the UI thread.
+ *
+ * <p>{@link #compile} only copies the store into a {@link MissionPlan} on the calling thread. Applying
+ * the settings, the optional {@link PathOptimizer} pass, validating and loading run on the worker
+ * executor, and the {@link Report} with the time
+ * spent in each stage is delivered on the callback executor. A newer request supersedes one that has not
+ * reached the load stage yet and interrupts its path optimisation.</p>
+ */
+public final class MissionCompiler {
+
+    /** Builds the SDK mission from a plan and loads it. */
+    public interface Target {
+        /**
+         * Called on the worker thread.
+         *
+         * @return {@code null} when the mission was loaded, otherwise a description of the error
+         */
+        String load(MissionPlan plan);
+    }
+
+    public interface Callback {
+        void onCompiled(Report report);
+    }
+
+    public enum Outcome {
+        LOADED,
+        INVALID,
+        LOAD_FAILED,
+        SUPERSEDED
+    }
+
+    public static final class Report {
+        private MissionPlan plan;
+        private final int storeModification;
+        private PathOptimizer.Result optimization;
+        private Outcome outcome;
+        private List<MissionValidator.Violation> violations = Collections.emptyList();
+        private String loadError;
+        private long snapshotNanos;
+        private long applyNanos;
+        private long optimizeNanos;
+        private long validateNanos;
+        private long loadNanos;
+        private boolean stale;
+
+        Report(MissionPlan plan, int storeModification) {
+            this.plan = plan;
+            this.storeModification = storeModification;
+        }
+
+        public MissionPlan plan() {
+            return plan;
+        }
+
+        /** What the path optimiser changed, or {@code null} when it did not run. */
+        public PathOptimizer.Result optimization() {
+            return optimization;
+        }
+
+        public Outcome outcome() {
+            return outcome;
+        }
+
+        public List<MissionValidator.Violation> violations() {
+            return violations;
+        }
+
+        /** The load error reported by the target, or {@code null}. */
+        public String loadError() {
+            return loadError;
+        }
+
+        /** Whether the store was edited while the mission was compiled. */
+        public boolean isStale() {
+            return stale;
+        }
+
+        /** {@link WaypointStore#modificationCount()} at the time of the snapshot, or -1 for a prebuilt plan. */
+        public int storeModification() {
+            return storeModification;
+        }
+
+        public long snapshotNanos() {
+            return snapshotNanos;
+        }
+
+        public long applyNanos() {
+            return applyNanos;
+        }
+
+        public long optimizeNanos() {
+            return optimizeNanos;
+        }
+
+        public long validateNanos() {
+            return validateNanos;
+        }
+
+        public long loadNanos() {
+            return loadNanos;
+        }
+
+        public long totalNanos() {
+            return snapshotNanos + applyNanos + optimizeNanos + validateNanos + loadNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s, %d waypoints: snapshot %.2f ms, apply %.2f ms, optimize %.2f ms, validate %.2f ms,"
+                            + " load %.2f ms%s",
+                    outcome, plan.size(), millis(snapshotNanos), millis(applyNanos), millis(optimizeNanos),
+                    millis(validateNanos), millis(loadNanos), optimization == null ? "" : " (" + optimization + ")");
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    private final MissionValidator validator;
+    private final Target target;
+    private final Executor worker;
+    private final Executor callbackExecutor;
+    private final AtomicInteger generation = new AtomicInteger();
+    private final PathOptimizer optimizer = new PathOptimizer();
+    private Thread optimizing;
+
+    public MissionCompiler(MissionValidator validator, Target target, Executor worker, Executor callbackExecutor) {
+        this.validator = validator;
+        this.target = target;
+        this.worker = worker;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Compiles the current waypoints. Call on the thread that owns the store; the callback executor should
+     * run on that thread too, so the staleness check sees the store consistently.
+     */
+    public void compile(WaypointStore store, MissionSettings settings, Callback callback) {
+        compile(store, settings, null, callback);
+    }
+
+    /**
+     * Like {@link #compile(WaypointStore, MissionSettings, Callback)}, but runs the path optimiser over
+     * the waypoints first; the loaded plan is then {@link Report#plan()}, not the store's order.
+     *
+     * @param optimization the optimiser options, or {@code null} to skip the stage
+     */
+    public void compile(WaypointStore store, MissionSettings settings, PathOptimizer.Options optimization,
+                        Callback callback) {
+        long start = System.nanoTime();
+        MissionPlan plan = MissionPlan.snapshot(store, settings);
+        Report report = new Report(plan, store.modificationCount());
+        report.snapshotNanos = System.nanoTime() - start;
+        submit(report, store, optimization, callback);
+    }
+
+    /**
+     * Validates and loads a plan that was built elsewhere, such as one chunk of a survey grid. The
+     * report is never stale.
+     */
+    public void compile(MissionPlan plan, Callback callback) {
+        submit(new Report(plan, -1), null, null, callback);
+    }
+
+    private void submit(final Report report, final WaypointStore store, final PathOptimizer.Options optimization,
+                        final Callback callback) {
+        final int request = generation.incrementAndGet();
+        synchronized (this) {
+            if (optimizing != null) {
+                optimizing.interrupt();
+            }
+        }
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                runStages(report, optimization, request);
+                callbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        report.stale = store != null && store.modificationCount() != report.storeModification;
+                        callback.onCompiled(report);
+                    }
+                });
+            }
+        });
+    }
+
+    private void runStages(Report report, PathOptimizer.Options optimization, int request) {
+        MissionPlan plan = report.plan;
+        long start = System.nanoTime();
+        apply(plan);
+        long applied = System.nanoTime();
+        report.applyNanos = applied - start;
+
+        if (optimization != null) {
+            if (!optimize(report, optimization, request)) {
+                report.outcome = Outcome.SUPERSEDED;
+                return;
+            }
+            plan = report.plan;
+        }
+        long optimized = System.nanoTime();
+        report.optimizeNanos = optimized - applied;
+
+        report.violations = validator.validate(plan);
+        long validated = System.nanoTime();
+        report.validateNanos = validated - optimized;
+        if (!report.violations.isEmpty()) {
+            report.outcome = Outcome.INVALID;
+            return;
+        }
+        if (request != generation.get()) {
+            report.outcome = Outcome.SUPERSEDED;
+            return;
+        }
+
+        report.loadError = target.load(plan);
+        report.loadNanos = System.nanoTime() - validated;
+        report.outcome = report.loadError == null ? Outcome.LOADED : Outcome.LOAD_FAILED;
+    }
+
+    /**
+     * Runs the optimiser where {@link #submit} can interrupt it. The interrupt flag is cleared under the
+     * same lock, so an interrupt can never leak into a later stage or task.
+     *
+     * @return {@code false} when a newer request interrupted it
+     */
+    private boolean optimize(Report report, PathOptimizer.Options options, int request) {
+        synchronized (this) {
+            if (request != generation.get()) {
+                return false;
+            }
+            optimizing = Thread.currentThread();
+        }
+        try {
+            report.optimization = optimizer.optimize(report.plan, options);
+            report.plan = report.optimization.plan();
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        } finally {
+            synchronized (this) {
+                optimizing = null;
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /** Applies the mission-wide settings to every waypoint in one pass. */
+    static void apply(MissionPlan plan) {
+        MissionSettings settings = plan.settings();
+        if (settings.overridesAltitude()) {
+            Arrays.fill(plan.altitude, 0, plan.size(), settings.altitude());
+        }
+    }
+}
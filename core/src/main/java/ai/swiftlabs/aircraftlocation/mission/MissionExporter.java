@@ -0,0 +1,126 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes a mission as KML, GeoJSON or CSV, one waypoint at a time, for {@link MissionImporter} or other
+ * tools to read back.
+ *
+ * <p>KML and GeoJSON files hold a Point per waypoint, with its action and action parameter as ExtendedData
+ * or properties, so that the route survives a round trip; CSV has a row per waypoint under a
+ * {@code latitude,longitude,altitude,action,actionParam} header. Coordinates are written with 7 decimals,
+ * about a centimetre, and altitudes, relative to the take-off point, with 2. The mission's altitude
+ * setting, when it has one, is written as every waypoint's altitude, as that is what the aircraft flies.</p>
+ */
+public final class MissionExporter {
+
+    private static final long[] POW10 = {1, 10, 100, 1000, 10000, 100000, 1000000, 10000000};
+
+    private MissionExporter() {
+    }
+
+    /** Writes the mission; the writer is neither buffered nor closed here. */
+    public static void write(MissionPlan plan, MissionFormat format, Writer out) throws IOException {
+        switch (format) {
+            case KML:
+                writeKml(plan, out);
+                break;
+            case GEOJSON:
+                writeGeoJson(plan, out);
+                break;
+            case CSV:
+                writeCsv(plan, out);
+                break;
+            default:
+                throw new IllegalArgumentException(format.toString());
+        }
+    }
+
+    private static void writeKml(MissionPlan plan, Writer out) throws IOException {
+        char[] scratch = new char[32];
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<kml xmlns=\"http://www.opengis.net/kml/2.2\">\n<Document>\n");
+        for (int i = 0; i < plan.size(); i++) {
+            out.write("<Placemark><name>");
+            writeFixed(out, scratch, i + 1, 0);
+            out.write("</name><ExtendedData><Data name=\"action\"><value>");
+            out.write(plan.action(i).name());
+            out.write("</value></Data><Data name=\"actionParam\"><value>");
+            writeFixed(out, scratch, plan.actionParam(i), 0);
+            out.write("</value></Data></ExtendedData>"
+                    + "<Point><altitudeMode>relativeToGround</altitudeMode><coordinates>");
+            writeFixed(out, scratch, plan.longitude(i), 7);
+            out.write(',');
+            writeFixed(out, scratch, plan.latitude(i), 7);
+            out.write(',');
+            writeFixed(out, scratch, altitude(plan, i), 2);
+            out.write("</coordinates></Point></Placemark>\n");
+        }
+        out.write("</Document>\n</kml>\n");
+    }
+
+    private static void writeGeoJson(MissionPlan plan, Writer out) throws IOException {
+        char[] scratch = new char[32];
+        out.write("{\"type\":\"FeatureCollection\",\"features\":[");
+        for (int i = 0; i < plan.size(); i++) {
+            out.write(i == 0 ? "\n" : ",\n");
+            out.write("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[");
+            writeFixed(out, scratch, plan.longitude(i), 7);
+            out.write(',');
+            writeFixed(out, scratch, plan.latitude(i), 7);
+            out.write(',');
+            writeFixed(out, scratch, altitude(plan, i), 2);
+            out.write("]},\"properties\":{\"action\":\"");
+            out.write(plan.action(i).name());
+            out.write("\",\"actionParam\":");
+            writeFixed(out, scratch, plan.actionParam(i), 0);
+            out.write("}}");
+        }
+        out.write("\n]}\n");
+    }
+
+    private static void writeCsv(MissionPlan plan, Writer out) throws IOException {
+        char[] scratch = new char[32];
+        out.write("latitude,longitude,altitude,action,actionParam\n");
+        for (int i = 0; i < plan.size(); i++) {
+            writeFixed(out, scratch, plan.latitude(i), 7);
+            out.write(',');
+            writeFixed(out, scratch, plan.longitude(i), 7);
+            out.write(',');
+            writeFixed(out, scratch, altitude(plan, i), 2);
+            out.write(',');
+            out.write(plan.action(i).name());
+            out.write(',');
+            writeFixed(out, scratch, plan.actionParam(i), 0);
+            out.write('\n');
+        }
+    }
+
+    private static double altitude(MissionPlan plan, int i) {
+        float setting = plan.settings().altitude();
+        return Float.isNaN(setting) ? plan.altitude(i) : setting;
+    }
+
+    /** Writes the value rounded to a number of decimals, without allocating as {@code String.format} does. */
+    static void writeFixed(Writer out, char[] scratch, double value, int decimals) throws IOException {
+        long scaled = Math.round(Math.abs(value) * POW10[decimals]);
+        boolean negative = value < 0 && scaled != 0;
+        int i = scratch.length;
+        for (int d = 0; d < decimals; d++) {
+            scratch[--i] = (char) ('0' + scaled % 10);
+            scaled /= 10;
+        }
+        if (decimals > 0) {
+            scratch[--i] = '.';
+        }
+        do {
+            scratch[--i] = (char) ('0' + scaled % 10);
+            scaled /= 10;
+        } while (scaled != 0);
+        if (negative) {
+            scratch[--i] = '-';
+        }
+        out.write(scratch, i, scratch.length - i);
+    }
+}
@@ -0,0 +1,44 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.util.Locale;
+
+/**
+ * File formats missions are imported from and exported to by {@link MissionImporter} and
+ * {@link MissionExporter}.
+ */
+public enum MissionFormat {
+    KML("kml", "application/vnd.google-earth.kml+xml"),
+    GEOJSON("geojson", "application/geo+json"),
+    CSV("csv", "text/csv");
+
+    private final String extension;
+    private final String mimeType;
+
+    MissionFormat(String extension, String mimeType) {
+        this.extension = extension;
+        this.mimeType = mimeType;
+    }
+
+    /** Without the dot. */
+    public String extension() {
+        return extension;
+    }
+
+    public String mimeType() {
+        return mimeType;
+    }
+
+    /** The format a file name's extension stands for, {@code .json} included, or {@code null}. */
+    public static MissionFormat fromFileName(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".json")) {
+            return GEOJSON;
+        }
+        for (MissionFormat format : values()) {
+            if (lower.endsWith("." + format.extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
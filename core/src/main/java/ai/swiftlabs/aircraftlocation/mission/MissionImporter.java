@@ -0,0 +1,308 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+import ai.swiftlabs.aircraftlocation.geo.Coordinates;
+
+/**
+ * Reads a route from a KML, GeoJSON or CSV file straight into a {@link WaypointStore}.
+ *
+ * <p>Files are streamed: KML through a SAX parser, GeoJSON and CSV through small hand-written scanners.
+ * Waypoints are added as their coordinates are read, without a document tree or an intermediate list, so
+ * besides the store the import holds a few kilobytes of buffers however large the file. Each waypoint
+ * takes the altitude, action and action parameter the file gives it, and the defaults this importer was
+ * made with for what it does not; zero and negative altitudes count as missing, as 2D exports write 0.
+ * Positions outside the valid range are skipped and counted in {@link #skipped()}.</p>
+ *
+ * <p>What each format contributes:</p>
+ * <ul>
+ *     <li>KML: the coordinates of Points, LineStrings and the outer rings of Polygons, without a ring's
+ *     closing vertex. Altitudes are used when the geometry's altitudeMode is {@code relativeToGround}.
+ *     A Point Placemark's {@code action}, {@code actionParam} and {@code altitude} ExtendedData apply to
+ *     its waypoint.</li>
+ *     <li>GeoJSON: the positions of every geometry, without a ring's closing position, and the third
+ *     coordinate as the altitude. A Point Feature's {@code action}, {@code actionParam} and
+ *     {@code altitude} properties apply to its waypoint.</li>
+ *     <li>CSV: one waypoint per row, from columns named like latitude, longitude, altitude, action and
+ *     actionParam, or in that order without a header row.</li>
+ * </ul>
+ *
+ * <p>These are the files {@link MissionExporter} writes. An import runs on the calling thread, which is
+ * usually a worker importing into a store of its own; interrupting it stops the import with an
+ * {@link InterruptedIOException}. Not thread-safe.</p>
+ */
+public final class MissionImporter {
+
+    /** Notified on the importing thread about every {@value #PROGRESS_BYTES} bytes, and at the end. */
+    public interface Listener {
+        void onProgress(long bytesRead, int waypoints);
+    }
+
+    public static final int DEFAULT_MAX_WAYPOINTS = 100000;
+    static final int PROGRESS_BYTES = 64 * 1024;
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+    /** Longest number, name or value kept; the rest of a longer one is dropped. */
+    private static final int MAX_TOKEN = 64;
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+            1e13, 1e14, 1e15, 1e16, 1e17, 1e18};
+    private static final ActionType[] ACTIONS = ActionType.values();
+
+    private final float altitude;
+    private final ActionType action;
+    private final int actionParam;
+    private final int maxWaypoints;
+    private WaypointStore store;
+    private int added;
+    private int skipped;
+
+    /**
+     * @param altitude     altitude of waypoints the file gives none, in meters
+     * @param maxWaypoints the import fails rather than add more waypoints than this
+     */
+    public MissionImporter(float altitude, ActionType action, int actionParam, int maxWaypoints) {
+        this.altitude = altitude;
+        this.action = action;
+        this.actionParam = actionParam;
+        this.maxWaypoints = maxWaypoints;
+    }
+
+    /**
+     * Appends the file's waypoints to the store and returns how many were added. On failure the store keeps
+     * the waypoints added up to that point.
+     *
+     * @param listener may be {@code null}
+     */
+    public int read(InputStream in, MissionFormat format, WaypointStore store, Listener listener)
+            throws IOException {
+        ProgressStream progress = new ProgressStream(in, listener);
+        this.store = store;
+        added = 0;
+        skipped = 0;
+        switch (format) {
+            case KML:
+                new KmlMissionReader(this).read(progress);
+                break;
+            case GEOJSON:
+                new GeoJsonMissionReader(this).read(reader(progress));
+                break;
+            case CSV:
+                new CsvMissionReader(this).read(reader(progress));
+                break;
+            default:
+                throw new IllegalArgumentException(format.toString());
+        }
+        progress.report();
+        return added;
+    }
+
+    /** Positions of the last import that were not valid coordinates. */
+    public int skipped() {
+        return skipped;
+    }
+
+    /**
+     * Adds a waypoint read from the file. A NaN or non-positive altitude takes the default, and so do the
+     * action and its parameter when the action is {@code null}.
+     */
+    void add(double latitude, double longitude, double altitude, ActionType action, int actionParam)
+            throws IOException {
+        if (!Coordinates.isValid(latitude, longitude)) {
+            skipped++;
+            return;
+        }
+        if (added == maxWaypoints) {
+            throw new IOException("More than " + maxWaypoints + " waypoints");
+        }
+        store.add(latitude, longitude, altitude > 0 ? (float) altitude : this.altitude,
+                action != null ? action : this.action, action != null ? actionParam : this.actionParam);
+        added++;
+    }
+
+    private static Reader reader(InputStream in) {
+        // Buffers the bytes; the scanners read it a buffer of characters at a time.
+        return new InputStreamReader(in, UTF_8);
+    }
+
+    /**
+     * Parses a decimal number, or returns NaN. Plain decimals up to 18 significant digits, which covers
+     * coordinates, are parsed in place; anything else goes through {@link Double#parseDouble}.
+     */
+    static double parseNumber(char[] chars, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < to; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                if (digits < POW10.length - 1) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+                    if (decimals >= 0) {
+                        decimals++;
+                    }
+                } else if (decimals < 0) {
+                    return parseSlowly(chars, from, to);
+                }
+            } else if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                return parseSlowly(chars, from, to);
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        double value = decimals > 0 ? mantissa / POW10[decimals] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private static double parseSlowly(char[] chars, int from, int to) {
+        try {
+            return Double.parseDouble(new String(chars, from, to - from));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /** A bounded run of characters: a number, a name or a short value. */
+    static final class Token {
+        private final char[] chars = new char[MAX_TOKEN];
+        private int length;
+
+        void clear() {
+            length = 0;
+        }
+
+        void append(char c) {
+            if (length < chars.length) {
+                chars[length++] = c;
+            }
+        }
+
+        boolean isEmpty() {
+            return length == 0;
+        }
+
+        /** The token as a number, ignoring surrounding whitespace, or NaN. */
+        double number() {
+            int from = 0;
+            int to = length;
+            while (from < to && chars[from] <= ' ') {
+                from++;
+            }
+            while (to > from && chars[to - 1] <= ' ') {
+                to--;
+            }
+            return parseNumber(chars, from, to);
+        }
+
+        /** The action named, ignoring case and surrounding whitespace, or numbered by the token, or null. */
+        ActionType action() {
+            int to = length;
+            while (to > 0 && chars[to - 1] <= ' ') {
+                to--;
+            }
+            for (ActionType candidate : ACTIONS) {
+                if (to == candidate.name().length() && startsWith(candidate.name())) {
+                    return candidate;
+                }
+            }
+            double code = number();
+            return code >= 0 && code < ACTIONS.length && code == (int) code ? ACTIONS[(int) code] : null;
+        }
+
+        /** Whether the token is the text, ignoring case. */
+        boolean is(String text) {
+            return length == text.length() && startsWith(text);
+        }
+
+        boolean startsWith(String prefix) {
+            if (length < prefix.length()) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (Character.toLowerCase(chars[i]) != Character.toLowerCase(prefix.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+
+    /** Counts the bytes read for progress, and stops the import when the thread is interrupted. */
+    private final class ProgressStream extends FilterInputStream {
+        private final Listener listener;
+        private long bytesRead;
+        private long nextReport = PROGRESS_BYTES;
+
+        ProgressStream(InputStream in, Listener listener) {
+            super(in);
+            this.listener = listener;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                advance(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                advance(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            advance(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void advance(long bytes) throws IOException {
+            if (Thread.interrupted()) {
+                throw new InterruptedIOException("Import interrupted");
+            }
+            bytesRead += bytes;
+            if (bytesRead >= nextReport) {
+                nextReport = bytesRead + PROGRESS_BYTES;
+                report();
+            }
+        }
+
+        void report() {
+            if (listener != null) {
+                // The parser runs ahead of the waypoints by up to a buffer.
+                listener.onProgress(bytesRead, added);
+            }
+        }
+    }
+}
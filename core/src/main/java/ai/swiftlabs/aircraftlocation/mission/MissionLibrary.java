@@ -0,0 +1,439 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import ai.swiftlabs.aircraftlocation.geo.Geodesy;
+
+/**
+ * Saved missions, kept in a directory as described in {@link MissionLibraryFormat}: a data file of
+ * compact mission bodies and an index of their names, sizes and bounds.
+ *
+ * <p>Opening a library reads only the index, about 128 bytes a mission, so thousands of missions are
+ * listed and searched without decoding one. A mission's waypoints are decoded when it is loaded, straight
+ * from the memory-mapped data file. Saving appends the body and then its index entry; deleting marks the
+ * entry, and {@link #compact} drops the bodies of deleted missions.</p>
+ *
+ * <p>Thread-safe; the methods do file I/O and belong on a worker thread.</p>
+ */
+public final class MissionLibrary implements Closeable {
+
+    /** What the index knows of a saved mission. */
+    public static final class Entry {
+        private final long id;
+        private final String name;
+        private final long savedMillis;
+        private final int waypoints;
+        private final double minLatitude;
+        private final double minLongitude;
+        private final double maxLatitude;
+        private final double maxLongitude;
+        private final float pathMeters;
+        private final int bodyBytes;
+        final long bodyOffset;
+
+        Entry(long id, String name, long savedMillis, int waypoints, double minLatitude, double minLongitude,
+              double maxLatitude, double maxLongitude, float pathMeters, long bodyOffset, int bodyBytes) {
+            this.id = id;
+            this.name = name;
+            this.savedMillis = savedMillis;
+            this.waypoints = waypoints;
+            this.minLatitude = minLatitude;
+            this.minLongitude = minLongitude;
+            this.maxLatitude = maxLatitude;
+            this.maxLongitude = maxLongitude;
+            this.pathMeters = pathMeters;
+            this.bodyOffset = bodyOffset;
+            this.bodyBytes = bodyBytes;
+        }
+
+        public long id() {
+            return id;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long savedMillis() {
+            return savedMillis;
+        }
+
+        public int waypoints() {
+            return waypoints;
+        }
+
+        public double minLatitude() {
+            return minLatitude;
+        }
+
+        public double minLongitude() {
+            return minLongitude;
+        }
+
+        public double maxLatitude() {
+            return maxLatitude;
+        }
+
+        public double maxLongitude() {
+            return maxLongitude;
+        }
+
+        public float pathMeters() {
+            return pathMeters;
+        }
+
+        /** Size of the encoded mission in the data file. */
+        public int bodyBytes() {
+            return bodyBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: %d waypoints, %.1f km", name, waypoints, pathMeters / 1000);
+        }
+    }
+
+    private final File directory;
+    private RandomAccessFile data;
+    private RandomAccessFile index;
+    private long generation;
+    // The index's live entries, oldest first, and the slot of each in the index file.
+    private final List<Entry> entries = new ArrayList<>();
+    private final List<Integer> slots = new ArrayList<>();
+    private int indexSlots;
+    private long nextId = 1;
+    private MappedByteBuffer mapped;
+    private final ByteBuffer entryBuffer = ByteBuffer.allocate(MissionLibraryFormat.ENTRY_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+
+    private MissionLibrary(File directory) {
+        this.directory = directory;
+    }
+
+    /** Opens the library in a directory, creating it if needed. */
+    public static MissionLibrary open(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        MissionLibrary library = new MissionLibrary(directory);
+        try {
+            library.openFiles();
+        } catch (IOException e) {
+            library.close();
+            throw e;
+        }
+        return library;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Every saved mission, newest first. */
+    public synchronized List<Entry> list() {
+        List<Entry> list = new ArrayList<>(entries);
+        Collections.reverse(list);
+        return list;
+    }
+
+    /**
+     * Saved missions, newest first, whose name contains {@code query} ignoring case, or all when it is empty,
+     * and that come within a box; pass infinities for no bounds.
+     */
+    public synchronized List<Entry> search(String query, double minLatitude, double minLongitude,
+                                           double maxLatitude, double maxLongitude) {
+        String needle = query == null ? "" : query.toLowerCase(Locale.ROOT);
+        List<Entry> found = new ArrayList<>();
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Entry entry = entries.get(i);
+            if (entry.maxLatitude >= minLatitude && entry.minLatitude <= maxLatitude
+                    && entry.maxLongitude >= minLongitude && entry.minLongitude <= maxLongitude
+                    && (needle.isEmpty() || entry.name.toLowerCase(Locale.ROOT).contains(needle))) {
+                found.add(entry);
+            }
+        }
+        return found;
+    }
+
+    /** Saves a mission under a name, which is cut to what the index holds; names need not be unique. */
+    public synchronized Entry save(String name, MissionPlan plan) throws IOException {
+        ByteBuffer body = ByteBuffer.allocate(MissionLibraryFormat.maxBodyBytes(plan.size()))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        MissionLibraryFormat.encode(plan, body);
+        body.flip();
+        long offset = data.length();
+        data.getChannel().write(body, offset);
+
+        double minLat = Double.POSITIVE_INFINITY;
+        double minLng = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        double maxLng = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < plan.size(); i++) {
+            minLat = Math.min(minLat, plan.latitude[i]);
+            maxLat = Math.max(maxLat, plan.latitude[i]);
+            minLng = Math.min(minLng, plan.longitude[i]);
+            maxLng = Math.max(maxLng, plan.longitude[i]);
+        }
+        float path = (float) Geodesy.pathLength(Geodesy.Formula.HAVERSINE, plan.latitude, plan.longitude,
+                plan.size());
+        String storedName = fit(name);
+        Entry entry = new Entry(nextId++, storedName, System.currentTimeMillis(), plan.size(), minLat, minLng,
+                maxLat, maxLng, path, offset, body.limit());
+        writeEntry(entry, indexSlots, (short) 0);
+        entries.add(entry);
+        slots.add(indexSlots++);
+        return entry;
+    }
+
+    /** Decodes a saved mission's waypoints, or returns {@code null} if there is no such mission. */
+    public synchronized MissionPlan load(long id) throws IOException {
+        int position = find(id);
+        if (position < 0) {
+            return null;
+        }
+        Entry entry = entries.get(position);
+        long end = entry.bodyOffset + entry.bodyBytes;
+        if (mapped == null || mapped.capacity() < end) {
+            // Grown since it was mapped; a mapping cannot be extended, the old one goes with the GC.
+            mapped = data.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, data.length());
+        }
+        ByteBuffer body = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        body.position((int) entry.bodyOffset);
+        MissionPlan plan = MissionLibraryFormat.decode(body, entry.bodyBytes);
+        if (plan == null) {
+            throw new IOException("Mission " + id + " (" + entry.name + ") is corrupt");
+        }
+        return plan;
+    }
+
+    public synchronized boolean delete(long id) throws IOException {
+        int position = find(id);
+        if (position < 0) {
+            return false;
+        }
+        writeEntry(entries.get(position), slots.get(position), MissionLibraryFormat.FLAG_DELETED);
+        entries.remove(position);
+        slots.remove(position);
+        return true;
+    }
+
+    /**
+     * Rewrites both files with only the missions not deleted, keeping their ids. The new files only replace
+     * the old ones once complete, so a compaction cut short leaves the library as it was.
+     */
+    public synchronized void compact() throws IOException {
+        long next = generation + 1;
+        File indexTemp = new File(directory, MissionLibraryFormat.INDEX_FILE + ".tmp");
+        List<Entry> moved = new ArrayList<>(entries.size());
+        try (RandomAccessFile newData = new RandomAccessFile(new File(directory,
+                MissionLibraryFormat.dataFile(next)), "rw");
+             RandomAccessFile newIndex = new RandomAccessFile(indexTemp, "rw")) {
+            newData.setLength(0);
+            newIndex.setLength(0);
+            writeHeader(newData, MissionLibraryFormat.DATA_MAGIC, next);
+            writeHeader(newIndex, MissionLibraryFormat.INDEX_MAGIC, next);
+            long offset = MissionLibraryFormat.HEADER_BYTES;
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                ByteBuffer body = ByteBuffer.allocate(entry.bodyBytes);
+                data.getChannel().read(body, entry.bodyOffset);
+                body.flip();
+                newData.getChannel().write(body, offset);
+                Entry copy = new Entry(entry.id, entry.name, entry.savedMillis, entry.waypoints,
+                        entry.minLatitude, entry.minLongitude, entry.maxLatitude, entry.maxLongitude,
+                        entry.pathMeters, offset, entry.bodyBytes);
+                encodeEntry(copy, (short) 0);
+                newIndex.getChannel().write(entryBuffer, slotOffset(i));
+                moved.add(copy);
+                offset += entry.bodyBytes;
+            }
+            newData.getFD().sync();
+            newIndex.getFD().sync();
+        }
+        closeFiles();
+        // The switch: from here the index names the new data file, and opening deletes the old one.
+        if (!indexTemp.renameTo(new File(directory, MissionLibraryFormat.INDEX_FILE))) {
+            openFiles();
+            throw new IOException("Cannot replace " + MissionLibraryFormat.INDEX_FILE);
+        }
+        openFiles();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeFiles();
+    }
+
+    private void openFiles() throws IOException {
+        index = new RandomAccessFile(new File(directory, MissionLibraryFormat.INDEX_FILE), "rw");
+        ByteBuffer header = ByteBuffer.allocate(MissionLibraryFormat.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        if (index.length() == 0) {
+            writeHeader(index, MissionLibraryFormat.INDEX_MAGIC, 1);
+        }
+        index.getChannel().read(header, 0);
+        header.flip();
+        if (!MissionLibraryFormat.isValidHeader(header, MissionLibraryFormat.INDEX_MAGIC)) {
+            throw new IOException(MissionLibraryFormat.INDEX_FILE + " is not a mission library index");
+        }
+        generation = header.getLong(MissionLibraryFormat.HEADER_GENERATION);
+
+        String dataName = MissionLibraryFormat.dataFile(generation);
+        data = new RandomAccessFile(new File(directory, dataName), "rw");
+        if (data.length() == 0) {
+            writeHeader(data, MissionLibraryFormat.DATA_MAGIC, generation);
+        }
+        header.clear();
+        data.getChannel().read(header, 0);
+        header.flip();
+        if (!MissionLibraryFormat.isValidHeader(header, MissionLibraryFormat.DATA_MAGIC)
+                || header.getLong(MissionLibraryFormat.HEADER_GENERATION) != generation) {
+            throw new IOException(dataName + " does not belong to " + MissionLibraryFormat.INDEX_FILE);
+        }
+        // Data files of other generations are left over from compactions, finished or not.
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.startsWith(MissionLibraryFormat.DATA_PREFIX)
+                        && name.endsWith(MissionLibraryFormat.DATA_EXTENSION) && !name.equals(dataName)) {
+                    file.delete();
+                }
+            }
+        }
+        readIndex();
+    }
+
+    private void readIndex() throws IOException {
+        entries.clear();
+        slots.clear();
+        // At 128 bytes a mission, read whole.
+        ByteBuffer buffer = ByteBuffer.allocate((int) (index.length() - MissionLibraryFormat.HEADER_BYTES))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        index.getChannel().read(buffer, MissionLibraryFormat.HEADER_BYTES);
+        buffer.flip();
+        long dataLength = data.length();
+        int slot = 0;
+        for (int offset = 0; MissionLibraryFormat.isValidEntry(buffer, offset);
+             offset += MissionLibraryFormat.ENTRY_BYTES, slot++) {
+            long id = buffer.getLong(offset + MissionLibraryFormat.ID);
+            long bodyOffset = buffer.getLong(offset + MissionLibraryFormat.BODY_OFFSET);
+            int bodyBytes = buffer.getInt(offset + MissionLibraryFormat.BODY_LENGTH);
+            if (bodyOffset + bodyBytes > dataLength) {
+                // Only an entry written over by a different file could point past the data.
+                break;
+            }
+            nextId = Math.max(nextId, id + 1);
+            if ((buffer.getShort(offset + MissionLibraryFormat.FLAGS) & MissionLibraryFormat.FLAG_DELETED) != 0) {
+                continue;
+            }
+            int nameLength = buffer.getShort(offset + MissionLibraryFormat.NAME_LENGTH);
+            entries.add(new Entry(id, new String(buffer.array(), offset + MissionLibraryFormat.NAME, nameLength,
+                    MissionLibraryFormat.UTF_8),
+                    buffer.getLong(offset + MissionLibraryFormat.SAVED_MILLIS),
+                    buffer.getInt(offset + MissionLibraryFormat.WAYPOINTS),
+                    buffer.getInt(offset + MissionLibraryFormat.MIN_LATITUDE) / MissionLibraryFormat.FIXED_POINT,
+                    buffer.getInt(offset + MissionLibraryFormat.MIN_LONGITUDE) / MissionLibraryFormat.FIXED_POINT,
+                    buffer.getInt(offset + MissionLibraryFormat.MAX_LATITUDE) / MissionLibraryFormat.FIXED_POINT,
+                    buffer.getInt(offset + MissionLibraryFormat.MAX_LONGITUDE) / MissionLibraryFormat.FIXED_POINT,
+                    buffer.getFloat(offset + MissionLibraryFormat.PATH_METERS), bodyOffset, bodyBytes));
+            slots.add(slot);
+        }
+        indexSlots = slot;
+        // Whatever follows the last good entry was torn by a crash; the next save overwrites it.
+        index.setLength(slotOffset(slot));
+    }
+
+    private void writeEntry(Entry entry, int slot, short flags) throws IOException {
+        encodeEntry(entry, flags);
+        index.getChannel().write(entryBuffer, slotOffset(slot));
+    }
+
+    /** Fills {@link #entryBuffer}, ready to be written. */
+    private void encodeEntry(Entry entry, short flags) {
+        ByteBuffer buffer = entryBuffer;
+        buffer.clear();
+        Arrays.fill(buffer.array(), (byte) 0);
+        buffer.putLong(MissionLibraryFormat.ID, entry.id);
+        buffer.putLong(MissionLibraryFormat.SAVED_MILLIS, entry.savedMillis);
+        buffer.putLong(MissionLibraryFormat.BODY_OFFSET, entry.bodyOffset);
+        buffer.putInt(MissionLibraryFormat.BODY_LENGTH, entry.bodyBytes);
+        buffer.putInt(MissionLibraryFormat.WAYPOINTS, entry.waypoints);
+        buffer.putInt(MissionLibraryFormat.MIN_LATITUDE, bound(entry.minLatitude, true));
+        buffer.putInt(MissionLibraryFormat.MIN_LONGITUDE, bound(entry.minLongitude, true));
+        buffer.putInt(MissionLibraryFormat.MAX_LATITUDE, bound(entry.maxLatitude, false));
+        buffer.putInt(MissionLibraryFormat.MAX_LONGITUDE, bound(entry.maxLongitude, false));
+        buffer.putFloat(MissionLibraryFormat.PATH_METERS, entry.pathMeters);
+        buffer.putShort(MissionLibraryFormat.FLAGS, flags);
+        byte[] name = entry.name.getBytes(MissionLibraryFormat.UTF_8);
+        buffer.putShort(MissionLibraryFormat.NAME_LENGTH, (short) name.length);
+        System.arraycopy(name, 0, buffer.array(), MissionLibraryFormat.NAME, name.length);
+        MissionLibraryFormat.sealEntry(buffer, 0);
+    }
+
+    /** Bounds of an empty mission are stored as an empty box. */
+    private static int bound(double degrees, boolean min) {
+        if (Double.isInfinite(degrees)) {
+            return min ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+        }
+        return MissionLibraryFormat.fixed(degrees);
+    }
+
+    /** The longest prefix of the name, on a character boundary, that fits the index. */
+    private static String fit(String name) {
+        String fitted = name == null ? "" : name;
+        while (fitted.getBytes(MissionLibraryFormat.UTF_8).length > MissionLibraryFormat.NAME_BYTES) {
+            int end = fitted.length() - 1;
+            if (Character.isLowSurrogate(fitted.charAt(end))) {
+                end--;
+            }
+            fitted = fitted.substring(0, end);
+        }
+        return fitted;
+    }
+
+    private int find(long id) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            if (entries.get(i).id == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long slotOffset(int slot) {
+        return MissionLibraryFormat.HEADER_BYTES + (long) slot * MissionLibraryFormat.ENTRY_BYTES;
+    }
+
+    private static void writeHeader(RandomAccessFile file, int magic, long generation) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(MissionLibraryFormat.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        MissionLibraryFormat.writeHeader(header, magic, generation);
+        file.getChannel().write(header, 0);
+    }
+
+    private void closeFiles() throws IOException {
+        mapped = null;
+        try {
+            if (data != null) {
+                data.close();
+            }
+        } finally {
+            data = null;
+            if (index != null) {
+                index.close();
+                index = null;
+            }
+        }
+    }
+}
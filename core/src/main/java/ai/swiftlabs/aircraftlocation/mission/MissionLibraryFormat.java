@@ -0,0 +1,225 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * On-disk layout of a {@link MissionLibrary}: a data file of mission bodies and an index file of
+ * fixed-width entries describing them, both little-endian and starting with a {@value #HEADER_BYTES}-byte
+ * header of magic, version and generation. The data file is named after its generation,
+ * {@code missions-<generation>.dat}, and the index's header says which one it describes, so compacting
+ * into a new data file takes effect with the rename of the new index.
+ *
+ * <p>A body holds the settings and the waypoints, delta-encoded: coordinates as signed 1e-7&deg;
+ * fixed-point (about a centimetre), altitudes in centimetres, each the zigzag varint of its difference
+ * from the previous waypoint. Neighbouring waypoints of a survey take two or three bytes per coordinate
+ * that way instead of eight.</p>
+ *
+ * <pre>
+ * varint  waypoint count                 per waypoint:
+ * float   altitude setting, NaN if none    varint zigzag latitude delta
+ * float   speed                            varint zigzag longitude delta
+ * byte    finished action                  varint zigzag altitude delta
+ * byte    heading mode                     byte   action
+ *                                          varint zigzag action parameter
+ * int     checksum of the bytes before it
+ * </pre>
+ *
+ * <p>An index entry is {@value #ENTRY_BYTES} bytes:</p>
+ *
+ * <pre>
+ *  0 long  id                              32 int   bounds, 1e-7&deg;: min latitude
+ *  8 long  saved at, wall-clock millis     36 int   min longitude
+ * 16 long  body offset in the data file    40 int   max latitude
+ * 24 int   body length                     44 int   max longitude
+ * 28 int   waypoint count                  48 float path length, meters
+ * 52 short flags, {@link #FLAG_DELETED}     54 short name length in bytes
+ * 56       name, UTF-8, up to {@value #NAME_BYTES} bytes
+ * 124 int  checksum of bytes 0-123
+ * </pre>
+ *
+ * <p>Entries are appended after their body, so the index only ever points at complete bodies; a torn
+ * entry at the end fails its checksum and is dropped when the library is opened.</p>
+ */
+final class MissionLibraryFormat {
+
+    static final String DATA_PREFIX = "missions-";
+    static final String DATA_EXTENSION = ".dat";
+    static final String INDEX_FILE = "missions.idx";
+    static final int DATA_MAGIC = 0x4D444154;
+    static final int INDEX_MAGIC = 0x4D494458;
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int HEADER_MAGIC = 0;
+    static final int HEADER_VERSION = 4;
+    static final int HEADER_GENERATION = 8;
+
+    static final int ENTRY_BYTES = 128;
+    static final int ID = 0;
+    static final int SAVED_MILLIS = 8;
+    static final int BODY_OFFSET = 16;
+    static final int BODY_LENGTH = 24;
+    static final int WAYPOINTS = 28;
+    static final int MIN_LATITUDE = 32;
+    static final int MIN_LONGITUDE = 36;
+    static final int MAX_LATITUDE = 40;
+    static final int MAX_LONGITUDE = 44;
+    static final int PATH_METERS = 48;
+    static final int FLAGS = 52;
+    static final int NAME_LENGTH = 54;
+    static final int NAME = 56;
+    static final int NAME_BYTES = 68;
+    static final int CHECKSUM = 124;
+
+    static final short FLAG_DELETED = 1;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+    static final double FIXED_POINT = 1e7;
+    static final float ALTITUDE_FIXED_POINT = 100;
+
+    /** Settings, count and checksum. */
+    private static final int BODY_OVERHEAD = 5 + 4 + 4 + 1 + 1 + 4;
+    /** Three coordinates and a parameter of up to five varint bytes each, and the action. */
+    private static final int WAYPOINT_MAX_BYTES = 4 * 5 + 1;
+
+    private MissionLibraryFormat() {
+    }
+
+    static String dataFile(long generation) {
+        return DATA_PREFIX + generation + DATA_EXTENSION;
+    }
+
+    static void writeHeader(ByteBuffer buffer, int magic, long generation) {
+        buffer.putInt(HEADER_MAGIC, magic);
+        buffer.putShort(HEADER_VERSION, VERSION);
+        buffer.putLong(HEADER_GENERATION, generation);
+    }
+
+    static boolean isValidHeader(ByteBuffer buffer, int magic) {
+        return buffer.limit() >= HEADER_BYTES
+                && buffer.getInt(HEADER_MAGIC) == magic
+                && buffer.getShort(HEADER_VERSION) == VERSION;
+    }
+
+    static int maxBodyBytes(int waypoints) {
+        return BODY_OVERHEAD + waypoints * WAYPOINT_MAX_BYTES;
+    }
+
+    /** Appends the body of a plan at the buffer's position, which must have {@link #maxBodyBytes} left. */
+    static void encode(MissionPlan plan, ByteBuffer buffer) {
+        int start = buffer.position();
+        int size = plan.size();
+        MissionSettings settings = plan.settings();
+        putVarint(buffer, size);
+        buffer.putFloat(settings.altitude());
+        buffer.putFloat(settings.speed());
+        buffer.put((byte) settings.finishedAction().ordinal());
+        buffer.put((byte) settings.headingMode().ordinal());
+        int lat = 0;
+        int lng = 0;
+        int alt = 0;
+        for (int i = 0; i < size; i++) {
+            int nextLat = fixed(plan.latitude[i]);
+            int nextLng = fixed(plan.longitude[i]);
+            int nextAlt = Math.round(plan.altitude[i] * ALTITUDE_FIXED_POINT);
+            putVarint(buffer, zigzag(nextLat - lat));
+            putVarint(buffer, zigzag(nextLng - lng));
+            putVarint(buffer, zigzag(nextAlt - alt));
+            buffer.put(plan.action[i]);
+            putVarint(buffer, zigzag(plan.actionParam[i]));
+            lat = nextLat;
+            lng = nextLng;
+            alt = nextAlt;
+        }
+        buffer.putInt(checksum(buffer, start, buffer.position()));
+    }
+
+    /**
+     * Decodes the body at the buffer's position, or returns {@code null} when its checksum does not match.
+     */
+    static MissionPlan decode(ByteBuffer buffer, int length) {
+        int start = buffer.position();
+        int end = start + length - 4;
+        if (length < BODY_OVERHEAD || buffer.getInt(end) != checksum(buffer, start, end)) {
+            return null;
+        }
+        int size = getVarint(buffer);
+        float altitudeSetting = buffer.getFloat();
+        float speed = buffer.getFloat();
+        MissionSettings settings = new MissionSettings(altitudeSetting, speed,
+                MissionSettings.FinishedAction.values()[buffer.get()],
+                MissionSettings.HeadingMode.values()[buffer.get()]);
+        double[] latitude = new double[size];
+        double[] longitude = new double[size];
+        float[] altitude = new float[size];
+        byte[] action = new byte[size];
+        int[] actionParam = new int[size];
+        int lat = 0;
+        int lng = 0;
+        int alt = 0;
+        for (int i = 0; i < size; i++) {
+            lat += unzigzag(getVarint(buffer));
+            lng += unzigzag(getVarint(buffer));
+            alt += unzigzag(getVarint(buffer));
+            latitude[i] = lat / FIXED_POINT;
+            longitude[i] = lng / FIXED_POINT;
+            altitude[i] = alt / ALTITUDE_FIXED_POINT;
+            action[i] = buffer.get();
+            actionParam[i] = unzigzag(getVarint(buffer));
+        }
+        return new MissionPlan(settings, size, latitude, longitude, altitude, action, actionParam);
+    }
+
+    static int fixed(double degrees) {
+        return (int) Math.round(degrees * FIXED_POINT);
+    }
+
+    static void sealEntry(ByteBuffer buffer, int offset) {
+        buffer.putInt(offset + CHECKSUM, checksum(buffer, offset, offset + CHECKSUM));
+    }
+
+    static boolean isValidEntry(ByteBuffer buffer, int offset) {
+        return offset + ENTRY_BYTES <= buffer.limit()
+                && buffer.getInt(offset + CHECKSUM) == checksum(buffer, offset, offset + CHECKSUM);
+    }
+
+    /** Multiplicative hash over {@code [from, to)}, as the flight log's records use. */
+    static int checksum(ByteBuffer buffer, int from, int to) {
+        long hash = 0x2545F4914F6CDD1DL;
+        int i = from;
+        for (; i + 4 <= to; i += 4) {
+            hash = (hash ^ buffer.getInt(i)) * 0x9E3779B97F4A7C15L;
+        }
+        for (; i < to; i++) {
+            hash = (hash ^ buffer.get(i)) * 0x9E3779B97F4A7C15L;
+        }
+        return (int) (hash ^ (hash >>> 29));
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+/**
+ * Constraints a mission has to satisfy before it is handed to the SDK.
+ */
+public final class MissionLimits {
+
+    /** Limits enforced by {@code WaypointMission.Builder} in DJI Mobile SDK 4.x. */
+    public static final MissionLimits DJI_WAYPOINT_V1 = new MissionLimits(2, 99, 0.5, 2000, -200, 500, 15);
+
+    private final int minWaypoints;
+    private final int maxWaypoints;
+    private final double minLegMeters;
+    private final double maxLegMeters;
+    private final float minAltitude;
+    private final float maxAltitude;
+    private final float maxSpeed;
+
+    public MissionLimits(int minWaypoints, int maxWaypoints, double minLegMeters, double maxLegMeters,
+                         float minAltitude, float maxAltitude, float maxSpeed) {
+        this.minWaypoints = minWaypoints;
+        this.maxWaypoints = maxWaypoints;
+        this.minLegMeters = minLegMeters;
+        this.maxLegMeters = maxLegMeters;
+        this.minAltitude = minAltitude;
+        this.maxAltitude = maxAltitude;
+        this.maxSpeed = maxSpeed;
+    }
+
+    public int minWaypoints() {
+        return minWaypoints;
+    }
+
+    public int maxWaypoints() {
+        return maxWaypoints;
+    }
+
+    public double minLegMeters() {
+        return minLegMeters;
+    }
+
+    public double maxLegMeters() {
+        return maxLegMeters;
+    }
+
+    public float minAltitude() {
+        return minAltitude;
+    }
+
+    public float maxAltitude() {
+        return maxAltitude;
+    }
+
+    public float maxSpeed() {
+        return maxSpeed;
+    }
+}
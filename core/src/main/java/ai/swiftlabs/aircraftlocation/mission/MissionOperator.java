@@ -0,0 +1,35 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+/**
+ * The waypoint mission operations of the aircraft SDK, so mission logic can run against a fake or a
+ * simulator. Mirrors DJI's {@code WaypointMissionOperator}: one mission is loaded at a time, then
+ * uploaded, then started.
+ *
+ * <p>Errors are reported as a description, {@code null} meaning success. Callbacks may arrive on any
+ * thread.</p>
+ */
+public interface MissionOperator extends MissionCompiler.Target {
+
+    interface Completion {
+        void onResult(String error);
+    }
+
+    interface Listener {
+        void onUploadProgress(int uploadedWaypoints, int totalWaypoints);
+
+        /** The aircraft is flying towards {@code targetWaypoint} of the executing mission. */
+        void onExecutionProgress(int targetWaypoint, int totalWaypoints);
+
+        void onExecutionFinish(String error);
+    }
+
+    void upload(Completion completion);
+
+    void start(Completion completion);
+
+    void stop(Completion completion);
+
+    void addListener(Listener listener);
+
+    void removeListener(Listener listener);
+}
@@ -0,0 +1,76 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+/**
+ * A compiled mission: waypoints in flight order with the settings applied, ready to be handed to the
+ * SDK. Columns are owned by the plan and must not be modified by readers.
+ */
+public final class MissionPlan {
+
+    private final MissionSettings settings;
+    private final int size;
+    final double[] latitude;
+    final double[] longitude;
+    final float[] altitude;
+    final byte[] action;
+    final int[] actionParam;
+
+    MissionPlan(MissionSettings settings, int size, double[] latitude, double[] longitude, float[] altitude,
+                byte[] action, int[] actionParam) {
+        this.settings = settings;
+        this.size = size;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.altitude = altitude;
+        this.action = action;
+        this.actionParam = actionParam;
+    }
+
+    /**
+     * Copies the waypoints of a store, in flight order. Runs on the thread that owns the store.
+     */
+    public static MissionPlan snapshot(WaypointStore store, MissionSettings settings) {
+        int size = store.size();
+        double[] latitude = new double[size];
+        double[] longitude = new double[size];
+        float[] altitude = new float[size];
+        byte[] action = new byte[size];
+        int[] actionParam = new int[size];
+        int i = 0;
+        for (int handle = store.first(); handle != WaypointStore.NONE; handle = store.next(handle), i++) {
+            latitude[i] = store.latitude(handle);
+            longitude[i] = store.longitude(handle);
+            altitude[i] = store.altitude(handle);
+            action[i] = (byte) store.action(handle).ordinal();
+            actionParam[i] = store.actionParam(handle);
+        }
+        return new MissionPlan(settings, size, latitude, longitude, altitude, action, actionParam);
+    }
+
+    public MissionSettings settings() {
+        return settings;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double latitude(int index) {
+        return latitude[index];
+    }
+
+    public double longitude(int index) {
+        return longitude[index];
+    }
+
+    public float altitude(int index) {
+        return altitude[index];
+    }
+
+    public ActionType action(int index) {
+        return ActionType.fromCode(action[index]);
+    }
+
+    public int actionParam(int index) {
+        return actionParam[index];
+    }
+}
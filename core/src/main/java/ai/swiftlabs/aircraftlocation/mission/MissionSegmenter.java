@@ -0,0 +1,53 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits a route longer than the SDK's per-mission limit into consecutive segments.
+ *
+ * <p>Each segment starts at the last waypoint of the previous one, so the flown path is the route itself
+ * and the aircraft continues from where it stopped. Segments are balanced in size rather than filled to
+ * the limit, so the last one is never a short leftover. Only the last segment carries the route's finished
+ * action; the others end with no action, so the aircraft does not head home between segments.</p>
+ */
+public final class MissionSegmenter {
+
+    private MissionSegmenter() {
+    }
+
+    public static List<MissionPlan> split(MissionPlan route, int maxWaypoints) {
+        if (maxWaypoints < 2) {
+            throw new IllegalArgumentException("segments need room for at least 2 waypoints, got " + maxWaypoints);
+        }
+        int size = route.size();
+        List<MissionPlan> segments = new ArrayList<>();
+        if (size <= maxWaypoints) {
+            segments.add(route);
+            return segments;
+        }
+        // n segments of at most maxWaypoints share n - 1 waypoints.
+        int count = (size - 1 + maxWaypoints - 2) / (maxWaypoints - 1);
+        int legs = size - 1;
+        MissionSettings settings = route.settings();
+        MissionSettings intermediate = new MissionSettings(settings.altitude(), settings.speed(),
+                MissionSettings.FinishedAction.NO_ACTION, settings.headingMode());
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int end = (int) ((long) legs * (i + 1) / count);
+            segments.add(slice(route, i + 1 < count ? intermediate : settings, start, end + 1));
+            start = end;
+        }
+        return segments;
+    }
+
+    private static MissionPlan slice(MissionPlan route, MissionSettings settings, int from, int to) {
+        return new MissionPlan(settings, to - from,
+                Arrays.copyOfRange(route.latitude, from, to),
+                Arrays.copyOfRange(route.longitude, from, to),
+                Arrays.copyOfRange(route.altitude, from, to),
+                Arrays.copyOfRange(route.action, from, to),
+                Arrays.copyOfRange(route.actionParam, from, to));
+    }
+}
@@ -0,0 +1,67 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+/**
+ * Mission-wide settings chosen in the waypoint configuration dialog. The enums are named after their
+ * DJI counterparts ({@code WaypointMissionFinishedAction}, {@code WaypointMissionHeadingMode}) so they
+ * convert by name.
+ */
+public final class MissionSettings {
+
+    public enum FinishedAction {
+        NO_ACTION,
+        GO_HOME,
+        AUTO_LAND,
+        GO_FIRST_WAYPOINT
+    }
+
+    public enum HeadingMode {
+        AUTO,
+        USING_INITIAL_DIRECTION,
+        CONTROL_BY_REMOTE_CONTROLLER,
+        USING_WAYPOINT_HEADING
+    }
+
+    private final float altitude;
+    private final float speed;
+    private final FinishedAction finishedAction;
+    private final HeadingMode headingMode;
+
+    /**
+     * @param altitude altitude applied to every waypoint, or {@link Float#NaN} to keep each waypoint's own
+     * @param speed    auto and max flight speed in m/s
+     */
+    public MissionSettings(float altitude, float speed, FinishedAction finishedAction, HeadingMode headingMode) {
+        this.altitude = altitude;
+        this.speed = speed;
+        this.finishedAction = finishedAction;
+        this.headingMode = headingMode;
+    }
+
+    public float altitude() {
+        return altitude;
+    }
+
+    public boolean overridesAltitude() {
+        return !Float.isNaN(altitude);
+    }
+
+    public float speed() {
+        return speed;
+    }
+
+    public FinishedAction finishedAction() {
+        return finishedAction;
+    }
+
+    public HeadingMode headingMode() {
+        return headingMode;
+    }
+
+    @Override
+    public String toString() {
+        return "MissionSettings{altitude=" + altitude
+                + ", speed=" + speed
+                + ", finishedAction=" + finishedAction
+                + ", headingMode=" + headingMode + '}';
+    }
+}
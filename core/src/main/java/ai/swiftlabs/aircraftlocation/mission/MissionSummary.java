@@ -0,0 +1,163 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.util.Arrays;
+
+import ai.swiftlabs.aircraftlocation.geo.Geodesy;
+
+/**
+ * Pre-flight numbers for the mission being edited: path length, leg bearings, ETA and energy.
+ *
+ * <p>Follows a {@link WaypointStore} as a listener and keeps per-waypoint columns for the leg that ends
+ * at each waypoint. Adding or editing a waypoint updates the totals in O(1); removing one or clearing the
+ * store recomputes them in one pass. Owned by the store's thread.</p>
+ */
+public final class MissionSummary implements WaypointStore.Listener {
+
+    private final WaypointStore store;
+    private final EnergyModel energyModel;
+    private double[] legMeters;
+    private double[] legBearing;
+    private double[] climbMeters;
+    private double[] stayMillis;
+
+    private double lengthMeters;
+    private double ascentMeters;
+    private double totalStayMillis;
+    private float speed;
+
+    public MissionSummary(WaypointStore store, EnergyModel energyModel, float speed) {
+        this.store = store;
+        this.energyModel = energyModel;
+        this.speed = speed;
+        int capacity = Math.max(16, store.handleBound());
+        legMeters = new double[capacity];
+        legBearing = new double[capacity];
+        climbMeters = new double[capacity];
+        stayMillis = new double[capacity];
+        recompute();
+    }
+
+    /** Auto flight speed in m/s used for the ETA. */
+    public void setSpeed(float speed) {
+        this.speed = speed;
+    }
+
+    public int waypointCount() {
+        return store.size();
+    }
+
+    public double lengthMeters() {
+        return lengthMeters;
+    }
+
+    /** Sum of all climbs, including the one from take-off to the first waypoint. */
+    public double ascentMeters() {
+        return ascentMeters;
+    }
+
+    /** Flight time at the current speed plus the time spent in {@link ActionType#STAY} actions. */
+    public double etaSeconds() {
+        double flight = speed > 0 ? lengthMeters / speed : 0;
+        return flight + totalStayMillis / 1000;
+    }
+
+    public double energyWattHours() {
+        return energyModel.energyWattHours(etaSeconds(), ascentMeters);
+    }
+
+    /** Share of a full battery the mission needs; above 1 it cannot be flown on one battery. */
+    public double batteryFraction() {
+        return energyWattHours() / energyModel.batteryWattHours();
+    }
+
+    /** Length of the leg that ends at {@code handle}; 0 for the first waypoint. */
+    public double legMeters(int handle) {
+        return legMeters[handle];
+    }
+
+    /** Initial bearing of the leg that ends at {@code handle}, in degrees; 0 for the first waypoint. */
+    public double legBearing(int handle) {
+        return legBearing[handle];
+    }
+
+    @Override
+    public void onWaypointAdded(int handle) {
+        ensureCapacity(handle);
+        include(handle);
+        int next = store.next(handle);
+        if (next != WaypointStore.NONE) {
+            exclude(next);
+            include(next);
+        }
+    }
+
+    @Override
+    public void onWaypointChanged(int handle) {
+        exclude(handle);
+        include(handle);
+        int next = store.next(handle);
+        if (next != WaypointStore.NONE) {
+            exclude(next);
+            include(next);
+        }
+    }
+
+    @Override
+    public void onWaypointRemoved(int handle) {
+        recompute();
+    }
+
+    @Override
+    public void onWaypointsCleared() {
+        recompute();
+    }
+
+    private void recompute() {
+        ensureCapacity(store.handleBound() - 1);
+        lengthMeters = 0;
+        ascentMeters = 0;
+        totalStayMillis = 0;
+        for (int handle = store.first(); handle != WaypointStore.NONE; handle = store.next(handle)) {
+            include(handle);
+        }
+    }
+
+    /** Computes the leg ending at {@code handle} from its predecessor and adds it to the totals. */
+    private void include(int handle) {
+        int previous = store.previous(handle);
+        double lat = store.latitude(handle);
+        double lng = store.longitude(handle);
+        if (previous == WaypointStore.NONE) {
+            legMeters[handle] = 0;
+            legBearing[handle] = 0;
+            climbMeters[handle] = Math.max(0, store.altitude(handle));
+        } else {
+            double previousLat = store.latitude(previous);
+            double previousLng = store.longitude(previous);
+            legMeters[handle] = Geodesy.haversine(previousLat, previousLng, lat, lng);
+            legBearing[handle] = Geodesy.initialBearing(previousLat, previousLng, lat, lng);
+            climbMeters[handle] = Math.max(0, store.altitude(handle) - store.altitude(previous));
+        }
+        stayMillis[handle] = store.action(handle) == ActionType.STAY ? store.actionParam(handle) : 0;
+        lengthMeters += legMeters[handle];
+        ascentMeters += climbMeters[handle];
+        totalStayMillis += stayMillis[handle];
+    }
+
+    private void exclude(int handle) {
+        lengthMeters -= legMeters[handle];
+        ascentMeters -= climbMeters[handle];
+        totalStayMillis -= stayMillis[handle];
+    }
+
+    private void ensureCapacity(int handle) {
+        if (handle < legMeters.length) {
+            return;
+        }
+        int capacity = Math.max(handle + 1, legMeters.length * 2);
+        legMeters = Arrays.copyOf(legMeters, capacity);
+        legBearing = Arrays.copyOf(legBearing, capacity);
+        climbMeters = Arrays.copyOf(climbMeters, capacity);
+        stayMillis = Arrays.copyOf(stayMillis, capacity);
+    }
+}
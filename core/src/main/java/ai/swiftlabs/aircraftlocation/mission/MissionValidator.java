@@ -0,0 +1,193 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ai.swiftlabs.aircraftlocation.geo.Geodesy;
+import ai.swiftlabs.aircraftlocation.geofence.Geofence;
+import ai.swiftlabs.aircraftlocation.geofence.GeofenceIndex;
+
+/**
+ * Checks a {@link MissionPlan} against {@link MissionLimits} before it reaches the SDK, so a bad mission
+ * is reported with the offending waypoint instead of a generic load error.
+ *
+ * <p>With a {@link GeofenceIndex}, each waypoint and each leg into it is also checked against the fences:
+ * neither may enter a {@link Geofence.Kind#KEEP_OUT} fence, and when there are
+ * {@link Geofence.Kind#KEEP_IN} fences each leg must stay within one of them.</p>
+ */
+public final class MissionValidator {
+
+    public enum Rule {
+        TOO_FEW_WAYPOINTS,
+        TOO_MANY_WAYPOINTS,
+        LEG_TOO_SHORT,
+        LEG_TOO_LONG,
+        ALTITUDE_OUT_OF_RANGE,
+        SPEED_OUT_OF_RANGE,
+        IN_NO_FLY_ZONE,
+        OUTSIDE_GEOFENCE
+    }
+
+    public static final class Violation {
+        private final Rule rule;
+        private final int index;
+        private final double value;
+
+        Violation(Rule rule, int index, double value) {
+            this.rule = rule;
+            this.index = index;
+            this.value = value;
+        }
+
+        public Rule rule() {
+            return rule;
+        }
+
+        /** Index of the offending waypoint in flight order, or -1 for mission-wide rules. */
+        public int index() {
+            return index;
+        }
+
+        /**
+         * The value that broke the rule: a count, a leg length in meters, an altitude, a speed, or the id of
+         * the fence entered or left (-1 when outside them all).
+         */
+        public double value() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            String where = index < 0 ? "mission" : "waypoint " + (index + 1);
+            return where + ": " + rule + " (" + value + ")";
+        }
+    }
+
+    private final MissionLimits limits;
+    private volatile GeofenceIndex fences;
+
+    public MissionValidator(MissionLimits limits) {
+        this(limits, GeofenceIndex.EMPTY);
+    }
+
+    public MissionValidator(MissionLimits limits, GeofenceIndex fences) {
+        this.limits = limits;
+        this.fences = fences;
+    }
+
+    public MissionLimits limits() {
+        return limits;
+    }
+
+    public GeofenceIndex fences() {
+        return fences;
+    }
+
+    /** Replaces the fences, e.g. once they are loaded; a validation already running keeps the old ones. */
+    public void setFences(GeofenceIndex fences) {
+        this.fences = fences;
+    }
+
+    /** Returns every violation in the plan, or an empty list when it can be loaded. */
+    public List<Violation> validate(MissionPlan plan) {
+        List<Violation> violations = null;
+        int size = plan.size();
+        if (size < limits.minWaypoints()) {
+            violations = add(violations, new Violation(Rule.TOO_FEW_WAYPOINTS, -1, size));
+        }
+        if (size > limits.maxWaypoints()) {
+            violations = add(violations, new Violation(Rule.TOO_MANY_WAYPOINTS, -1, size));
+        }
+        float speed = plan.settings().speed();
+        if (speed <= 0 || speed > limits.maxSpeed()) {
+            violations = add(violations, new Violation(Rule.SPEED_OUT_OF_RANGE, -1, speed));
+        }
+        GeofenceIndex fences = this.fences;
+        FenceCheck fenceCheck = fences.size() > 0 ? new FenceCheck(fences) : null;
+        for (int i = 0; i < size; i++) {
+            float altitude = plan.altitude[i];
+            if (altitude < limits.minAltitude() || altitude > limits.maxAltitude()) {
+                violations = add(violations, new Violation(Rule.ALTITUDE_OUT_OF_RANGE, i, altitude));
+            }
+            if (fenceCheck != null) {
+                violations = fenceCheck.check(plan, i, violations);
+            }
+            if (i == 0) {
+                continue;
+            }
+            double leg = Geodesy.haversine(plan.latitude[i - 1], plan.longitude[i - 1], plan.latitude[i], plan.longitude[i]);
+            if (leg < limits.minLegMeters()) {
+                violations = add(violations, new Violation(Rule.LEG_TOO_SHORT, i, leg));
+            } else if (leg > limits.maxLegMeters()) {
+                violations = add(violations, new Violation(Rule.LEG_TOO_LONG, i, leg));
+            }
+        }
+        return violations == null ? Collections.<Violation>emptyList() : violations;
+    }
+
+    /** Checks a waypoint and the leg into it against the fences whose boxes they overlap. */
+    private static final class FenceCheck implements GeofenceIndex.Visitor {
+        private final GeofenceIndex fences;
+        private double lat;
+        private double lng;
+        private double previousLat;
+        private double previousLng;
+        private boolean leg;
+        private Geofence keptOutBy;
+        private boolean keptIn;
+        // A keep-in fence the waypoint is in but the leg leaves.
+        private Geofence leftFence;
+
+        FenceCheck(GeofenceIndex fences) {
+            this.fences = fences;
+        }
+
+        List<Violation> check(MissionPlan plan, int i, List<Violation> violations) {
+            lat = plan.latitude[i];
+            lng = plan.longitude[i];
+            leg = i > 0;
+            previousLat = leg ? plan.latitude[i - 1] : lat;
+            previousLng = leg ? plan.longitude[i - 1] : lng;
+            keptOutBy = null;
+            keptIn = false;
+            leftFence = null;
+            fences.search(Math.min(lat, previousLat), Math.min(lng, previousLng), Math.max(lat, previousLat),
+                    Math.max(lng, previousLng), this);
+            if (keptOutBy != null) {
+                violations = add(violations, new Violation(Rule.IN_NO_FLY_ZONE, i, keptOutBy.id()));
+            }
+            if (fences.keepInCount() > 0 && !keptIn) {
+                violations = add(violations, new Violation(Rule.OUTSIDE_GEOFENCE, i,
+                        leftFence == null ? -1 : leftFence.id()));
+            }
+            return violations;
+        }
+
+        @Override
+        public void visit(int fence) {
+            Geofence geofence = fences.fence(fence);
+            if (geofence.kind() == Geofence.Kind.KEEP_OUT) {
+                if (keptOutBy == null && (geofence.contains(lat, lng)
+                        || (leg && geofence.crosses(previousLat, previousLng, lat, lng)))) {
+                    keptOutBy = geofence;
+                }
+            } else if (!keptIn && geofence.contains(lat, lng)) {
+                if (!leg || (geofence.contains(previousLat, previousLng)
+                        && !geofence.crosses(previousLat, previousLng, lat, lng))) {
+                    keptIn = true;
+                } else {
+                    leftFence = geofence;
+                }
+            }
+        }
+    }
+
+    private static List<Violation> add(List<Violation> violations, Violation violation) {
+        if (violations == null) {
+            violations = new ArrayList<>();
+        }
+        violations.add(violation);
+        return violations;
+    }
+}
@@ -0,0 +1,532 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import ai.swiftlabs.aircraftlocation.geo.Geodesy;
+import ai.swiftlabs.aircraftlocation.geo.LocalTangentPlane;
+
+/**
+ * Shortens a mission before it is uploaded: reorders the waypoints into a shorter visiting order and
+ * drops waypoints that barely change the path.
+ *
+ * <p>Reordering keeps the first waypoint in place and treats the rest as free. It builds a
+ * nearest-neighbour tour and improves it with 2-opt moves restricted to each waypoint's
+ * {@link #NEIGHBOURS} nearest neighbours, so a pass costs O(n&middot;k) plus the segment reversals.
+ * Simplification then removes waypoints that lie within the tolerance of the path through their
+ * neighbours, with either Douglas-Peucker or Visvalingam-Whyatt. Altitude takes part in those distances, so
+ * a waypoint where the altitude changes is kept; the actions of removed waypoints are dropped with them.</p>
+ *
+ * <p>All geometry is done on a {@link LocalTangentPlane} in primitive arrays. The long-running loops
+ * check the thread's interrupt flag and give up with an {@link InterruptedException}. Instances reuse
+ * their buffers and are not thread-safe.</p>
+ */
+public final class PathOptimizer {
+
+    /** Candidate neighbours per waypoint for 2-opt. */
+    public static final int NEIGHBOURS = 8;
+
+    private static final int MAX_TWO_OPT_PASSES = 50;
+
+    public enum Simplification {
+        NONE,
+        DOUGLAS_PEUCKER,
+        VISVALINGAM
+    }
+
+    public static final class Options {
+        private final boolean reorder;
+        private final Simplification simplification;
+        private final double toleranceMeters;
+
+        /**
+         * @param toleranceMeters how far a waypoint may be from the simplified path. Visvalingam removes
+         *                        points whose triangle is smaller than that of a right triangle with two
+         *                        sides of this length.
+         */
+        public Options(boolean reorder, Simplification simplification, double toleranceMeters) {
+            this.reorder = reorder;
+            this.simplification = simplification;
+            this.toleranceMeters = toleranceMeters;
+        }
+
+        public boolean reorder() {
+            return reorder;
+        }
+
+        public Simplification simplification() {
+            return simplification;
+        }
+
+        public double toleranceMeters() {
+            return toleranceMeters;
+        }
+    }
+
+    public static final class Result {
+        private final MissionPlan plan;
+        private final int removed;
+        private final boolean reordered;
+        private final double lengthBefore;
+        private final double lengthAfter;
+
+        Result(MissionPlan plan, int removed, boolean reordered, double lengthBefore, double lengthAfter) {
+            this.plan = plan;
+            this.removed = removed;
+            this.reordered = reordered;
+            this.lengthBefore = lengthBefore;
+            this.lengthAfter = lengthAfter;
+        }
+
+        public MissionPlan plan() {
+            return plan;
+        }
+
+        /** Whether the plan differs from the input at all. */
+        public boolean changed() {
+            return removed > 0 || reordered;
+        }
+
+        public int removedWaypoints() {
+            return removed;
+        }
+
+        public boolean reordered() {
+            return reordered;
+        }
+
+        public double lengthBeforeMeters() {
+            return lengthBefore;
+        }
+
+        public double lengthAfterMeters() {
+            return lengthAfter;
+        }
+
+        public double savedMeters() {
+            return lengthBefore - lengthAfter;
+        }
+
+        /** Flight time saved at the plan's speed. */
+        public double savedSeconds() {
+            float speed = plan.settings().speed();
+            return speed > 0 ? savedMeters() / speed : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d waypoints removed%s, %.0f m / %.0f s saved",
+                    removed, reordered ? ", reordered" : "", savedMeters(), savedSeconds());
+        }
+    }
+
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private double[] z = new double[0];
+    private int[] tour = new int[0];
+    private int[] position = new int[0];
+    private int[] neighbours = new int[0];
+    private double[] neighbourDistance = new double[0];
+    private boolean[] visited = new boolean[0];
+    private boolean[] keep = new boolean[0];
+    private int[] stack = new int[0];
+    private int[] previous = new int[0];
+    private int[] next = new int[0];
+    private double[] area = new double[0];
+    private int[] heap = new int[0];
+    private int[] heapIndex = new int[0];
+
+    public Result optimize(MissionPlan plan, Options options) throws InterruptedException {
+        int n = plan.size();
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            tour[i] = i;
+        }
+        double lengthBefore = pathLength(plan, tour, n);
+        if (n < 3) {
+            return new Result(plan, 0, false, lengthBefore, lengthBefore);
+        }
+        project(plan, n);
+
+        boolean reordered = false;
+        if (options.reorder()) {
+            nearestNeighbourTour(n);
+            twoOpt(n);
+            for (int i = 0; i < n && !reordered; i++) {
+                reordered = tour[i] != i;
+            }
+            if (reordered && pathLength(plan, tour, n) >= lengthBefore) {
+                // 2-opt only ever shortens the tour, but a nearest-neighbour start can be worse than a
+                // hand-placed order; keep the original then.
+                for (int i = 0; i < n; i++) {
+                    tour[i] = i;
+                }
+                reordered = false;
+            }
+        }
+
+        Arrays.fill(keep, 0, n, true);
+        switch (options.simplification()) {
+            case DOUGLAS_PEUCKER:
+                douglasPeucker(n, options.toleranceMeters());
+                break;
+            case VISVALINGAM:
+                visvalingam(n, options.toleranceMeters() * options.toleranceMeters() / 2);
+                break;
+            case NONE:
+            default:
+                break;
+        }
+
+        int kept = 0;
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                tour[kept++] = tour[i];
+            }
+        }
+        MissionPlan optimized = reordered || kept < n ? select(plan, tour, kept) : plan;
+        return new Result(optimized, n - kept, reordered, lengthBefore, pathLength(plan, tour, kept));
+    }
+
+    private void project(MissionPlan plan, int n) {
+        LocalTangentPlane plane = new LocalTangentPlane(plan.latitude(0), plan.longitude(0));
+        for (int i = 0; i < n; i++) {
+            x[i] = plane.east(plan.longitude(i));
+            y[i] = plane.north(plan.latitude(i));
+            z[i] = plan.altitude(i);
+        }
+    }
+
+    private double distance(int a, int b) {
+        double dx = x[a] - x[b];
+        double dy = y[a] - y[b];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private void nearestNeighbourTour(int n) throws InterruptedException {
+        Arrays.fill(visited, 0, n, false);
+        visited[0] = true;
+        tour[0] = 0;
+        for (int i = 1; i < n; i++) {
+            checkInterrupted();
+            int from = tour[i - 1];
+            int best = -1;
+            double bestDistance = Double.POSITIVE_INFINITY;
+            for (int candidate = 1; candidate < n; candidate++) {
+                if (visited[candidate]) {
+                    continue;
+                }
+                double dx = x[from] - x[candidate];
+                double dy = y[from] - y[candidate];
+                double d = dx * dx + dy * dy;
+                if (d < bestDistance) {
+                    bestDistance = d;
+                    best = candidate;
+                }
+            }
+            visited[best] = true;
+            tour[i] = best;
+        }
+    }
+
+    /**
+     * 2-opt over an open path with a fixed start. For a waypoint at position a and a neighbour at b > a,
+     * the new edge (a, b) can be made two ways: reversing [a+1, b] replaces (a, a+1) and (b, b+1) by
+     * (a, b) and (a+1, b+1); reversing [a, b-1] replaces (a-1, a) and (b-1, b) by (a-1, b-1) and (a, b).
+     * At the end of the path (b, b+1) does not exist, and position 0 never moves.
+     */
+    private void twoOpt(int n) throws InterruptedException {
+        buildNeighbours(n);
+        for (int p = 0; p < n; p++) {
+            position[tour[p]] = p;
+        }
+        for (int pass = 0; pass < MAX_TWO_OPT_PASSES; pass++) {
+            boolean improved = false;
+            for (int city = 0; city < n; city++) {
+                checkInterrupted();
+                for (int k = 0; k < NEIGHBOURS && k < n - 1; k++) {
+                    int other = neighbours[city * NEIGHBOURS + k];
+                    int a = Math.min(position[city], position[other]);
+                    int b = Math.max(position[city], position[other]);
+                    if (b - a < 2) {
+                        continue;
+                    }
+                    double joined = distance(tour[a], tour[b]);
+                    double before = distance(tour[a], tour[a + 1]);
+                    double after = joined;
+                    if (b + 1 < n) {
+                        before += distance(tour[b], tour[b + 1]);
+                        after += distance(tour[a + 1], tour[b + 1]);
+                    }
+                    if (after < before - 1e-9) {
+                        reverse(a + 1, b);
+                        improved = true;
+                        continue;
+                    }
+                    if (a > 0) {
+                        before = distance(tour[a - 1], tour[a]) + distance(tour[b - 1], tour[b]);
+                        after = distance(tour[a - 1], tour[b - 1]) + joined;
+                        if (after < before - 1e-9) {
+                            reverse(a, b - 1);
+                            improved = true;
+                        }
+                    }
+                }
+            }
+            if (!improved) {
+                return;
+            }
+        }
+    }
+
+    private void reverse(int from, int to) {
+        while (from < to) {
+            int swap = tour[from];
+            tour[from] = tour[to];
+            tour[to] = swap;
+            position[tour[from]] = from;
+            position[tour[to]] = to;
+            from++;
+            to--;
+        }
+    }
+
+    /** Keeps the {@link #NEIGHBOURS} nearest waypoints of each waypoint, by insertion into a short list. */
+    private void buildNeighbours(int n) throws InterruptedException {
+        int k = Math.min(NEIGHBOURS, n - 1);
+        for (int city = 0; city < n; city++) {
+            checkInterrupted();
+            int base = city * NEIGHBOURS;
+            int count = 0;
+            for (int other = 0; other < n; other++) {
+                if (other == city) {
+                    continue;
+                }
+                double dx = x[city] - x[other];
+                double dy = y[city] - y[other];
+                double d = dx * dx + dy * dy;
+                if (count == k && d >= neighbourDistance[base + k - 1]) {
+                    continue;
+                }
+                int slot = count < k ? count++ : k - 1;
+                while (slot > 0 && neighbourDistance[base + slot - 1] > d) {
+                    neighbourDistance[base + slot] = neighbourDistance[base + slot - 1];
+                    neighbours[base + slot] = neighbours[base + slot - 1];
+                    slot--;
+                }
+                neighbourDistance[base + slot] = d;
+                neighbours[base + slot] = other;
+            }
+        }
+    }
+
+    /** Douglas-Peucker over tour order with an explicit stack of [first, last] ranges. */
+    private void douglasPeucker(int n, double tolerance) throws InterruptedException {
+        Arrays.fill(keep, 0, n, false);
+        keep[0] = true;
+        keep[n - 1] = true;
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            checkInterrupted();
+            int last = stack[--top];
+            int first = stack[--top];
+            int farthest = -1;
+            double farthestDistance = tolerance;
+            for (int i = first + 1; i < last; i++) {
+                double d = segmentDistance(tour[i], tour[first], tour[last]);
+                if (d > farthestDistance) {
+                    farthestDistance = d;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+    }
+
+    /**
+     * Visvalingam-Whyatt: repeatedly removes the waypoint whose triangle with its neighbours is smallest,
+     * using an indexed min-heap so neighbours can be re-keyed after each removal.
+     */
+    private void visvalingam(int n, double minArea) throws InterruptedException {
+        for (int i = 0; i < n; i++) {
+            previous[i] = i - 1;
+            next[i] = i + 1 < n ? i + 1 : -1;
+        }
+        int heapSize = 0;
+        for (int i = 1; i < n - 1; i++) {
+            area[i] = triangleArea(tour[i - 1], tour[i], tour[i + 1]);
+            heap[heapSize] = i;
+            heapIndex[i] = heapSize;
+            heapSize++;
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(i, heapSize);
+        }
+        while (heapSize > 0 && area[heap[0]] < minArea) {
+            checkInterrupted();
+            int point = heap[0];
+            heapSize--;
+            moveInHeap(heapSize, 0);
+            siftDown(0, heapSize);
+            heapIndex[point] = -1;
+            keep[point] = false;
+
+            int before = previous[point];
+            int after = next[point];
+            next[before] = after;
+            previous[after] = before;
+            // Re-key the neighbours; an area never drops below the one just removed, so the order of
+            // removal stays monotonic.
+            if (previous[before] >= 0) {
+                area[before] = Math.max(area[point],
+                        triangleArea(tour[previous[before]], tour[before], tour[after]));
+                update(before, heapSize);
+            }
+            if (next[after] >= 0) {
+                area[after] = Math.max(area[point], triangleArea(tour[before], tour[after], tour[next[after]]));
+                update(after, heapSize);
+            }
+        }
+    }
+
+    private void update(int point, int heapSize) {
+        int index = heapIndex[point];
+        siftUp(index);
+        siftDown(heapIndex[point], heapSize);
+    }
+
+    private void moveInHeap(int from, int to) {
+        heap[to] = heap[from];
+        heapIndex[heap[to]] = to;
+    }
+
+    private void siftUp(int index) {
+        int point = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (area[heap[parent]] <= area[point]) {
+                break;
+            }
+            heap[index] = heap[parent];
+            heapIndex[heap[index]] = index;
+            index = parent;
+        }
+        heap[index] = point;
+        heapIndex[point] = index;
+    }
+
+    private void siftDown(int index, int heapSize) {
+        if (index >= heapSize) {
+            return;
+        }
+        int point = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && area[heap[child + 1]] < area[heap[child]]) {
+                child++;
+            }
+            if (area[heap[child]] >= area[point]) {
+                break;
+            }
+            heap[index] = heap[child];
+            heapIndex[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = point;
+        heapIndex[point] = index;
+    }
+
+    /** Distance in 3D from point p to the segment a-b. */
+    private double segmentDistance(int p, int a, int b) {
+        double abx = x[b] - x[a];
+        double aby = y[b] - y[a];
+        double abz = z[b] - z[a];
+        double apx = x[p] - x[a];
+        double apy = y[p] - y[a];
+        double apz = z[p] - z[a];
+        double lengthSquared = abx * abx + aby * aby + abz * abz;
+        double t = lengthSquared == 0 ? 0 : (apx * abx + apy * aby + apz * abz) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double dx = apx - t * abx;
+        double dy = apy - t * aby;
+        double dz = apz - t * abz;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private double triangleArea(int a, int b, int c) {
+        double abx = x[b] - x[a];
+        double aby = y[b] - y[a];
+        double abz = z[b] - z[a];
+        double acx = x[c] - x[a];
+        double acy = y[c] - y[a];
+        double acz = z[c] - z[a];
+        double cx = aby * acz - abz * acy;
+        double cy = abz * acx - abx * acz;
+        double cz = abx * acy - aby * acx;
+        return 0.5 * Math.sqrt(cx * cx + cy * cy + cz * cz);
+    }
+
+    private static double pathLength(MissionPlan plan, int[] order, int count) {
+        double length = 0;
+        for (int i = 1; i < count; i++) {
+            length += Geodesy.haversine(plan.latitude(order[i - 1]), plan.longitude(order[i - 1]),
+                    plan.latitude(order[i]), plan.longitude(order[i]));
+        }
+        return length;
+    }
+
+    private static MissionPlan select(MissionPlan plan, int[] order, int count) {
+        double[] latitude = new double[count];
+        double[] longitude = new double[count];
+        float[] altitude = new float[count];
+        byte[] action = new byte[count];
+        int[] actionParam = new int[count];
+        for (int i = 0; i < count; i++) {
+            int source = order[i];
+            latitude[i] = plan.latitude[source];
+            longitude[i] = plan.longitude[source];
+            altitude[i] = plan.altitude[source];
+            action[i] = plan.action[source];
+            actionParam[i] = plan.actionParam[source];
+        }
+        return new MissionPlan(plan.settings(), count, latitude, longitude, altitude, action, actionParam);
+    }
+
+    private static void checkInterrupted() throws InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("path optimisation interrupted");
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= x.length) {
+            return;
+        }
+        x = new double[n];
+        y = new double[n];
+        z = new double[n];
+        tour = new int[n];
+        position = new int[n];
+        neighbours = new int[n * NEIGHBOURS];
+        neighbourDistance = new double[n * NEIGHBOURS];
+        visited = new boolean[n];
+        keep = new boolean[n];
+        stack = new int[4 * n];
+        previous = new int[n];
+        next = new int[n];
+        area = new double[n];
+        heap = new int[n];
+        heapIndex = new int[n];
+    }
+}
@@ -0,0 +1,80 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.util.Random;
+
+/**
+ * How often and how patiently {@link RetryingMissionOperator} retries a failed operation.
+ *
+ * <p>The delay before retry {@code n} grows exponentially from {@code initialDelayMillis} up to
+ * {@code maxDelayMillis}; {@code jitter} then takes a random share of up to that fraction off it, so
+ * controllers that failed together on a congested link do not retry in lockstep. An attempt that gets no
+ * answer within {@code attemptTimeoutMillis} counts as failed.</p>
+ */
+public final class RetryPolicy {
+
+    /** Four attempts with up to 3.5 s of backoff between them, for the radio link to the remote controller. */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(4, 500, 4000, 2, 0.5, 15000);
+
+    /** A single attempt, with the same timeout as {@link #DEFAULT}. */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0, 1, 0, 15000);
+
+    private final int maxAttempts;
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final double multiplier;
+    private final double jitter;
+    private final long attemptTimeoutMillis;
+
+    public RetryPolicy(int maxAttempts, long initialDelayMillis, long maxDelayMillis, double multiplier,
+                       double jitter, long attemptTimeoutMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1, got " + maxAttempts);
+        }
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("multiplier must be at least 1, got " + multiplier);
+        }
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("jitter must be within [0, 1], got " + jitter);
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = Math.max(initialDelayMillis, maxDelayMillis);
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.attemptTimeoutMillis = attemptTimeoutMillis;
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    public long initialDelayMillis() {
+        return initialDelayMillis;
+    }
+
+    public long maxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public double multiplier() {
+        return multiplier;
+    }
+
+    public double jitter() {
+        return jitter;
+    }
+
+    public long attemptTimeoutMillis() {
+        return attemptTimeoutMillis;
+    }
+
+    /**
+     * Delay before the given retry.
+     *
+     * @param retry 1 for the retry after the first attempt
+     */
+    public long delayMillis(int retry, Random random) {
+        double delay = Math.min(maxDelayMillis, initialDelayMillis * Math.pow(multiplier, retry - 1));
+        return (long) (delay * (1 - jitter * random.nextDouble()));
+    }
+}
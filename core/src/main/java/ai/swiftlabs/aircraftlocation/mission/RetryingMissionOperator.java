@@ -0,0 +1,327 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ai.swiftlabs.aircraftlocation.metrics.LatencyHistogram;
+
+/**
+ * Retries upload, start and stop on another {@link MissionOperator} according to a {@link RetryPolicy},
+ * behind a shared {@link CircuitBreaker}.
+ *
+ * <p>Each call completes exactly once: with {@code null} after a successful attempt, or with the last
+ * error once the attempts are used up, the breaker rejects the call, or the call is cancelled. Loading
+ * a mission or stopping cancels pending upload and start calls, since they would act on a mission that
+ * is no longer wanted. Latency and outcome of every attempt are recorded in {@link #stats}.</p>
+ */
+public final class RetryingMissionOperator implements MissionOperator {
+
+    public enum Operation {
+        UPLOAD,
+        START,
+        STOP
+    }
+
+    public static final String CANCELLED = "Cancelled";
+    public static final String TIMED_OUT = "Timed out";
+    public static final String CIRCUIT_OPEN = "Link unreliable, not retrying for now";
+
+    /** Attempt counters and latency of one operation. */
+    public static final class Stats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram callLatency = new LatencyHistogram();
+        private final AtomicInteger attempts = new AtomicInteger();
+        private final AtomicInteger successes = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicInteger timeouts = new AtomicInteger();
+        private final AtomicInteger retries = new AtomicInteger();
+        private final AtomicInteger rejected = new AtomicInteger();
+        private final AtomicInteger cancelled = new AtomicInteger();
+
+        /** Time from sending an attempt to its answer; timed out attempts count with the timeout. */
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        /**
+         * Time from a call to its result, across retries and backoff, as the user waits for it. Cancelled
+         * calls are not included.
+         */
+        public LatencyHistogram callLatency() {
+            return callLatency;
+        }
+
+        public int attempts() {
+            return attempts.get();
+        }
+
+        public int successes() {
+            return successes.get();
+        }
+
+        /** Failed attempts, including timeouts. */
+        public int failures() {
+            return failures.get();
+        }
+
+        public int timeouts() {
+            return timeouts.get();
+        }
+
+        public int retries() {
+            return retries.get();
+        }
+
+        /** Calls failed fast by the open circuit breaker. */
+        public int rejected() {
+            return rejected.get();
+        }
+
+        public int cancelled() {
+            return cancelled.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%d attempts: %d ok, %d failed (%d timed out), %d retried, %d rejected, %d cancelled; "
+                            + "p50 %.0f ms, p90 %.0f ms, p99 %.0f ms, max %.0f ms; calls p50 %.0f ms, p99 %.0f ms",
+                    attempts(), successes(), failures(), timeouts(), retries(), rejected(), cancelled(),
+                    latency.percentileMillis(50), latency.percentileMillis(90),
+                    latency.percentileMillis(99), latency.maxMillis(),
+                    callLatency.percentileMillis(50), callLatency.percentileMillis(99));
+        }
+    }
+
+    private final MissionOperator delegate;
+    private final RetryPolicy policy;
+    private final CircuitBreaker breaker;
+    private final ScheduledExecutorService scheduler;
+    private final Random random;
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final Set<Call> pending = new HashSet<>();
+
+    public RetryingMissionOperator(MissionOperator delegate, RetryPolicy policy, CircuitBreaker breaker,
+                                   ScheduledExecutorService scheduler) {
+        this(delegate, policy, breaker, scheduler, new Random());
+    }
+
+    RetryingMissionOperator(MissionOperator delegate, RetryPolicy policy, CircuitBreaker breaker,
+                            ScheduledExecutorService scheduler, Random random) {
+        this.delegate = delegate;
+        this.policy = policy;
+        this.breaker = breaker;
+        this.scheduler = scheduler;
+        this.random = random;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    public Stats stats(Operation operation) {
+        return stats.get(operation);
+    }
+
+    public CircuitBreaker breaker() {
+        return breaker;
+    }
+
+    @Override
+    public String load(MissionPlan plan) {
+        cancelPending();
+        return delegate.load(plan);
+    }
+
+    @Override
+    public void upload(Completion completion) {
+        execute(new Call(Operation.UPLOAD, completion));
+    }
+
+    @Override
+    public void start(Completion completion) {
+        execute(new Call(Operation.START, completion));
+    }
+
+    @Override
+    public void stop(Completion completion) {
+        cancelPending();
+        execute(new Call(Operation.STOP, completion));
+    }
+
+    @Override
+    public void addListener(Listener listener) {
+        delegate.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(Listener listener) {
+        delegate.removeListener(listener);
+    }
+
+    /** Completes every call still waiting for an attempt or a retry with {@link #CANCELLED}. */
+    public void cancelPending() {
+        List<Call> calls;
+        synchronized (pending) {
+            calls = new ArrayList<>(pending);
+            pending.clear();
+        }
+        for (Call call : calls) {
+            if (call.finish()) {
+                stats.get(call.operation).cancelled.incrementAndGet();
+                call.completion.onResult(CANCELLED);
+            }
+        }
+    }
+
+    private void execute(Call call) {
+        synchronized (pending) {
+            pending.add(call);
+        }
+        attempt(call);
+    }
+
+    private void attempt(final Call call) {
+        final Stats stats = this.stats.get(call.operation);
+        final int attempt;
+        synchronized (call) {
+            if (call.done) {
+                return;
+            }
+            attempt = ++call.attempt;
+            call.answered = false;
+        }
+        if (!breaker.allowRequest()) {
+            stats.rejected.incrementAndGet();
+            complete(call, CIRCUIT_OPEN);
+            return;
+        }
+        stats.attempts.incrementAndGet();
+        final long started = System.nanoTime();
+        ScheduledFuture<?> timeout = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                onAttemptResult(call, attempt, started, TIMED_OUT);
+            }
+        }, policy.attemptTimeoutMillis(), TimeUnit.MILLISECONDS);
+        synchronized (call) {
+            call.timeout = timeout;
+        }
+        Completion completion = new Completion() {
+            @Override
+            public void onResult(String error) {
+                onAttemptResult(call, attempt, started, error);
+            }
+        };
+        switch (call.operation) {
+            case UPLOAD:
+                delegate.upload(completion);
+                break;
+            case START:
+                delegate.start(completion);
+                break;
+            default:
+                delegate.stop(completion);
+                break;
+        }
+    }
+
+    private void onAttemptResult(final Call call, int attempt, long started, String error) {
+        Stats stats = this.stats.get(call.operation);
+        boolean cancelled;
+        synchronized (call) {
+            // The first of the answer and the timeout counts, later answers are dropped.
+            if (call.attempt != attempt || call.answered) {
+                return;
+            }
+            call.answered = true;
+            cancelled = call.done;
+            if (call.timeout != null) {
+                call.timeout.cancel(false);
+            }
+        }
+        // Attempts of cancelled calls still count, the breaker may be waiting on them as a probe.
+        stats.latency.record(System.nanoTime() - started);
+        if (error == null) {
+            breaker.onSuccess();
+            stats.successes.incrementAndGet();
+            complete(call, null);
+            return;
+        }
+        breaker.onFailure();
+        stats.failures.incrementAndGet();
+        if (TIMED_OUT.equals(error)) {
+            stats.timeouts.incrementAndGet();
+        }
+        if (cancelled) {
+            return;
+        }
+        if (attempt >= policy.maxAttempts()) {
+            complete(call, attempt == 1 ? error : error + " (after " + attempt + " attempts)");
+            return;
+        }
+        stats.retries.incrementAndGet();
+        ScheduledFuture<?> retry = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                attempt(call);
+            }
+        }, policy.delayMillis(attempt, random), TimeUnit.MILLISECONDS);
+        synchronized (call) {
+            call.retry = retry;
+            if (call.done) {
+                retry.cancel(false);
+            }
+        }
+    }
+
+    private void complete(Call call, String error) {
+        synchronized (pending) {
+            pending.remove(call);
+        }
+        if (call.finish()) {
+            stats.get(call.operation).callLatency.record(System.nanoTime() - call.startedNanos);
+            call.completion.onResult(error);
+        }
+    }
+
+    private static final class Call {
+        final Operation operation;
+        final Completion completion;
+        final long startedNanos = System.nanoTime();
+        int attempt;
+        boolean answered;
+        boolean done;
+        ScheduledFuture<?> timeout;
+        ScheduledFuture<?> retry;
+
+        Call(Operation operation, Completion completion) {
+            this.operation = operation;
+            this.completion = completion;
+        }
+
+        /** Marks the call done and stops its timers; {@code false} if it already was. */
+        synchronized boolean finish() {
+            if (done) {
+                return false;
+            }
+            done = true;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            if (retry != null) {
+                retry.cancel(false);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Flies a route that was split into several SDK missions as one continuous job.
+ *
+ * <p>Each segment is loaded, uploaded and started in turn. While segment N executes, segment N+1 is
+ * prepared (settings applied and validated) on the worker executor, so when the operator reports the end
+ * of segment N the next one is loaded and uploaded right away. The SDK holds a single mission, so the
+ * upload itself cannot overlap the flight.</p>
+ *
+ * <p>All state lives on the control executor: {@link #start()} and {@link #cancel()} must be called from
+ * it, operator callbacks are moved onto it and the {@link Listener} is notified on it.</p>
+ */
+public final class SegmentedMissionRunner implements MissionOperator.Listener {
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    public interface Listener {
+        void onSegmentStarted(int segment, int segments);
+
+        void onUploadProgress(int segment, int uploadedWaypoints, int totalWaypoints);
+
+        /** Waypoints reached over the whole route, counting the waypoint shared by two segments twice. */
+        void onProgress(int waypointsReached, int totalWaypoints);
+
+        /**
+         * @param error why the run failed, or {@code null} when it completed or was cancelled
+         */
+        void onFinished(State state, String error);
+    }
+
+    private static final int NOT_PREPARED = 0;
+    private static final int PREPARING = 1;
+    private static final int PREPARED = 2;
+
+    private final List<MissionPlan> segments;
+    private final MissionValidator validator;
+    private final MissionOperator operator;
+    private final Executor worker;
+    private final Executor control;
+    private final Listener listener;
+
+    private final int[] offsets;
+    private final int totalWaypoints;
+    private final int[] preparation;
+    private final String[] preparationErrors;
+    private State state = State.IDLE;
+    private int current = -1;
+    private int waitingFor = -1;
+
+    public SegmentedMissionRunner(List<MissionPlan> segments, MissionValidator validator, MissionOperator operator,
+                                  Executor worker, Executor control, Listener listener) {
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("nothing to fly");
+        }
+        this.segments = segments;
+        this.validator = validator;
+        this.operator = operator;
+        this.worker = worker;
+        this.control = control;
+        this.listener = listener;
+        this.offsets = new int[segments.size()];
+        this.preparation = new int[segments.size()];
+        this.preparationErrors = new String[segments.size()];
+        int total = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            offsets[i] = total;
+            total += segments.get(i).size();
+        }
+        this.totalWaypoints = total;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    /** Index of the segment being uploaded or flown, or -1 before the start. */
+    public int currentSegment() {
+        return current;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    public void start() {
+        if (state != State.IDLE) {
+            throw new IllegalStateException("runner already " + state);
+        }
+        state = State.RUNNING;
+        operator.addListener(this);
+        waitingFor = 0;
+        prepare(0);
+    }
+
+    /** Stops the aircraft and abandons the remaining segments. */
+    public void cancel() {
+        if (state != State.RUNNING) {
+            return;
+        }
+        finish(State.CANCELLED, null);
+        operator.stop(new MissionOperator.Completion() {
+            @Override
+            public void onResult(String error) {
+            }
+        });
+    }
+
+    private void prepare(final int segment) {
+        if (preparation[segment] != NOT_PREPARED) {
+            return;
+        }
+        preparation[segment] = PREPARING;
+        final MissionPlan plan = segments.get(segment);
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                MissionCompiler.apply(plan);
+                List<MissionValidator.Violation> violations = validator.validate(plan);
+                final String error = violations.isEmpty() ? null : violations.get(0).toString();
+                control.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onPrepared(segment, error);
+                    }
+                });
+            }
+        });
+    }
+
+    private void onPrepared(int segment, String error) {
+        preparation[segment] = PREPARED;
+        preparationErrors[segment] = error;
+        if (state == State.RUNNING && waitingFor == segment) {
+            launch(segment);
+        }
+    }
+
+    private void launch(final int segment) {
+        waitingFor = -1;
+        current = segment;
+        if (preparationErrors[segment] != null) {
+            fail(segment, preparationErrors[segment]);
+            return;
+        }
+        String error = operator.load(segments.get(segment));
+        if (error != null) {
+            fail(segment, error);
+            return;
+        }
+        listener.onSegmentStarted(segment, segments.size());
+        operator.upload(new MissionOperator.Completion() {
+            @Override
+            public void onResult(final String error) {
+                control.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onUploaded(segment, error);
+                    }
+                });
+            }
+        });
+    }
+
+    private void onUploaded(final int segment, String error) {
+        if (state != State.RUNNING || current != segment) {
+            return;
+        }
+        if (error != null) {
+            fail(segment, error);
+            return;
+        }
+        operator.start(new MissionOperator.Completion() {
+            @Override
+            public void onResult(final String error) {
+                control.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onStarted(segment, error);
+                    }
+                });
+            }
+        });
+    }
+
+    private void onStarted(int segment, String error) {
+        if (state != State.RUNNING || current != segment) {
+            return;
+        }
+        if (error != null) {
+            fail(segment, error);
+            return;
+        }
+        if (segment + 1 < segments.size()) {
+            prepare(segment + 1);
+        }
+    }
+
+    @Override
+    public void onUploadProgress(final int uploadedWaypoints, final int totalWaypoints) {
+        control.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Progress of a mission that was already on the aircraft, reported before ours launched.
+                if (state == State.RUNNING && current >= 0) {
+                    listener.onUploadProgress(current, uploadedWaypoints, totalWaypoints);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onExecutionProgress(final int targetWaypoint, int totalWaypoints) {
+        control.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (state == State.RUNNING && current >= 0) {
+                    listener.onProgress(offsets[current] + targetWaypoint, SegmentedMissionRunner.this.totalWaypoints);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onExecutionFinish(final String error) {
+        control.execute(new Runnable() {
+            @Override
+            public void run() {
+                onSegmentFinished(error);
+            }
+        });
+    }
+
+    private void onSegmentFinished(String error) {
+        if (state != State.RUNNING || current < 0) {
+            return;
+        }
+        if (error != null) {
+            fail(current, error);
+            return;
+        }
+        listener.onProgress(offsets[current] + segments.get(current).size(), totalWaypoints);
+        int next = current + 1;
+        if (next == segments.size()) {
+            finish(State.COMPLETED, null);
+        } else if (preparation[next] == PREPARED) {
+            launch(next);
+        } else {
+            waitingFor = next;
+            prepare(next);
+        }
+    }
+
+    private void fail(int segment, String error) {
+        finish(State.FAILED, "segment " + (segment + 1) + "/" + segments.size() + ": " + error);
+    }
+
+    private void finish(State state, String error) {
+        this.state = state;
+        operator.removeListener(this);
+        listener.onFinished(state, error);
+    }
+}
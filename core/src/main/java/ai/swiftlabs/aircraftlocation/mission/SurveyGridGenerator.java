@@ -0,0 +1,229 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.util.Arrays;
+
+import ai.swiftlabs.aircraftlocation.geo.LocalTangentPlane;
+
+/**
+ * Covers a polygon with a back-and-forth ("lawnmower") survey grid.
+ *
+ * <p>The polygon is projected onto a {@link LocalTangentPlane} and rotated so that flight lines run along
+ * the survey heading. A scanline sweep then steps across the polygon one flight line at a time, keeping
+ * only the edges that span the current line in an active edge list, so the cost is
+ * O(E log E + L + crossings) instead of clipping every line against every edge. Each line contributes an
+ * entry and an exit waypoint per span inside the polygon, alternating direction from line to line, and
+ * waypoints are streamed to a {@link Sink} as they are found.</p>
+ *
+ * <p>Concave polygons can produce several spans on one line; they are flown in order, crossing the gaps
+ * between them. Instances reuse their buffers and are not thread-safe.</p>
+ */
+public final class SurveyGridGenerator {
+
+    public interface Sink {
+        void onWaypoint(double latitude, double longitude);
+
+        /** Called after the last waypoint of each flight line. */
+        void onLineEnd();
+    }
+
+    private double[] vertexU = new double[16];
+    private double[] vertexV = new double[16];
+    private double[] edgeMinV = new double[16];
+    private double[] edgeMaxV = new double[16];
+    private double[] edgeU0 = new double[16];
+    private double[] edgeV0 = new double[16];
+    private double[] edgeSlope = new double[16];
+    private int[] order = new int[16];
+    private int[] active = new int[16];
+    private double[] crossings = new double[16];
+
+    /**
+     * Streams the grid for the polygon formed by the first {@code count} points; the polygon is closed
+     * implicitly and may be given in either winding.
+     *
+     * @return the number of waypoints emitted
+     */
+    public int generate(double[] latitudes, double[] longitudes, int count, SurveyParameters parameters,
+                        Sink sink) {
+        if (count < 3) {
+            throw new IllegalArgumentException("a survey polygon needs at least 3 points, got " + count);
+        }
+        ensureCapacity(count);
+        LocalTangentPlane plane = centeredPlane(latitudes, longitudes, count);
+        double heading = Math.toRadians(Double.isNaN(parameters.headingDegrees())
+                ? longestEdgeHeading(plane, latitudes, longitudes, count)
+                : parameters.headingDegrees());
+        double sin = Math.sin(heading);
+        double cos = Math.cos(heading);
+
+        // u runs along the flight lines, v across them.
+        double minV = Double.POSITIVE_INFINITY;
+        double maxV = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            double x = plane.east(longitudes[i]);
+            double y = plane.north(latitudes[i]);
+            vertexU[i] = x * sin + y * cos;
+            vertexV[i] = x * cos - y * sin;
+            minV = Math.min(minV, vertexV[i]);
+            maxV = Math.max(maxV, vertexV[i]);
+        }
+        int edges = buildEdges(count);
+
+        double spacing = parameters.lineSpacing();
+        int lines = Math.max(1, (int) Math.ceil((maxV - minV) / spacing));
+        double firstLine = minV + ((maxV - minV) - (lines - 1) * spacing) / 2;
+
+        int emitted = 0;
+        int nextEdge = 0;
+        int activeCount = 0;
+        boolean forward = true;
+        for (int line = 0; line < lines; line++) {
+            double v = firstLine + line * spacing;
+            while (nextEdge < edges && edgeMinV[order[nextEdge]] <= v) {
+                active[activeCount++] = order[nextEdge++];
+            }
+            int crossingCount = 0;
+            int kept = 0;
+            for (int i = 0; i < activeCount; i++) {
+                int edge = active[i];
+                if (edgeMaxV[edge] <= v) {
+                    continue;
+                }
+                active[kept++] = edge;
+                crossings[crossingCount++] = edgeU0[edge] + (v - edgeV0[edge]) * edgeSlope[edge];
+            }
+            activeCount = kept;
+            if (crossingCount < 2) {
+                continue;
+            }
+            sortSmall(crossings, crossingCount);
+            // An odd count can only come from rounding at a vertex; the last crossing is dropped.
+            int spans = crossingCount / 2;
+            for (int i = 0; i < spans * 2; i++) {
+                double u = crossings[forward ? i : spans * 2 - 1 - i];
+                double x = u * sin + v * cos;
+                double y = u * cos - v * sin;
+                sink.onWaypoint(plane.latitude(y), plane.longitude(x));
+                emitted++;
+            }
+            sink.onLineEnd();
+            forward = !forward;
+        }
+        return emitted;
+    }
+
+    /**
+     * Builds the non-horizontal edges and sorts them by their lowest v; each covers [minV, maxV) so a
+     * shared vertex is crossed once.
+     */
+    private int buildEdges(int count) {
+        int edges = 0;
+        for (int i = 0; i < count; i++) {
+            int j = i + 1 == count ? 0 : i + 1;
+            double v0 = vertexV[i];
+            double v1 = vertexV[j];
+            if (v0 == v1) {
+                continue;
+            }
+            edgeMinV[edges] = Math.min(v0, v1);
+            edgeMaxV[edges] = Math.max(v0, v1);
+            edgeU0[edges] = vertexU[i];
+            edgeV0[edges] = v0;
+            edgeSlope[edges] = (vertexU[j] - vertexU[i]) / (v1 - v0);
+            order[edges] = edges;
+            edges++;
+        }
+        heapSortByKey(order, edges, edgeMinV);
+        return edges;
+    }
+
+    private static LocalTangentPlane centeredPlane(double[] latitudes, double[] longitudes, int count) {
+        double latitude = 0;
+        double longitude = 0;
+        for (int i = 0; i < count; i++) {
+            latitude += latitudes[i];
+            longitude += longitudes[i];
+        }
+        return new LocalTangentPlane(latitude / count, longitude / count);
+    }
+
+    /** Flying parallel to the longest edge minimises the number of turns for most field shapes. */
+    private static double longestEdgeHeading(LocalTangentPlane plane, double[] latitudes, double[] longitudes,
+                                             int count) {
+        double best = -1;
+        double heading = 0;
+        for (int i = 0; i < count; i++) {
+            int j = i + 1 == count ? 0 : i + 1;
+            double dx = plane.east(longitudes[j]) - plane.east(longitudes[i]);
+            double dy = plane.north(latitudes[j]) - plane.north(latitudes[i]);
+            double length = dx * dx + dy * dy;
+            if (length > best) {
+                best = length;
+                heading = Math.toDegrees(Math.atan2(dx, dy));
+            }
+        }
+        return heading;
+    }
+
+    /** Insertion sort; a flight line only crosses a handful of edges. */
+    private static void sortSmall(double[] values, int count) {
+        for (int i = 1; i < count; i++) {
+            double value = values[i];
+            int j = i - 1;
+            while (j >= 0 && values[j] > value) {
+                values[j + 1] = values[j];
+                j--;
+            }
+            values[j + 1] = value;
+        }
+    }
+
+    private static void heapSortByKey(int[] indices, int count, double[] keys) {
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(indices, i, count, keys);
+        }
+        for (int end = count - 1; end > 0; end--) {
+            int top = indices[0];
+            indices[0] = indices[end];
+            indices[end] = top;
+            siftDown(indices, 0, end, keys);
+        }
+    }
+
+    private static void siftDown(int[] indices, int root, int count, double[] keys) {
+        int index = indices[root];
+        double key = keys[index];
+        while (true) {
+            int child = 2 * root + 1;
+            if (child >= count) {
+                break;
+            }
+            if (child + 1 < count && keys[indices[child + 1]] > keys[indices[child]]) {
+                child++;
+            }
+            if (keys[indices[child]] <= key) {
+                break;
+            }
+            indices[root] = indices[child];
+            root = child;
+        }
+        indices[root] = index;
+    }
+
+    private void ensureCapacity(int count) {
+        if (count <= vertexU.length) {
+            return;
+        }
+        int capacity = Math.max(count, vertexU.length * 2);
+        vertexU = Arrays.copyOf(vertexU, capacity);
+        vertexV = Arrays.copyOf(vertexV, capacity);
+        edgeMinV = Arrays.copyOf(edgeMinV, capacity);
+        edgeMaxV = Arrays.copyOf(edgeMaxV, capacity);
+        edgeU0 = Arrays.copyOf(edgeU0, capacity);
+        edgeV0 = Arrays.copyOf(edgeV0, capacity);
+        edgeSlope = Arrays.copyOf(edgeSlope, capacity);
+        order = Arrays.copyOf(order, capacity);
+        active = Arrays.copyOf(active, capacity);
+        crossings = Arrays.copyOf(crossings, capacity);
+    }
+}
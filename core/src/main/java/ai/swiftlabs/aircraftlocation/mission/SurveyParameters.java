@@ -0,0 +1,60 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+/**
+ * How a survey grid is laid out over its polygon.
+ */
+public final class SurveyParameters {
+
+    /** Horizontal field of view of the Mavic 2 Pro camera, in degrees. */
+    public static final float DEFAULT_HORIZONTAL_FOV = 73.7f;
+
+    private final float altitude;
+    private final float sideOverlap;
+    private final double headingDegrees;
+    private final float horizontalFovDegrees;
+
+    /**
+     * @param altitude       flight altitude in meters, which sets the ground footprint of the camera
+     * @param sideOverlap    overlap between neighbouring flight lines, in [0, 1)
+     * @param headingDegrees direction of the flight lines, or {@link Double#NaN} to fly along the longest
+     *                       polygon edge
+     */
+    public SurveyParameters(float altitude, float sideOverlap, double headingDegrees, float horizontalFovDegrees) {
+        if (altitude <= 0) {
+            throw new IllegalArgumentException("altitude must be positive, got " + altitude);
+        }
+        if (sideOverlap < 0 || sideOverlap >= 1) {
+            throw new IllegalArgumentException("side overlap must be in [0, 1), got " + sideOverlap);
+        }
+        this.altitude = altitude;
+        this.sideOverlap = sideOverlap;
+        this.headingDegrees = headingDegrees;
+        this.horizontalFovDegrees = horizontalFovDegrees;
+    }
+
+    public SurveyParameters(float altitude, float sideOverlap, double headingDegrees) {
+        this(altitude, sideOverlap, headingDegrees, DEFAULT_HORIZONTAL_FOV);
+    }
+
+    public float altitude() {
+        return altitude;
+    }
+
+    public float sideOverlap() {
+        return sideOverlap;
+    }
+
+    public double headingDegrees() {
+        return headingDegrees;
+    }
+
+    public float horizontalFovDegrees() {
+        return horizontalFovDegrees;
+    }
+
+    /** Distance between flight lines, in meters. */
+    public double lineSpacing() {
+        double footprint = 2 * altitude * Math.tan(Math.toRadians(horizontalFovDegrees) / 2);
+        return footprint * (1 - sideOverlap);
+    }
+}
@@ -0,0 +1,277 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import java.util.Arrays;
+
+/**
+ * The waypoints of the mission being edited, in flight order.
+ *
+ * <p>Waypoints live in primitive columns addressed by a stable handle that survives edits of other
+ * waypoints. Flight order is a doubly linked list over the handles, so adding, moving and removing a
+ * waypoint are O(1) and allocation-free once the columns have grown. Batch consumers copy the
+ * waypoints out in order with {@link #copyTo}.</p>
+ *
+ * <p>Not thread-safe; owned by the UI thread. Background work operates on a copy.</p>
+ */
+public final class WaypointStore {
+
+    public static final int NONE = -1;
+
+    /** Notified synchronously on the thread that edited the store. */
+    public interface Listener {
+        void onWaypointAdded(int handle);
+
+        void onWaypointChanged(int handle);
+
+        void onWaypointRemoved(int handle);
+
+        void onWaypointsCleared();
+    }
+
+    private double[] latitude;
+    private double[] longitude;
+    private float[] altitude;
+    private byte[] action;
+    private int[] actionParam;
+    private int[] next;
+    private int[] prev;
+    private boolean[] live;
+
+    private int head = NONE;
+    private int tail = NONE;
+    private int size;
+    private int highWater;
+    private int[] free;
+    private int freeCount;
+    private int modifications;
+
+    private Listener[] listeners = new Listener[0];
+
+    public WaypointStore() {
+        this(16);
+    }
+
+    public WaypointStore(int expectedWaypoints) {
+        int capacity = Math.max(4, expectedWaypoints);
+        latitude = new double[capacity];
+        longitude = new double[capacity];
+        altitude = new float[capacity];
+        action = new byte[capacity];
+        actionParam = new int[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        live = new boolean[capacity];
+        free = new int[capacity];
+    }
+
+    public void addListener(Listener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    public void removeListener(Listener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                Listener[] updated = new Listener[listeners.length - 1];
+                System.arraycopy(listeners, 0, updated, 0, i);
+                System.arraycopy(listeners, i + 1, updated, i, listeners.length - i - 1);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    /** Appends a waypoint and returns its handle. */
+    public int add(double latitude, double longitude, float altitude, ActionType action, int actionParam) {
+        int handle = allocate();
+        this.latitude[handle] = latitude;
+        this.longitude[handle] = longitude;
+        this.altitude[handle] = altitude;
+        this.action[handle] = (byte) action.ordinal();
+        this.actionParam[handle] = actionParam;
+        live[handle] = true;
+        next[handle] = NONE;
+        prev[handle] = tail;
+        if (tail != NONE) {
+            next[tail] = handle;
+        } else {
+            head = handle;
+        }
+        tail = handle;
+        size++;
+        modifications++;
+        for (Listener listener : listeners) {
+            listener.onWaypointAdded(handle);
+        }
+        return handle;
+    }
+
+    public void move(int handle, double latitude, double longitude) {
+        checkHandle(handle);
+        this.latitude[handle] = latitude;
+        this.longitude[handle] = longitude;
+        changed(handle);
+    }
+
+    public void setAltitude(int handle, float altitude) {
+        checkHandle(handle);
+        this.altitude[handle] = altitude;
+        changed(handle);
+    }
+
+    public void setAction(int handle, ActionType action, int actionParam) {
+        checkHandle(handle);
+        this.action[handle] = (byte) action.ordinal();
+        this.actionParam[handle] = actionParam;
+        changed(handle);
+    }
+
+    public void remove(int handle) {
+        checkHandle(handle);
+        int before = prev[handle];
+        int after = next[handle];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            head = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        } else {
+            tail = before;
+        }
+        live[handle] = false;
+        free[freeCount++] = handle;
+        size--;
+        modifications++;
+        for (Listener listener : listeners) {
+            listener.onWaypointRemoved(handle);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(live, 0, highWater, false);
+        head = NONE;
+        tail = NONE;
+        size = 0;
+        highWater = 0;
+        freeCount = 0;
+        modifications++;
+        for (Listener listener : listeners) {
+            listener.onWaypointsCleared();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Incremented on every edit; lets background results detect that they are stale. */
+    public int modificationCount() {
+        return modifications;
+    }
+
+    /** Handle of the first waypoint in flight order, or {@link #NONE}. */
+    public int first() {
+        return head;
+    }
+
+    /** Handle of the waypoint after {@code handle}, or {@link #NONE}. */
+    public int next(int handle) {
+        return next[handle];
+    }
+
+    /** Handle of the waypoint before {@code handle}, or {@link #NONE}. */
+    public int previous(int handle) {
+        return prev[handle];
+    }
+
+    public boolean contains(int handle) {
+        return handle >= 0 && handle < highWater && live[handle];
+    }
+
+    /** One more than the largest handle in use; handles are always below this bound. */
+    public int handleBound() {
+        return highWater;
+    }
+
+    public double latitude(int handle) {
+        return latitude[handle];
+    }
+
+    public double longitude(int handle) {
+        return longitude[handle];
+    }
+
+    public float altitude(int handle) {
+        return altitude[handle];
+    }
+
+    public ActionType action(int handle) {
+        return ActionType.fromCode(action[handle]);
+    }
+
+    public int actionParam(int handle) {
+        return actionParam[handle];
+    }
+
+    /**
+     * Copies positions and altitudes in flight order into the given arrays, which must hold at least
+     * {@link #size()} entries. Any array may be {@code null} to skip that column.
+     *
+     * @return the number of waypoints copied
+     */
+    public int copyTo(double[] latitudes, double[] longitudes, float[] altitudes) {
+        int i = 0;
+        for (int handle = head; handle != NONE; handle = next[handle], i++) {
+            if (latitudes != null) {
+                latitudes[i] = latitude[handle];
+            }
+            if (longitudes != null) {
+                longitudes[i] = longitude[handle];
+            }
+            if (altitudes != null) {
+                altitudes[i] = altitude[handle];
+            }
+        }
+        return i;
+    }
+
+    private void changed(int handle) {
+        modifications++;
+        for (Listener listener : listeners) {
+            listener.onWaypointChanged(handle);
+        }
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return free[--freeCount];
+        }
+        if (highWater == latitude.length) {
+            grow(latitude.length * 2);
+        }
+        return highWater++;
+    }
+
+    private void grow(int capacity) {
+        latitude = Arrays.copyOf(latitude, capacity);
+        longitude = Arrays.copyOf(longitude, capacity);
+        altitude = Arrays.copyOf(altitude, capacity);
+        action = Arrays.copyOf(action, capacity);
+        actionParam = Arrays.copyOf(actionParam, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        live = Arrays.copyOf(live, capacity);
+        free = Arrays.copyOf(free, capacity);
+    }
+
+    private void checkHandle(int handle) {
+        if (!contains(handle)) {
+            throw new IllegalArgumentException("no waypoint with handle " + handle);
+        }
+    }
+}
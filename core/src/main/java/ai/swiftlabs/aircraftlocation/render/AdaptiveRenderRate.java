@@ -0,0 +1,193 @@
+package ai.swiftlabs.aircraftlocation.render;
+
+import ai.swiftlabs.aircraftlocation.geo.Geodesy;
+
+/**
+ * Decides when the live aircraft is worth drawing, so the map is not rebuilt faster than anyone can see.
+ *
+ * <p>The rate follows the camera zoom, from {@value #MAX_RATE_HZ} Hz close in down to 2 Hz over a whole
+ * country. It drops to 2 Hz while the activity is paused and 1 Hz while the aircraft is outside the
+ * viewport. On a low, discharging phone battery it is capped at 10 Hz, then 5 Hz, and on a degraded link
+ * at {@value #DEGRADED_LINK_RATE_HZ} Hz, as positions arrive late and irregularly anyway. Nothing is drawn
+ * while the activity is stopped. A new position within the rate is still skipped when it moves the icon less
+ * than {@value #MIN_MOVE_PIXELS} px and turns it less than {@value #MIN_TURN_DEGREES}°.</p>
+ *
+ * <p>Only drawing is throttled. Telemetry is still published, recorded and read by everything else at the
+ * full rate. Conditions can be set from any thread; {@link #shouldRender} runs on the frame thread.</p>
+ */
+public final class AdaptiveRenderRate {
+
+    public enum Lifecycle {
+        RESUMED,
+        PAUSED,
+        STOPPED
+    }
+
+    public static final int MAX_RATE_HZ = 60;
+    public static final double MIN_MOVE_PIXELS = 0.5;
+    public static final float MIN_TURN_DEGREES = 1f;
+    public static final int DEGRADED_LINK_RATE_HZ = 2;
+
+    /** Draws may come this much early, so a rate that matches the telemetry rate is not missed by jitter. */
+    private static final long FRAME_SLACK_NANOS = 1_000_000_000L / MAX_RATE_HZ;
+    /** Ground resolution at zoom 0 on the equator, for the 512 px tiles of Mapbox GL. */
+    private static final double METERS_PER_PIXEL_AT_ZOOM_0 = 78271.51696;
+
+    private volatile double zoom = 12;
+    private volatile Lifecycle lifecycle = Lifecycle.RESUMED;
+    private volatile int batteryPercent = 100;
+    private volatile boolean charging;
+    private volatile boolean linkDegraded;
+    private volatile double south = -90;
+    private volatile double west = -180;
+    private volatile double north = 90;
+    private volatile double east = 180;
+
+    // Written on the frame thread, also read by wantsFrame.
+    private volatile boolean drawn;
+    private volatile long checkedAtNanos;
+    // Frame thread only.
+    private double drawnLatitude;
+    private double drawnLongitude;
+    private float drawnBearing;
+    private long rendered;
+    private long throttled;
+    private long subPixel;
+
+    public void setZoom(double zoom) {
+        this.zoom = zoom;
+    }
+
+    public void setViewport(double south, double west, double north, double east) {
+        this.south = south;
+        this.west = west;
+        this.north = north;
+        this.east = east;
+    }
+
+    public void setLifecycle(Lifecycle lifecycle) {
+        this.lifecycle = lifecycle;
+    }
+
+    public void setBattery(int percent, boolean charging) {
+        this.batteryPercent = percent;
+        this.charging = charging;
+    }
+
+    public void setLinkDegraded(boolean degraded) {
+        this.linkDegraded = degraded;
+    }
+
+    /**
+     * Whether a sample taken at {@code timestampNanos}, on the frame clock, may be drawn by the next frame.
+     * Telemetry that would only be skipped then does not wake the frame thread. Any thread.
+     */
+    public boolean wantsFrame(long timestampNanos, double latitude, double longitude) {
+        long interval = renderIntervalNanos(latitude, longitude);
+        if (interval == Long.MAX_VALUE) {
+            return false;
+        }
+        return isDue(timestampNanos, interval);
+    }
+
+    /**
+     * Shortest time between two draws of an aircraft at the given position, {@link Long#MAX_VALUE} for
+     * never.
+     */
+    public long renderIntervalNanos(double latitude, double longitude) {
+        Lifecycle current = lifecycle;
+        if (current == Lifecycle.STOPPED) {
+            return Long.MAX_VALUE;
+        }
+        double z = zoom;
+        int hz = z >= 15 ? MAX_RATE_HZ : z >= 12 ? 20 : z >= 8 ? 5 : 2;
+        if (current == Lifecycle.PAUSED) {
+            hz = Math.min(hz, 2);
+        }
+        if (!isInViewport(latitude, longitude)) {
+            hz = Math.min(hz, 1);
+        }
+        if (!charging) {
+            int battery = batteryPercent;
+            if (battery <= 10) {
+                hz = Math.min(hz, 5);
+            } else if (battery <= 20) {
+                hz = Math.min(hz, 10);
+            }
+        }
+        if (linkDegraded) {
+            hz = Math.min(hz, DEGRADED_LINK_RATE_HZ);
+        }
+        return 1_000_000_000L / hz;
+    }
+
+    /**
+     * Whether to draw the aircraft at this position on this frame. A {@code true} is taken as drawn.
+     */
+    public boolean shouldRender(long frameTimeNanos, double latitude, double longitude, float bearing) {
+        long interval = renderIntervalNanos(latitude, longitude);
+        if (interval == Long.MAX_VALUE || !isDue(frameTimeNanos, interval)) {
+            throttled++;
+            return false;
+        }
+        // An invisible move uses up its turn as well, so a slow aircraft is not checked every frame.
+        checkedAtNanos = frameTimeNanos;
+        if (drawn && isInvisibleChange(latitude, longitude, bearing)) {
+            subPixel++;
+            return false;
+        }
+        drawn = true;
+        drawnLatitude = latitude;
+        drawnLongitude = longitude;
+        drawnBearing = bearing;
+        rendered++;
+        return true;
+    }
+
+    /** Forgets the last drawn position, e.g. after the icon was hidden, so the next one is drawn. */
+    public void reset() {
+        drawn = false;
+    }
+
+    public long renderedCount() {
+        return rendered;
+    }
+
+    /** Positions skipped because the rate did not allow another draw yet. */
+    public long throttledCount() {
+        return throttled;
+    }
+
+    /** Positions skipped because the icon would not have visibly moved. */
+    public long subPixelCount() {
+        return subPixel;
+    }
+
+    /** Ground meters covered by one screen pixel at a latitude and zoom. */
+    public static double metersPerPixel(double latitude, double zoom) {
+        return METERS_PER_PIXEL_AT_ZOOM_0 * Math.cos(Math.toRadians(latitude)) / Math.pow(2, zoom);
+    }
+
+    private boolean isDue(long timeNanos, long interval) {
+        return !drawn || timeNanos - checkedAtNanos >= interval - FRAME_SLACK_NANOS;
+    }
+
+    private boolean isInViewport(double latitude, double longitude) {
+        if (latitude < south || latitude > north) {
+            return false;
+        }
+        double w = west;
+        double e = east;
+        // A viewport across the antimeridian has west > east.
+        return w <= e ? longitude >= w && longitude <= e : longitude >= w || longitude <= e;
+    }
+
+    private boolean isInvisibleChange(double latitude, double longitude, float bearing) {
+        float turn = Math.abs(bearing - drawnBearing) % 360;
+        if (Math.min(turn, 360 - turn) >= MIN_TURN_DEGREES) {
+            return false;
+        }
+        double moved = Geodesy.equirectangular(drawnLatitude, drawnLongitude, latitude, longitude);
+        return moved < MIN_MOVE_PIXELS * metersPerPixel(latitude, zoom);
+    }
+}
@@ -0,0 +1,189 @@
+package ai.swiftlabs.aircraftlocation.render;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Touches the map at most once per display frame, no matter how fast aircraft state arrives.
+ *
+ * <p>Any thread may {@link #requestFrame()}; repeated requests before the next frame collapse into
+ * one frame callback. On the frame the registered {@link Producer}s pull whatever state they need
+ * (without locks) and {@link #show}/{@link #hide} aircraft slots. Changed slots are then handed to
+ * the {@link Sink}, which is asked to {@link Sink#commit()} once.</p>
+ *
+ * <p>Everything except {@link #requestFrame()} runs on the frame thread.</p>
+ */
+public final class AircraftPositionRenderer implements FrameScheduler.FrameCallback {
+
+    /**
+     * Receives coalesced changes on the frame thread. Implementations keep one live marker per slot
+     * and move it instead of recreating it.
+     */
+    public interface Sink {
+        void show(int slot, double latitude, double longitude, float bearing);
+
+        void hide(int slot);
+
+        /** Publishes everything shown or hidden since the previous commit as one source update. */
+        void commit();
+    }
+
+    /**
+     * Pulls aircraft state at the start of a frame and stages it on the renderer.
+     */
+    public interface Producer {
+        void produce(AircraftPositionRenderer renderer, long frameTimeNanos);
+    }
+
+    private final FrameScheduler scheduler;
+    private final int capacity;
+    private final AtomicBoolean frameRequested = new AtomicBoolean();
+    private Producer[] producers = new Producer[0];
+
+    private final double[] latitude;
+    private final double[] longitude;
+    private final float[] bearing;
+    private final boolean[] visible;
+    private final boolean[] dirty;
+    private final int[] dirtySlots;
+    private int dirtyCount;
+
+    private final boolean[] shown;
+    private Sink sink;
+
+    private long frames;
+    private long commits;
+
+    public AircraftPositionRenderer(FrameScheduler scheduler, Sink sink, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.scheduler = scheduler;
+        this.sink = sink;
+        this.capacity = capacity;
+        latitude = new double[capacity];
+        longitude = new double[capacity];
+        bearing = new float[capacity];
+        visible = new boolean[capacity];
+        dirty = new boolean[capacity];
+        dirtySlots = new int[capacity];
+        shown = new boolean[capacity];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public void addProducer(Producer producer) {
+        producers = Arrays.copyOf(producers, producers.length + 1);
+        producers[producers.length - 1] = producer;
+    }
+
+    /**
+     * Asks for one frame. Safe from any thread, lock-free and allocation-free.
+     */
+    public void requestFrame() {
+        if (frameRequested.compareAndSet(false, true)) {
+            scheduler.postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Stages the position of an aircraft for this frame. Frame thread only, normally from a producer.
+     */
+    public void show(int slot, double latitude, double longitude, float bearing) {
+        checkSlot(slot);
+        if (visible[slot] && this.latitude[slot] == latitude && this.longitude[slot] == longitude
+                && this.bearing[slot] == bearing) {
+            return;
+        }
+        this.latitude[slot] = latitude;
+        this.longitude[slot] = longitude;
+        this.bearing[slot] = bearing;
+        visible[slot] = true;
+        markDirty(slot);
+    }
+
+    /**
+     * Removes the marker of an aircraft, e.g. when its position became invalid. Frame thread only.
+     */
+    public void hide(int slot) {
+        checkSlot(slot);
+        if (!visible[slot]) {
+            return;
+        }
+        visible[slot] = false;
+        markDirty(slot);
+    }
+
+    /** Whether a slot currently has a position staged. */
+    public boolean isVisible(int slot) {
+        return visible[slot];
+    }
+
+    /**
+     * Detaches the sink. Later frames still run producers but publish nothing.
+     */
+    public void release() {
+        sink = null;
+    }
+
+    private void markDirty(int slot) {
+        if (!dirty[slot]) {
+            dirty[slot] = true;
+            dirtySlots[dirtyCount++] = slot;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameRequested.set(false);
+        for (Producer producer : producers) {
+            producer.produce(this, frameTimeNanos);
+        }
+
+        int count = dirtyCount;
+        dirtyCount = 0;
+        Sink target = sink;
+        boolean changed = false;
+        for (int i = 0; i < count; i++) {
+            int slot = dirtySlots[i];
+            dirty[slot] = false;
+            if (target == null) {
+                continue;
+            }
+            if (visible[slot]) {
+                target.show(slot, latitude[slot], longitude[slot], bearing[slot]);
+                shown[slot] = true;
+                changed = true;
+            } else if (shown[slot]) {
+                target.hide(slot);
+                shown[slot] = false;
+                changed = true;
+            }
+        }
+        if (count > 0) {
+            frames++;
+        }
+        if (changed) {
+            target.commit();
+            commits++;
+        }
+    }
+
+    /** Number of frames that had at least one staged change. */
+    public long frameCount() {
+        return frames;
+    }
+
+    /** Number of times the sink was asked to publish. */
+    public long commitCount() {
+        return commits;
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= capacity) {
+            throw new IndexOutOfBoundsException("slot " + slot + " outside [0, " + capacity + ")");
+        }
+    }
+}
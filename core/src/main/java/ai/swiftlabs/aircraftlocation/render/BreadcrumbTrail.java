@@ -0,0 +1,331 @@
+package ai.swiftlabs.aircraftlocation.render;
+
+import java.util.Arrays;
+
+import ai.swiftlabs.aircraftlocation.geo.Geodesy;
+
+/**
+ * Where the aircraft has been, kept at several resolutions in fixed-size primitive rings.
+ *
+ * <p>Each level keeps a point once the aircraft is {@link #spacingMeters spacing} meters from the last
+ * kept one, or a quarter of that after turning by {@value #MIN_TURN_DEGREES}° or more. Spacing starts at
+ * {@value #BASE_SPACING_METERS} m and grows fourfold per level, so with the default capacity the finest
+ * level holds the last 8 km of track and the coarsest over 500 km. Memory is fixed at construction;
+ * once a ring is full its oldest points are overwritten.</p>
+ *
+ * <p>The line drawn at a zoom uses the finest level that is not finer than a screen pixel, and coarser
+ * levels for history older than that level still holds. {@link #segments} cuts it into chunks of at most
+ * {@value #CHUNK_POINTS} points. A new point only changes the newest chunk and, once rings are full, the
+ * oldest chunk of each level in view, so redrawing after a point costs the same on a short flight as on a
+ * long one.</p>
+ *
+ * <p>Thread-safe: points are added from the telemetry thread and segments read on the frame thread.</p>
+ */
+public final class BreadcrumbTrail {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final int LEVELS = 4;
+    public static final int CHUNK_POINTS = 128;
+    public static final double BASE_SPACING_METERS = 2;
+    public static final float MIN_TURN_DEGREES = 10f;
+    /** A jump this long is a new track, e.g. a replay seek, and is not drawn as a line. */
+    public static final double MAX_JUMP_METERS = 1000;
+
+    private final int mask;
+    private final long[][] timestamps;
+    private final double[][] latitudes;
+    private final double[][] longitudes;
+    /** Points ever kept per level; the newest one has sequence {@code count - 1}. */
+    private final long[] count = new long[LEVELS];
+    private final double[] lastBearing = new double[LEVELS];
+    /** Number of clears, so segments drawn before one are not mistaken for new ones. */
+    private long generation;
+
+    public BreadcrumbTrail() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity points per level, a power of two and a multiple of {@value #CHUNK_POINTS}
+     */
+    public BreadcrumbTrail(int capacity) {
+        if (Integer.bitCount(capacity) != 1 || capacity < CHUNK_POINTS) {
+            throw new IllegalArgumentException("capacity " + capacity + " is not a power of two >= " + CHUNK_POINTS);
+        }
+        mask = capacity - 1;
+        timestamps = new long[LEVELS][capacity];
+        latitudes = new double[LEVELS][capacity];
+        longitudes = new double[LEVELS][capacity];
+    }
+
+    public static double spacingMeters(int level) {
+        return BASE_SPACING_METERS * (1 << (2 * level));
+    }
+
+    /**
+     * Offers a position, normally every telemetry sample.
+     *
+     * @return whether any level kept it, i.e. the trail needs redrawing
+     */
+    public synchronized boolean add(long timestampNanos, double latitude, double longitude) {
+        boolean kept = false;
+        for (int level = 0; level < LEVELS; level++) {
+            long n = count[level];
+            if (n > 0) {
+                int last = (int) ((n - 1) & mask);
+                double lastLatitude = latitudes[level][last];
+                double lastLongitude = longitudes[level][last];
+                double distance = Geodesy.equirectangular(lastLatitude, lastLongitude, latitude, longitude);
+                if (distance > MAX_JUMP_METERS) {
+                    clearLocked();
+                    return add(timestampNanos, latitude, longitude);
+                }
+                double spacing = spacingMeters(level);
+                if (distance < spacing / 4) {
+                    continue;
+                }
+                double bearing = Geodesy.initialBearing(lastLatitude, lastLongitude, latitude, longitude);
+                boolean turned = n >= 2 && Math.abs(turn(lastBearing[level], bearing)) >= MIN_TURN_DEGREES;
+                if (distance < spacing && !turned) {
+                    continue;
+                }
+                lastBearing[level] = bearing;
+            }
+            int slot = (int) (n & mask);
+            timestamps[level][slot] = timestampNanos;
+            latitudes[level][slot] = latitude;
+            longitudes[level][slot] = longitude;
+            count[level] = n + 1;
+            kept = true;
+        }
+        return kept;
+    }
+
+    public synchronized void clear() {
+        clearLocked();
+    }
+
+    /** Number of points a level holds. */
+    public synchronized int size(int level) {
+        return (int) Math.min(count[level], mask + 1);
+    }
+
+    /** The level to draw at a zoom: the finest whose spacing is at least one screen pixel. */
+    public static int levelFor(double latitude, double zoom) {
+        double metersPerPixel = AdaptiveRenderRate.metersPerPixel(latitude, zoom);
+        int level = 0;
+        while (level < LEVELS - 1 && spacingMeters(level) < metersPerPixel) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Cuts the line drawn at a level into segments, oldest first, and returns how many. Consecutive
+     * segments of one level share their end point; where the line moves to a finer level, the segment
+     * copied by {@link #copy} ends with the first point of the next one. Also works out which segments
+     * drawn before are gone, see {@link Segments#staleCount}.
+     */
+    public synchronized int segments(int displayLevel, Segments out) {
+        // Levels in view and their sequence ranges, coarsest first: each coarser level only covers the
+        // time before the oldest point of the finer one.
+        int size = 0;
+        long boundary = Long.MAX_VALUE;
+        for (int level = displayLevel; level < LEVELS; level++) {
+            long first = Math.max(0, count[level] - (mask + 1));
+            long last = lastBefore(level, first, count[level] - 1, boundary);
+            if (last < first) {
+                continue;
+            }
+            out.rangeLevel[size] = level;
+            out.rangeFirst[size] = first;
+            out.rangeLast[size] = last;
+            size++;
+            boundary = timestamps[level][(int) (first & mask)];
+        }
+        out.size = 0;
+        for (int range = size - 1; range >= 0; range--) {
+            int level = out.rangeLevel[range];
+            long from = out.rangeFirst[range];
+            long last = out.rangeLast[range];
+            do {
+                long to = Math.min(last, (from / CHUNK_POINTS + 1) * CHUNK_POINTS);
+                out.add(level, from, to);
+                from = to;
+            } while (from < last);
+        }
+        out.collectStale(generation);
+        return out.size;
+    }
+
+    /**
+     * Copies the points of a segment found by the last {@link #segments} call into the arrays, which need
+     * room for {@value #CHUNK_POINTS} + 2 points, and returns how many. Points evicted since are skipped.
+     */
+    public synchronized int copy(Segments segments, int index, double[] latitudeOut, double[] longitudeOut) {
+        int level = segments.level[index];
+        long oldest = Math.max(0, count[level] - (mask + 1));
+        int n = 0;
+        for (long seq = Math.max(oldest, segments.from[index]); seq <= segments.to[index]; seq++) {
+            int slot = (int) (seq & mask);
+            latitudeOut[n] = latitudes[level][slot];
+            longitudeOut[n] = longitudes[level][slot];
+            n++;
+        }
+        long join = segments.join(index);
+        if (join >= 0) {
+            int nextLevel = (int) (join % LEVELS);
+            long seq = join / LEVELS;
+            if (seq >= Math.max(0, count[nextLevel] - (mask + 1))) {
+                int slot = (int) (seq & mask);
+                latitudeOut[n] = latitudes[nextLevel][slot];
+                longitudeOut[n] = longitudes[nextLevel][slot];
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /** Newest sequence in [first, last] of a level with a timestamp before {@code boundary}. */
+    private long lastBefore(int level, long first, long last, long boundary) {
+        long[] times = timestamps[level];
+        long low = first;
+        long high = last;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            if (times[(int) (mid & mask)] < boundary) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    private void clearLocked() {
+        Arrays.fill(count, 0);
+        generation++;
+    }
+
+    private static double turn(double from, double to) {
+        double delta = (to - from) % 360;
+        return delta > 180 ? delta - 360 : delta < -180 ? delta + 360 : delta;
+    }
+
+    /**
+     * The segments of the last {@link BreadcrumbTrail#segments} call, and which of them the caller has
+     * already drawn. Each segment has a handle below {@link #handleCount} that stays the same while that
+     * part of the line exists, so a map layer can keep one feature per handle.
+     */
+    public static final class Segments {
+        private final int chunksPerLevel;
+        private final int[] rangeLevel = new int[LEVELS];
+        private final long[] rangeFirst = new long[LEVELS];
+        private final long[] rangeLast = new long[LEVELS];
+        private final int[] level;
+        private final long[] from;
+        private final long[] to;
+        private int size;
+
+        // What was drawn per handle; drawnFrom is -1 for nothing.
+        private final long[] drawnFrom;
+        private final long[] drawnTo;
+        private final long[] drawnJoin;
+        private final boolean[] present;
+        private final int[] stale;
+        private int staleCount;
+        private long drawnGeneration;
+
+        public Segments() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        /** @param capacity the capacity of the trail it is used with */
+        public Segments(int capacity) {
+            chunksPerLevel = capacity / CHUNK_POINTS + 2;
+            int max = LEVELS * chunksPerLevel;
+            level = new int[max];
+            from = new long[max];
+            to = new long[max];
+            drawnFrom = new long[max];
+            drawnTo = new long[max];
+            drawnJoin = new long[max];
+            present = new boolean[max];
+            stale = new int[max];
+            Arrays.fill(drawnFrom, -1);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int handleCount() {
+            return level.length;
+        }
+
+        public int handle(int index) {
+            return level[index] * chunksPerLevel + (int) ((from[index] / CHUNK_POINTS) % chunksPerLevel);
+        }
+
+        public int level(int index) {
+            return level[index];
+        }
+
+        /** Whether segment {@code index} looks as it did when it was last {@link #markDrawn marked drawn}. */
+        public boolean isDrawn(int index) {
+            int handle = handle(index);
+            return drawnFrom[handle] == from[index] && drawnTo[handle] == to[index]
+                    && drawnJoin[handle] == join(index);
+        }
+
+        public void markDrawn(int index) {
+            int handle = handle(index);
+            drawnFrom[handle] = from[index];
+            drawnTo[handle] = to[index];
+            drawnJoin[handle] = join(index);
+        }
+
+        /** Number of handles drawn before that are no longer part of the line. */
+        public int staleCount() {
+            return staleCount;
+        }
+
+        public int staleHandle(int index) {
+            return stale[index];
+        }
+
+        /** The first point of the next segment if it is on another level, as sequence and level, or -1. */
+        private long join(int index) {
+            int next = index + 1;
+            return next < size && level[next] != level[index] ? from[next] * LEVELS + level[next] : -1;
+        }
+
+        private void add(int segmentLevel, long segmentFrom, long segmentTo) {
+            level[size] = segmentLevel;
+            from[size] = segmentFrom;
+            to[size] = segmentTo;
+            size++;
+        }
+
+        /** Lists the handles drawn before but not present now, and forgets them. */
+        private void collectStale(long generation) {
+            if (generation != drawnGeneration) {
+                // The trail was cleared; sequences start again and match nothing drawn.
+                drawnGeneration = generation;
+                Arrays.fill(present, false);
+            } else {
+                Arrays.fill(present, false);
+                for (int i = 0; i < size; i++) {
+                    present[handle(i)] = true;
+                }
+            }
+            staleCount = 0;
+            for (int handle = 0; handle < drawnFrom.length; handle++) {
+                if (drawnFrom[handle] >= 0 && !present[handle]) {
+                    stale[staleCount++] = handle;
+                    drawnFrom[handle] = -1;
+                }
+            }
+        }
+    }
+}
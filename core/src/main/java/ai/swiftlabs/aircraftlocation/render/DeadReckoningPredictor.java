@@ -0,0 +1,134 @@
+package ai.swiftlabs.aircraftlocation.render;
+
+import ai.swiftlabs.aircraftlocation.geo.Geodesy;
+
+/**
+ * Moves the aircraft icon between telemetry samples by extrapolating the last position along the last
+ * ground velocity, so 10 Hz telemetry can be drawn at the display rate.
+ *
+ * <p>Samples are anchored at the frame that first reads them rather than at their own timestamp, so
+ * live and replayed telemetry behave the same. When a sample arrives, the difference between where the
+ * icon was drawn and where the aircraft really is becomes a correction that fades out over
+ * {@link #CORRECTION_NANOS}: the icon bends towards the new track instead of jumping. Errors larger than
+ * {@link #SNAP_METERS}, such as a replay seek, are not smoothed. Extrapolation stops
+ * {@link #MAX_EXTRAPOLATION_NANOS} after the last sample, so a lost link freezes the icon instead of
+ * flying it away.</p>
+ *
+ * <p>Frame thread only. Nothing is allocated after construction.</p>
+ */
+public final class DeadReckoningPredictor {
+
+    public static final long CORRECTION_NANOS = 200_000_000L;
+    public static final long MAX_EXTRAPOLATION_NANOS = 500_000_000L;
+    public static final double SNAP_METERS = 50;
+    /** Slower than this the aircraft is treated as hovering. */
+    public static final double MIN_SPEED_METERS_PER_SECOND = 0.1;
+
+    private boolean hasSample;
+    private long anchorNanos;
+    private double sampleLatitude;
+    private double sampleLongitude;
+    private double degreesNorthPerNano;
+    private double degreesEastPerNano;
+    private float sampleBearing;
+    private double correctionLatitude;
+    private double correctionLongitude;
+    private float correctionBearing;
+
+    private double latitude;
+    private double longitude;
+    private float bearing;
+
+    /**
+     * Takes a new sample, read on the frame at {@code frameTimeNanos}.
+     *
+     * @param velocityNorth ground speed towards north, in m/s
+     * @param velocityEast  ground speed towards east, in m/s
+     * @param bearing       heading in degrees
+     */
+    public void update(long frameTimeNanos, double latitude, double longitude, float velocityNorth,
+                       float velocityEast, float bearing) {
+        if (hasSample) {
+            predict(frameTimeNanos);
+            correctionLatitude = this.latitude - latitude;
+            correctionLongitude = wrapDegrees(this.longitude - longitude);
+            correctionBearing = (float) wrapDegrees(this.bearing - bearing);
+            if (Geodesy.equirectangular(this.latitude, this.longitude, latitude, longitude) > SNAP_METERS) {
+                correctionLatitude = 0;
+                correctionLongitude = 0;
+                correctionBearing = 0;
+            }
+        }
+        hasSample = true;
+        anchorNanos = frameTimeNanos;
+        sampleLatitude = latitude;
+        sampleLongitude = longitude;
+        sampleBearing = bearing;
+        if (Math.hypot(velocityNorth, velocityEast) < MIN_SPEED_METERS_PER_SECOND) {
+            degreesNorthPerNano = 0;
+            degreesEastPerNano = 0;
+        } else {
+            double radiansPerMeter = 1 / Geodesy.EARTH_RADIUS_METERS;
+            degreesNorthPerNano = Math.toDegrees(velocityNorth * radiansPerMeter) / 1e9;
+            degreesEastPerNano = Math.toDegrees(velocityEast * radiansPerMeter)
+                    / Math.cos(Math.toRadians(latitude)) / 1e9;
+        }
+    }
+
+    /**
+     * Computes the position to draw at {@code frameTimeNanos}, read back through {@link #latitude},
+     * {@link #longitude} and {@link #bearing}.
+     *
+     * @return whether the icon is still moving, so another frame is worth drawing
+     */
+    public boolean predict(long frameTimeNanos) {
+        if (!hasSample) {
+            return false;
+        }
+        long elapsed = Math.max(0, frameTimeNanos - anchorNanos);
+        long extrapolated = Math.min(elapsed, MAX_EXTRAPOLATION_NANOS);
+        double fade = elapsed >= CORRECTION_NANOS ? 0 : 1 - (double) elapsed / CORRECTION_NANOS;
+        latitude = sampleLatitude + degreesNorthPerNano * extrapolated + correctionLatitude * fade;
+        longitude = wrapDegrees(sampleLongitude + degreesEastPerNano * extrapolated + correctionLongitude * fade);
+        bearing = (float) wrapDegrees(sampleBearing + correctionBearing * fade);
+        boolean moving = (degreesNorthPerNano != 0 || degreesEastPerNano != 0)
+                && elapsed < MAX_EXTRAPOLATION_NANOS;
+        return moving || fade > 0 && (correctionLatitude != 0 || correctionLongitude != 0
+                || correctionBearing != 0);
+    }
+
+    public boolean hasSample() {
+        return hasSample;
+    }
+
+    /** Forgets the track, e.g. when the position became invalid; the next sample is drawn as is. */
+    public void reset() {
+        hasSample = false;
+        correctionLatitude = 0;
+        correctionLongitude = 0;
+        correctionBearing = 0;
+    }
+
+    public double latitude() {
+        return latitude;
+    }
+
+    public double longitude() {
+        return longitude;
+    }
+
+    public float bearing() {
+        return bearing;
+    }
+
+    /** Wraps an angle or longitude into (-180, 180]. */
+    private static double wrapDegrees(double degrees) {
+        double wrapped = degrees % 360;
+        if (wrapped > 180) {
+            wrapped -= 360;
+        } else if (wrapped <= -180) {
+            wrapped += 360;
+        }
+        return wrapped;
+    }
+}
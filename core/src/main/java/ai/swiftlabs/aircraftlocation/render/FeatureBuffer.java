@@ -0,0 +1,132 @@
+package ai.swiftlabs.aircraftlocation.render;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Dense, reusable list of map features addressed by a stable handle.
+ *
+ * <p>Putting, replacing and removing one feature is O(1): removal moves the last feature into the
+ * hole, since draw order within one layer is driven by layer properties rather than list order.
+ * {@link #asList()} is a live view that can be handed to a GeoJSON source without copying.</p>
+ *
+ * @param <T> the feature type, {@code com.mapbox.geojson.Feature} in the app
+ */
+public final class FeatureBuffer<T> {
+
+    private static final int NONE = -1;
+
+    private Object[] features;
+    private int[] handleAt;
+    private int[] positionOf;
+    private int size;
+    private boolean dirty;
+    private final View view = new View();
+
+    public FeatureBuffer() {
+        this(16);
+    }
+
+    public FeatureBuffer(int expectedFeatures) {
+        int capacity = Math.max(4, expectedFeatures);
+        features = new Object[capacity];
+        handleAt = new int[capacity];
+        positionOf = new int[capacity];
+        Arrays.fill(positionOf, NONE);
+    }
+
+    /** Adds the feature for a handle, or replaces it if the handle already has one. */
+    public void put(int handle, T feature) {
+        ensureHandle(handle);
+        int position = positionOf[handle];
+        if (position == NONE) {
+            if (size == features.length) {
+                features = Arrays.copyOf(features, size * 2);
+                handleAt = Arrays.copyOf(handleAt, size * 2);
+            }
+            position = size++;
+            positionOf[handle] = position;
+            handleAt[position] = handle;
+        }
+        features[position] = feature;
+        dirty = true;
+    }
+
+    public void remove(int handle) {
+        if (handle >= positionOf.length || positionOf[handle] == NONE) {
+            return;
+        }
+        int position = positionOf[handle];
+        int last = --size;
+        if (position != last) {
+            features[position] = features[last];
+            handleAt[position] = handleAt[last];
+            positionOf[handleAt[position]] = position;
+        }
+        features[last] = null;
+        positionOf[handle] = NONE;
+        dirty = true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int handle) {
+        if (handle >= positionOf.length || positionOf[handle] == NONE) {
+            return null;
+        }
+        return (T) features[positionOf[handle]];
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positionOf[handleAt[i]] = NONE;
+            features[i] = null;
+        }
+        size = 0;
+        dirty = true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Whether anything changed since the last {@link #markClean()}. */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void markClean() {
+        dirty = false;
+    }
+
+    /** Live, read-only view of the features. */
+    public List<T> asList() {
+        return view;
+    }
+
+    private void ensureHandle(int handle) {
+        if (handle < positionOf.length) {
+            return;
+        }
+        int oldSize = positionOf.length;
+        positionOf = Arrays.copyOf(positionOf, Math.max(handle + 1, oldSize * 2));
+        Arrays.fill(positionOf, oldSize, positionOf.length, NONE);
+    }
+
+    private final class View extends AbstractList<T> implements RandomAccess {
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index " + index + " outside [0, " + size + ")");
+            }
+            return (T) features[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ai.swiftlabs.aircraftlocation.render;
+
+/**
+ * Source of display frame callbacks. On Android this is backed by the {@code Choreographer},
+ * on the JVM (tests, benchmarks) frames are pumped by hand.
+ */
+public interface FrameScheduler {
+
+    /**
+     * Requests a single call to {@link FrameCallback#doFrame(long)} on the next frame.
+     * May be called from any thread. Implementations must not allocate once a callback
+     * has been seen before.
+     */
+    void postFrameCallback(FrameCallback callback);
+
+    interface FrameCallback {
+        void doFrame(long frameTimeNanos);
+    }
+}
@@ -0,0 +1,157 @@
+package ai.swiftlabs.aircraftlocation.render;
+
+import ai.swiftlabs.aircraftlocation.fleet.AircraftRegistry;
+import ai.swiftlabs.aircraftlocation.geo.Coordinates;
+import ai.swiftlabs.aircraftlocation.metrics.LatencyHistogram;
+import ai.swiftlabs.aircraftlocation.telemetry.TelemetryPipeline;
+import ai.swiftlabs.aircraftlocation.telemetry.TelemetrySnapshot;
+
+/**
+ * Copies the newest sample of a {@link TelemetryPipeline} into one aircraft of an
+ * {@link AircraftRegistry} at the start of each frame.
+ *
+ * <p>New samples only request a frame; the position itself is pulled from the pipeline when the frame
+ * runs, so a burst of samples costs one read of the newest one.</p>
+ *
+ * <p>With a latency histogram, the time from each rendered sample's timestamp to its frame is recorded.
+ * That needs sample timestamps on the {@link System#nanoTime()} clock, as {@code AircraftSdk} delivers
+ * them; replayed samples keep their recorded time and are ignored.</p>
+ *
+ * <p>With an {@link AdaptiveRenderRate}, samples it turns down are left in the pipeline and the registry
+ * keeps the last drawn position. Samples it would turn down do not request a frame either, so a slow rate
+ * also means fewer wake-ups; the next sample, or an explicit {@link AircraftPositionRenderer#requestFrame},
+ * tries again.</p>
+ *
+ * <p>With a {@link DeadReckoningPredictor}, every sample is taken as soon as a frame reads it and the
+ * icon is drawn where the predictor puts it. While the aircraft moves and the rate allows drawing every
+ * frame, the feed asks for the next frame itself, animating the icon at the display rate; the renderer's
+ * single frame callback is the only animator.</p>
+ */
+public final class LiveAircraftFeed implements TelemetryPipeline.Listener, AircraftPositionRenderer.Producer {
+
+    private static final long MAX_LATENCY_NANOS = 10_000_000_000L;
+    private static final long DISPLAY_FRAME_NANOS = 1_000_000_000L / AdaptiveRenderRate.MAX_RATE_HZ;
+
+    private final TelemetryPipeline pipeline;
+    private final AircraftPositionRenderer renderer;
+    private final AircraftRegistry registry;
+    private final int aircraft;
+    private final LatencyHistogram renderLatency;
+    private final AdaptiveRenderRate renderRate;
+    private final DeadReckoningPredictor predictor;
+    private final TelemetrySnapshot snapshot = new TelemetrySnapshot();
+    private final TelemetrySnapshot published = new TelemetrySnapshot();
+    private long renderedSequence = -1;
+
+    public LiveAircraftFeed(TelemetryPipeline pipeline, AircraftPositionRenderer renderer,
+                            AircraftRegistry registry, int aircraft) {
+        this(pipeline, renderer, registry, aircraft, null, null, null);
+    }
+
+    /**
+     * @param renderLatency receives the sample-to-frame latency, or {@code null}
+     * @param renderRate    decides which samples are drawn, or {@code null} to draw every frame's newest
+     * @param predictor     moves the icon between samples, or {@code null} to draw samples where they are
+     */
+    public LiveAircraftFeed(TelemetryPipeline pipeline, AircraftPositionRenderer renderer,
+                            AircraftRegistry registry, int aircraft, LatencyHistogram renderLatency,
+                            AdaptiveRenderRate renderRate, DeadReckoningPredictor predictor) {
+        this.pipeline = pipeline;
+        this.renderer = renderer;
+        this.registry = registry;
+        this.aircraft = aircraft;
+        this.renderLatency = renderLatency;
+        this.renderRate = renderRate;
+        this.predictor = predictor;
+    }
+
+    /**
+     * Starts following the pipeline. Call on the frame thread, before adding the producer that renders
+     * the registry.
+     */
+    public void attach() {
+        renderer.addProducer(this);
+        pipeline.addListener(this);
+        renderer.requestFrame();
+    }
+
+    public void detach() {
+        pipeline.removeListener(this);
+    }
+
+    @Override
+    public void onTelemetry(long sequence) {
+        if (renderRate == null || !pipeline.ring().read(sequence, published)
+                || !Coordinates.isValid(published.latitude(), published.longitude())
+                || renderRate.wantsFrame(published.timestampNanos(), published.latitude(), published.longitude())) {
+            renderer.requestFrame();
+        }
+    }
+
+    @Override
+    public void produce(AircraftPositionRenderer renderer, long frameTimeNanos) {
+        if (predictor != null) {
+            producePredicted(frameTimeNanos);
+            return;
+        }
+        if (pipeline.latestSequence() == renderedSequence || !pipeline.readLatest(snapshot)) {
+            return;
+        }
+        boolean valid = Coordinates.isValid(snapshot.latitude(), snapshot.longitude());
+        if (valid && renderRate != null && !renderRate.shouldRender(frameTimeNanos, snapshot.latitude(),
+                snapshot.longitude(), snapshot.yaw())) {
+            return;
+        }
+        renderedSequence = snapshot.sequence();
+        if (valid) {
+            registry.update(aircraft, snapshot.latitude(), snapshot.longitude(), snapshot.altitude(),
+                    snapshot.yaw(), snapshot.timestampNanos());
+        } else {
+            registry.clearPosition(aircraft);
+            if (renderRate != null) {
+                renderRate.reset();
+            }
+        }
+        recordLatency();
+    }
+
+    private void producePredicted(long frameTimeNanos) {
+        if (pipeline.latestSequence() != renderedSequence && pipeline.readLatest(snapshot)) {
+            renderedSequence = snapshot.sequence();
+            recordLatency();
+            if (!Coordinates.isValid(snapshot.latitude(), snapshot.longitude())) {
+                predictor.reset();
+                registry.clearPosition(aircraft);
+                if (renderRate != null) {
+                    renderRate.reset();
+                }
+                return;
+            }
+            predictor.update(frameTimeNanos, snapshot.latitude(), snapshot.longitude(),
+                    snapshot.velocityNorth(), snapshot.velocityEast(), snapshot.yaw());
+        }
+        if (!predictor.hasSample()) {
+            return;
+        }
+        boolean moving = predictor.predict(frameTimeNanos);
+        double latitude = predictor.latitude();
+        double longitude = predictor.longitude();
+        float bearing = predictor.bearing();
+        if (renderRate == null || renderRate.shouldRender(frameTimeNanos, latitude, longitude, bearing)) {
+            registry.update(aircraft, latitude, longitude, snapshot.altitude(), bearing, snapshot.timestampNanos());
+        }
+        if (moving && (renderRate == null
+                || renderRate.renderIntervalNanos(latitude, longitude) <= DISPLAY_FRAME_NANOS)) {
+            renderer.requestFrame();
+        }
+    }
+
+    private void recordLatency() {
+        if (renderLatency != null) {
+            long latency = System.nanoTime() - snapshot.timestampNanos();
+            if (latency >= 0 && latency < MAX_LATENCY_NANOS) {
+                renderLatency.record(latency);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package ai.swiftlabs.aircraftlocation.render;
+
+import java.util.Arrays;
+
+import ai.swiftlabs.aircraftlocation.fleet.AircraftRegistry;
+
+/**
+ * Shows the aircraft of an {@link AircraftRegistry} that are inside the current viewport.
+ *
+ * <p>Visible aircraft are mapped onto the renderer's fixed set of slots; an aircraft keeps its slot
+ * (and so its symbol) for as long as it stays in view. The work per frame depends on the number of
+ * slots and grid cells under the viewport, not on how many aircraft are tracked overall.</p>
+ *
+ * <p>Register after the producers that update the registry, so a frame renders fresh positions.</p>
+ */
+public final class VisibleAircraftProducer implements AircraftPositionRenderer.Producer {
+
+    private static final int NONE = -1;
+
+    private final AircraftRegistry registry;
+    private final int[] visible;
+    private final int[] aircraftOfSlot;
+    private final int[] renderedVersion;
+    private final int[] seenInFrame;
+    private final int[] freeSlots;
+    private int freeCount;
+    private int[] slotOfAircraft = new int[0];
+
+    private boolean hasViewport;
+    private double south;
+    private double west;
+    private double north;
+    private double east;
+
+    private int frame;
+    private int lastVisibleCount;
+    private long overflowFrames;
+
+    /**
+     * @param slots the {@link AircraftPositionRenderer#capacity() capacity} of the renderer it feeds
+     */
+    public VisibleAircraftProducer(AircraftRegistry registry, int slots) {
+        this.registry = registry;
+        visible = new int[slots];
+        aircraftOfSlot = new int[slots];
+        renderedVersion = new int[slots];
+        seenInFrame = new int[slots];
+        freeSlots = new int[slots];
+        Arrays.fill(aircraftOfSlot, NONE);
+        for (int slot = slots - 1; slot >= 0; slot--) {
+            freeSlots[freeCount++] = slot;
+        }
+    }
+
+    /**
+     * Sets the visible bounds. Call on the frame thread, e.g. from a camera listener, and request a
+     * frame afterwards.
+     */
+    public void setViewport(double south, double west, double north, double east) {
+        this.south = south;
+        this.west = west;
+        this.north = north;
+        this.east = east;
+        hasViewport = true;
+    }
+
+    /** Aircraft inside the viewport during the last frame, including ones that did not get a slot. */
+    public int visibleCount() {
+        return lastVisibleCount;
+    }
+
+    /** Frames in which more aircraft were in view than there are slots. */
+    public long overflowFrames() {
+        return overflowFrames;
+    }
+
+    @Override
+    public void produce(AircraftPositionRenderer renderer, long frameTimeNanos) {
+        if (!hasViewport) {
+            return;
+        }
+        if (slotOfAircraft.length < registry.size()) {
+            int oldSize = slotOfAircraft.length;
+            slotOfAircraft = Arrays.copyOf(slotOfAircraft, Math.max(registry.size(), oldSize * 2));
+            Arrays.fill(slotOfAircraft, oldSize, slotOfAircraft.length, NONE);
+        }
+
+        frame++;
+        int found = registry.query(south, west, north, east, visible);
+        lastVisibleCount = found;
+        int count = Math.min(found, visible.length);
+        if (found > visible.length) {
+            overflowFrames++;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int aircraft = visible[i];
+            int slot = slotOfAircraft[aircraft];
+            if (slot == NONE) {
+                if (freeCount == 0) {
+                    continue;
+                }
+                slot = freeSlots[--freeCount];
+                slotOfAircraft[aircraft] = slot;
+                aircraftOfSlot[slot] = aircraft;
+                renderedVersion[slot] = registry.version(aircraft) - 1;
+            }
+            seenInFrame[slot] = frame;
+            int version = registry.version(aircraft);
+            if (version != renderedVersion[slot]) {
+                renderer.show(slot, registry.latitude(aircraft), registry.longitude(aircraft),
+                        registry.heading(aircraft));
+                renderedVersion[slot] = version;
+            }
+        }
+
+        // Anything holding a slot that was not seen this frame left the viewport or lost its fix.
+        for (int slot = 0; slot < aircraftOfSlot.length; slot++) {
+            int aircraft = aircraftOfSlot[slot];
+            if (aircraft != NONE && seenInFrame[slot] != frame) {
+                renderer.hide(slot);
+                slotOfAircraft[aircraft] = NONE;
+                aircraftOfSlot[slot] = NONE;
+                freeSlots[freeCount++] = slot;
+            }
+        }
+    }
+}
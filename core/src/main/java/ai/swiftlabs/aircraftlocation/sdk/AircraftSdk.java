@@ -0,0 +1,47 @@
+package ai.swiftlabs.aircraftlocation.sdk;
+
+import ai.swiftlabs.aircraftlocation.mission.MissionOperator;
+
+/**
+ * The aircraft SDK entry points the app drives: product connection, the flight controller state and
+ * battery callbacks, and the waypoint mission operator. The app implements it on top of DJI Mobile SDK;
+ * {@link SimulatedAircraft} implements it on a plain JVM, so the same telemetry and mission code runs in
+ * tests and benchmarks without hardware.
+ *
+ * <p>Like the DJI callbacks they stand for, callbacks arrive on SDK threads and must not block.</p>
+ */
+public interface AircraftSdk {
+
+    interface ConnectionListener {
+        void onConnectionChanged(boolean connected);
+    }
+
+    /** Mirrors the fields the app reads from {@code FlightControllerState}. */
+    interface StateCallback {
+        /**
+         * @param timestampNanos receive time on the {@link System#nanoTime()} clock
+         * @param altitude       relative to the take-off point, in meters
+         */
+        void onState(long timestampNanos, double latitude, double longitude, float altitude,
+                     float velocityNorth, float velocityEast, float velocityDown,
+                     float pitch, float roll, float yaw);
+    }
+
+    interface BatteryCallback {
+        void onBatteryChanged(int chargePercent);
+    }
+
+    boolean isConnected();
+
+    void addConnectionListener(ConnectionListener listener);
+
+    void removeConnectionListener(ConnectionListener listener);
+
+    /** Replaces the flight controller state callback; {@code null} stops delivery. */
+    void setStateCallback(StateCallback callback);
+
+    /** Replaces the battery callback; {@code null} stops delivery. */
+    void setBatteryCallback(BatteryCallback callback);
+
+    MissionOperator missionOperator();
+}
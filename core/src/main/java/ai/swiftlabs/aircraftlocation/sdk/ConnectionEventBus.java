@@ -0,0 +1,285 @@
+package ai.swiftlabs.aircraftlocation.sdk;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import ai.swiftlabs.aircraftlocation.telemetry.LinkHealthMonitor;
+
+/**
+ * Tells subscribers which parts of the aircraft connection changed: the product and each of its
+ * components, connected or not, or replaced by another instance.
+ *
+ * <p>The SDK reports connectivity in bursts, a product connecting brings a callback per component and
+ * flaky links flap. Events are therefore coalesced: a change is delivered once no event came for the
+ * quiet period, and at the latest the maximum delay after the first event of a burst. What is delivered is
+ * the net difference to the state delivered before, so a component that dropped and came back within a
+ * burst, still the same instance, is not reported at all. Each subscriber only hears about the components
+ * it subscribed to, on its own executor.</p>
+ *
+ * <p>Thread-safe; events may be published from any thread. Listeners on an executor that runs them inline
+ * run with the bus locked and must be quick.</p>
+ */
+public final class ConnectionEventBus {
+
+    public static final long DEFAULT_QUIET_MILLIS = 200;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 1000;
+
+    public enum Component {
+        PRODUCT,
+        FLIGHT_CONTROLLER,
+        BATTERY,
+        REMOTE_CONTROLLER,
+        AIR_LINK,
+        CAMERA,
+        GIMBAL
+    }
+
+    public interface Listener {
+        void onChange(Change change);
+    }
+
+    /** The connection state after a burst of events, and what changed against the one before. */
+    public static final class Change {
+        private final String product;
+        private final Set<Component> connected;
+        private final Set<Component> changed;
+        private final long[] sinceNanos;
+        private final int events;
+
+        Change(String product, Set<Component> connected, Set<Component> changed, long[] sinceNanos, int events) {
+            this.product = product;
+            this.connected = Collections.unmodifiableSet(connected);
+            this.changed = Collections.unmodifiableSet(changed);
+            this.sinceNanos = sinceNanos;
+            this.events = events;
+        }
+
+        /** Name of the connected product, or of the last one while disconnected; {@code null} before any. */
+        public String product() {
+            return product;
+        }
+
+        public boolean isConnected(Component component) {
+            return connected.contains(component);
+        }
+
+        /** Whether the component connected, disconnected or was replaced. */
+        public boolean changed(Component component) {
+            return changed.contains(component);
+        }
+
+        public boolean becameConnected(Component component) {
+            return changed(component) && isConnected(component);
+        }
+
+        public Set<Component> changed() {
+            return changed;
+        }
+
+        /**
+         * When the event that last changed a component's connectivity was published, on the bus's clock, or
+         * -1 if it never did.
+         */
+        public long sinceNanos(Component component) {
+            return sinceNanos[component.ordinal()];
+        }
+
+        /** How many events this change sums up; 0 for the state a new subscriber starts from. */
+        public int events() {
+            return events;
+        }
+
+        @Override
+        public String toString() {
+            return "changed " + changed + ", connected " + connected + ", product " + product + " (" + events
+                    + " events)";
+        }
+    }
+
+    private static final class Subscriber {
+        final Set<Component> components;
+        final Executor executor;
+        final Listener listener;
+
+        Subscriber(Set<Component> components, Executor executor, Listener listener) {
+            this.components = components;
+            this.executor = executor;
+            this.listener = listener;
+        }
+    }
+
+    private static final Component[] COMPONENTS = Component.values();
+
+    private final ScheduledExecutorService scheduler;
+    private final LinkHealthMonitor.Clock clock;
+    private final long quietNanos;
+    private final long maxDelayNanos;
+    private final Runnable flush = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    // Everything below is guarded by this.
+    private Subscriber[] subscribers = new Subscriber[0];
+    private Change delivered;
+    private String product;
+    private final Set<Component> connected = EnumSet.noneOf(Component.class);
+    private final Set<Component> replaced = EnumSet.noneOf(Component.class);
+    private final long[] sinceNanos = new long[COMPONENTS.length];
+    private int events;
+    private boolean productReplaced;
+    private boolean scheduled;
+    private long firstEventNanos;
+    private long lastEventNanos;
+
+    public ConnectionEventBus(ScheduledExecutorService scheduler) {
+        this(scheduler, DEFAULT_QUIET_MILLIS, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    public ConnectionEventBus(ScheduledExecutorService scheduler, long quietMillis, long maxDelayMillis) {
+        this(scheduler, quietMillis, maxDelayMillis, LinkHealthMonitor.SYSTEM_CLOCK);
+    }
+
+    /**
+     * @param clock what event times are taken from, and what the scheduler's delays are measured on
+     */
+    public ConnectionEventBus(ScheduledExecutorService scheduler, long quietMillis, long maxDelayMillis,
+                              LinkHealthMonitor.Clock clock) {
+        if (quietMillis < 0 || maxDelayMillis < quietMillis) {
+            throw new IllegalArgumentException("quiet " + quietMillis + " ms, max delay " + maxDelayMillis + " ms");
+        }
+        this.scheduler = scheduler;
+        this.clock = clock;
+        this.quietNanos = TimeUnit.MILLISECONDS.toNanos(quietMillis);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        Arrays.fill(sinceNanos, -1);
+        delivered = new Change(null, EnumSet.noneOf(Component.class), EnumSet.noneOf(Component.class),
+                sinceNanos.clone(), 0);
+    }
+
+    /**
+     * Subscribes to changes of some components. The listener first gets the state delivered so far, as a
+     * change of all those components, so it initialises the same way it reacts to changes.
+     */
+    public void subscribe(Set<Component> components, Executor executor, Listener listener) {
+        Subscriber subscriber = new Subscriber(EnumSet.copyOf(components), executor, listener);
+        synchronized (this) {
+            Subscriber[] current = subscribers;
+            Subscriber[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = subscriber;
+            subscribers = updated;
+            deliver(subscriber, new Change(delivered.product, delivered.connected, EnumSet.copyOf(components),
+                    delivered.sinceNanos, 0));
+        }
+    }
+
+    public synchronized void unsubscribe(Listener listener) {
+        Subscriber[] current = subscribers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].listener == listener) {
+                Subscriber[] updated = new Subscriber[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                subscribers = updated;
+                return;
+            }
+        }
+    }
+
+    /** The state last delivered. */
+    public synchronized Change current() {
+        return delivered;
+    }
+
+    /** A product connected; one with another name than before counts as replaced. */
+    public synchronized void productConnected(String name) {
+        if (product != null && !product.equals(name)) {
+            productReplaced = true;
+        }
+        product = name;
+        update(Component.PRODUCT, true, false);
+    }
+
+    public synchronized void productDisconnected() {
+        update(Component.PRODUCT, false, false);
+    }
+
+    public synchronized void componentConnectivityChanged(Component component, boolean isConnected) {
+        update(component, isConnected, false);
+    }
+
+    /** The SDK handed out another instance of a component, which needs its callbacks registered again. */
+    public synchronized void componentReplaced(Component component, boolean isConnected) {
+        update(component, isConnected, true);
+    }
+
+    private void update(Component component, boolean isConnected, boolean isReplaced) {
+        long now = clock.nanoTime();
+        if (isConnected ? connected.add(component) : connected.remove(component)) {
+            sinceNanos[component.ordinal()] = now;
+        }
+        if (isReplaced) {
+            replaced.add(component);
+        }
+        events++;
+        lastEventNanos = now;
+        if (!scheduled) {
+            scheduled = true;
+            firstEventNanos = now;
+            scheduler.schedule(flush, quietNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Delivers under the lock, so every subscriber sees the changes in order whatever its executor. */
+    private synchronized void flush() {
+        long now = clock.nanoTime();
+        long due = Math.min(lastEventNanos + quietNanos, firstEventNanos + maxDelayNanos);
+        if (now < due) {
+            // Events kept coming; waiting for them is cheaper than rescheduling on every one.
+            scheduler.schedule(flush, due - now, TimeUnit.NANOSECONDS);
+            return;
+        }
+        scheduled = false;
+        Set<Component> changed = EnumSet.copyOf(replaced);
+        if (productReplaced) {
+            changed.add(Component.PRODUCT);
+        }
+        for (Component component : COMPONENTS) {
+            if (connected.contains(component) != delivered.isConnected(component)) {
+                changed.add(component);
+            }
+        }
+        Change change = new Change(product, EnumSet.copyOf(connected), changed, sinceNanos.clone(), events);
+        replaced.clear();
+        productReplaced = false;
+        events = 0;
+        if (changed.isEmpty()) {
+            return;
+        }
+        delivered = change;
+        for (Subscriber subscriber : subscribers) {
+            for (Component component : changed) {
+                if (subscriber.components.contains(component)) {
+                    deliver(subscriber, change);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void deliver(final Subscriber subscriber, final Change change) {
+        subscriber.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                subscriber.listener.onChange(change);
+            }
+        });
+    }
+}
@@ -0,0 +1,696 @@
+package ai.swiftlabs.aircraftlocation.sdk;
+
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import ai.swiftlabs.aircraftlocation.geo.LocalTangentPlane;
+import ai.swiftlabs.aircraftlocation.mission.MissionOperator;
+import ai.swiftlabs.aircraftlocation.mission.MissionPlan;
+import ai.swiftlabs.aircraftlocation.mission.MissionSettings;
+
+/**
+ * A quadcopter simulated on the JVM, standing in for DJI's SDK in tests and benchmarks.
+ *
+ * <p>The aircraft starts landed at its home point. It reports state at a configurable rate, drains its
+ * battery while airborne and flies uploaded waypoint missions kinematically: it accelerates toward each
+ * waypoint at up to {@value #MAX_ACCELERATION} m/s², brakes so it stops on the waypoint, climbs at
+ * {@value #CLIMB_RATE} m/s and descends at {@value #DESCENT_RATE} m/s, then carries out the mission's
+ * finished action. The mission operator follows the DJI state machine (load, upload, start, stop);
+ * uploads take a configurable time per waypoint and can fail at random, commands answer after a
+ * configurable latency, and nothing works while the link is {@link #setConnected disconnected}. A poor link
+ * can be simulated by losing or delaying state reports.</p>
+ *
+ * <p>Simulated time only moves in {@link #advance}, which runs state updates and pending SDK events in
+ * time order and invokes callbacks on the calling thread, without holding any lock. Tests call it
+ * directly for deterministic runs; {@link #start} drives it from a thread in real time, or faster.</p>
+ */
+public final class SimulatedAircraft implements AircraftSdk {
+
+    public static final int DEFAULT_STATE_RATE_HZ = 10;
+    public static final double MAX_ACCELERATION = 4;
+    public static final double CLIMB_RATE = 5;
+    public static final double DESCENT_RATE = 3;
+    /** A full battery lasts 25 minutes in the air, whatever the aircraft does. */
+    public static final double FLIGHT_SECONDS_PER_BATTERY = 25 * 60;
+
+    public static final String DISCONNECTED = "Aircraft disconnected";
+    public static final String STOPPED = "Mission stopped";
+
+    public enum MissionState {
+        NOT_LOADED,
+        READY_TO_UPLOAD,
+        UPLOADING,
+        READY_TO_EXECUTE,
+        EXECUTING
+    }
+
+    private enum Flight {
+        LANDED,
+        MISSION,
+        TRANSIT,
+        HOVER,
+        LANDING
+    }
+
+    private static final double ARRIVAL_METERS = 1;
+    private static final double ARRIVAL_ALTITUDE_METERS = 0.5;
+
+    private final LocalTangentPlane plane;
+    private final Random random;
+    private final long clockOffsetNanos = System.nanoTime();
+    private final SimulatedOperator operator = new SimulatedOperator();
+    private final List<ConnectionListener> connectionListeners = new CopyOnWriteArrayList<>();
+    private volatile StateCallback stateCallback;
+    private volatile BatteryCallback batteryCallback;
+    private volatile boolean connected = true;
+    private volatile double timeScale = 1;
+    private Thread driver;
+
+    // Everything below is guarded by this.
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private long eventOrder;
+    private long now;
+    private long statePeriodNanos = TimeUnit.SECONDS.toNanos(1) / DEFAULT_STATE_RATE_HZ;
+    private long nextStateAt;
+    private long uploadNanosPerWaypoint = TimeUnit.MILLISECONDS.toNanos(30);
+    private long commandLatencyNanos = TimeUnit.MILLISECONDS.toNanos(100);
+    private double uploadFailureRate;
+    private double positionNoiseMeters;
+    private double stateLossRate;
+    private long stateDelayNanos;
+    private long lastStateDue;
+
+    private Flight flight = Flight.LANDED;
+    private Flight afterTransit;
+    private double east;
+    private double north;
+    private double altitude;
+    private double velocityEast;
+    private double velocityNorth;
+    private double climbRate;
+    private float yaw;
+    private double battery = 100;
+    private int reportedBattery = -1;
+    private double transitEast;
+    private double transitNorth;
+    private double transitAltitude;
+
+    private MissionState missionState = MissionState.NOT_LOADED;
+    private double[] waypointEast = new double[0];
+    private double[] waypointNorth = new double[0];
+    private double[] waypointAltitude = new double[0];
+    private float missionSpeed;
+    private MissionSettings.FinishedAction finishedAction;
+    private int targetWaypoint;
+
+    public SimulatedAircraft(double homeLatitude, double homeLongitude, long seed) {
+        this.plane = new LocalTangentPlane(homeLatitude, homeLongitude);
+        this.random = new Random(seed);
+    }
+
+    // --- Configuration
+
+    public synchronized void setStateRateHz(int rateHz) {
+        statePeriodNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, rateHz);
+        nextStateAt = now + statePeriodNanos;
+    }
+
+    public synchronized void setUploadLatencyMillis(long millisPerWaypoint) {
+        uploadNanosPerWaypoint = TimeUnit.MILLISECONDS.toNanos(millisPerWaypoint);
+    }
+
+    public synchronized void setCommandLatencyMillis(long millis) {
+        commandLatencyNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /** Probability that the upload of any one waypoint fails and aborts the upload. */
+    public synchronized void setUploadFailureRate(double rate) {
+        uploadFailureRate = rate;
+    }
+
+    /** Standard deviation of the GPS noise added to reported positions. */
+    public synchronized void setPositionNoiseMeters(double meters) {
+        positionNoiseMeters = meters;
+    }
+
+    /** Probability that a state report is lost on the link. */
+    public synchronized void setStateLossRate(double rate) {
+        stateLossRate = rate;
+    }
+
+    /**
+     * Delays every state report by a random time of up to {@code maxMillis}, keeping them in order, as on a
+     * congested link. Reports are stamped when they arrive.
+     */
+    public synchronized void setStateDelayMillis(long maxMillis) {
+        stateDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxMillis);
+    }
+
+    /** Simulated seconds per real second while {@link #start started}. */
+    public void setTimeScale(double scale) {
+        timeScale = scale;
+    }
+
+    /**
+     * Drops or restores the link. A mission in progress keeps flying while disconnected, but no state or
+     * mission events arrive and commands fail.
+     */
+    public void setConnected(boolean connected) {
+        if (this.connected == connected) {
+            return;
+        }
+        this.connected = connected;
+        for (ConnectionListener listener : connectionListeners) {
+            listener.onConnectionChanged(connected);
+        }
+    }
+
+    // --- AircraftSdk
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void addConnectionListener(ConnectionListener listener) {
+        connectionListeners.add(listener);
+    }
+
+    @Override
+    public void removeConnectionListener(ConnectionListener listener) {
+        connectionListeners.remove(listener);
+    }
+
+    @Override
+    public void setStateCallback(StateCallback callback) {
+        stateCallback = callback;
+    }
+
+    @Override
+    public void setBatteryCallback(BatteryCallback callback) {
+        batteryCallback = callback;
+    }
+
+    @Override
+    public MissionOperator missionOperator() {
+        return operator;
+    }
+
+    // --- Inspection
+
+    public synchronized double latitude() {
+        return plane.latitude(north);
+    }
+
+    public synchronized double longitude() {
+        return plane.longitude(east);
+    }
+
+    public synchronized double altitude() {
+        return altitude;
+    }
+
+    public synchronized boolean isFlying() {
+        return flight != Flight.LANDED;
+    }
+
+    public synchronized MissionState missionState() {
+        return missionState;
+    }
+
+    public synchronized double batteryPercent() {
+        return battery;
+    }
+
+    /** Simulated time since construction. */
+    public synchronized long elapsedNanos() {
+        return now;
+    }
+
+    /** Simulated time on the {@link System#nanoTime()} based clock that state reports are stamped with. */
+    public synchronized long clockNanos() {
+        return clockOffsetNanos + now;
+    }
+
+    // --- Time
+
+    /** Moves simulated time forward, delivering every state update and SDK event that falls due. */
+    public void advance(long nanos) {
+        long end;
+        synchronized (this) {
+            end = now + nanos;
+        }
+        while (true) {
+            Event event = null;
+            boolean report;
+            long timestamp;
+            double latitude;
+            double longitude;
+            float altitude;
+            float north;
+            float east;
+            float down;
+            float pitch;
+            float yaw;
+            int battery = -1;
+            boolean delivered = true;
+            synchronized (this) {
+                Event head = events.peek();
+                long next = Math.min(nextStateAt, head == null ? Long.MAX_VALUE : head.due);
+                if (next > end) {
+                    now = end;
+                    return;
+                }
+                now = next;
+                if (head != null && head.due == next) {
+                    event = events.poll();
+                }
+                report = event == null;
+                if (report) {
+                    nextStateAt = now + statePeriodNanos;
+                    step(statePeriodNanos / 1e9);
+                    if (reportedBattery != (int) Math.ceil(this.battery)) {
+                        reportedBattery = (int) Math.ceil(this.battery);
+                        battery = reportedBattery;
+                    }
+                }
+                double noise = positionNoiseMeters;
+                timestamp = clockOffsetNanos + now;
+                latitude = plane.latitude(this.north + (noise > 0 ? random.nextGaussian() * noise : 0));
+                longitude = plane.longitude(this.east + (noise > 0 ? random.nextGaussian() * noise : 0));
+                altitude = (float) this.altitude;
+                north = (float) velocityNorth;
+                east = (float) velocityEast;
+                down = (float) -climbRate;
+                pitch = (float) -Math.min(25, Math.hypot(velocityNorth, velocityEast) * 1.5);
+                yaw = this.yaw;
+                if (report && stateLossRate > 0 && random.nextDouble() < stateLossRate) {
+                    delivered = false;
+                } else if (report && stateDelayNanos > 0) {
+                    lastStateDue = Math.max(now + (long) (random.nextDouble() * stateDelayNanos), lastStateDue);
+                    schedule(lastStateDue - now, new DelayedState(clockOffsetNanos + lastStateDue, latitude, longitude,
+                            altitude, north, east, down, pitch, yaw));
+                    delivered = false;
+                }
+            }
+            if (event != null) {
+                event.action.run();
+                continue;
+            }
+            StateCallback state = stateCallback;
+            if (delivered && connected && state != null) {
+                state.onState(timestamp, latitude, longitude, altitude, north, east, down, pitch, 0f, yaw);
+            }
+            BatteryCallback batteryListener = batteryCallback;
+            if (battery >= 0 && connected && batteryListener != null) {
+                batteryListener.onBatteryChanged(battery);
+            }
+        }
+    }
+
+    /** Runs the simulation on a background thread at {@link #setTimeScale the time scale}. */
+    public synchronized void start() {
+        if (driver != null) {
+            return;
+        }
+        driver = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long last = System.nanoTime();
+                while (!Thread.currentThread().isInterrupted()) {
+                    long period;
+                    synchronized (SimulatedAircraft.this) {
+                        period = statePeriodNanos;
+                    }
+                    LockSupport.parkNanos((long) (period / Math.max(timeScale, 1e-3)));
+                    long current = System.nanoTime();
+                    advance((long) ((current - last) * timeScale));
+                    last = current;
+                }
+            }
+        }, "simulated-aircraft");
+        driver.setDaemon(true);
+        driver.start();
+    }
+
+    public void stop() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            thread = driver;
+            driver = null;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            thread.join();
+        }
+    }
+
+    // --- Physics, all holding this
+
+    private void step(double dt) {
+        switch (flight) {
+            case MISSION:
+                if (flyToward(waypointEast[targetWaypoint], waypointNorth[targetWaypoint],
+                        waypointAltitude[targetWaypoint], missionSpeed, dt)) {
+                    onWaypointReached();
+                }
+                break;
+            case TRANSIT:
+                if (flyToward(transitEast, transitNorth, transitAltitude, missionSpeed, dt)) {
+                    flight = afterTransit;
+                }
+                break;
+            case HOVER:
+                flyToward(east, north, altitude, 0, dt);
+                break;
+            case LANDING:
+                flyToward(east, north, 0, 0, dt);
+                if (altitude <= 0) {
+                    altitude = 0;
+                    climbRate = 0;
+                    flight = Flight.LANDED;
+                }
+                break;
+            default:
+                velocityEast = 0;
+                velocityNorth = 0;
+                climbRate = 0;
+                return;
+        }
+        battery = Math.max(0, battery - 100 * dt / FLIGHT_SECONDS_PER_BATTERY);
+    }
+
+    /** One step toward a point, braking to stop on it; true once there. */
+    private boolean flyToward(double targetEast, double targetNorth, double targetAltitude, double speed,
+                              double dt) {
+        double dx = targetEast - east;
+        double dy = targetNorth - north;
+        double distance = Math.hypot(dx, dy);
+        double desired = Math.min(speed, Math.sqrt(2 * MAX_ACCELERATION * distance));
+        double wantEast = distance > 1e-9 ? desired * dx / distance : 0;
+        double wantNorth = distance > 1e-9 ? desired * dy / distance : 0;
+        double changeEast = wantEast - velocityEast;
+        double changeNorth = wantNorth - velocityNorth;
+        double change = Math.hypot(changeEast, changeNorth);
+        double maxChange = MAX_ACCELERATION * dt;
+        if (change > maxChange) {
+            changeEast *= maxChange / change;
+            changeNorth *= maxChange / change;
+        }
+        velocityEast += changeEast;
+        velocityNorth += changeNorth;
+        east += velocityEast * dt;
+        north += velocityNorth * dt;
+        double dz = targetAltitude - altitude;
+        climbRate = Math.max(-DESCENT_RATE, Math.min(CLIMB_RATE, dz / dt));
+        altitude += climbRate * dt;
+        if (Math.hypot(velocityEast, velocityNorth) > 0.5) {
+            yaw = (float) Math.toDegrees(Math.atan2(velocityEast, velocityNorth));
+        }
+        return Math.hypot(targetEast - east, targetNorth - north) < ARRIVAL_METERS
+                && Math.abs(targetAltitude - altitude) < ARRIVAL_ALTITUDE_METERS;
+    }
+
+    private void onWaypointReached() {
+        targetWaypoint++;
+        final int total = waypointEast.length;
+        final int target = targetWaypoint;
+        if (target < total) {
+            schedule(0, new Runnable() {
+                @Override
+                public void run() {
+                    operator.notifyProgress(target, total);
+                }
+            });
+            return;
+        }
+        missionState = MissionState.READY_TO_UPLOAD;
+        switch (finishedAction) {
+            case GO_HOME:
+                transit(0, 0, altitude, Flight.LANDING);
+                break;
+            case GO_FIRST_WAYPOINT:
+                transit(waypointEast[0], waypointNorth[0], waypointAltitude[0], Flight.HOVER);
+                break;
+            case AUTO_LAND:
+                flight = Flight.LANDING;
+                break;
+            default:
+                flight = Flight.HOVER;
+                break;
+        }
+        schedule(0, new Runnable() {
+            @Override
+            public void run() {
+                operator.notifyFinish(null);
+            }
+        });
+    }
+
+    private void transit(double targetEast, double targetNorth, double targetAltitude, Flight then) {
+        transitEast = targetEast;
+        transitNorth = targetNorth;
+        transitAltitude = targetAltitude;
+        afterTransit = then;
+        flight = Flight.TRANSIT;
+    }
+
+    private void schedule(long delayNanos, Runnable action) {
+        events.add(new Event(now + delayNanos, eventOrder++, action));
+    }
+
+    /** A state report held up on the link. */
+    private final class DelayedState implements Runnable {
+        final long timestamp;
+        final double latitude;
+        final double longitude;
+        final float altitude;
+        final float north;
+        final float east;
+        final float down;
+        final float pitch;
+        final float yaw;
+
+        DelayedState(long timestamp, double latitude, double longitude, float altitude, float north, float east,
+                     float down, float pitch, float yaw) {
+            this.timestamp = timestamp;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.altitude = altitude;
+            this.north = north;
+            this.east = east;
+            this.down = down;
+            this.pitch = pitch;
+            this.yaw = yaw;
+        }
+
+        @Override
+        public void run() {
+            StateCallback state = stateCallback;
+            if (connected && state != null) {
+                state.onState(timestamp, latitude, longitude, altitude, north, east, down, pitch, 0f, yaw);
+            }
+        }
+    }
+
+    private static final class Event implements Comparable<Event> {
+        final long due;
+        final long order;
+        final Runnable action;
+
+        Event(long due, long order, Runnable action) {
+            this.due = due;
+            this.order = order;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            if (due != other.due) {
+                return due < other.due ? -1 : 1;
+            }
+            return Long.compare(order, other.order);
+        }
+    }
+
+    /** The waypoint mission operator of the simulated aircraft. */
+    private final class SimulatedOperator implements MissionOperator {
+        private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String load(MissionPlan plan) {
+            synchronized (SimulatedAircraft.this) {
+                if (missionState == MissionState.UPLOADING || missionState == MissionState.EXECUTING) {
+                    return "Cannot load a mission while " + missionState;
+                }
+                int count = plan.size();
+                waypointEast = new double[count];
+                waypointNorth = new double[count];
+                waypointAltitude = new double[count];
+                for (int i = 0; i < count; i++) {
+                    waypointEast[i] = plane.east(plan.longitude(i));
+                    waypointNorth[i] = plane.north(plan.latitude(i));
+                    waypointAltitude[i] = plan.altitude(i);
+                }
+                missionSpeed = plan.settings().speed();
+                finishedAction = plan.settings().finishedAction();
+                missionState = MissionState.READY_TO_UPLOAD;
+                return null;
+            }
+        }
+
+        @Override
+        public void upload(final Completion completion) {
+            synchronized (SimulatedAircraft.this) {
+                String error = !connected ? DISCONNECTED
+                        : missionState != MissionState.READY_TO_UPLOAD ? "Cannot upload while " + missionState
+                        : null;
+                if (error != null) {
+                    answer(completion, error);
+                    return;
+                }
+                missionState = MissionState.UPLOADING;
+                scheduleUpload(0, completion);
+            }
+        }
+
+        /** Holding the aircraft lock. */
+        private void scheduleUpload(final int waypoint, final Completion completion) {
+            long jitter = (long) (uploadNanosPerWaypoint * (0.5 + random.nextDouble()));
+            schedule(jitter, new Runnable() {
+                @Override
+                public void run() {
+                    uploadWaypoint(waypoint, completion);
+                }
+            });
+        }
+
+        private void uploadWaypoint(int waypoint, Completion completion) {
+            String error = null;
+            boolean done;
+            int total;
+            synchronized (SimulatedAircraft.this) {
+                total = waypointEast.length;
+                if (!connected) {
+                    error = "Upload interrupted: " + DISCONNECTED;
+                } else if (random.nextDouble() < uploadFailureRate) {
+                    error = "Upload timed out at waypoint " + (waypoint + 1);
+                }
+                if (error != null) {
+                    missionState = MissionState.READY_TO_UPLOAD;
+                }
+                done = error != null || waypoint + 1 == total;
+                if (error == null) {
+                    if (done) {
+                        missionState = MissionState.READY_TO_EXECUTE;
+                    } else {
+                        scheduleUpload(waypoint + 1, completion);
+                    }
+                }
+            }
+            if (error == null) {
+                for (Listener listener : listeners) {
+                    listener.onUploadProgress(waypoint + 1, total);
+                }
+            }
+            if (done) {
+                completion.onResult(error);
+            }
+        }
+
+        @Override
+        public void start(final Completion completion) {
+            synchronized (SimulatedAircraft.this) {
+                schedule(commandLatencyNanos, new Runnable() {
+                    @Override
+                    public void run() {
+                        String error;
+                        int total;
+                        synchronized (SimulatedAircraft.this) {
+                            total = waypointEast.length;
+                            error = !connected ? DISCONNECTED
+                                    : missionState != MissionState.READY_TO_EXECUTE
+                                    ? "Cannot start while " + missionState : null;
+                            if (error == null) {
+                                missionState = MissionState.EXECUTING;
+                                flight = Flight.MISSION;
+                                targetWaypoint = 0;
+                            }
+                        }
+                        completion.onResult(error);
+                        if (error == null) {
+                            notifyProgress(0, total);
+                        }
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void stop(final Completion completion) {
+            synchronized (SimulatedAircraft.this) {
+                schedule(commandLatencyNanos, new Runnable() {
+                    @Override
+                    public void run() {
+                        String error;
+                        synchronized (SimulatedAircraft.this) {
+                            error = !connected ? DISCONNECTED
+                                    : missionState != MissionState.EXECUTING ? "No mission executing" : null;
+                            if (error == null) {
+                                missionState = MissionState.READY_TO_UPLOAD;
+                                flight = Flight.HOVER;
+                            }
+                        }
+                        completion.onResult(error);
+                        if (error == null) {
+                            notifyFinish(STOPPED);
+                        }
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void addListener(Listener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeListener(Listener listener) {
+            listeners.remove(listener);
+        }
+
+        /** Answers a command after the command latency. Holding the aircraft lock. */
+        private void answer(final Completion completion, final String error) {
+            schedule(commandLatencyNanos, new Runnable() {
+                @Override
+                public void run() {
+                    completion.onResult(error);
+                }
+            });
+        }
+
+        void notifyProgress(int target, int total) {
+            if (!connected) {
+                return;
+            }
+            for (Listener listener : listeners) {
+                listener.onExecutionProgress(target, total);
+            }
+        }
+
+        void notifyFinish(String error) {
+            if (!connected) {
+                return;
+            }
+            for (Listener listener : listeners) {
+                listener.onExecutionFinish(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package ai.swiftlabs.aircraftlocation.startup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the app's initialisation as a graph of named tasks, each as soon as the tasks it depends on are
+ * done, so independent ones overlap instead of queueing on the main thread.
+ *
+ * <p>A task runs either on the main executor, for work the platform requires there, or on the
+ * background executor. A task that fails, including with an {@link Error} such as a native library that
+ * does not link, is reported and the tasks depending on it are not run. Times
+ * are nanos since {@code originNanos}, normally when the process started, and so are the
+ * {@link #mark milestones} such as the first map or the first aircraft position.</p>
+ *
+ * <p>Thread-safe; tasks are added before {@link #start}.</p>
+ */
+public final class StartupGraph {
+
+    public enum Runs {
+        MAIN,
+        BACKGROUND
+    }
+
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    public interface Listener {
+        /**
+         * Called on the task's executor, also for a task that did not run because a dependency failed.
+         *
+         * @param error why the task failed or did not run, or {@code null}
+         */
+        void onTaskFinished(String task, long startNanos, long endNanos, Throwable error);
+
+        void onMilestone(String milestone, long nanos);
+    }
+
+    private static final class Node {
+        final String name;
+        final Runs runs;
+        final Task task;
+        final String[] dependencies;
+        final List<Node> dependents = new ArrayList<>();
+        final List<Runnable> waiters = new ArrayList<>();
+        int remaining;
+        boolean done;
+        Throwable error;
+        long startNanos = -1;
+        long endNanos = -1;
+
+        Node(String name, Runs runs, Task task, String[] dependencies) {
+            this.name = name;
+            this.runs = runs;
+            this.task = task;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private final long originNanos;
+    private final Listener listener;
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private final Map<String, Long> milestones = new LinkedHashMap<>();
+    private Executor main;
+    private Executor background;
+
+    public StartupGraph(long originNanos, Listener listener) {
+        this.originNanos = originNanos;
+        this.listener = listener;
+    }
+
+    public synchronized StartupGraph add(String name, Runs runs, Task task, String... dependencies) {
+        if (main != null) {
+            throw new IllegalStateException("already started");
+        }
+        if (nodes.containsKey(name)) {
+            throw new IllegalArgumentException("task " + name + " already added");
+        }
+        nodes.put(name, new Node(name, runs, task, dependencies.clone()));
+        return this;
+    }
+
+    /**
+     * Starts every task without dependencies. A main-thread task runs inline when the main executor does,
+     * so one started from {@code Application.onCreate} is done before any activity is created.
+     *
+     * @throws IllegalStateException when a dependency is missing or the dependencies form a cycle
+     */
+    public void start(Executor main, Executor background) {
+        List<Node> ready = new ArrayList<>();
+        synchronized (this) {
+            if (this.main != null) {
+                throw new IllegalStateException("already started");
+            }
+            for (Node node : nodes.values()) {
+                for (String dependency : node.dependencies) {
+                    Node required = nodes.get(dependency);
+                    if (required == null) {
+                        throw new IllegalStateException(node.name + " depends on unknown task " + dependency);
+                    }
+                    required.dependents.add(node);
+                }
+                node.remaining = node.dependencies.length;
+            }
+            checkAcyclic();
+            this.main = main;
+            this.background = background;
+            for (Node node : nodes.values()) {
+                if (node.remaining == 0) {
+                    ready.add(node);
+                }
+            }
+        }
+        for (Node node : ready) {
+            dispatch(node);
+        }
+    }
+
+    /** Runs {@code action} on {@code executor} once a task has finished, whether it succeeded or not. */
+    public void whenDone(String task, Executor executor, Runnable action) {
+        synchronized (this) {
+            Node node = node(task);
+            if (!node.done) {
+                node.waiters.add(onExecutor(executor, action));
+                return;
+            }
+        }
+        executor.execute(action);
+    }
+
+    public synchronized boolean isDone(String task) {
+        return node(task).done;
+    }
+
+    /** Why a finished task failed or did not run, or {@code null}. */
+    public synchronized Throwable failure(String task) {
+        return node(task).error;
+    }
+
+    /** How long a finished task ran, or -1. */
+    public synchronized long durationNanos(String task) {
+        Node node = node(task);
+        return node.done && node.startNanos >= 0 ? node.endNanos - node.startNanos : -1;
+    }
+
+    /**
+     * Records a milestone the first time it is reached.
+     *
+     * @return nanos since the origin, or -1 when it was reached before
+     */
+    public long mark(String milestone) {
+        long nanos = System.nanoTime() - originNanos;
+        synchronized (this) {
+            if (milestones.containsKey(milestone)) {
+                return -1;
+            }
+            milestones.put(milestone, nanos);
+        }
+        listener.onMilestone(milestone, nanos);
+        return nanos;
+    }
+
+    /** Nanos since the origin at which a milestone was reached, or -1. */
+    public synchronized long milestoneNanos(String milestone) {
+        Long nanos = milestones.get(milestone);
+        return nanos != null ? nanos : -1;
+    }
+
+    private void dispatch(final Node node) {
+        (node.runs == Runs.MAIN ? main : background).execute(new Runnable() {
+            @Override
+            public void run() {
+                execute(node);
+            }
+        });
+    }
+
+    private void execute(Node node) {
+        Throwable error = null;
+        synchronized (this) {
+            for (String dependency : node.dependencies) {
+                if (nodes.get(dependency).error != null) {
+                    error = new IllegalStateException("not run, " + dependency + " failed",
+                            nodes.get(dependency).error);
+                    break;
+                }
+            }
+        }
+        long start = -1;
+        if (error == null) {
+            start = System.nanoTime() - originNanos;
+            try {
+                node.task.run();
+            } catch (Throwable e) {
+                // Errors too: the node must complete, or its dependents and waiters never run.
+                error = e;
+            }
+        }
+        long end = System.nanoTime() - originNanos;
+        List<Node> ready = new ArrayList<>();
+        List<Runnable> waiters;
+        synchronized (this) {
+            node.done = true;
+            node.error = error;
+            node.startNanos = start;
+            node.endNanos = end;
+            for (Node dependent : node.dependents) {
+                if (--dependent.remaining == 0) {
+                    ready.add(dependent);
+                }
+            }
+            waiters = new ArrayList<>(node.waiters);
+            node.waiters.clear();
+        }
+        listener.onTaskFinished(node.name, start >= 0 ? start : end, end, error);
+        for (Runnable waiter : waiters) {
+            waiter.run();
+        }
+        for (Node dependent : ready) {
+            dispatch(dependent);
+        }
+    }
+
+    private void checkAcyclic() {
+        Map<Node, Integer> remaining = new LinkedHashMap<>();
+        Deque<Node> ready = new ArrayDeque<>();
+        for (Node node : nodes.values()) {
+            remaining.put(node, node.dependencies.length);
+            if (node.dependencies.length == 0) {
+                ready.add(node);
+            }
+        }
+        int visited = 0;
+        while (!ready.isEmpty()) {
+            Node node = ready.poll();
+            visited++;
+            for (Node dependent : node.dependents) {
+                int left = remaining.get(dependent) - 1;
+                remaining.put(dependent, left);
+                if (left == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (visited != nodes.size()) {
+            List<String> cycle = new ArrayList<>();
+            for (Map.Entry<Node, Integer> entry : remaining.entrySet()) {
+                if (entry.getValue() > 0) {
+                    cycle.add(entry.getKey().name);
+                }
+            }
+            throw new IllegalStateException("dependency cycle among " + cycle);
+        }
+    }
+
+    private Node node(String task) {
+        Node node = nodes.get(task);
+        if (node == null) {
+            throw new IllegalArgumentException("no task " + task);
+        }
+        return node;
+    }
+
+    private static Runnable onExecutor(final Executor executor, final Runnable action) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(action);
+            }
+        };
+    }
+}
@@ -0,0 +1,293 @@
+package ai.swiftlabs.aircraftlocation.telemetry;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streams the records of a flight log written by {@link TelemetryRecorder}.
+ *
+ * <p>Opening a log reads only segment headers and a sparse time index: the timestamp of every
+ * {@value #INDEX_STRIDE}th record, a few kilobytes for a multi-hour flight. Records are then decoded
+ * {@value #CHUNK_RECORDS} at a time through one reused buffer, with a single segment file open, so a log
+ * is never loaded into memory. {@link #seek} finds its place in the index and scans at most
+ * {@value #INDEX_STRIDE} records.</p>
+ *
+ * <p>Not thread-safe.</p>
+ */
+public final class FlightLogReader implements Closeable {
+
+    static final int INDEX_STRIDE = 1024;
+    static final int CHUNK_RECORDS = 256;
+
+    private final File[] segments;
+    private final int[] segmentRecords;
+    private final long[] indexNanos;
+    private final int[] indexSegment;
+    private final int[] indexRecord;
+    private final long recordCount;
+    private final long startNanos;
+    private final long endNanos;
+    private final long anchorWallClockMillis;
+    private final long anchorNanos;
+
+    private final ByteBuffer chunk = ByteBuffer.allocate(CHUNK_RECORDS * TelemetryLogFormat.RECORD_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private RandomAccessFile file;
+    private int fileSegment = -1;
+    private int segment;
+    private int record;
+    private int chunkSegment = -1;
+    private int chunkFirst;
+    private int chunkCount;
+    private int battery = -1;
+
+    /**
+     * Session names of the logs in a directory, oldest first when named by start time as the app does.
+     */
+    public static List<String> sessions(File directory) {
+        List<String> sessions = new ArrayList<>();
+        String first = TelemetryLogFormat.segmentName("", 0);
+        String[] names = directory.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.endsWith(first) && name.length() > first.length()) {
+                    sessions.add(name.substring(0, name.length() - first.length()));
+                }
+            }
+        }
+        Collections.sort(sessions);
+        return sessions;
+    }
+
+    public static FlightLogReader open(File directory, String session) throws IOException {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; ; i++) {
+            File file = new File(directory, TelemetryLogFormat.segmentName(session, i));
+            if (!file.isFile()) {
+                break;
+            }
+            files.add(file);
+        }
+        if (files.isEmpty()) {
+            throw new FileNotFoundException("no flight log " + session + " in " + directory);
+        }
+        return new FlightLogReader(files.toArray(new File[0]));
+    }
+
+    private FlightLogReader(File[] segments) throws IOException {
+        this.segments = segments;
+        this.segmentRecords = new int[segments.length];
+        ByteBuffer record = ByteBuffer.allocate(TelemetryLogFormat.RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        List<long[]> index = new ArrayList<>();
+        long total = 0;
+        long anchorMillis = 0;
+        long anchorNanos = 0;
+        for (int s = 0; s < segments.length; s++) {
+            RandomAccessFile raf = new RandomAccessFile(segments[s], "r");
+            try {
+                FileChannel channel = raf.getChannel();
+                if (!readRecord(channel, 0, record) || !TelemetryLogFormat.isValidHeader(record)) {
+                    throw new IOException(segments[s] + " is not a flight log segment");
+                }
+                if (s == 0) {
+                    anchorMillis = record.getLong(TelemetryLogFormat.HEADER_WALL_CLOCK_MILLIS);
+                    anchorNanos = record.getLong(TelemetryLogFormat.HEADER_NANOS);
+                }
+                int count = countRecords(channel, record);
+                segmentRecords[s] = count;
+                for (int r = 0; r < count; r += INDEX_STRIDE) {
+                    readRecord(channel, offsetOf(r), record);
+                    index.add(new long[] {record.getLong(TelemetryLogFormat.TIMESTAMP), s, r});
+                }
+                total += count;
+            } finally {
+                raf.close();
+            }
+        }
+        this.recordCount = total;
+        this.anchorWallClockMillis = anchorMillis;
+        this.anchorNanos = anchorNanos;
+        this.indexNanos = new long[index.size()];
+        this.indexSegment = new int[index.size()];
+        this.indexRecord = new int[index.size()];
+        for (int i = 0; i < index.size(); i++) {
+            indexNanos[i] = index.get(i)[0];
+            indexSegment[i] = (int) index.get(i)[1];
+            indexRecord[i] = (int) index.get(i)[2];
+        }
+        this.startNanos = index.isEmpty() ? 0 : indexNanos[0];
+        this.endNanos = index.isEmpty() ? 0 : lastTimestamp(record);
+    }
+
+    public long recordCount() {
+        return recordCount;
+    }
+
+    /** Timestamp of the first record, 0 for an empty log. */
+    public long startNanos() {
+        return startNanos;
+    }
+
+    /** Timestamp of the last record, 0 for an empty log. */
+    public long endNanos() {
+        return endNanos;
+    }
+
+    /** Wall-clock time at which the sample with the given timestamp was recorded. */
+    public long wallClockMillis(long timestampNanos) {
+        return anchorWallClockMillis + (timestampNanos - anchorNanos) / 1_000_000;
+    }
+
+    /** Battery charge of the last record returned by {@link #next}, -1 if unknown. */
+    public int batteryPercent() {
+        return battery;
+    }
+
+    /**
+     * Decodes the next record.
+     *
+     * @return false at the end of the log
+     */
+    public boolean next(TelemetrySnapshot into) throws IOException {
+        if (!fill()) {
+            return false;
+        }
+        battery = TelemetryLogFormat.decode(chunk, (record - chunkFirst) * TelemetryLogFormat.RECORD_BYTES, into);
+        record++;
+        return true;
+    }
+
+    /**
+     * Positions the reader on the first record at or after the given timestamp, or at the end. Record
+     * timestamps are monotonic, as the recorder writes them.
+     */
+    public void seek(long timestampNanos) throws IOException {
+        if (indexNanos.length == 0) {
+            return;
+        }
+        int entry = Arrays.binarySearch(indexNanos, timestampNanos);
+        if (entry < 0) {
+            entry = -entry - 2;
+        }
+        // Start from the last entry before the timestamp, equal timestamps may precede an exact match.
+        while (entry > 0 && indexNanos[entry] >= timestampNanos) {
+            entry--;
+        }
+        entry = Math.max(0, entry);
+        segment = indexSegment[entry];
+        record = indexRecord[entry];
+        while (fill() && chunk.getLong((record - chunkFirst) * TelemetryLogFormat.RECORD_BYTES
+                + TelemetryLogFormat.TIMESTAMP) < timestampNanos) {
+            record++;
+        }
+    }
+
+    /** Back to the first record. */
+    public void rewind() {
+        segment = 0;
+        record = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+            file = null;
+            fileSegment = -1;
+        }
+        chunkSegment = -1;
+    }
+
+    /** Makes the record under the cursor available in the chunk, moving to the next segment if needed. */
+    private boolean fill() throws IOException {
+        while (record >= segmentRecords[segment]) {
+            if (segment + 1 == segments.length) {
+                return false;
+            }
+            segment++;
+            record = 0;
+        }
+        if (chunkSegment == segment && record >= chunkFirst && record < chunkFirst + chunkCount) {
+            return true;
+        }
+        if (fileSegment != segment) {
+            close();
+            file = new RandomAccessFile(segments[segment], "r");
+            fileSegment = segment;
+        }
+        int count = Math.min(CHUNK_RECORDS, segmentRecords[segment] - record);
+        chunk.clear().limit(count * TelemetryLogFormat.RECORD_BYTES);
+        if (!readAt(file.getChannel(), offsetOf(record), chunk)) {
+            throw new IOException(segments[segment] + " shrank while reading");
+        }
+        chunkSegment = segment;
+        chunkFirst = record;
+        chunkCount = count;
+        return true;
+    }
+
+    private long lastTimestamp(ByteBuffer record) throws IOException {
+        int last = segmentRecords.length - 1;
+        while (segmentRecords[last] == 0) {
+            last--;
+        }
+        RandomAccessFile raf = new RandomAccessFile(segments[last], "r");
+        try {
+            readRecord(raf.getChannel(), offsetOf(segmentRecords[last] - 1), record);
+            return record.getLong(TelemetryLogFormat.TIMESTAMP);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Sealed records form a prefix of the segment; binary search for its end. Only the last segment of
+     * a log normally ends early, after a crash or because it was still being written.
+     */
+    private static int countRecords(FileChannel channel, ByteBuffer record) throws IOException {
+        int low = 0;
+        int high = (int) ((channel.size() - TelemetryLogFormat.HEADER_BYTES) / TelemetryLogFormat.RECORD_BYTES);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (readRecord(channel, offsetOf(middle), record) && TelemetryLogFormat.isValid(record, 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static long offsetOf(int record) {
+        return TelemetryLogFormat.HEADER_BYTES + (long) record * TelemetryLogFormat.RECORD_BYTES;
+    }
+
+    private static boolean readRecord(FileChannel channel, long position, ByteBuffer record) throws IOException {
+        record.clear();
+        return readAt(channel, position, record);
+    }
+
+    /**
+     * Fills the buffer up to its limit and flips it for reading; false if the file ends first.
+     */
+    private static boolean readAt(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+}
@@ -0,0 +1,200 @@
+package ai.swiftlabs.aircraftlocation.telemetry;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays a recorded flight back into a {@link TelemetryPipeline}, taking the place of the flight controller
+ * callback so the map, camera follow and everything else downstream run exactly as in flight.
+ *
+ * <p>A replay thread becomes the pipeline's single writer: nothing else may publish while it runs.
+ * Samples keep their recorded timestamps and are paced by them, {@link #setSpeed sped up} between
+ * {@value #MIN_SPEED}x and {@value #MAX_SPEED}x. Gaps longer than {@link #MAX_GAP_NANOS} in the log,
+ * such as the recorder being stopped on the ground, are skipped instead of waited out. Controls can be
+ * called from any thread; they are applied by the replay thread before the next sample.</p>
+ */
+public final class FlightLogReplayer {
+
+    public static final double MIN_SPEED = 1;
+    public static final double MAX_SPEED = 100;
+    public static final long MAX_GAP_NANOS = 2_000_000_000L;
+
+    public interface Listener {
+        /**
+         * Called on the replay thread once the log ends, the replay is stopped or reading fails.
+         *
+         * @param error the read failure, or {@code null}
+         */
+        void onReplayFinished(IOException error);
+    }
+
+    /** How the replay thread waits until a sample is due; a control may wake it early. */
+    interface Parker {
+        void parkNanos(Object blocker, long nanos);
+    }
+
+    static final Parker LOCK_SUPPORT = new Parker() {
+        @Override
+        public void parkNanos(Object blocker, long nanos) {
+            LockSupport.parkNanos(blocker, nanos);
+        }
+    };
+
+    private static final long NO_SEEK = Long.MIN_VALUE;
+
+    private final FlightLogReader log;
+    private final TelemetryPipeline pipeline;
+    private final Listener listener;
+    private final LinkHealthMonitor.Clock clock;
+    private final Parker parker;
+    private final TelemetrySnapshot sample = new TelemetrySnapshot();
+    private final AtomicLong seekTarget = new AtomicLong(NO_SEEK);
+
+    private volatile double speed = MIN_SPEED;
+    private volatile boolean paused;
+    private volatile boolean running;
+    private volatile long positionNanos;
+    private Thread thread;
+
+    public FlightLogReplayer(FlightLogReader log, TelemetryPipeline pipeline, Listener listener) {
+        this(log, pipeline, listener, LinkHealthMonitor.SYSTEM_CLOCK, LOCK_SUPPORT);
+    }
+
+    /** Paces samples on {@code clock}, waiting through {@code parker}. */
+    FlightLogReplayer(FlightLogReader log, TelemetryPipeline pipeline, Listener listener,
+                      LinkHealthMonitor.Clock clock, Parker parker) {
+        this.log = log;
+        this.pipeline = pipeline;
+        this.listener = listener;
+        this.clock = clock;
+        this.parker = parker;
+        this.positionNanos = log.startNanos();
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("replay already started");
+        }
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                replay();
+            }
+        }, "flight-log-replay");
+        thread.start();
+    }
+
+    /** Stops the replay and waits for the replay thread to finish. The reader is left open. */
+    public void stop() throws InterruptedException {
+        Thread replay;
+        synchronized (this) {
+            running = false;
+            replay = thread;
+        }
+        if (replay != null) {
+            LockSupport.unpark(replay);
+            replay.join();
+        }
+    }
+
+    /** Clamped to [{@value #MIN_SPEED}, {@value #MAX_SPEED}]. */
+    public void setSpeed(double speed) {
+        this.speed = Math.max(MIN_SPEED, Math.min(MAX_SPEED, speed));
+        wake();
+    }
+
+    public double speed() {
+        return speed;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        wake();
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /** Continues from the first sample at or after {@code timestampNanos} of the log. */
+    public void seek(long timestampNanos) {
+        seekTarget.set(Math.max(log.startNanos(), Math.min(log.endNanos(), timestampNanos)));
+        wake();
+    }
+
+    /** Timestamp of the last published sample, or the start of the log. */
+    public long positionNanos() {
+        return positionNanos;
+    }
+
+    public FlightLogReader log() {
+        return log;
+    }
+
+    private void wake() {
+        Thread replay = thread;
+        if (replay != null) {
+            LockSupport.unpark(replay);
+        }
+    }
+
+    private void replay() {
+        IOException error = null;
+        try {
+            // Clock time at which the log time anchorLog is due; reset on every seek, speed change
+            // and skipped gap.
+            long anchorWall = 0;
+            long anchorLog = 0;
+            double anchorSpeed = 0;
+            boolean pending = false;
+            while (running) {
+                long target = seekTarget.getAndSet(NO_SEEK);
+                if (target != NO_SEEK) {
+                    log.seek(target);
+                    positionNanos = target;
+                    pending = false;
+                    anchorSpeed = 0;
+                }
+                if (paused) {
+                    anchorSpeed = 0;
+                    LockSupport.park(this);
+                    continue;
+                }
+                if (!pending) {
+                    if (!log.next(sample)) {
+                        break;
+                    }
+                    pending = true;
+                }
+                long now = clock.nanoTime();
+                double currentSpeed = speed;
+                if (anchorSpeed != currentSpeed || sample.timestampNanos - positionNanos > MAX_GAP_NANOS) {
+                    // Continue from the current position at the new pace.
+                    anchorWall = now;
+                    anchorLog = Math.min(positionNanos, sample.timestampNanos);
+                    anchorSpeed = currentSpeed;
+                    if (sample.timestampNanos - anchorLog > MAX_GAP_NANOS) {
+                        anchorLog = sample.timestampNanos;
+                    }
+                }
+                long due = anchorWall + (long) ((sample.timestampNanos - anchorLog) / anchorSpeed);
+                if (due - now > 0) {
+                    parker.parkNanos(this, due - now);
+                    // Woken early by a control or spuriously: re-check everything before publishing.
+                    continue;
+                }
+                pipeline.publish(sample.timestampNanos, sample.latitude, sample.longitude, sample.altitude,
+                        sample.velocityNorth, sample.velocityEast, sample.velocityDown,
+                        sample.pitch, sample.roll, sample.yaw);
+                positionNanos = sample.timestampNanos;
+                pending = false;
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+        running = false;
+        listener.onReplayFinished(error);
+    }
+}
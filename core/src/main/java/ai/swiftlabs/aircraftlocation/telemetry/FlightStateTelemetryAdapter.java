@@ -0,0 +1,24 @@
+package ai.swiftlabs.aircraftlocation.telemetry;
+
+import ai.swiftlabs.aircraftlocation.sdk.AircraftSdk;
+
+/**
+ * The one {@link AircraftSdk.StateCallback} registered with the aircraft. It copies the state into the
+ * {@link TelemetryPipeline} and does nothing else on the SDK thread.
+ */
+public class FlightStateTelemetryAdapter implements AircraftSdk.StateCallback {
+
+    private final TelemetryPipeline pipeline;
+
+    public FlightStateTelemetryAdapter(TelemetryPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    @Override
+    public void onState(long timestampNanos, double latitude, double longitude, float altitude,
+                        float velocityNorth, float velocityEast, float velocityDown,
+                        float pitch, float roll, float yaw) {
+        pipeline.publish(timestampNanos, latitude, longitude, altitude,
+                velocityNorth, velocityEast, velocityDown, pitch, roll, yaw);
+    }
+}
@@ -0,0 +1,352 @@
+package ai.swiftlabs.aircraftlocation.telemetry;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import ai.swiftlabs.aircraftlocation.metrics.RollingSamples;
+import ai.swiftlabs.aircraftlocation.mission.MissionOperator;
+import ai.swiftlabs.aircraftlocation.mission.MissionPlan;
+
+/**
+ * Judges the quality of the link to the aircraft from what comes over it, rather than from the SDK's
+ * connected flag: how regularly the flight controller's state arrives, and how long and how reliably the
+ * mission operator answers commands.
+ *
+ * <p>Telemetry is watched as a {@link TelemetryPipeline.Listener}, commands through the operator returned
+ * by {@link #monitor}. Over the last {@value #WINDOW_MILLIS} ms it works out the state rate, the
+ * inter-arrival percentiles, jitter as their p95 less their median, the longest gap, counting the time
+ * since the last state, and the command round trips and failures, counting commands still unanswered. A
+ * command left unanswered for the whole window counts as failed and is no longer waited for, as DJI
+ * callbacks do get lost; an answer coming after that is passed on but not counted.
+ * {@link #evaluate} compares them with the {@link Thresholds}: the link is degraded as soon as one is
+ * exceeded, and good again only after none was for {@value #RECOVERY_MILLIS} ms, so a flaky link does not
+ * flip the app back and forth.</p>
+ *
+ * <p>Thread-safe. Times are on the {@link Clock}, which must be the clock telemetry is stamped with.</p>
+ */
+public final class LinkHealthMonitor implements TelemetryPipeline.Listener {
+
+    public static final long WINDOW_MILLIS = 10_000;
+    public static final long RECOVERY_MILLIS = 5_000;
+    /** Room for a 50 Hz state rate over the window. */
+    private static final int CAPACITY = 512;
+
+    public enum Quality {
+        GOOD,
+        DEGRADED
+    }
+
+    public interface Clock {
+        long nanoTime();
+    }
+
+    public static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    public interface Listener {
+        /** Called on the thread that ran {@link #evaluate}. */
+        void onQualityChanged(Report report);
+    }
+
+    /** When a link counts as degraded. */
+    public static final class Thresholds {
+        /** For the 10 Hz the DJI flight controller reports at. */
+        public static final Thresholds DEFAULT = new Thresholds(5, 1000, 200, 3000, 0.5);
+
+        private final double minRateHz;
+        private final long maxGapMillis;
+        private final long maxJitterMillis;
+        private final long maxCommandMillis;
+        private final double maxCommandFailureRatio;
+
+        /**
+         * @param maxCommandMillis       for the 90th percentile round trip
+         * @param maxCommandFailureRatio of at least two commands
+         */
+        public Thresholds(double minRateHz, long maxGapMillis, long maxJitterMillis, long maxCommandMillis,
+                          double maxCommandFailureRatio) {
+            this.minRateHz = minRateHz;
+            this.maxGapMillis = maxGapMillis;
+            this.maxJitterMillis = maxJitterMillis;
+            this.maxCommandMillis = maxCommandMillis;
+            this.maxCommandFailureRatio = maxCommandFailureRatio;
+        }
+    }
+
+    /** The link as of one {@link #evaluate}; durations are -1 where nothing was measured. */
+    public static final class Report {
+        private final Quality quality;
+        private final String problem;
+        private final double rateHz;
+        private final long intervalP50Millis;
+        private final long intervalP95Millis;
+        private final long gapMillis;
+        private final long commandP50Millis;
+        private final long commandP90Millis;
+        private final int commands;
+        private final int failedCommands;
+
+        Report(Quality quality, String problem, double rateHz, long intervalP50Millis, long intervalP95Millis,
+               long gapMillis, long commandP50Millis, long commandP90Millis, int commands, int failedCommands) {
+            this.quality = quality;
+            this.problem = problem;
+            this.rateHz = rateHz;
+            this.intervalP50Millis = intervalP50Millis;
+            this.intervalP95Millis = intervalP95Millis;
+            this.gapMillis = gapMillis;
+            this.commandP50Millis = commandP50Millis;
+            this.commandP90Millis = commandP90Millis;
+            this.commands = commands;
+            this.failedCommands = failedCommands;
+        }
+
+        public Quality quality() {
+            return quality;
+        }
+
+        /** The threshold exceeded now, or {@code null}; a degraded link may already be fine again. */
+        public String problem() {
+            return problem;
+        }
+
+        public double rateHz() {
+            return rateHz;
+        }
+
+        public long intervalP50Millis() {
+            return intervalP50Millis;
+        }
+
+        public long intervalP95Millis() {
+            return intervalP95Millis;
+        }
+
+        public long jitterMillis() {
+            return intervalP50Millis < 0 ? -1 : intervalP95Millis - intervalP50Millis;
+        }
+
+        /** The longest time without telemetry, including the one since the last state. */
+        public long gapMillis() {
+            return gapMillis;
+        }
+
+        public long commandP50Millis() {
+            return commandP50Millis;
+        }
+
+        public long commandP90Millis() {
+            return commandP90Millis;
+        }
+
+        public int commands() {
+            return commands;
+        }
+
+        public int failedCommands() {
+            return failedCommands;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s%s: %.1f Hz, interval p50 %d p95 %d ms, gap %d ms, "
+                            + "commands %d (%d failed) p50 %d p90 %d ms", quality,
+                    problem == null ? "" : " (" + problem + ")", rateHz, intervalP50Millis, intervalP95Millis,
+                    gapMillis, commands, failedCommands, commandP50Millis, commandP90Millis);
+        }
+    }
+
+    private final Thresholds thresholds;
+    private final Clock clock;
+    private final Listener listener;
+    private final RollingSamples intervals = new RollingSamples(WINDOW_MILLIS, CAPACITY);
+    private final RollingSamples commandNanos = new RollingSamples(WINDOW_MILLIS, CAPACITY);
+    private final RollingSamples commandFailures = new RollingSamples(WINDOW_MILLIS, CAPACITY);
+
+    // Guarded by this.
+    private final Set<TimedCompletion> unanswered = new LinkedHashSet<>();
+    private long firstSampleNanos = -1;
+    private long lastSampleNanos = -1;
+    private Quality quality = Quality.GOOD;
+    private long lastProblemNanos;
+    private Report report = new Report(Quality.GOOD, null, 0, -1, -1, -1, -1, -1, 0, 0);
+
+    public LinkHealthMonitor(Thresholds thresholds, Clock clock, Listener listener) {
+        this.thresholds = thresholds;
+        this.clock = clock;
+        this.listener = listener;
+    }
+
+    @Override
+    public void onTelemetry(long sequence) {
+        long now = clock.nanoTime();
+        synchronized (this) {
+            if (lastSampleNanos >= 0) {
+                intervals.record(now, now - lastSampleNanos);
+            } else {
+                firstSampleNanos = now;
+            }
+            lastSampleNanos = now;
+        }
+    }
+
+    /** Times the commands sent through the returned operator; everything else is passed through. */
+    public MissionOperator monitor(final MissionOperator operator) {
+        return new MissionOperator() {
+            @Override
+            public String load(MissionPlan plan) {
+                return operator.load(plan);
+            }
+
+            @Override
+            public void upload(Completion completion) {
+                operator.upload(timed(completion));
+            }
+
+            @Override
+            public void start(Completion completion) {
+                operator.start(timed(completion));
+            }
+
+            @Override
+            public void stop(Completion completion) {
+                operator.stop(timed(completion));
+            }
+
+            @Override
+            public void addListener(Listener listener) {
+                operator.addListener(listener);
+            }
+
+            @Override
+            public void removeListener(Listener listener) {
+                operator.removeListener(listener);
+            }
+        };
+    }
+
+    /** Forgets the telemetry seen so far, e.g. after the aircraft reconnected, keeping the quality. */
+    public synchronized void resetTelemetry() {
+        intervals.clear();
+        firstSampleNanos = -1;
+        lastSampleNanos = -1;
+    }
+
+    /** Works out the link's quality now, telling the listener if it changed. Call it about once a second. */
+    public Report evaluate() {
+        long now = clock.nanoTime();
+        Report current;
+        boolean changed;
+        synchronized (this) {
+            double rateHz = 0;
+            long gap = -1;
+            if (lastSampleNanos >= 0) {
+                long observed = Math.min(now - firstSampleNanos, intervals.windowNanos());
+                rateHz = observed > 0 ? intervals.count(now) * 1e9 / observed : 0;
+                gap = Math.max(intervals.max(now), now - lastSampleNanos);
+            }
+            long p50 = millis(intervals.percentile(now, 50));
+            long p95 = millis(intervals.percentile(now, 95));
+            expireUnanswered(now);
+            int failed = commandFailures.count(now);
+            int commands = commandNanos.count(now) + failed;
+            long commandP50 = millis(commandNanos.percentile(now, 50));
+            long commandP90 = millis(commandNanos.percentile(now, 90));
+            long waiting = unanswered.isEmpty() ? -1 : millis(now - unanswered.iterator().next().sentNanos);
+
+            String problem = null;
+            if (gap >= 0 && millis(gap) > thresholds.maxGapMillis) {
+                problem = "no telemetry for " + millis(gap) + " ms";
+            } else if (lastSampleNanos >= 0 && now - firstSampleNanos >= TimeUnit.SECONDS.toNanos(1)
+                    && rateHz < thresholds.minRateHz) {
+                problem = String.format(Locale.US, "telemetry at %.1f Hz", rateHz);
+            } else if (p50 >= 0 && p95 - p50 > thresholds.maxJitterMillis) {
+                problem = "telemetry jitter " + (p95 - p50) + " ms";
+            } else if (commands >= 2 && failed > thresholds.maxCommandFailureRatio * commands) {
+                problem = failed + " of " + commands + " commands failed";
+            } else if (commandP90 > thresholds.maxCommandMillis) {
+                problem = "commands take " + commandP90 + " ms";
+            } else if (waiting > thresholds.maxCommandMillis) {
+                problem = "command unanswered for " + waiting + " ms";
+            }
+
+            Quality previous = quality;
+            if (problem != null) {
+                lastProblemNanos = now;
+                quality = Quality.DEGRADED;
+            } else if (now - lastProblemNanos >= TimeUnit.MILLISECONDS.toNanos(RECOVERY_MILLIS)) {
+                quality = Quality.GOOD;
+            }
+            changed = quality != previous;
+            current = new Report(quality, problem, rateHz, p50, p95, gap < 0 ? -1 : millis(gap), commandP50,
+                    commandP90, commands, failed);
+            report = current;
+        }
+        if (changed) {
+            listener.onQualityChanged(current);
+        }
+        return current;
+    }
+
+    /** The report of the last {@link #evaluate}. */
+    public synchronized Report report() {
+        return report;
+    }
+
+    public synchronized Quality quality() {
+        return quality;
+    }
+
+    private void expireUnanswered(long now) {
+        long expiry = TimeUnit.MILLISECONDS.toNanos(WINDOW_MILLIS);
+        for (Iterator<TimedCompletion> it = unanswered.iterator(); it.hasNext(); ) {
+            TimedCompletion oldest = it.next();
+            if (now - oldest.sentNanos < expiry) {
+                break;
+            }
+            it.remove();
+            commandFailures.record(now, now - oldest.sentNanos);
+        }
+    }
+
+    private MissionOperator.Completion timed(MissionOperator.Completion completion) {
+        TimedCompletion timed = new TimedCompletion(clock.nanoTime(), completion);
+        synchronized (this) {
+            unanswered.add(timed);
+        }
+        return timed;
+    }
+
+    private final class TimedCompletion implements MissionOperator.Completion {
+        final long sentNanos;
+        final MissionOperator.Completion completion;
+
+        TimedCompletion(long sentNanos, MissionOperator.Completion completion) {
+            this.sentNanos = sentNanos;
+            this.completion = completion;
+        }
+
+        @Override
+        public void onResult(String error) {
+            long now = clock.nanoTime();
+            boolean waitedFor;
+            synchronized (LinkHealthMonitor.this) {
+                waitedFor = unanswered.remove(this);
+            }
+            if (waitedFor) {
+                (error == null ? commandNanos : commandFailures).record(now, now - sentNanos);
+            }
+            completion.onResult(error);
+        }
+    }
+
+    private static long millis(long nanos) {
+        return nanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,71 @@
+package ai.swiftlabs.aircraftlocation.telemetry;
+
+import ai.swiftlabs.aircraftlocation.metrics.LatencyHistogram;
+import ai.swiftlabs.aircraftlocation.sdk.ConnectionEventBus;
+
+/**
+ * Measures how long after the flight controller (re)connects its first state sample arrives, from the SDK
+ * event rather than from the coalesced change, which may arrive after the sample.
+ *
+ * <p>Subscribe it to {@link ConnectionEventBus.Component#FLIGHT_CONTROLLER} and add it to the
+ * {@link TelemetryPipeline}. It must run on the bus's clock.</p>
+ */
+public final class ReconnectLatencyProbe implements ConnectionEventBus.Listener, TelemetryPipeline.Listener {
+
+    private final LatencyHistogram latency;
+    private final LinkHealthMonitor.Clock clock;
+    // Read by the sample path without locking.
+    private volatile boolean awaitingSample = true;
+    private long connectedNanos = -1;
+    private long firstSampleNanos = -1;
+
+    public ReconnectLatencyProbe(LatencyHistogram latency) {
+        this(latency, LinkHealthMonitor.SYSTEM_CLOCK);
+    }
+
+    public ReconnectLatencyProbe(LatencyHistogram latency, LinkHealthMonitor.Clock clock) {
+        this.latency = latency;
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized void onChange(ConnectionEventBus.Change change) {
+        ConnectionEventBus.Component flightController = ConnectionEventBus.Component.FLIGHT_CONTROLLER;
+        if (!change.isConnected(flightController)) {
+            awaitingSample = true;
+            connectedNanos = -1;
+            firstSampleNanos = -1;
+        } else if (change.events() == 0) {
+            // Subscribed while connected; nothing to measure until the next reconnect.
+            awaitingSample = false;
+        } else if (awaitingSample && change.changed(flightController)) {
+            connectedNanos = change.sinceNanos(flightController);
+            if (firstSampleNanos >= connectedNanos) {
+                record(firstSampleNanos);
+            }
+        }
+    }
+
+    @Override
+    public void onTelemetry(long sequence) {
+        if (awaitingSample) {
+            sampled(clock.nanoTime());
+        }
+    }
+
+    private synchronized void sampled(long nanos) {
+        if (!awaitingSample) {
+            return;
+        }
+        if (connectedNanos >= 0) {
+            record(nanos);
+        } else if (firstSampleNanos < 0) {
+            firstSampleNanos = nanos;
+        }
+    }
+
+    private void record(long sampleNanos) {
+        latency.record(sampleNanos - connectedNanos);
+        awaitingSample = false;
+    }
+}
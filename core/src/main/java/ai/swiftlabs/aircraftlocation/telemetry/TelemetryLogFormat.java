@@ -0,0 +1,123 @@
+package ai.swiftlabs.aircraftlocation.telemetry;
+
+import java.nio.ByteBuffer;
+
+/**
+ * On-disk layout of a flight log written by {@link TelemetryRecorder}.
+ *
+ * <p>A log is a series of segment files {@code <session>-00000.tlog}, {@code <session>-00001.tlog}, ...
+ * Each starts with a {@value #HEADER_BYTES}-byte header followed by fixed-width {@value #RECORD_BYTES}-byte
+ * little-endian records:</p>
+ *
+ * <pre>
+ *  0 long   timestamp, monotonic nanos     32 float velocity east
+ *  8 double latitude                       36 float velocity down
+ * 16 double longitude                      40 float pitch
+ * 24 float  altitude                       44 float roll
+ * 28 float  velocity north                 48 float yaw
+ * 52 short  battery percent, -1 unknown    56 int   sequence, low 32 bits
+ * 54 short  reserved                       60 int   checksum of bytes 0-59
+ * </pre>
+ *
+ * <p>The header holds the magic, version, record size, segment index and the wall-clock time at which
+ * the first record of the segment was written together with its timestamp, so timestamps can be placed
+ * on a calendar. Records end at the first one whose checksum does not match, which is how a segment cut
+ * short by a crash is read.</p>
+ */
+final class TelemetryLogFormat {
+
+    static final String EXTENSION = ".tlog";
+    static final int MAGIC = 0x544C4F47;
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_BYTES = 64;
+
+    static final int HEADER_MAGIC = 0;
+    static final int HEADER_VERSION = 4;
+    static final int HEADER_RECORD_BYTES = 6;
+    static final int HEADER_SEGMENT = 8;
+    static final int HEADER_WALL_CLOCK_MILLIS = 16;
+    static final int HEADER_NANOS = 24;
+
+    static final int TIMESTAMP = 0;
+    static final int LATITUDE = 8;
+    static final int LONGITUDE = 16;
+    static final int ALTITUDE = 24;
+    static final int VELOCITY_NORTH = 28;
+    static final int VELOCITY_EAST = 32;
+    static final int VELOCITY_DOWN = 36;
+    static final int PITCH = 40;
+    static final int ROLL = 44;
+    static final int YAW = 48;
+    static final int BATTERY = 52;
+    static final int SEQUENCE = 56;
+    static final int CHECKSUM = 60;
+
+    private TelemetryLogFormat() {
+    }
+
+    static String segmentName(String session, int segment) {
+        StringBuilder name = new StringBuilder(session).append('-');
+        String index = Integer.toString(segment);
+        for (int i = index.length(); i < 5; i++) {
+            name.append('0');
+        }
+        return name.append(index).append(EXTENSION).toString();
+    }
+
+    static void writeHeader(ByteBuffer buffer, int segment) {
+        buffer.putInt(HEADER_MAGIC, MAGIC);
+        buffer.putShort(HEADER_VERSION, VERSION);
+        buffer.putShort(HEADER_RECORD_BYTES, (short) RECORD_BYTES);
+        buffer.putInt(HEADER_SEGMENT, segment);
+    }
+
+    /** Records that the sample timestamp {@code nanos} was taken at {@code wallClockMillis}. */
+    static void writeClockAnchor(ByteBuffer buffer, long wallClockMillis, long nanos) {
+        buffer.putLong(HEADER_WALL_CLOCK_MILLIS, wallClockMillis);
+        buffer.putLong(HEADER_NANOS, nanos);
+    }
+
+    static boolean isValidHeader(ByteBuffer buffer) {
+        return buffer.limit() >= HEADER_BYTES
+                && buffer.getInt(HEADER_MAGIC) == MAGIC
+                && buffer.getShort(HEADER_VERSION) == VERSION
+                && buffer.getShort(HEADER_RECORD_BYTES) == RECORD_BYTES;
+    }
+
+    /** Seals the record at {@code offset}; all other fields must already be written. */
+    static void seal(ByteBuffer buffer, int offset) {
+        buffer.putInt(offset + CHECKSUM, checksum(buffer, offset));
+    }
+
+    /** Whether a complete, sealed record starts at {@code offset}. */
+    static boolean isValid(ByteBuffer buffer, int offset) {
+        return offset + RECORD_BYTES <= buffer.limit()
+                && buffer.getInt(offset + CHECKSUM) == checksum(buffer, offset);
+    }
+
+    /** Decodes a record checked with {@link #isValid}; the battery is returned separately. */
+    static int decode(ByteBuffer buffer, int offset, TelemetrySnapshot into) {
+        into.sequence = buffer.getInt(offset + SEQUENCE) & 0xFFFFFFFFL;
+        into.timestampNanos = buffer.getLong(offset + TIMESTAMP);
+        into.latitude = buffer.getDouble(offset + LATITUDE);
+        into.longitude = buffer.getDouble(offset + LONGITUDE);
+        into.altitude = buffer.getFloat(offset + ALTITUDE);
+        into.velocityNorth = buffer.getFloat(offset + VELOCITY_NORTH);
+        into.velocityEast = buffer.getFloat(offset + VELOCITY_EAST);
+        into.velocityDown = buffer.getFloat(offset + VELOCITY_DOWN);
+        into.pitch = buffer.getFloat(offset + PITCH);
+        into.roll = buffer.getFloat(offset + ROLL);
+        into.yaw = buffer.getFloat(offset + YAW);
+        return buffer.getShort(offset + BATTERY);
+    }
+
+    /** Multiplicative hash over the first 60 bytes; never 0 for an all-zero record. */
+    static int checksum(ByteBuffer buffer, int offset) {
+        long hash = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < CHECKSUM; i += 4) {
+            hash = (hash ^ buffer.getInt(offset + i)) * 0x9E3779B97F4A7C15L;
+        }
+        return (int) (hash ^ (hash >>> 29));
+    }
+}
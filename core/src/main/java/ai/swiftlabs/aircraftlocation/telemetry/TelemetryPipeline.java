@@ -0,0 +1,82 @@
+package ai.swiftlabs.aircraftlocation.telemetry;
+
+import java.util.Arrays;
+
+/**
+ * Ingestion stage between the SDK state callback and everything that consumes aircraft state.
+ *
+ * <p>The callback thread {@link #publish publishes} primitive values into a {@link TelemetryRing};
+ * listeners are then told that a new sequence exists. Listeners run on the writer thread and must
+ * only do constant, allocation-free work such as requesting a frame. Consumers (map, camera follow,
+ * logging) pull the data themselves with {@link #readLatest(TelemetrySnapshot)} whenever they need
+ * it.</p>
+ */
+public final class TelemetryPipeline {
+
+    /** Default ring size, about three seconds of history at the 10 Hz the SDK reports at. */
+    public static final int DEFAULT_CAPACITY = 32;
+
+    public interface Listener {
+        /** Called on the writer thread after a sample became readable. */
+        void onTelemetry(long sequence);
+    }
+
+    private final TelemetryRing ring;
+    private volatile Listener[] listeners = new Listener[0];
+
+    public TelemetryPipeline() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TelemetryPipeline(int capacity) {
+        ring = new TelemetryRing(capacity);
+    }
+
+    public TelemetryRing ring() {
+        return ring;
+    }
+
+    public synchronized void addListener(Listener listener) {
+        Listener[] current = listeners;
+        Listener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        listeners = updated;
+    }
+
+    public synchronized void removeListener(Listener listener) {
+        Listener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                Listener[] updated = new Listener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Publishes one state sample. Only one thread may publish at a time.
+     */
+    public long publish(long timestampNanos, double latitude, double longitude, float altitude,
+                        float velocityNorth, float velocityEast, float velocityDown,
+                        float pitch, float roll, float yaw) {
+        long sequence = ring.publish(timestampNanos, latitude, longitude, altitude,
+                velocityNorth, velocityEast, velocityDown, pitch, roll, yaw);
+        Listener[] current = listeners;
+        for (Listener listener : current) {
+            listener.onTelemetry(sequence);
+        }
+        return sequence;
+    }
+
+    /** @see TelemetryRing#readLatest(TelemetrySnapshot) */
+    public boolean readLatest(TelemetrySnapshot into) {
+        return ring.readLatest(into);
+    }
+
+    public long latestSequence() {
+        return ring.latestSequence();
+    }
+}
@@ -0,0 +1,292 @@
+package ai.swiftlabs.aircraftlocation.telemetry;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appends every published telemetry sample to a segmented flight log in {@link TelemetryLogFormat}.
+ *
+ * <p>The recorder is a {@link TelemetryPipeline.Listener}, so it runs on the writer thread and is the
+ * single writer of the log. Recording a sample is a read from the ring and a handful of stores into a
+ * memory-mapped segment: no system call, no lock and no allocation. Everything that can block runs on a
+ * background sync thread instead: it forces dirty pages to disk every {@code syncIntervalMillis},
+ * closes finished segments and maps the next segment ahead of time, so rolling over is a pointer swap.
+ * Only if the writer fills a segment before the next one is ready does it map one itself, counted in
+ * {@link #synchronousRolls()}.</p>
+ *
+ * <p>Detach the recorder from the pipeline before {@link #close() closing} it. Mappings cannot be
+ * released explicitly before Java 9; closed segments keep their address space until collected.</p>
+ */
+public final class TelemetryRecorder implements TelemetryPipeline.Listener, Closeable {
+
+    /** 4 MiB, about 1.8 hours at the 10 Hz the SDK reports at. */
+    public static final int DEFAULT_SEGMENT_BYTES = 4 << 20;
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 1000;
+
+    private final TelemetryRing ring;
+    private final File directory;
+    private final String session;
+    private final int segmentBytes;
+    private final long syncIntervalNanos;
+    private final TelemetrySnapshot scratch = new TelemetrySnapshot();
+    private final Queue<Segment> retired = new ConcurrentLinkedQueue<>();
+    private final Object segmentLock = new Object();
+    private final Thread syncThread;
+
+    private volatile Segment active;
+    private volatile int batteryPercent = -1;
+    private volatile boolean closed;
+    private volatile IOException failure;
+    // Guarded by segmentLock.
+    private Segment spare;
+    private int nextSegment;
+
+    private long records;
+    private long dropped;
+    private int synchronousRolls;
+
+    public TelemetryRecorder(TelemetryRing ring, File directory, String session) throws IOException {
+        this(ring, directory, session, DEFAULT_SEGMENT_BYTES, DEFAULT_SYNC_INTERVAL_MILLIS);
+    }
+
+    public TelemetryRecorder(TelemetryRing ring, File directory, String session, int segmentBytes,
+                             long syncIntervalMillis) throws IOException {
+        if (segmentBytes < TelemetryLogFormat.HEADER_BYTES + TelemetryLogFormat.RECORD_BYTES) {
+            throw new IllegalArgumentException("segment of " + segmentBytes + " bytes holds no record");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("cannot create " + directory);
+        }
+        this.ring = ring;
+        this.directory = directory;
+        this.session = session;
+        this.segmentBytes = segmentBytes;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+        synchronized (segmentLock) {
+            active = createSegment();
+        }
+        syncThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                syncLoop();
+            }
+        }, "telemetry-recorder-sync");
+        syncThread.setDaemon(true);
+        syncThread.start();
+    }
+
+    /** Latest battery charge, written into every following record. Any thread. */
+    public void setBatteryPercent(int percent) {
+        batteryPercent = percent;
+    }
+
+    @Override
+    public void onTelemetry(long sequence) {
+        if (ring.read(sequence, scratch)) {
+            record(scratch);
+        }
+    }
+
+    /**
+     * Appends one sample. Writer thread only; {@link #onTelemetry} calls this for pipeline samples.
+     */
+    public void record(TelemetrySnapshot sample) {
+        if (closed) {
+            return;
+        }
+        Segment segment = active;
+        if (segment.position + TelemetryLogFormat.RECORD_BYTES > segmentBytes) {
+            segment = roll(segment);
+            if (segment == null) {
+                dropped++;
+                return;
+            }
+        }
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = segment.position;
+        if (offset == TelemetryLogFormat.HEADER_BYTES) {
+            TelemetryLogFormat.writeClockAnchor(buffer, System.currentTimeMillis(), sample.timestampNanos);
+        }
+        buffer.putLong(offset + TelemetryLogFormat.TIMESTAMP, sample.timestampNanos);
+        buffer.putDouble(offset + TelemetryLogFormat.LATITUDE, sample.latitude);
+        buffer.putDouble(offset + TelemetryLogFormat.LONGITUDE, sample.longitude);
+        buffer.putFloat(offset + TelemetryLogFormat.ALTITUDE, sample.altitude);
+        buffer.putFloat(offset + TelemetryLogFormat.VELOCITY_NORTH, sample.velocityNorth);
+        buffer.putFloat(offset + TelemetryLogFormat.VELOCITY_EAST, sample.velocityEast);
+        buffer.putFloat(offset + TelemetryLogFormat.VELOCITY_DOWN, sample.velocityDown);
+        buffer.putFloat(offset + TelemetryLogFormat.PITCH, sample.pitch);
+        buffer.putFloat(offset + TelemetryLogFormat.ROLL, sample.roll);
+        buffer.putFloat(offset + TelemetryLogFormat.YAW, sample.yaw);
+        buffer.putShort(offset + TelemetryLogFormat.BATTERY, (short) batteryPercent);
+        buffer.putInt(offset + TelemetryLogFormat.SEQUENCE, (int) sample.sequence);
+        TelemetryLogFormat.seal(buffer, offset);
+        segment.position = offset + TelemetryLogFormat.RECORD_BYTES;
+        records++;
+    }
+
+    public File directory() {
+        return directory;
+    }
+
+    public String session() {
+        return session;
+    }
+
+    /** Records written so far. Writer thread, or after {@link #close()}. */
+    public long recordCount() {
+        return records;
+    }
+
+    /** Records lost because no segment could be mapped. Writer thread, or after {@link #close()}. */
+    public long droppedCount() {
+        return dropped;
+    }
+
+    /**
+     * Rollovers that had to map the next segment on the writer thread. Writer thread, or after
+     * {@link #close()}.
+     */
+    public int synchronousRolls() {
+        return synchronousRolls;
+    }
+
+    /** The first I/O error hit by the sync thread or a rollover, {@code null} if none. */
+    public IOException failure() {
+        return failure;
+    }
+
+    /**
+     * Forces everything written to disk and stops the sync thread. The last segment keeps its
+     * preallocated size: truncating a file that a late writer could still store into would crash the
+     * process with SIGBUS, and readers stop at the first unsealed record anyway.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(syncThread);
+        try {
+            syncThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeRetired();
+        Segment last = active;
+        last.buffer.force();
+        last.close();
+        synchronized (segmentLock) {
+            if (spare != null) {
+                spare.close();
+                if (!spare.file.delete()) {
+                    fail(new IOException("cannot delete unused " + spare.file));
+                }
+                spare = null;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private Segment roll(Segment full) {
+        Segment next;
+        synchronized (segmentLock) {
+            next = spare;
+            spare = null;
+            if (next == null) {
+                try {
+                    next = createSegment();
+                } catch (IOException e) {
+                    fail(e);
+                    return null;
+                }
+                synchronousRolls++;
+            }
+        }
+        // The full segment keeps its trailing gap, too small for a record; readers stop at it.
+        retired.add(full);
+        active = next;
+        LockSupport.unpark(syncThread);
+        return next;
+    }
+
+    private void syncLoop() {
+        while (!closed) {
+            try {
+                closeRetired();
+                active.buffer.force();
+                synchronized (segmentLock) {
+                    if (spare == null && !closed) {
+                        spare = createSegment();
+                    }
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+            LockSupport.parkNanos(this, syncIntervalNanos);
+        }
+    }
+
+    private void closeRetired() {
+        Segment segment;
+        while ((segment = retired.poll()) != null) {
+            segment.buffer.force();
+            try {
+                segment.close();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+    }
+
+    /** Maps the next segment and writes its header. Holding segmentLock. */
+    private Segment createSegment() throws IOException {
+        int index = nextSegment;
+        File file = new File(directory, TelemetryLogFormat.segmentName(session, index));
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            TelemetryLogFormat.writeHeader(buffer, index);
+            nextSegment++;
+            return new Segment(file, raf, buffer);
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    private static final class Segment {
+        final File file;
+        final RandomAccessFile raf;
+        final MappedByteBuffer buffer;
+        int position = TelemetryLogFormat.HEADER_BYTES;
+
+        Segment(File file, RandomAccessFile raf, MappedByteBuffer buffer) {
+            this.file = file;
+            this.raf = raf;
+            this.buffer = buffer;
+        }
+
+        void close() throws IOException {
+            raf.close();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package ai.swiftlabs.aircraftlocation.telemetry;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Single-writer, multi-reader ring of telemetry samples.
+ *
+ * <p>Each slot is guarded by a sequence stamp (a seqlock): the writer marks the slot odd, writes the
+ * fields and marks it even again. Readers copy the fields between two stamp reads and retry if the
+ * stamp moved, so they never block the writer, never take a lock and never allocate. The ring keeps
+ * the last {@code capacity} samples, which lets sequential consumers such as a recorder catch up
+ * after a hiccup while the map only ever asks for the latest one.</p>
+ *
+ * <p>Only one thread may call {@link #publish}. Any number of threads may read.</p>
+ */
+public final class TelemetryRing {
+
+    private static final int STAMP = 0;
+    private static final int TIMESTAMP = 1;
+    private static final int LATITUDE = 2;
+    private static final int LONGITUDE = 3;
+    private static final int ALTITUDE = 4;
+    private static final int VELOCITY_NORTH = 5;
+    private static final int VELOCITY_EAST = 6;
+    private static final int VELOCITY_DOWN = 7;
+    private static final int PITCH = 8;
+    private static final int ROLL = 9;
+    private static final int YAW = 10;
+    private static final int STRIDE = 11;
+
+    private static final int MAX_LATEST_ATTEMPTS = 8;
+
+    private final int mask;
+    private final AtomicLongArray slots;
+    private final AtomicLong published = new AtomicLong(-1);
+    private long next;
+
+    /**
+     * @param capacity number of samples retained, rounded up to a power of two (at least 2)
+     */
+    public TelemetryRing(int capacity) {
+        if (capacity < 2) {
+            capacity = 2;
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        mask = size - 1;
+        slots = new AtomicLongArray(size * STRIDE);
+        for (int i = 0; i < size; i++) {
+            slots.set(i * STRIDE + STAMP, stampOf(i - size));
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Appends a sample and returns its sequence number. Writer thread only.
+     */
+    public long publish(long timestampNanos, double latitude, double longitude, float altitude,
+                        float velocityNorth, float velocityEast, float velocityDown,
+                        float pitch, float roll, float yaw) {
+        long sequence = next++;
+        int base = (int) (sequence & mask) * STRIDE;
+        slots.set(base + STAMP, stampOf(sequence) - 1);
+        slots.lazySet(base + TIMESTAMP, timestampNanos);
+        slots.lazySet(base + LATITUDE, Double.doubleToRawLongBits(latitude));
+        slots.lazySet(base + LONGITUDE, Double.doubleToRawLongBits(longitude));
+        slots.lazySet(base + ALTITUDE, Float.floatToRawIntBits(altitude));
+        slots.lazySet(base + VELOCITY_NORTH, Float.floatToRawIntBits(velocityNorth));
+        slots.lazySet(base + VELOCITY_EAST, Float.floatToRawIntBits(velocityEast));
+        slots.lazySet(base + VELOCITY_DOWN, Float.floatToRawIntBits(velocityDown));
+        slots.lazySet(base + PITCH, Float.floatToRawIntBits(pitch));
+        slots.lazySet(base + ROLL, Float.floatToRawIntBits(roll));
+        slots.lazySet(base + YAW, Float.floatToRawIntBits(yaw));
+        slots.set(base + STAMP, stampOf(sequence));
+        published.set(sequence);
+        return sequence;
+    }
+
+    /** Sequence of the newest complete sample, {@code -1} if nothing was published yet. */
+    public long latestSequence() {
+        return published.get();
+    }
+
+    /**
+     * Reads the newest sample.
+     *
+     * @return false if nothing was published yet
+     */
+    public boolean readLatest(TelemetrySnapshot into) {
+        for (int attempt = 0; attempt < MAX_LATEST_ATTEMPTS; attempt++) {
+            long sequence = published.get();
+            if (sequence < 0) {
+                return false;
+            }
+            if (read(sequence, into)) {
+                return true;
+            }
+            // The writer lapped the whole ring while we were copying, go again with a newer sequence.
+        }
+        return false;
+    }
+
+    /**
+     * Reads a specific sample.
+     *
+     * @return false if the sample is not published yet or was already overwritten
+     */
+    public boolean read(long sequence, TelemetrySnapshot into) {
+        if (sequence < 0) {
+            return false;
+        }
+        int base = (int) (sequence & mask) * STRIDE;
+        long expected = stampOf(sequence);
+        if (slots.get(base + STAMP) != expected) {
+            return false;
+        }
+        long timestamp = slots.get(base + TIMESTAMP);
+        long latitude = slots.get(base + LATITUDE);
+        long longitude = slots.get(base + LONGITUDE);
+        long altitude = slots.get(base + ALTITUDE);
+        long velocityNorth = slots.get(base + VELOCITY_NORTH);
+        long velocityEast = slots.get(base + VELOCITY_EAST);
+        long velocityDown = slots.get(base + VELOCITY_DOWN);
+        long pitch = slots.get(base + PITCH);
+        long roll = slots.get(base + ROLL);
+        long yaw = slots.get(base + YAW);
+        if (slots.get(base + STAMP) != expected) {
+            return false;
+        }
+        into.sequence = sequence;
+        into.timestampNanos = timestamp;
+        into.latitude = Double.longBitsToDouble(latitude);
+        into.longitude = Double.longBitsToDouble(longitude);
+        into.altitude = Float.intBitsToFloat((int) altitude);
+        into.velocityNorth = Float.intBitsToFloat((int) velocityNorth);
+        into.velocityEast = Float.intBitsToFloat((int) velocityEast);
+        into.velocityDown = Float.intBitsToFloat((int) velocityDown);
+        into.pitch = Float.intBitsToFloat((int) pitch);
+        into.roll = Float.intBitsToFloat((int) roll);
+        into.yaw = Float.intBitsToFloat((int) yaw);
+        return true;
+    }
+
+    /** Even stamp of a completely written sample; the writer marks the slot with stamp - 1 meanwhile. */
+    private static long stampOf(long sequence) {
+        return (sequence + 1) << 1;
+    }
+}
@@ -0,0 +1,94 @@
+package ai.swiftlabs.aircraftlocation.telemetry;
+
+/**
+ * Reusable holder a consumer reads telemetry into. Every field comes from the same published
+ * sample, a reader never sees the latitude of one sample next to the longitude of another.
+ *
+ * <p>Velocities are in m/s on the North/East/Down axes like {@code FlightControllerState},
+ * attitude angles are in degrees and yaw is clockwise from true north.</p>
+ */
+public final class TelemetrySnapshot {
+
+    long sequence = -1;
+    long timestampNanos;
+    double latitude;
+    double longitude;
+    float altitude;
+    float velocityNorth;
+    float velocityEast;
+    float velocityDown;
+    float pitch;
+    float roll;
+    float yaw;
+
+    /** Sequence number of the sample, {@code -1} until something was read. */
+    public long sequence() {
+        return sequence;
+    }
+
+    /** Monotonic receive time of the sample. */
+    public long timestampNanos() {
+        return timestampNanos;
+    }
+
+    public double latitude() {
+        return latitude;
+    }
+
+    public double longitude() {
+        return longitude;
+    }
+
+    /** Altitude relative to the take-off point, in metres. */
+    public float altitude() {
+        return altitude;
+    }
+
+    public float velocityNorth() {
+        return velocityNorth;
+    }
+
+    public float velocityEast() {
+        return velocityEast;
+    }
+
+    public float velocityDown() {
+        return velocityDown;
+    }
+
+    public float pitch() {
+        return pitch;
+    }
+
+    public float roll() {
+        return roll;
+    }
+
+    public float yaw() {
+        return yaw;
+    }
+
+    /** Copies another snapshot into this one. */
+    public void set(TelemetrySnapshot other) {
+        sequence = other.sequence;
+        timestampNanos = other.timestampNanos;
+        latitude = other.latitude;
+        longitude = other.longitude;
+        altitude = other.altitude;
+        velocityNorth = other.velocityNorth;
+        velocityEast = other.velocityEast;
+        velocityDown = other.velocityDown;
+        pitch = other.pitch;
+        roll = other.roll;
+        yaw = other.yaw;
+    }
+
+    @Override
+    public String toString() {
+        return "TelemetrySnapshot{seq=" + sequence
+                + ", lat=" + latitude
+                + ", lng=" + longitude
+                + ", alt=" + altitude
+                + ", yaw=" + yaw + '}';
+    }
+}
@@ -0,0 +1,81 @@
+package ai.swiftlabs.aircraftlocation.tiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Fetches tiles over HTTP from a URL template such as
+ * {@code https://api.mapbox.com/v4/mapbox.mapbox-streets-v8/{z}/{x}/{y}.vector.pbf?access_token=...}.
+ *
+ * <p>Tiles are stored as decoded bytes: a gzip-encoded response is unpacked here, since the map decodes
+ * both. A 204 or 404 is a tile without data rather than an error.</p>
+ */
+public final class HttpTileSource implements TileSource {
+
+    public static final int DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+    private static final byte[] NO_DATA = new byte[0];
+
+    private final String urlTemplate;
+    private final int timeoutMillis;
+
+    public HttpTileSource(String urlTemplate) {
+        this(urlTemplate, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public HttpTileSource(String urlTemplate, int timeoutMillis) {
+        if (!urlTemplate.contains("{z}") || !urlTemplate.contains("{x}") || !urlTemplate.contains("{y}")) {
+            throw new IllegalArgumentException("template needs {z}, {x} and {y}: " + urlTemplate);
+        }
+        this.urlTemplate = urlTemplate;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public String url(int zoom, int x, int y) {
+        return urlTemplate.replace("{z}", Integer.toString(zoom))
+                .replace("{x}", Integer.toString(x))
+                .replace("{y}", Integer.toString(y));
+    }
+
+    @Override
+    public byte[] fetch(int zoom, int x, int y) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url(zoom, x, y)).openConnection();
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        try {
+            int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NO_CONTENT || code == HttpURLConnection.HTTP_NOT_FOUND) {
+                return NO_DATA;
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + code + " for tile " + zoom + "/" + x + "/" + y);
+            }
+            InputStream in = connection.getInputStream();
+            try {
+                if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+                    in = new GZIPInputStream(in);
+                }
+                return readFully(in, connection.getContentLength());
+            } finally {
+                in.close();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static byte[] readFully(InputStream in, int expectedLength) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(expectedLength > 0 ? expectedLength : 16 * 1024);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
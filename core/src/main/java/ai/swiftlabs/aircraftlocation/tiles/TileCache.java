@@ -0,0 +1,563 @@
+package ai.swiftlabs.aircraftlocation.tiles;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import ai.swiftlabs.aircraftlocation.metrics.Counter;
+
+/**
+ * Map tiles of the {@link TileRegion}s fetched for offline use, on disk under a size budget.
+ *
+ * <p>Tiles are files {@code <directory>/<z>/<x>/<y>}; a tile shared by overlapping regions is stored
+ * once. The regions are kept in least recently used order, written to an index file whenever the set of
+ * regions changes. A region is used when it is fetched again or when the map reads one of its tiles; as
+ * the map reads many, the order that reading changes is written at most every
+ * {@value #INDEX_WRITE_INTERVAL_SECONDS} s, and on {@link #flush}.
+ * When a new tile does not fit the budget, whole regions are evicted, least recently used first, since
+ * half a region is little use offline. Tiles that no remaining region covers are deleted with them.</p>
+ *
+ * <p>Thread-safe. {@link #open} must run first; other calls wait for it, so it can run on a background
+ * thread while the map starts. Apart from {@link #open} and moving a stored tile into place, files are read,
+ * written and deleted outside the lock, so the map never waits behind an eviction: what to delete and the
+ * index contents are decided under the lock and the disk catches up after it is released.</p>
+ */
+public final class TileCache {
+
+    static final String INDEX = "regions.idx";
+    private static final int INDEX_MAGIC = 0x54494C45;
+    private static final int INDEX_VERSION = 1;
+    private static final String TEMP_SUFFIX = ".tmp";
+    static final long INDEX_WRITE_INTERVAL_SECONDS = 30;
+
+    private final File directory;
+    private final long budgetBytes;
+    private final Counter hits;
+    private final Counter misses;
+    /** Least recently used first. */
+    private final List<TileRegion> regions = new ArrayList<>();
+    private final Map<Long, Integer> tileBytes = new HashMap<>();
+    private long sizeBytes;
+    private boolean opened;
+    // Whether the map reordered the regions since the index was written, and when it was.
+    private boolean orderChanged;
+    private long indexWrittenNanos;
+    private long indexSnapshots;
+    /** Tiles dropped from {@link #tileBytes} whose files are still being deleted. */
+    private final Set<Long> deleting = new HashSet<>();
+    private int tempFiles;
+    /** Orders index writes, so an older snapshot never replaces a newer one; taken after {@code this}. */
+    private final Object indexLock = new Object();
+    private long indexWritten;
+
+    public TileCache(File directory, long budgetBytes, Counter hits, Counter misses) {
+        this.directory = directory;
+        this.budgetBytes = budgetBytes;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    /**
+     * Reads the index and sizes the stored tiles, deleting any that no region covers. If that fails the
+     * cache is left open but empty, so the map goes to the network instead of waiting.
+     */
+    public synchronized void open() throws IOException {
+        if (opened) {
+            return;
+        }
+        Changes changes = new Changes();
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("cannot create " + directory);
+            }
+            File index = new File(directory, INDEX);
+            if (index.isFile()) {
+                readIndex(index);
+            }
+            scanTiles();
+            evict(0, null, changes);
+            apply(changes);
+        } catch (IOException e) {
+            regions.clear();
+            tileBytes.clear();
+            sizeBytes = 0;
+            throw e;
+        } finally {
+            opened = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Called by the map for every tile it loads.
+     *
+     * @return the tile, empty for one without data, or {@code null} when it is not cached
+     */
+    public byte[] get(int zoom, int x, int y) {
+        File file;
+        Changes changes = new Changes();
+        synchronized (this) {
+            awaitOpen();
+            Integer bytes = tileBytes.get(key(zoom, x, y));
+            if (bytes == null) {
+                misses.increment();
+                return null;
+            }
+            if (touchRegionsContaining(zoom, x, y)) {
+                orderChanged = true;
+            }
+            if (orderChanged && System.nanoTime() - indexWrittenNanos
+                    >= TimeUnit.SECONDS.toNanos(INDEX_WRITE_INTERVAL_SECONDS)) {
+                snapshotIndex(changes);
+            }
+            file = tileFile(zoom, x, y);
+        }
+        try {
+            apply(changes);
+        } catch (IOException e) {
+            // Tried again after the next interval; until then a restart forgets what the map used.
+        }
+        try {
+            byte[] data = readFile(file);
+            hits.increment();
+            return data;
+        } catch (IOException e) {
+            // Evicted meanwhile, or lost; the map fetches it from the network.
+            misses.increment();
+            return null;
+        }
+    }
+
+    /** Writes the order in which the map used the regions, if it changed; e.g. when the app stops. */
+    public void flush() throws IOException {
+        Changes changes = new Changes();
+        synchronized (this) {
+            awaitOpen();
+            if (orderChanged) {
+                snapshotIndex(changes);
+            }
+        }
+        apply(changes);
+    }
+
+    public synchronized boolean contains(int zoom, int x, int y) {
+        awaitOpen();
+        return tileBytes.containsKey(key(zoom, x, y));
+    }
+
+    /**
+     * Records a region about to be fetched as the most recently used one, replacing a region of the same
+     * name.
+     */
+    public void addRegion(TileRegion region) throws IOException {
+        Changes changes = new Changes();
+        synchronized (this) {
+            awaitOpen();
+            TileRegion previous = find(region.name());
+            regions.remove(previous);
+            regions.add(region);
+            if (previous != null) {
+                deleteUncovered(previous, changes);
+            }
+            snapshotIndex(changes);
+        }
+        apply(changes);
+    }
+
+    public void removeRegion(String name) throws IOException {
+        Changes changes = new Changes();
+        synchronized (this) {
+            awaitOpen();
+            TileRegion region = find(name);
+            if (region != null) {
+                regions.remove(region);
+                deleteUncovered(region, changes);
+                snapshotIndex(changes);
+            }
+        }
+        apply(changes);
+    }
+
+    /**
+     * Stores a tile of {@code region}, evicting least recently used regions when needed.
+     *
+     * @return {@code false} when the tile does not fit even with every other region evicted
+     */
+    public boolean put(TileRegion region, int zoom, int x, int y, byte[] data) throws IOException {
+        File temp;
+        synchronized (this) {
+            awaitOpen();
+            if (!regions.contains(region)) {
+                throw new IllegalStateException(region.name() + " was not added");
+            }
+            temp = new File(directory, "tile-" + tempFiles++ + TEMP_SUFFIX);
+        }
+        writeFile(temp, data);
+        Changes changes = new Changes();
+        boolean stored = false;
+        try {
+            synchronized (this) {
+                long key = key(zoom, x, y);
+                // An evicted file of this tile must be gone before the new one takes its place.
+                while (deleting.contains(key)) {
+                    awaitChange();
+                }
+                Integer previous = tileBytes.get(key);
+                long needed = data.length - (previous != null ? previous : 0);
+                if (!regions.contains(region) || !evict(needed, region, changes)) {
+                    return false;
+                }
+                if (changes.deletedTiles.remove(Long.valueOf(key))) {
+                    // Evicted with another region after all; the rename below replaces its file.
+                    deleting.remove(key);
+                }
+                File file = tileFile(zoom, x, y);
+                File parent = file.getParentFile();
+                if (!parent.isDirectory() && !parent.mkdirs() || !temp.renameTo(file) && !replace(temp, file)) {
+                    throw new IOException("cannot store " + file);
+                }
+                Integer replaced = tileBytes.put(key, data.length);
+                sizeBytes += data.length - (replaced != null ? replaced : 0);
+                stored = true;
+                return true;
+            }
+        } finally {
+            if (!stored) {
+                delete(temp);
+            }
+            apply(changes);
+        }
+    }
+
+    /** Regions in least recently used order. */
+    public synchronized List<TileRegion> regions() {
+        awaitOpen();
+        return new ArrayList<>(regions);
+    }
+
+    /** How many tiles of a region are stored. */
+    public synchronized long cachedTiles(TileRegion region) {
+        awaitOpen();
+        long count = 0;
+        for (long key : tileBytes.keySet()) {
+            if (region.contains(zoomOf(key), xOf(key), yOf(key))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public synchronized long sizeBytes() {
+        return sizeBytes;
+    }
+
+    public long budgetBytes() {
+        return budgetBytes;
+    }
+
+    /** Share of the tiles asked for by the map that were served from the cache, or 0 before any. */
+    public double hitRatio() {
+        long hitCount = hits.count();
+        long total = hitCount + misses.count();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public Counter hits() {
+        return hits;
+    }
+
+    public Counter misses() {
+        return misses;
+    }
+
+    /**
+     * Evicts least recently used regions other than {@code keep} until {@code needed} more bytes fit.
+     *
+     * @return whether they fit
+     */
+    private boolean evict(long needed, TileRegion keep, Changes changes) throws IOException {
+        boolean evicted = false;
+        Iterator<TileRegion> lru = regions.iterator();
+        while (sizeBytes + needed > budgetBytes && lru.hasNext()) {
+            TileRegion region = lru.next();
+            if (region == keep) {
+                continue;
+            }
+            lru.remove();
+            deleteUncovered(region, changes);
+            evicted = true;
+        }
+        if (evicted) {
+            snapshotIndex(changes);
+        }
+        return sizeBytes + needed <= budgetBytes;
+    }
+
+    /** Drops the tiles of a region that was removed that no other region covers, to be deleted later. */
+    private void deleteUncovered(TileRegion removed, Changes changes) {
+        Iterator<Map.Entry<Long, Integer>> tiles = tileBytes.entrySet().iterator();
+        while (tiles.hasNext()) {
+            Map.Entry<Long, Integer> tile = tiles.next();
+            long key = tile.getKey();
+            int zoom = zoomOf(key);
+            int x = xOf(key);
+            int y = yOf(key);
+            if (removed.contains(zoom, x, y) && !covered(zoom, x, y)) {
+                sizeBytes -= tile.getValue();
+                tiles.remove();
+                deleting.add(key);
+                changes.deletedTiles.add(key);
+            }
+        }
+    }
+
+    /** @return whether the order changed */
+    private boolean touchRegionsContaining(int zoom, int x, int y) {
+        boolean moved = false;
+        // Newest first, so moving one to the end does not skip another.
+        for (int i = regions.size() - 1; i >= 0; i--) {
+            TileRegion region = regions.get(i);
+            if (region.contains(zoom, x, y) && i != regions.size() - 1) {
+                regions.remove(i);
+                regions.add(region);
+                moved = true;
+            }
+        }
+        return moved;
+    }
+
+    private boolean covered(int zoom, int x, int y) {
+        for (int i = 0; i < regions.size(); i++) {
+            if (regions.get(i).contains(zoom, x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TileRegion find(String name) {
+        for (int i = 0; i < regions.size(); i++) {
+            if (regions.get(i).name().equals(name)) {
+                return regions.get(i);
+            }
+        }
+        return null;
+    }
+
+    private void awaitOpen() {
+        while (!opened) {
+            awaitChange();
+        }
+    }
+
+    /** Waits for {@link #notifyAll}, keeping an interrupt for the caller. */
+    private void awaitChange() {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void readIndex(File index) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(index)));
+        try {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                throw new IOException(index + " is not a tile cache index");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                regions.add(new TileRegion(in.readUTF(), in.readDouble(), in.readDouble(), in.readDouble(),
+                        in.readDouble(), in.readByte(), in.readByte()));
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /** Captures the regions for {@link #apply} to write; called with the lock held. */
+    private void snapshotIndex(Changes changes) {
+        changes.index = regions.toArray(new TileRegion[0]);
+        changes.indexSnapshot = ++indexSnapshots;
+        orderChanged = false;
+        indexWrittenNanos = System.nanoTime();
+    }
+
+    /** Does the file work decided under the lock; called without it, except from {@link #open}. */
+    private void apply(Changes changes) throws IOException {
+        try {
+            if (changes.index != null) {
+                writeIndex(changes.index, changes.indexSnapshot);
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                // The next read past the interval, or flush, tries again.
+                orderChanged = true;
+            }
+            throw e;
+        } finally {
+            if (!changes.deletedTiles.isEmpty()) {
+                for (long key : changes.deletedTiles) {
+                    delete(tileFile(zoomOf(key), xOf(key), yOf(key)));
+                }
+                synchronized (this) {
+                    deleting.removeAll(changes.deletedTiles);
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /** The index is replaced in one rename, so a crash leaves either the old or the new one. */
+    private void writeIndex(TileRegion[] regions, long snapshot) throws IOException {
+        synchronized (indexLock) {
+            if (snapshot <= indexWritten) {
+                return;
+            }
+            File temp = new File(directory, INDEX + TEMP_SUFFIX);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                out.writeInt(INDEX_MAGIC);
+                out.writeInt(INDEX_VERSION);
+                out.writeInt(regions.length);
+                for (TileRegion region : regions) {
+                    out.writeUTF(region.name());
+                    out.writeDouble(region.south());
+                    out.writeDouble(region.west());
+                    out.writeDouble(region.north());
+                    out.writeDouble(region.east());
+                    out.writeByte(region.minZoom());
+                    out.writeByte(region.maxZoom());
+                }
+            } finally {
+                out.close();
+            }
+            File index = new File(directory, INDEX);
+            if (!temp.renameTo(index) && !replace(temp, index)) {
+                throw new IOException("cannot write " + index);
+            }
+            indexWritten = snapshot;
+        }
+    }
+
+    private void scanTiles() {
+        File[] zooms = directory.listFiles();
+        if (zooms == null) {
+            return;
+        }
+        for (File zoomDirectory : zooms) {
+            if (zoomDirectory.getName().endsWith(TEMP_SUFFIX)) {
+                delete(zoomDirectory);
+                continue;
+            }
+            int zoom = parse(zoomDirectory);
+            File[] columns = zoomDirectory.listFiles();
+            if (zoom < 0 || zoom > TileRegion.MAX_ZOOM || columns == null) {
+                continue;
+            }
+            for (File column : columns) {
+                int x = parse(column);
+                File[] tiles = column.listFiles();
+                if (x < 0 || tiles == null) {
+                    continue;
+                }
+                for (File tile : tiles) {
+                    int y = parse(tile);
+                    if (y >= 0 && covered(zoom, x, y)) {
+                        tileBytes.put(key(zoom, x, y), (int) tile.length());
+                        sizeBytes += tile.length();
+                    } else {
+                        delete(tile);
+                    }
+                }
+            }
+        }
+    }
+
+    private File tileFile(int zoom, int x, int y) {
+        return new File(directory, zoom + File.separator + x + File.separator + y);
+    }
+
+    private static int parse(File file) {
+        try {
+            return Integer.parseInt(file.getName());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** Zoom in the top 6 bits, then x and y in 29 bits each; x and y stay below 2^22. */
+    static long key(int zoom, int x, int y) {
+        return (long) zoom << 58 | (long) x << 29 | y;
+    }
+
+    static int zoomOf(long key) {
+        return (int) (key >>> 58);
+    }
+
+    static int xOf(long key) {
+        return (int) (key >>> 29) & 0x1FFFFFFF;
+    }
+
+    static int yOf(long key) {
+        return (int) key & 0x1FFFFFFF;
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            byte[] data = new byte[(int) file.length()];
+            int offset = 0;
+            while (offset < data.length) {
+                int read = in.read(data, offset, data.length - offset);
+                if (read < 0) {
+                    throw new IOException(file + " shrank while reading");
+                }
+                offset += read;
+            }
+            return data;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void writeFile(File file, byte[] data) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+
+    /** {@link File#renameTo} does not replace an existing file on every platform. */
+    private static boolean replace(File from, File to) {
+        return to.delete() && from.renameTo(to);
+    }
+
+    private static void delete(File file) {
+        // A file that cannot be deleted is out of the index and found again by the next open.
+        file.delete();
+    }
+
+    /** File work decided under the lock, done by {@link #apply} after it is released. */
+    private static final class Changes {
+        final List<Long> deletedTiles = new ArrayList<>();
+        /** Regions to write to the index, least recently used first, or {@code null} to leave it. */
+        TileRegion[] index;
+        long indexSnapshot;
+    }
+}
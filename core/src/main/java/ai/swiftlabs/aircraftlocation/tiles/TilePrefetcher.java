@@ -0,0 +1,183 @@
+package ai.swiftlabs.aircraftlocation.tiles;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads the tiles of a {@link TileRegion} into a {@link TileCache} in the background, so the map at
+ * a field site with a poor connection does not wait on the network.
+ *
+ * <p>Tiles are fetched on the worker executor, lowest zoom first so an overview is there early, skipping
+ * the ones already cached. The {@link Report} is delivered on the callback executor. A newer request
+ * supersedes one still running, which stops at its next tile; so does {@link #cancel}. After
+ * {@value #MAX_CONSECUTIVE_FAILURES} failed tiles in a row the connection is taken to be gone and the
+ * fetch stops.</p>
+ */
+public final class TilePrefetcher {
+
+    public static final int MAX_CONSECUTIVE_FAILURES = 3;
+
+    public interface Callback {
+        void onPrefetched(Report report);
+    }
+
+    public enum Outcome {
+        /** Every tile of the region is cached. */
+        COMPLETE,
+        /** Some tiles could not be fetched or stored; see {@link Report#error}. */
+        FAILED,
+        /** The region does not fit the cache budget. */
+        OVER_BUDGET,
+        /** Cancelled or superseded by a newer request. */
+        CANCELLED
+    }
+
+    public static final class Report {
+        private final TileRegion region;
+        private final long totalTiles;
+        private Outcome outcome;
+        private long cachedTiles;
+        private long downloadedTiles;
+        private long downloadedBytes;
+        private long failedTiles;
+        private IOException error;
+        private long elapsedNanos;
+
+        Report(TileRegion region) {
+            this.region = region;
+            this.totalTiles = region.tileCount();
+        }
+
+        public TileRegion region() {
+            return region;
+        }
+
+        public Outcome outcome() {
+            return outcome;
+        }
+
+        public long totalTiles() {
+            return totalTiles;
+        }
+
+        /** Tiles that were already in the cache. */
+        public long cachedTiles() {
+            return cachedTiles;
+        }
+
+        public long downloadedTiles() {
+            return downloadedTiles;
+        }
+
+        public long downloadedBytes() {
+            return downloadedBytes;
+        }
+
+        public long failedTiles() {
+            return failedTiles;
+        }
+
+        /** The last fetch or storage error, or {@code null}. */
+        public IOException error() {
+            return error;
+        }
+
+        public long elapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s %s: %d tiles, %d cached, %d downloaded (%d kB), %d failed in %d ms",
+                    region.name(), outcome, totalTiles, cachedTiles, downloadedTiles, downloadedBytes / 1024,
+                    failedTiles, elapsedNanos / 1_000_000);
+        }
+    }
+
+    private final TileCache cache;
+    private final TileSource source;
+    private final Executor worker;
+    private final Executor callbacks;
+    private final AtomicInteger generation = new AtomicInteger();
+
+    public TilePrefetcher(TileCache cache, TileSource source, Executor worker, Executor callbacks) {
+        this.cache = cache;
+        this.source = source;
+        this.worker = worker;
+        this.callbacks = callbacks;
+    }
+
+    public void prefetch(final TileRegion region, final Callback callback) {
+        final int request = generation.incrementAndGet();
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Report report = fetch(region, request);
+                callbacks.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onPrefetched(report);
+                    }
+                });
+            }
+        });
+    }
+
+    /** Stops the running request at its next tile; what was downloaded stays cached. */
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+
+    private Report fetch(TileRegion region, int request) {
+        Report report = new Report(region);
+        long start = System.nanoTime();
+        report.outcome = run(region, request, report);
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    private Outcome run(TileRegion region, int request, Report report) {
+        if (generation.get() != request) {
+            return Outcome.CANCELLED;
+        }
+        try {
+            cache.addRegion(region);
+        } catch (IOException e) {
+            report.error = e;
+            return Outcome.FAILED;
+        }
+        int consecutiveFailures = 0;
+        for (int zoom = region.minZoom(); zoom <= region.maxZoom(); zoom++) {
+            for (int x = region.minX(zoom); x <= region.maxX(zoom); x++) {
+                for (int y = region.minY(zoom); y <= region.maxY(zoom); y++) {
+                    if (generation.get() != request) {
+                        return Outcome.CANCELLED;
+                    }
+                    if (cache.contains(zoom, x, y)) {
+                        report.cachedTiles++;
+                        continue;
+                    }
+                    try {
+                        byte[] tile = source.fetch(zoom, x, y);
+                        if (!cache.put(region, zoom, x, y, tile)) {
+                            // Also refused when a newer request replaced the region.
+                            return generation.get() != request ? Outcome.CANCELLED : Outcome.OVER_BUDGET;
+                        }
+                        report.downloadedTiles++;
+                        report.downloadedBytes += tile.length;
+                        consecutiveFailures = 0;
+                    } catch (IOException e) {
+                        report.failedTiles++;
+                        report.error = e;
+                        if (++consecutiveFailures >= MAX_CONSECUTIVE_FAILURES) {
+                            return Outcome.FAILED;
+                        }
+                    }
+                }
+            }
+        }
+        return report.failedTiles == 0 ? Outcome.COMPLETE : Outcome.FAILED;
+    }
+}
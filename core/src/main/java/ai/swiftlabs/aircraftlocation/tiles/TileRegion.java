@@ -0,0 +1,164 @@
+package ai.swiftlabs.aircraftlocation.tiles;
+
+import ai.swiftlabs.aircraftlocation.geo.Geodesy;
+import ai.swiftlabs.aircraftlocation.mission.MissionPlan;
+
+/**
+ * A named area of web-mercator map tiles over a range of zooms, such as the site of a planned mission.
+ *
+ * <p>Tiles are addressed the way map servers do: at zoom {@code z} the world is {@code 2^z} tiles wide,
+ * {@code x} counts east from the antimeridian and {@code y} south from the north edge. The area does not
+ * cross the antimeridian.</p>
+ */
+public final class TileRegion {
+
+    public static final int MAX_ZOOM = 22;
+    /** Web-mercator tiles stop short of the poles. */
+    public static final double MAX_LATITUDE = 85.05112878;
+
+    private final String name;
+    private final double south;
+    private final double west;
+    private final double north;
+    private final double east;
+    private final int minZoom;
+    private final int maxZoom;
+    // Tile ranges per zoom, indexed by zoom - minZoom.
+    private final int[] minX;
+    private final int[] maxX;
+    private final int[] minY;
+    private final int[] maxY;
+
+    public TileRegion(String name, double south, double west, double north, double east, int minZoom,
+                      int maxZoom) {
+        if (!(south <= north) || !(west <= east)) {
+            throw new IllegalArgumentException("empty bounds " + south + "," + west + " " + north + "," + east);
+        }
+        if (minZoom < 0 || maxZoom > MAX_ZOOM || minZoom > maxZoom) {
+            throw new IllegalArgumentException("zoom range " + minZoom + "-" + maxZoom);
+        }
+        this.name = name;
+        this.south = south;
+        this.west = west;
+        this.north = north;
+        this.east = east;
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+        int zooms = maxZoom - minZoom + 1;
+        minX = new int[zooms];
+        maxX = new int[zooms];
+        minY = new int[zooms];
+        maxY = new int[zooms];
+        for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+            minX[zoom - minZoom] = tileX(west, zoom);
+            maxX[zoom - minZoom] = tileX(east, zoom);
+            minY[zoom - minZoom] = tileY(north, zoom);
+            maxY[zoom - minZoom] = tileY(south, zoom);
+        }
+    }
+
+    /**
+     * The bounding box of a mission's waypoints grown by {@code marginMeters} on every side, so the map
+     * around the edge of the mission is there too.
+     */
+    public static TileRegion around(String name, MissionPlan plan, double marginMeters, int minZoom,
+                                    int maxZoom) {
+        if (plan.size() == 0) {
+            throw new IllegalArgumentException("mission has no waypoints");
+        }
+        double south = plan.latitude(0);
+        double north = south;
+        double west = plan.longitude(0);
+        double east = west;
+        for (int i = 1; i < plan.size(); i++) {
+            south = Math.min(south, plan.latitude(i));
+            north = Math.max(north, plan.latitude(i));
+            west = Math.min(west, plan.longitude(i));
+            east = Math.max(east, plan.longitude(i));
+        }
+        double marginLatitude = Math.toDegrees(marginMeters / Geodesy.EARTH_RADIUS_METERS);
+        double widest = Math.max(Math.abs(south), Math.abs(north)) + marginLatitude;
+        double marginLongitude = marginLatitude / Math.cos(Math.toRadians(Math.min(widest, MAX_LATITUDE)));
+        return new TileRegion(name, Math.max(-90, south - marginLatitude), Math.max(-180, west - marginLongitude),
+                Math.min(90, north + marginLatitude), Math.min(180, east + marginLongitude), minZoom, maxZoom);
+    }
+
+    public static int tileX(double longitude, int zoom) {
+        int tiles = 1 << zoom;
+        int x = (int) Math.floor((longitude + 180) / 360 * tiles);
+        return Math.max(0, Math.min(tiles - 1, x));
+    }
+
+    public static int tileY(double latitude, int zoom) {
+        int tiles = 1 << zoom;
+        double radians = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        double mercator = Math.log(Math.tan(radians) + 1 / Math.cos(radians));
+        int y = (int) Math.floor((1 - mercator / Math.PI) / 2 * tiles);
+        return Math.max(0, Math.min(tiles - 1, y));
+    }
+
+    public boolean contains(int zoom, int x, int y) {
+        if (zoom < minZoom || zoom > maxZoom) {
+            return false;
+        }
+        int i = zoom - minZoom;
+        return x >= minX[i] && x <= maxX[i] && y >= minY[i] && y <= maxY[i];
+    }
+
+    public long tileCount() {
+        long count = 0;
+        for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+            count += (long) (maxX(zoom) - minX(zoom) + 1) * (maxY(zoom) - minY(zoom) + 1);
+        }
+        return count;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public double south() {
+        return south;
+    }
+
+    public double west() {
+        return west;
+    }
+
+    public double north() {
+        return north;
+    }
+
+    public double east() {
+        return east;
+    }
+
+    public int minZoom() {
+        return minZoom;
+    }
+
+    public int maxZoom() {
+        return maxZoom;
+    }
+
+    public int minX(int zoom) {
+        return minX[zoom - minZoom];
+    }
+
+    public int maxX(int zoom) {
+        return maxX[zoom - minZoom];
+    }
+
+    public int minY(int zoom) {
+        return minY[zoom - minZoom];
+    }
+
+    public int maxY(int zoom) {
+        return maxY[zoom - minZoom];
+    }
+
+    @Override
+    public String toString() {
+        return name + " [" + south + "," + west + " " + north + "," + east + "] z" + minZoom + "-" + maxZoom;
+    }
+}
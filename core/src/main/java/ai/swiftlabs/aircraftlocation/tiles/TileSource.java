@@ -0,0 +1,15 @@
+package ai.swiftlabs.aircraftlocation.tiles;
+
+import java.io.IOException;
+
+/** Where {@link TilePrefetcher} downloads tiles from, normally an {@link HttpTileSource}. */
+public interface TileSource {
+
+    /**
+     * Called on the prefetch thread.
+     *
+     * @return the tile as served, empty when the server has no data there
+     * @throws IOException when the tile could not be fetched, e.g. without a connection
+     */
+    byte[] fetch(int zoom, int x, int y) throws IOException;
+}
@@ -0,0 +1,106 @@
+package ai.swiftlabs.aircraftlocation.fleet;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpatialGridTest {
+
+    private static final double CELL = 0.05;
+
+    @Test
+    public void findsItemsAcrossTheEquatorAndTheMeridian() {
+        SpatialGrid grid = new SpatialGrid(CELL, 4);
+        grid.put(1, -0.01, -0.01);
+        grid.put(2, 0.01, 0.01);
+        grid.put(3, 10, 10);
+        assertEquals(3, grid.occupiedCells());
+
+        assertEquals(Collections.singletonList(1), query(grid, -0.02, -0.02, -0.005, -0.005));
+        assertEquals(Arrays.asList(1, 2), sorted(query(grid, -0.02, -0.02, 0.02, 0.02)));
+
+        // Moving within a cell changes nothing, moving out of it empties the cell.
+        grid.put(2, 0.02, 0.02);
+        assertEquals(3, grid.occupiedCells());
+        grid.put(2, 10.01, 10.01);
+        assertEquals(2, grid.occupiedCells());
+        assertEquals(Arrays.asList(2, 3), sorted(query(grid, 9.99, 9.99, 10.02, 10.02)));
+
+        grid.remove(3);
+        grid.remove(3);
+        assertFalse(grid.contains(3));
+        assertEquals(Collections.singletonList(2), query(grid, 9.99, 9.99, 10.02, 10.02));
+    }
+
+    @Test
+    public void matchesABruteForceSearchWhileItemsMove() {
+        Random random = new Random(5);
+        SpatialGrid grid = new SpatialGrid(CELL, 16);
+        int items = 2000;
+        double[] latitude = new double[items];
+        double[] longitude = new double[items];
+        boolean[] present = new boolean[items];
+        for (int step = 0; step < 20000; step++) {
+            int item = random.nextInt(items);
+            if (present[item] && random.nextInt(10) == 0) {
+                grid.remove(item);
+                present[item] = false;
+            } else {
+                // Mostly small moves, so cells fill and empty as in a fleet on the move.
+                latitude[item] = present[item] ? latitude[item] + (random.nextDouble() - 0.5) * 0.1
+                        : -1.3 + (random.nextDouble() - 0.5) * 4;
+                longitude[item] = present[item] ? longitude[item] + (random.nextDouble() - 0.5) * 0.1
+                        : 36.9 + (random.nextDouble() - 0.5) * 4;
+                grid.put(item, latitude[item], longitude[item]);
+                present[item] = true;
+            }
+            if (step % 500 != 0) {
+                continue;
+            }
+            // Viewports from street level to the whole area, which walks the table instead.
+            double size = step % 1000 == 0 ? 50 : random.nextDouble() * 0.5;
+            double south = -1.3 + (random.nextDouble() - 0.5) * 4 - size / 2;
+            double west = 36.9 + (random.nextDouble() - 0.5) * 4 - size / 2;
+            List<Integer> found = query(grid, south, west, south + size, west + size);
+            boolean[] seen = new boolean[items];
+            for (int candidate : found) {
+                assertFalse("item " + candidate + " twice", seen[candidate]);
+                seen[candidate] = true;
+                assertTrue(present[candidate]);
+                // In a cell the box touches.
+                assertTrue(latitude[candidate] >= south - CELL && latitude[candidate] <= south + size + CELL);
+                assertTrue(longitude[candidate] >= west - CELL && longitude[candidate] <= west + size + CELL);
+            }
+            for (int i = 0; i < items; i++) {
+                if (present[i] && latitude[i] >= south && latitude[i] <= south + size
+                        && longitude[i] >= west && longitude[i] <= west + size) {
+                    assertTrue("item " + i + " missed", seen[i]);
+                }
+            }
+        }
+    }
+
+    private static List<Integer> query(SpatialGrid grid, double south, double west, double north, double east) {
+        final List<Integer> found = new ArrayList<>();
+        grid.query(south, west, north, east, new SpatialGrid.Visitor() {
+            @Override
+            public void visit(int item) {
+                found.add(item);
+            }
+        });
+        return found;
+    }
+
+    private static List<Integer> sorted(List<Integer> items) {
+        Collections.sort(items);
+        return items;
+    }
+}
@@ -0,0 +1,103 @@
+package ai.swiftlabs.aircraftlocation.geo;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GeodesyTest {
+
+    @Test
+    public void measuresKnownDistances() {
+        // A degree of a great circle on the mean-radius sphere.
+        double degree = Math.PI * Geodesy.EARTH_RADIUS_METERS / 180;
+        assertEquals(degree, Geodesy.haversine(0, 0, 1, 0), 1e-6);
+        assertEquals(degree, Geodesy.haversine(0, 0, 0, 1), 1e-6);
+        assertEquals(degree, Geodesy.haversine(0, 179.5, 0, -179.5), 1e-6);
+
+        // Flinders Peak to Buninyong, Vincenty's own example.
+        assertEquals(54972.271, Geodesy.vincenty(-37.9510334167, 144.4248678889, -37.6528211389, 143.9264955278),
+                1e-3);
+        // A degree of the equator and of the meridian at the equator on WGS84.
+        assertEquals(111319.491, Geodesy.vincenty(0, 0, 0, 1), 1e-3);
+        assertEquals(110574.389, Geodesy.vincenty(0, 0, 1, 0), 1e-3);
+
+        assertEquals(0, Geodesy.vincenty(-1.3, 36.89, -1.3, 36.89), 0);
+        // Antipodal points do not converge and are measured on the sphere.
+        assertEquals(Geodesy.haversine(0, 0, 0.5, 179.7), Geodesy.vincenty(0, 0, 0.5, 179.7), 0);
+    }
+
+    @Test
+    public void formulasAgreeWithinTheirDocumentedBounds() {
+        Random random = new Random(13);
+        for (int i = 0; i < 10000; i++) {
+            double lat1 = (random.nextDouble() - 0.5) * 140;
+            double lng1 = (random.nextDouble() - 0.5) * 360;
+            double bearing = random.nextDouble() * 2 * Math.PI;
+            double meters = 1 + random.nextDouble() * (Geodesy.EQUIRECTANGULAR_MAX_LEG_METERS - 1);
+            double lat2 = lat1 + Math.toDegrees(meters * Math.cos(bearing) / Geodesy.EARTH_RADIUS_METERS);
+            double lng2 = lng1 + Math.toDegrees(meters * Math.sin(bearing) / Geodesy.EARTH_RADIUS_METERS)
+                    / Math.cos(Math.toRadians(lat1));
+            if (Math.abs(lat2) > Geodesy.EQUIRECTANGULAR_MAX_LATITUDE) {
+                continue;
+            }
+            lng2 = lng2 > 180 ? lng2 - 360 : lng2 < -180 ? lng2 + 360 : lng2;
+
+            double haversine = Geodesy.haversine(lat1, lng1, lat2, lng2);
+            double equirectangular = Geodesy.equirectangular(lat1, lng1, lat2, lng2);
+            double vincenty = Geodesy.vincenty(lat1, lng1, lat2, lng2);
+            assertEquals(haversine, equirectangular, haversine * Geodesy.EQUIRECTANGULAR_MAX_RELATIVE_ERROR);
+            assertEquals(vincenty, haversine, vincenty * 0.006);
+            assertEquals(haversine, Geodesy.distance(Geodesy.Formula.HAVERSINE, lat1, lng1, lat2, lng2), 0);
+            assertEquals(vincenty, Geodesy.distance(Geodesy.Formula.VINCENTY, lat1, lng1, lat2, lng2), 0);
+            assertEquals(equirectangular,
+                    Geodesy.distance(Geodesy.Formula.EQUIRECTANGULAR, lat1, lng1, lat2, lng2), 0);
+        }
+    }
+
+    @Test
+    public void bearingsPointAlongTheLeg() {
+        assertEquals(0, Geodesy.initialBearing(-1.3, 36.89, -1.2, 36.89), 1e-9);
+        assertEquals(90, Geodesy.initialBearing(0, 36.89, 0, 36.99), 1e-9);
+        assertEquals(180, Geodesy.initialBearing(-1.2, 36.89, -1.3, 36.89), 1e-9);
+        assertEquals(270, Geodesy.initialBearing(0, 36.99, 0, 36.89), 1e-9);
+        assertEquals(45, Geodesy.initialBearing(0, 0, 1e-4, 1e-4), 1e-3);
+        double bearing = Geodesy.initialBearing(-1.3, 36.89, -1.31, 36.88);
+        assertTrue(bearing >= 0 && bearing < 360);
+        assertEquals(225, bearing, 0.1);
+    }
+
+    @Test
+    public void legsAddUpToThePathLength() {
+        double[] lats = {-1.30, -1.31, -1.31, -1.29, 9};
+        double[] lngs = {36.89, 36.89, 36.90, 36.91, 9};
+        double[] legs = new double[3];
+        double[] bearings = new double[3];
+        for (Geodesy.Formula formula : Geodesy.Formula.values()) {
+            // Only the first four points belong to the path.
+            double length = Geodesy.legLengths(formula, lats, lngs, 4, legs);
+            assertEquals(formula.toString(), length, Geodesy.pathLength(formula, lats, lngs, 4), 0);
+            double sum = 0;
+            for (int i = 0; i < legs.length; i++) {
+                assertEquals(Geodesy.distance(formula, lats[i], lngs[i], lats[i + 1], lngs[i + 1]), legs[i], 0);
+                sum += legs[i];
+            }
+            assertEquals(sum, length, 1e-9);
+        }
+        assertEquals(0, Geodesy.pathLength(Geodesy.Formula.HAVERSINE, lats, lngs, 1), 0);
+
+        Geodesy.bearings(lats, lngs, 4, bearings);
+        assertEquals(180, bearings[0], 1e-9);
+        assertEquals(90, bearings[1], 1e-3);
+        assertEquals(Geodesy.initialBearing(lats[2], lngs[2], lats[3], lngs[3]), bearings[2], 0);
+    }
+
+    @Test
+    public void equirectangularTakesTheShortWayAcrossTheAntimeridian() {
+        assertEquals(Geodesy.haversine(10, 179.99, 10, -179.99), Geodesy.equirectangular(10, 179.99, 10, -179.99),
+                1e-3);
+        assertTrue(Geodesy.equirectangular(10, 179.99, 10, -179.99) < 3000);
+    }
+}
@@ -0,0 +1,171 @@
+package ai.swiftlabs.aircraftlocation.geofence;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import ai.swiftlabs.aircraftlocation.mission.ActionType;
+import ai.swiftlabs.aircraftlocation.mission.MissionLimits;
+import ai.swiftlabs.aircraftlocation.mission.MissionPlan;
+import ai.swiftlabs.aircraftlocation.mission.MissionSettings;
+import ai.swiftlabs.aircraftlocation.mission.MissionValidator;
+import ai.swiftlabs.aircraftlocation.mission.WaypointStore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GeofenceIndexTest {
+
+    private static final double KM = 1 / 111.195;
+    // A 1 km square north-east of the origin with a 200 m wide notch cut 200 m into its north edge.
+    private static final Geofence SITE = new Geofence(1, "site", Geofence.Kind.KEEP_IN,
+            new double[]{0, 0, KM, KM, 0.8 * KM, 0.8 * KM, KM, KM},
+            new double[]{0, KM, KM, 0.6 * KM, 0.6 * KM, 0.4 * KM, 0.4 * KM, 0});
+    private static final Geofence ZONE = new Geofence(2, "zone", Geofence.Kind.KEEP_OUT,
+            new double[]{0.1 * KM, 0.1 * KM, 0.3 * KM, 0.3 * KM},
+            new double[]{0.1 * KM, 0.3 * KM, 0.3 * KM, 0.1 * KM});
+
+    @Test
+    public void findsWhatTestingEveryFenceFinds() {
+        Random random = new Random(7);
+        List<Geofence> fences = new ArrayList<>();
+        for (int id = 0; id < 3000; id++) {
+            fences.add(randomPolygon(random, id));
+        }
+        final GeofenceIndex index = new GeofenceIndex(fences);
+        final BitSet found = new BitSet();
+        BitSet expected = new BitSet();
+        for (int query = 0; query < 2000; query++) {
+            final double lat = -1 + random.nextDouble() * 2;
+            final double lng = 36 + random.nextDouble() * 2;
+            found.clear();
+            index.search(lat, lng, new GeofenceIndex.Visitor() {
+                @Override
+                public void visit(int fence) {
+                    if (index.fence(fence).contains(lat, lng)) {
+                        found.set(index.fence(fence).id());
+                    }
+                }
+            });
+            expected.clear();
+            for (Geofence fence : fences) {
+                if (containsByEveryEdge(fence, lat, lng)) {
+                    expected.set(fence.id());
+                }
+            }
+            assertEquals(expected, found);
+        }
+        assertTrue(SITE.contains(0.5 * KM, 0.5 * KM));
+        assertFalse(SITE.contains(0.9 * KM, 0.5 * KM));
+        assertTrue(SITE.crosses(0.9 * KM, 0.3 * KM, 0.9 * KM, 0.7 * KM));
+        assertFalse(SITE.crosses(0.7 * KM, 0.3 * KM, 0.7 * KM, 0.7 * KM));
+        assertEquals(100, SITE.distanceToBoundary(0.7 * KM, 0.5 * KM, 1000), 0.5);
+    }
+
+    @Test
+    public void alertsOncePastTheHysteresis() {
+        GeofenceIndex index = new GeofenceIndex(Arrays.asList(SITE, ZONE));
+        final List<String> events = new ArrayList<>();
+        GeofenceMonitor monitor = new GeofenceMonitor(index, 10, new GeofenceMonitor.Listener() {
+            @Override
+            public void onFenceChanged(Geofence fence, boolean inside) {
+                events.add((inside ? "enter " : "leave ") + fence.name());
+            }
+
+            @Override
+            public void onBreachChanged(boolean breached) {
+                events.add(breached ? "breached" : "clear");
+            }
+        });
+        monitor.update(0.5 * KM, 0.5 * KM);
+        assertEquals(Arrays.asList("enter site", "clear"), events);
+
+        // Flying east along the zone's middle, over its west edge at 0.1 km, jittering 5 m either side.
+        events.clear();
+        for (int i = 0; i < 20; i++) {
+            monitor.update(0.2 * KM, (0.1 + (i % 2 == 0 ? -0.005 : 0.005)) * KM);
+        }
+        assertTrue(events.isEmpty());
+        monitor.update(0.2 * KM, 0.12 * KM);
+        assertEquals(Arrays.asList("enter zone", "breached"), events);
+
+        // Out of the site through the notch; then far away, where neither fence is looked at.
+        events.clear();
+        monitor.update(0.5 * KM, 0.5 * KM);
+        monitor.update(0.85 * KM, 0.5 * KM);
+        monitor.update(50 * KM, 50 * KM);
+        assertEquals(Arrays.asList("leave zone", "clear", "leave site", "breached"), events);
+        assertEquals(0, monitor.insideCount());
+        assertTrue(monitor.isBreached());
+    }
+
+    @Test
+    public void rejectsMissionsThatEnterNoFlyZonesOrLeaveTheSite() {
+        MissionValidator validator = new MissionValidator(MissionLimits.DJI_WAYPOINT_V1,
+                new GeofenceIndex(Arrays.asList(SITE, ZONE)));
+        // Past the zone, then across the notch, then out of the site.
+        List<MissionValidator.Violation> violations = validator.validate(plan(
+                0.05, 0.05, 0.05, 0.5, 0.5, 0.5, 0.9, 0.3, 0.9, 0.7, 1.2, 0.7));
+        assertEquals(2, violations.size());
+        assertEquals(MissionValidator.Rule.OUTSIDE_GEOFENCE, violations.get(0).rule());
+        assertEquals(4, violations.get(0).index());
+        assertEquals(SITE.id(), violations.get(0).value(), 0);
+        assertEquals(MissionValidator.Rule.OUTSIDE_GEOFENCE, violations.get(1).rule());
+        assertEquals(-1, violations.get(1).value(), 0);
+
+        // Through the zone's corner between two waypoints outside it.
+        violations = validator.validate(plan(0.05, 0.2, 0.2, 0.05, 0.5, 0.05));
+        assertEquals(1, violations.size());
+        assertEquals(MissionValidator.Rule.IN_NO_FLY_ZONE, violations.get(0).rule());
+        assertEquals(1, violations.get(0).index());
+        assertEquals(ZONE.id(), violations.get(0).value(), 0);
+
+        assertEquals(Collections.emptyList(),
+                new MissionValidator(MissionLimits.DJI_WAYPOINT_V1).validate(plan(0.2, 0.2, 1.5, 1.5)));
+    }
+
+    /** Waypoints at 50 m from latitude/longitude pairs in km from the origin. */
+    private static MissionPlan plan(double... kilometers) {
+        WaypointStore store = new WaypointStore();
+        for (int i = 0; i < kilometers.length; i += 2) {
+            store.add(kilometers[i] * KM, kilometers[i + 1] * KM, 50f, ActionType.START_TAKE_PHOTO, 0);
+        }
+        return MissionPlan.snapshot(store, new MissionSettings(50f, 10f, MissionSettings.FinishedAction.GO_HOME,
+                MissionSettings.HeadingMode.AUTO));
+    }
+
+    private static boolean containsByEveryEdge(Geofence fence, double lat, double lng) {
+        boolean inside = false;
+        for (int i = 0, j = fence.vertexCount() - 1; i < fence.vertexCount(); j = i++) {
+            if ((fence.latitude(i) > lat) != (fence.latitude(j) > lat)
+                    && lng < fence.longitude(i) + (lat - fence.latitude(i)) / (fence.latitude(j) - fence.latitude(i))
+                    * (fence.longitude(j) - fence.longitude(i))) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /** A star-shaped polygon of up to 200 vertices and a few km across, near Nairobi. */
+    private static Geofence randomPolygon(Random random, int id) {
+        int n = 3 + random.nextInt(200);
+        double lat = -1 + random.nextDouble() * 2;
+        double lng = 36 + random.nextDouble() * 2;
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            double radius = (0.2 + random.nextDouble()) * 0.02;
+            latitudes[i] = lat + radius * Math.sin(angle);
+            longitudes[i] = lng + radius * Math.cos(angle);
+        }
+        return new Geofence(id, null, random.nextBoolean() ? Geofence.Kind.KEEP_IN : Geofence.Kind.KEEP_OUT,
+                latitudes, longitudes);
+    }
+}
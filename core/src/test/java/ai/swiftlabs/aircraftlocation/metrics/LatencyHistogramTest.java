@@ -0,0 +1,47 @@
+package ai.swiftlabs.aircraftlocation.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (long micros = 1; micros < 1 << 20; micros++) {
+            int bucket = LatencyHistogram.bucket(micros);
+            assertTrue(micros < LatencyHistogram.upperBoundMicros(bucket));
+            assertTrue(bucket == 0 || micros >= LatencyHistogram.upperBoundMicros(bucket - 1));
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinOneBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        assertEquals(1000, histogram.count());
+        assertEquals(500.5, histogram.meanMillis(), 1e-9);
+        assertEquals(1000, histogram.maxMillis(), 0);
+        for (double percentile : new double[] {50, 90, 99}) {
+            double value = histogram.percentileMillis(percentile);
+            assertTrue(value >= percentile * 10 && value <= percentile * 10 * 1.125);
+        }
+        assertEquals(1000, histogram.percentileMillis(100), 0);
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.SECONDS.toNanos(3));
+        histogram.reset();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentileMillis(50), 0);
+    }
+}
@@ -0,0 +1,78 @@
+package ai.swiftlabs.aircraftlocation.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsRegistryTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void metricsAreLookedUpByName() {
+        MetricsRegistry registry = new MetricsRegistry();
+        assertSame(registry.counter("map.symbol_updates"), registry.counter("map.symbol_updates"));
+        try {
+            registry.gauge("map.symbol_updates");
+            throw new AssertionError("a counter was returned as a gauge");
+        } catch (IllegalArgumentException expected) {
+            // A name has one type.
+        }
+    }
+
+    @Test
+    public void snapshotsTurnCountsIntoRates() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter updates = registry.counter("map.symbol_updates");
+        Gauge queue = registry.gauge("ui.queue_depth");
+        LatencyHistogram latency = registry.histogram("telemetry.callback_to_render");
+
+        updates.add(100);
+        MetricsRegistry.Snapshot first = registry.snapshot(0);
+        updates.add(120);
+        queue.increment();
+        queue.increment();
+        queue.decrement();
+        latency.record(TimeUnit.MILLISECONDS.toNanos(20));
+        MetricsRegistry.Snapshot second = registry.snapshot(2 * SECOND);
+
+        assertEquals(220, second.value("map.symbol_updates"));
+        assertEquals(1, second.value("ui.queue_depth"));
+        assertEquals(-1, second.value("missing"));
+        StringBuilder json = new StringBuilder();
+        second.appendJson(json, 1234, first);
+        assertEquals("{\"timeMillis\":1234,\"map.symbol_updates\":{\"count\":220,\"perSecond\":60.00},"
+                + "\"ui.queue_depth\":{\"value\":1,\"max\":2},\"telemetry.callback_to_render\":{\"count\":1,"
+                + "\"meanMs\":20.000,", json.substring(0, json.indexOf("\"p50Ms\"")));
+        StringBuilder text = new StringBuilder();
+        second.appendText(text, first);
+        assertTrue(text.toString(), text.toString().startsWith("map.symbol_updates 220 (60.0/s)\n"));
+    }
+
+    @Test
+    public void frameGapsCountAsDroppedFrames() {
+        MetricsRegistry registry = new MetricsRegistry();
+        long frame = 16_666_667L;
+        FrameMonitor monitor = new FrameMonitor(frame, registry.counter("ui.frames"),
+                registry.counter("ui.dropped_frames"), registry.histogram("ui.frame_interval"));
+
+        long time = 0;
+        for (int i = 0; i < 10; i++) {
+            monitor.onFrame(time += frame + (i % 2 == 0 ? 1_000_000 : -1_000_000));
+        }
+        // One frame late by half an interval and more, then three frames missing.
+        monitor.onFrame(time += frame * 3 / 2 + 1);
+        monitor.onFrame(time += frame * 4);
+        // A pause in monitoring is not a drop.
+        monitor.reset();
+        monitor.onFrame(time + SECOND);
+
+        assertEquals(13, registry.counter("ui.frames").count());
+        assertEquals(4, registry.counter("ui.dropped_frames").count());
+        assertEquals(11, registry.histogram("ui.frame_interval").count());
+    }
+}
@@ -0,0 +1,130 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MissionCompilerTest {
+
+    private static final MissionSettings SETTINGS = new MissionSettings(80f, 10f,
+            MissionSettings.FinishedAction.GO_HOME, MissionSettings.HeadingMode.AUTO);
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final List<MissionPlan> loaded = new ArrayList<>();
+    private final List<MissionCompiler.Report> reports = new ArrayList<>();
+    private final MissionCompiler.Target target = new MissionCompiler.Target() {
+        @Override
+        public String load(MissionPlan plan) {
+            loaded.add(plan);
+            return null;
+        }
+    };
+    private final MissionCompiler.Callback callback = new MissionCompiler.Callback() {
+        @Override
+        public void onCompiled(MissionCompiler.Report report) {
+            reports.add(report);
+        }
+    };
+    private final MissionValidator validator = new MissionValidator(MissionLimits.DJI_WAYPOINT_V1);
+
+    @Test
+    public void loadsTheWaypointsAtTheMissionAltitude() {
+        WaypointStore store = route(3);
+        new MissionCompiler(validator, target, DIRECT, DIRECT).compile(store, SETTINGS, callback);
+
+        MissionCompiler.Report report = reports.get(0);
+        assertEquals(MissionCompiler.Outcome.LOADED, report.outcome());
+        assertFalse(report.isStale());
+        assertEquals(1, loaded.size());
+        assertEquals(3, loaded.get(0).size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(80f, loaded.get(0).altitude(i), 0);
+        }
+        // The store keeps its own altitudes.
+        assertEquals(50f, store.altitude(store.first()), 0);
+    }
+
+    @Test
+    public void reportsEveryViolationWithoutLoading() {
+        WaypointStore store = route(2);
+        store.add(-1.0, 36.89, 50f, ActionType.STAY, 0);
+        store.add(-1.0, 36.89, 50f, ActionType.STAY, 0);
+        MissionSettings settings = new MissionSettings(600f, 20f, MissionSettings.FinishedAction.GO_HOME,
+                MissionSettings.HeadingMode.AUTO);
+        new MissionCompiler(validator, target, DIRECT, DIRECT).compile(store, settings, callback);
+
+        MissionCompiler.Report report = reports.get(0);
+        assertEquals(MissionCompiler.Outcome.INVALID, report.outcome());
+        assertTrue(loaded.isEmpty());
+        List<String> violations = new ArrayList<>();
+        for (MissionValidator.Violation violation : report.violations()) {
+            violations.add(violation.rule() + "@" + violation.index());
+        }
+        assertEquals("[SPEED_OUT_OF_RANGE@-1, ALTITUDE_OUT_OF_RANGE@0, ALTITUDE_OUT_OF_RANGE@1, "
+                + "ALTITUDE_OUT_OF_RANGE@2, LEG_TOO_LONG@2, ALTITUDE_OUT_OF_RANGE@3, LEG_TOO_SHORT@3]",
+                violations.toString());
+        assertEquals(1, validator.validate(MissionPlan.snapshot(route(1), SETTINGS)).size());
+    }
+
+    @Test
+    public void newerRequestSupersedesOneThatWasNotLoadedYet() {
+        QueueExecutor worker = new QueueExecutor();
+        MissionCompiler compiler = new MissionCompiler(validator, target, worker, DIRECT);
+        WaypointStore store = route(3);
+        compiler.compile(store, SETTINGS, callback);
+        store.add(-1.3003, 36.89, 50f, ActionType.STAY, 0);
+        compiler.compile(store, SETTINGS, callback);
+        worker.runAll();
+
+        assertEquals(MissionCompiler.Outcome.SUPERSEDED, reports.get(0).outcome());
+        assertTrue(reports.get(0).isStale());
+        assertEquals(MissionCompiler.Outcome.LOADED, reports.get(1).outcome());
+        assertFalse(reports.get(1).isStale());
+        assertEquals(1, loaded.size());
+        assertEquals(4, loaded.get(0).size());
+
+        // An edit while the mission compiles makes its report stale.
+        compiler.compile(store, SETTINGS, callback);
+        store.move(store.first(), -1.2999, 36.89);
+        worker.runAll();
+        assertEquals(MissionCompiler.Outcome.LOADED, reports.get(2).outcome());
+        assertTrue(reports.get(2).isStale());
+    }
+
+    /** Waypoints 11 m apart at 50 m. */
+    private static WaypointStore route(int waypoints) {
+        WaypointStore store = new WaypointStore();
+        for (int i = 0; i < waypoints; i++) {
+            store.add(-1.30 + i * 1e-4, 36.89, 50f, ActionType.STAY, 0);
+        }
+        return store;
+    }
+
+    private static final class QueueExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+}
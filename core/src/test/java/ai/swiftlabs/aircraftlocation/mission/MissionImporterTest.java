@@ -0,0 +1,182 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MissionImporterTest {
+
+    private static final float DEFAULT_ALTITUDE = 80f;
+
+    private final MissionImporter importer = new MissionImporter(DEFAULT_ALTITUDE, ActionType.STAY, 5, 1000);
+
+    @Test
+    public void readsBackWhatItExports() throws IOException {
+        WaypointStore route = new WaypointStore();
+        for (int i = 0; i < 50; i++) {
+            route.add(-1.3 + i * 1.23456e-5, 36.89 - i * 2.5e-5, 30f + i * 0.25f,
+                    ActionType.fromCode(i % ActionType.values().length), i * 10 - 100);
+        }
+        MissionPlan plan = MissionPlan.snapshot(route, new MissionSettings(Float.NaN, 10f,
+                MissionSettings.FinishedAction.GO_HOME, MissionSettings.HeadingMode.AUTO));
+        for (MissionFormat format : MissionFormat.values()) {
+            StringWriter file = new StringWriter();
+            MissionExporter.write(plan, format, file);
+            WaypointStore store = new WaypointStore();
+            assertEquals(format.toString(), 50, read(file.toString(), format, store));
+            MissionPlan read = MissionPlan.snapshot(store, plan.settings());
+            for (int i = 0; i < plan.size(); i++) {
+                assertEquals(format + " " + i, plan.latitude(i), read.latitude(i), 1e-7);
+                assertEquals(format + " " + i, plan.longitude(i), read.longitude(i), 1e-7);
+                assertEquals(format + " " + i, plan.altitude(i), read.altitude(i), 0.01f);
+                assertEquals(format + " " + i, plan.action(i), read.action(i));
+                assertEquals(format + " " + i, plan.actionParam(i), read.actionParam(i));
+            }
+        }
+    }
+
+    @Test
+    public void readsRoutesAndOutlinesFromKml() throws IOException {
+        String kml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<kml xmlns=\"http://www.opengis.net/kml/2.2\"><Document>\n"
+                + "<Placemark><name>Route</name><LineString><coordinates>\n"
+                + "  36.89,-1.30,0 36.891,-1.301,0\n 36.892, -1.302\n"
+                + "</coordinates></LineString></Placemark>\n"
+                + "<Placemark><Polygon><altitudeMode>relativeToGround</altitudeMode>\n"
+                + "<outerBoundaryIs><LinearRing>"
+                + "<coordinates>36.9,-1.3,40 36.91,-1.3,40 36.91,-1.31,40 36.9,-1.3,40</coordinates>"
+                + "</LinearRing></outerBoundaryIs>\n"
+                + "<innerBoundaryIs><LinearRing><coordinates>36.905,-1.305 36.906,-1.305 36.906,-1.306"
+                + "</coordinates></LinearRing></innerBoundaryIs></Polygon></Placemark>\n"
+                + "<Placemark><Point><coordinates>36.95,-1.35,25</coordinates></Point>"
+                + "<ExtendedData><Data name=\"action\"><value> START_RECORD </value></Data></ExtendedData>"
+                + "</Placemark>\n"
+                + "<Placemark><Point><coordinates>0,0</coordinates></Point></Placemark>\n"
+                + "</Document></kml>\n";
+        WaypointStore store = new WaypointStore();
+        assertEquals(7, read(kml, MissionFormat.KML, store));
+        assertEquals(1, importer.skipped());
+        MissionPlan plan = MissionPlan.snapshot(store, new MissionSettings(Float.NaN, 10f,
+                MissionSettings.FinishedAction.NO_ACTION, MissionSettings.HeadingMode.AUTO));
+        assertEquals(-1.302, plan.latitude(2), 1e-9);
+        assertEquals(36.892, plan.longitude(2), 1e-9);
+        // Clamped to the ground: the altitudes in the file are not heights to fly at.
+        assertEquals(DEFAULT_ALTITUDE, plan.altitude(0), 0);
+        assertEquals(ActionType.STAY, plan.action(0));
+        assertEquals(5, plan.actionParam(0));
+        // The ring without its closing vertex and without the hole.
+        assertEquals(36.91, plan.longitude(5), 1e-9);
+        assertEquals(-1.31, plan.latitude(5), 1e-9);
+        assertEquals(40f, plan.altitude(5), 0);
+        assertEquals(-1.35, plan.latitude(6), 1e-9);
+        assertEquals(ActionType.START_RECORD, plan.action(6));
+        assertEquals(0, plan.actionParam(6));
+    }
+
+    @Test
+    public void readsGeometriesFromGeoJsonInAnyOrder() throws IOException {
+        String json = "{\"type\":\"FeatureCollection\",\"name\":\"a \\\"quoted\\\" \\u00e9 name\",\"features\":[\n"
+                + "{\"type\":\"Feature\",\"properties\":{\"tags\":[{\"x\":[1,2]}],\"n\":null},"
+                + "\"geometry\":{\"coordinates\":[[[36.9,-1.3],[36.91,-1.3],[36.91,-1.31],[36.9,-1.3]]],"
+                + "\"type\":\"Polygon\"}},\n"
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"MultiLineString\",\"coordinates\":"
+                + "[[[36.8,-1.2],[36.81,-1.2],[36.81,-1.21],[36.8,-1.2]]]}},\n"
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[36.95,-1.35,1.5e1]},"
+                + "\"properties\":{\"action\":2,\"actionParam\":7}},\n"
+                + "{\"type\":\"Feature\",\"geometry\":null,\"properties\":{}},\n"
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[200,10],[true,1]]}}\n"
+                + "]}";
+        WaypointStore store = new WaypointStore();
+        assertEquals(8, read(json, MissionFormat.GEOJSON, store));
+        assertEquals(2, importer.skipped());
+        MissionPlan plan = MissionPlan.snapshot(store, new MissionSettings(Float.NaN, 10f,
+                MissionSettings.FinishedAction.NO_ACTION, MissionSettings.HeadingMode.AUTO));
+        // A closed MultiLineString keeps its last vertex, a Polygon ring does not.
+        assertEquals(-1.31, plan.latitude(2), 1e-9);
+        assertEquals(36.8, plan.longitude(6), 1e-9);
+        assertEquals(-1.2, plan.latitude(6), 1e-9);
+        assertEquals(DEFAULT_ALTITUDE, plan.altitude(0), 0);
+        assertEquals(15f, plan.altitude(7), 0);
+        assertEquals(ActionType.START_RECORD, plan.action(7));
+        assertEquals(7, plan.actionParam(7));
+
+        try {
+            read("{\"features\":[{\"geometry\":{\"coordinates\":[[1,2]", MissionFormat.GEOJSON, new WaypointStore());
+            fail();
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith("Malformed GeoJSON"));
+        }
+    }
+
+    @Test
+    public void readsCsvWithOrWithoutAHeader() throws IOException {
+        String withHeader = "Name;Lat;Lon;\"Altitude(m)\";Action\r\n"
+                + "\"Gate; north\";-1.30;36.89;45.5;start_take_photo\r\n"
+                + "\r\n"
+                + "Tower;-1.31;36.88;;\r\n";
+        WaypointStore store = new WaypointStore();
+        assertEquals(2, read(withHeader, MissionFormat.CSV, store));
+        MissionPlan plan = MissionPlan.snapshot(store, new MissionSettings(Float.NaN, 10f,
+                MissionSettings.FinishedAction.NO_ACTION, MissionSettings.HeadingMode.AUTO));
+        assertEquals(-1.30, plan.latitude(0), 1e-9);
+        assertEquals(36.89, plan.longitude(0), 1e-9);
+        assertEquals(45.5f, plan.altitude(0), 0);
+        assertEquals(ActionType.START_TAKE_PHOTO, plan.action(0));
+        assertEquals(0, plan.actionParam(0));
+        assertEquals(DEFAULT_ALTITUDE, plan.altitude(1), 0);
+        assertEquals(ActionType.STAY, plan.action(1));
+        assertEquals(5, plan.actionParam(1));
+
+        store = new WaypointStore();
+        assertEquals(2, read("-1.30,36.89\n-1.31,36.88,50", MissionFormat.CSV, store));
+        assertEquals(50f, store.altitude(store.next(store.first())), 0);
+
+        try {
+            read("name,height\na,1\n", MissionFormat.CSV, new WaypointStore());
+            fail();
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("latitude"));
+        }
+    }
+
+    @Test
+    public void reportsProgressAndStopsAtTheLimit() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            csv.append("-1.3,36.").append(100000 + i).append('\n');
+        }
+        byte[] bytes = csv.toString().getBytes(MissionImporter.UTF_8);
+        final long[] last = new long[2];
+        MissionImporter.Listener listener = new MissionImporter.Listener() {
+            @Override
+            public void onProgress(long bytesRead, int waypoints) {
+                assertTrue(bytesRead >= last[0] && waypoints >= last[1]);
+                last[0] = bytesRead;
+                last[1] = waypoints;
+            }
+        };
+        new MissionImporter(DEFAULT_ALTITUDE, ActionType.STAY, 0, 5000)
+                .read(new ByteArrayInputStream(bytes), MissionFormat.CSV, new WaypointStore(), listener);
+        assertEquals(bytes.length, last[0]);
+        assertEquals(5000, last[1]);
+
+        WaypointStore store = new WaypointStore();
+        try {
+            new MissionImporter(DEFAULT_ALTITUDE, ActionType.STAY, 0, 4999)
+                    .read(new ByteArrayInputStream(bytes), MissionFormat.CSV, store, null);
+            fail();
+        } catch (IOException expected) {
+            assertEquals(4999, store.size());
+        }
+    }
+
+    private int read(String file, MissionFormat format, WaypointStore store) throws IOException {
+        return importer.read(new ByteArrayInputStream(file.getBytes(MissionImporter.UTF_8)), format, store, null);
+    }
+}
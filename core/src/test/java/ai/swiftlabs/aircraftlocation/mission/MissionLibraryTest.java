@@ -0,0 +1,117 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MissionLibraryTest {
+
+    private static final MissionSettings SETTINGS = new MissionSettings(Float.NaN, 8.5f,
+            MissionSettings.FinishedAction.AUTO_LAND, MissionSettings.HeadingMode.USING_WAYPOINT_HEADING);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void savesCompactlyAndLoadsWhatWasSaved() throws IOException {
+        MissionPlan survey = survey(-1.30, 36.89, 1000);
+        MissionPlan other = survey(51.5, -0.12, 20);
+        File directory = folder.newFolder("missions");
+        try (MissionLibrary library = MissionLibrary.open(directory)) {
+            library.save("Site A survey", survey);
+            library.save("London", other);
+        }
+
+        try (MissionLibrary library = MissionLibrary.open(directory)) {
+            List<MissionLibrary.Entry> all = library.list();
+            assertEquals(2, all.size());
+            assertEquals("London", all.get(0).name());
+            MissionLibrary.Entry entry = all.get(1);
+            assertEquals(1000, entry.waypoints());
+            // Against 8 + 8 + 4 + 1 + 4 bytes a waypoint in memory.
+            assertTrue(entry.bodyBytes() + " bytes", entry.bodyBytes() < 1000 * 8);
+            assertEquals(-1.30, entry.minLatitude(), 1e-7);
+
+            assertEquals(1, library.search("SITE", Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                    Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY).size());
+            List<MissionLibrary.Entry> near = library.search("", 51, -1, 52, 0);
+            assertEquals(1, near.size());
+            assertEquals("London", near.get(0).name());
+
+            MissionPlan loaded = library.load(entry.id());
+            assertEquals(survey.size(), loaded.size());
+            for (int i = 0; i < survey.size(); i++) {
+                assertEquals(survey.latitude(i), loaded.latitude(i), 1e-7);
+                assertEquals(survey.longitude(i), loaded.longitude(i), 1e-7);
+                assertEquals(survey.altitude(i), loaded.altitude(i), 0.01f);
+                assertEquals(survey.action(i), loaded.action(i));
+                assertEquals(survey.actionParam(i), loaded.actionParam(i));
+            }
+            assertTrue(Float.isNaN(loaded.settings().altitude()));
+            assertEquals(8.5f, loaded.settings().speed(), 0);
+            assertEquals(MissionSettings.FinishedAction.AUTO_LAND, loaded.settings().finishedAction());
+            assertEquals(MissionSettings.HeadingMode.USING_WAYPOINT_HEADING, loaded.settings().headingMode());
+        }
+    }
+
+    @Test
+    public void keepsIdsThroughCompactionAndDropsATornEntry() throws IOException {
+        File directory = folder.newFolder("missions");
+        long kept;
+        try (MissionLibrary library = MissionLibrary.open(directory)) {
+            long deleted = library.save("first", survey(-1.30, 36.89, 200)).id();
+            kept = library.save("second", survey(-1.31, 36.88, 10)).id();
+            assertTrue(library.delete(deleted));
+            assertFalse(library.delete(deleted));
+            assertNull(library.load(deleted));
+            library.compact();
+            assertEquals(1, library.size());
+            assertEquals(10, library.load(kept).size());
+            library.save("third", survey(-1.32, 36.87, 5));
+        }
+        File[] dataFiles = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(MissionLibraryFormat.DATA_EXTENSION);
+            }
+        });
+        assertEquals(1, dataFiles.length);
+
+        // A crash halfway through writing the last entry.
+        File index = new File(directory, MissionLibraryFormat.INDEX_FILE);
+        try (RandomAccessFile file = new RandomAccessFile(index, "rw")) {
+            file.setLength(file.length() - 10);
+        }
+        try (MissionLibrary library = MissionLibrary.open(directory)) {
+            assertEquals(1, library.size());
+            assertEquals(kept, library.list().get(0).id());
+            assertEquals(10, library.load(kept).size());
+            long next = library.save("fourth", survey(-1.33, 36.86, 3)).id();
+            assertTrue(next > kept);
+            assertEquals(2, library.size());
+        }
+    }
+
+    /** Back-and-forth lines 30 m apart with a photo every 10 m. */
+    private static MissionPlan survey(double latitude, double longitude, int waypoints) {
+        WaypointStore store = new WaypointStore();
+        for (int i = 0; i < waypoints; i++) {
+            int line = i / 50;
+            int along = line % 2 == 0 ? i % 50 : 49 - i % 50;
+            store.add(latitude + line * 2.7e-4, longitude + along * 9e-5, 60f + (i % 7) * 0.25f,
+                    ActionType.START_TAKE_PHOTO, i % 3);
+        }
+        return MissionPlan.snapshot(store, SETTINGS);
+    }
+}
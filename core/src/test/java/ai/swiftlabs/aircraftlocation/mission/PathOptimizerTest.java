@@ -0,0 +1,144 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import ai.swiftlabs.aircraftlocation.geo.LocalTangentPlane;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PathOptimizerTest {
+
+    private static final MissionSettings SETTINGS = new MissionSettings(Float.NaN, 10f,
+            MissionSettings.FinishedAction.NO_ACTION, MissionSettings.HeadingMode.AUTO);
+    private static final LocalTangentPlane PLANE = new LocalTangentPlane(-1.30, 36.89);
+
+    private final PathOptimizer optimizer = new PathOptimizer();
+
+    @Test
+    public void reorderingKeepsTheStartAndVisitsEveryWaypointOnce() throws InterruptedException {
+        Random random = new Random(7);
+        WaypointStore store = new WaypointStore();
+        for (int i = 0; i < 300; i++) {
+            // The action parameter tells which input waypoint an output one is.
+            add(store, random.nextDouble() * 2000, random.nextDouble() * 2000, 60f, i);
+        }
+        MissionPlan plan = MissionPlan.snapshot(store, SETTINGS);
+
+        PathOptimizer.Result result = optimizer.optimize(plan,
+                new PathOptimizer.Options(true, PathOptimizer.Simplification.NONE, 0));
+        MissionPlan optimized = result.plan();
+
+        assertTrue(result.reordered());
+        assertEquals(0, result.removedWaypoints());
+        assertEquals(plan.size(), optimized.size());
+        assertEquals(0, optimized.actionParam(0));
+        boolean[] seen = new boolean[plan.size()];
+        for (int i = 0; i < optimized.size(); i++) {
+            int source = optimized.actionParam(i);
+            assertFalse("waypoint " + source + " twice", seen[source]);
+            seen[source] = true;
+            assertEquals(plan.latitude(source), optimized.latitude(i), 0);
+            assertEquals(plan.longitude(source), optimized.longitude(i), 0);
+        }
+        // A random order is several times longer than a tour through the same points.
+        assertTrue(result.toString(), result.lengthAfterMeters() < result.lengthBeforeMeters() / 3);
+    }
+
+    @Test
+    public void reorderingNeverLengthensTheRoute() throws InterruptedException {
+        Random random = new Random(11);
+        PathOptimizer.Options reorder = new PathOptimizer.Options(true, PathOptimizer.Simplification.NONE, 0);
+        for (int trial = 0; trial < 20; trial++) {
+            WaypointStore store = new WaypointStore();
+            int count = 3 + random.nextInt(60);
+            for (int i = 0; i < count; i++) {
+                add(store, random.nextDouble() * 500, random.nextDouble() * 500, 60f, i);
+            }
+            PathOptimizer.Result result = optimizer.optimize(MissionPlan.snapshot(store, SETTINGS), reorder);
+            assertTrue(result.toString(), result.lengthAfterMeters() <= result.lengthBeforeMeters() + 1e-6);
+        }
+
+        // A route already flown in the best order comes back as it was.
+        WaypointStore line = new WaypointStore();
+        for (int i = 0; i < 20; i++) {
+            add(line, i * 25, 0, 60f, i);
+        }
+        MissionPlan plan = MissionPlan.snapshot(line, SETTINGS);
+        PathOptimizer.Result result = optimizer.optimize(plan, reorder);
+        assertFalse(result.changed());
+        assertSame(plan, result.plan());
+    }
+
+    @Test
+    public void collinearWaypointsReduceToTheEndpoints() throws InterruptedException {
+        WaypointStore store = new WaypointStore();
+        for (int i = 0; i < 50; i++) {
+            add(store, i * 10, i * 5, 60f, i);
+        }
+        MissionPlan plan = MissionPlan.snapshot(store, SETTINGS);
+        for (PathOptimizer.Simplification simplification : new PathOptimizer.Simplification[]{
+                PathOptimizer.Simplification.DOUGLAS_PEUCKER, PathOptimizer.Simplification.VISVALINGAM}) {
+            MissionPlan simplified = optimizer.optimize(plan,
+                    new PathOptimizer.Options(false, simplification, 1)).plan();
+            assertEquals(simplification.toString(), 2, simplified.size());
+            assertEquals(0, simplified.actionParam(0));
+            assertEquals(49, simplified.actionParam(1));
+        }
+
+        // A climb in the middle of the line is a change of path too.
+        store.setAltitude(store.next(store.next(store.first())), 90f);
+        MissionPlan climbing = optimizer.optimize(MissionPlan.snapshot(store, SETTINGS),
+                new PathOptimizer.Options(false, PathOptimizer.Simplification.DOUGLAS_PEUCKER, 1)).plan();
+        boolean kept = false;
+        for (int i = 0; i < climbing.size(); i++) {
+            kept |= climbing.actionParam(i) == 2;
+        }
+        assertTrue(kept);
+    }
+
+    @Test
+    public void simplificationStaysWithinTheTolerance() throws InterruptedException {
+        // A zigzag 4 m either side of a straight line.
+        WaypointStore store = new WaypointStore();
+        for (int i = 0; i < 101; i++) {
+            add(store, i * 20, i % 2 == 0 ? -4 : 4, 60f, i);
+        }
+        MissionPlan plan = MissionPlan.snapshot(store, SETTINGS);
+        for (PathOptimizer.Simplification simplification : new PathOptimizer.Simplification[]{
+                PathOptimizer.Simplification.DOUGLAS_PEUCKER, PathOptimizer.Simplification.VISVALINGAM}) {
+            assertEquals(simplification.toString(), plan.size(), optimizer.optimize(plan,
+                    new PathOptimizer.Options(false, simplification, 2)).plan().size());
+        }
+
+        MissionPlan simplified = optimizer.optimize(plan,
+                new PathOptimizer.Options(false, PathOptimizer.Simplification.DOUGLAS_PEUCKER, 10)).plan();
+        assertTrue(simplified.size() < plan.size());
+        for (int kept = 1; kept < simplified.size(); kept++) {
+            int from = simplified.actionParam(kept - 1);
+            int to = simplified.actionParam(kept);
+            for (int removed = from + 1; removed < to; removed++) {
+                assertTrue("waypoint " + removed, distanceToSegment(plan, removed, from, to) <= 10);
+            }
+        }
+    }
+
+    private static void add(WaypointStore store, double east, double north, float altitude, int tag) {
+        store.add(PLANE.latitude(north), PLANE.longitude(east), altitude, ActionType.STAY, tag);
+    }
+
+    private static double distanceToSegment(MissionPlan plan, int p, int a, int b) {
+        double ax = PLANE.east(plan.longitude(a));
+        double ay = PLANE.north(plan.latitude(a));
+        double abx = PLANE.east(plan.longitude(b)) - ax;
+        double aby = PLANE.north(plan.latitude(b)) - ay;
+        double apx = PLANE.east(plan.longitude(p)) - ax;
+        double apy = PLANE.north(plan.latitude(p)) - ay;
+        double t = Math.max(0, Math.min(1, (apx * abx + apy * aby) / (abx * abx + aby * aby)));
+        return Math.hypot(apx - t * abx, apy - t * aby);
+    }
+}
@@ -0,0 +1,177 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RetryingMissionOperatorTest {
+
+    private static final String NO_ANSWER = "no answer";
+    private static final RetryPolicy FAST = new RetryPolicy(3, 1, 4, 2, 0.5, 50);
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ScriptedOperator delegate = new ScriptedOperator();
+    private final BlockingQueue<String> results = new LinkedBlockingQueue<>();
+    private final MissionOperator.Completion completion = new MissionOperator.Completion() {
+        @Override
+        public void onResult(String error) {
+            results.add(error == null ? "ok" : error);
+        }
+    };
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void transientFailuresAreRetried() throws InterruptedException {
+        RetryingMissionOperator operator = operator(FAST, new CircuitBreaker(10, 1000));
+        delegate.script("busy", "busy", null);
+
+        operator.upload(completion);
+
+        assertEquals("ok", next());
+        RetryingMissionOperator.Stats stats = operator.stats(RetryingMissionOperator.Operation.UPLOAD);
+        assertEquals(3, stats.attempts());
+        assertEquals(2, stats.retries());
+        assertEquals(1, stats.successes());
+        assertEquals(3, stats.latency().count());
+    }
+
+    @Test
+    public void lastErrorIsReportedOnceAttemptsRunOut() throws InterruptedException {
+        RetryingMissionOperator operator = operator(FAST, new CircuitBreaker(10, 1000));
+        delegate.script("busy", NO_ANSWER, "rejected");
+
+        operator.start(completion);
+
+        assertEquals("rejected (after 3 attempts)", next());
+        RetryingMissionOperator.Stats stats = operator.stats(RetryingMissionOperator.Operation.START);
+        assertEquals(3, stats.failures());
+        assertEquals(1, stats.timeouts());
+        assertNull(results.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void openBreakerFailsFastUntilAProbeSucceeds() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(2, 30);
+        RetryingMissionOperator operator = operator(RetryPolicy.NONE, breaker);
+        delegate.script("busy", "busy", null);
+
+        operator.upload(completion);
+        operator.upload(completion);
+        assertEquals("busy", next());
+        assertEquals("busy", next());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        operator.upload(completion);
+        assertEquals(RetryingMissionOperator.CIRCUIT_OPEN, next());
+        assertEquals(1, operator.stats(RetryingMissionOperator.Operation.UPLOAD).rejected());
+
+        Thread.sleep(40);
+        operator.upload(completion);
+        assertEquals("ok", next());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    public void stopCancelsPendingRetries() throws InterruptedException {
+        RetryingMissionOperator operator = operator(new RetryPolicy(5, 1000, 1000, 1, 0, 50),
+                new CircuitBreaker(10, 1000));
+        delegate.script("busy", null);
+
+        operator.upload(completion);
+        operator.stop(completion);
+
+        assertEquals(RetryingMissionOperator.CANCELLED, next());
+        assertEquals("ok", next());
+        assertEquals(1, operator.stats(RetryingMissionOperator.Operation.UPLOAD).cancelled());
+        assertEquals(1, operator.stats(RetryingMissionOperator.Operation.STOP).successes());
+    }
+
+    @Test
+    public void jitterKeepsDelaysWithinTheBackoffBound() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 1000, 2, 0.5, 1000);
+        Random random = new Random(1);
+        for (int retry = 1; retry < 10; retry++) {
+            long bound = Math.min(1000, 100L << (retry - 1));
+            for (int i = 0; i < 100; i++) {
+                long delay = policy.delayMillis(retry, random);
+                assertTrue(delay <= bound && delay >= bound / 2);
+            }
+        }
+    }
+
+    private RetryingMissionOperator operator(RetryPolicy policy, CircuitBreaker breaker) {
+        return new RetryingMissionOperator(delegate, policy, breaker, scheduler, new Random(1));
+    }
+
+    private String next() throws InterruptedException {
+        String result = results.poll(2, TimeUnit.SECONDS);
+        assertTrue("no completion", result != null);
+        return result;
+    }
+
+    /** Answers each operation with the next scripted result, synchronously; {@code null} is success. */
+    private static final class ScriptedOperator implements MissionOperator {
+        private final Queue<String> script = new ArrayDeque<>();
+
+        synchronized void script(String... results) {
+            for (String result : results) {
+                script.add(result == null ? "" : result);
+            }
+        }
+
+        @Override
+        public String load(MissionPlan plan) {
+            return null;
+        }
+
+        @Override
+        public void upload(Completion completion) {
+            answer(completion);
+        }
+
+        @Override
+        public void start(Completion completion) {
+            answer(completion);
+        }
+
+        @Override
+        public void stop(Completion completion) {
+            answer(completion);
+        }
+
+        @Override
+        public void addListener(Listener listener) {
+        }
+
+        @Override
+        public void removeListener(Listener listener) {
+        }
+
+        private void answer(Completion completion) {
+            String result;
+            synchronized (this) {
+                result = script.poll();
+            }
+            if (result == null || NO_ANSWER.equals(result)) {
+                return;
+            }
+            completion.onResult(result.isEmpty() ? null : result);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentedMissionRunnerTest {
+
+    private static final MissionSettings SETTINGS = new MissionSettings(60f, 10f,
+            MissionSettings.FinishedAction.GO_HOME, MissionSettings.HeadingMode.AUTO);
+
+    private final QueueExecutor worker = new QueueExecutor();
+    private final Executor control = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+    private final FakeOperator operator = new FakeOperator();
+    private final RecordingListener listener = new RecordingListener();
+    private final MissionValidator validator = new MissionValidator(MissionLimits.DJI_WAYPOINT_V1);
+
+    private MissionPlan route;
+
+    @Before
+    public void setUp() {
+        WaypointStore store = new WaypointStore();
+        for (int i = 0; i < 250; i++) {
+            store.add(-1.30 + i * 1e-4, 36.89, 60f, ActionType.START_TAKE_PHOTO, 0);
+        }
+        route = MissionPlan.snapshot(store, SETTINGS);
+    }
+
+    @Test
+    public void segmentsShareTheirBoundaryWaypoints() {
+        List<MissionPlan> segments = MissionSegmenter.split(route, 99);
+
+        assertEquals(3, segments.size());
+        int covered = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            MissionPlan segment = segments.get(i);
+            assertTrue(segment.size() <= 99);
+            assertEquals(route.latitude(covered), segment.latitude(0), 0);
+            assertEquals(i == segments.size() - 1 ? MissionSettings.FinishedAction.GO_HOME
+                    : MissionSettings.FinishedAction.NO_ACTION, segment.settings().finishedAction());
+            covered += segment.size() - 1;
+        }
+        assertEquals(route.size() - 1, covered);
+    }
+
+    @Test
+    public void surveyChunksFinishTheMissionOnlyAfterTheLast() {
+        // A 1.5 km by 1 km field, in chunks of 20 waypoints.
+        double[] latitudes = {-1.30, -1.30, -1.2865, -1.2865};
+        double[] longitudes = {36.89, 36.899, 36.899, 36.89};
+        final List<MissionPlan> chunks = new ArrayList<>();
+        MissionChunker chunker = new MissionChunker(SETTINGS, 20, 60f, ActionType.START_TAKE_PHOTO, 0,
+                new MissionChunker.Listener() {
+                    @Override
+                    public void onChunk(MissionPlan chunk, int index) {
+                        chunks.add(chunk);
+                    }
+                });
+        new SurveyGridGenerator().generate(latitudes, longitudes, 4,
+                new SurveyParameters(60f, 0.7f, Double.NaN), chunker);
+        chunker.finish();
+        assertTrue(chunks.size() > 1);
+
+        SegmentedMissionRunner runner = runner(chunks);
+        runner.start();
+        for (int i = 0; i < chunks.size(); i++) {
+            while (worker.pending() > 0) {
+                worker.runNext();
+            }
+            assertEquals(i + 1, operator.loaded.size());
+            assertEquals(i == chunks.size() - 1 ? MissionSettings.FinishedAction.GO_HOME
+                    : MissionSettings.FinishedAction.NO_ACTION, operator.loaded.get(i).settings().finishedAction());
+            operator.finishExecution(null);
+        }
+        assertEquals(SegmentedMissionRunner.State.COMPLETED, runner.state());
+    }
+
+    @Test
+    public void nextSegmentIsPreparedWhileTheCurrentOneFlies() {
+        SegmentedMissionRunner runner = runner(MissionSegmenter.split(route, 99));
+        runner.start();
+        worker.runNext();
+
+        assertEquals(1, operator.loaded.size());
+        assertEquals(1, operator.started);
+
+        // Segment 2 is validated during the flight of segment 1 ...
+        assertEquals(1, worker.pending());
+        worker.runNext();
+        assertEquals(0, worker.pending());
+        // ... so the end of segment 1 loads and starts segment 2 without waiting for the worker.
+        operator.finishExecution(null);
+        assertEquals(2, operator.loaded.size());
+        assertEquals(2, operator.started);
+
+        worker.runNext();
+        operator.finishExecution(null);
+        operator.finishExecution(null);
+
+        assertEquals(SegmentedMissionRunner.State.COMPLETED, runner.state());
+        assertEquals(SegmentedMissionRunner.State.COMPLETED, listener.finishedState);
+        assertNull(listener.error);
+        assertEquals(3, listener.segmentsStarted);
+        assertEquals(listener.total, listener.reached);
+        assertTrue(operator.listeners.isEmpty());
+    }
+
+    @Test
+    public void segmentThatIsNotPreparedYetIsLaunchedOnceItIs() {
+        SegmentedMissionRunner runner = runner(MissionSegmenter.split(route, 99));
+        runner.start();
+        worker.runNext();
+
+        operator.finishExecution(null);
+        assertEquals(1, operator.loaded.size());
+        worker.runNext();
+
+        assertEquals(2, operator.loaded.size());
+        assertEquals(1, runner.currentSegment());
+    }
+
+    @Test
+    public void progressBeforeTheFirstSegmentLaunchesIsIgnored() {
+        SegmentedMissionRunner runner = runner(MissionSegmenter.split(route, 99));
+        runner.start();
+        // A mission still flying from before reports progress while segment 1 is being prepared.
+        for (MissionOperator.Listener operatorListener : new ArrayList<>(operator.listeners)) {
+            operatorListener.onUploadProgress(5, 10);
+            operatorListener.onExecutionProgress(3, 10);
+        }
+        assertEquals(0, listener.uploads);
+        assertEquals(0, listener.reached);
+
+        worker.runNext();
+        assertEquals(1, listener.uploads);
+        assertEquals(0, listener.uploadSegment);
+        assertEquals(0, runner.currentSegment());
+    }
+
+    @Test
+    public void uploadErrorFailsTheRun() {
+        SegmentedMissionRunner runner = runner(MissionSegmenter.split(route, 99));
+        operator.uploadError = "timeout";
+        runner.start();
+        worker.runNext();
+
+        assertEquals(SegmentedMissionRunner.State.FAILED, runner.state());
+        assertEquals("segment 1/3: timeout", listener.error);
+        assertEquals(0, operator.started);
+    }
+
+    @Test
+    public void invalidSegmentIsReportedBeforeItIsLoaded() {
+        List<MissionPlan> segments = MissionSegmenter.split(route, 99);
+        segments.get(1).latitude[3] += 0.1;
+        SegmentedMissionRunner runner = runner(segments);
+        runner.start();
+        worker.runNext();
+        worker.runNext();
+        operator.finishExecution(null);
+
+        assertEquals(SegmentedMissionRunner.State.FAILED, runner.state());
+        assertTrue(listener.error, listener.error.startsWith("segment 2/3: waypoint 4: LEG_TOO_LONG"));
+        assertEquals(1, operator.loaded.size());
+    }
+
+    @Test
+    public void cancelStopsTheAircraft() {
+        SegmentedMissionRunner runner = runner(MissionSegmenter.split(route, 99));
+        runner.start();
+        worker.runNext();
+        runner.cancel();
+        operator.finishExecution(null);
+
+        assertEquals(SegmentedMissionRunner.State.CANCELLED, runner.state());
+        assertEquals(1, operator.stopped);
+        assertEquals(1, operator.loaded.size());
+    }
+
+    private SegmentedMissionRunner runner(List<MissionPlan> segments) {
+        return new SegmentedMissionRunner(segments, validator, operator, worker, control, listener);
+    }
+
+    /** Runs tasks only when asked to, so the test decides when background work completes. */
+    private static final class QueueExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        int pending() {
+            return tasks.size();
+        }
+
+        void runNext() {
+            tasks.poll().run();
+        }
+    }
+
+    /** Completes uploads and starts immediately; execution ends when the test says so. */
+    private static final class FakeOperator implements MissionOperator {
+        final List<MissionPlan> loaded = new ArrayList<>();
+        final List<Listener> listeners = new ArrayList<>();
+        String uploadError;
+        int started;
+        int stopped;
+
+        @Override
+        public String load(MissionPlan plan) {
+            loaded.add(plan);
+            return null;
+        }
+
+        @Override
+        public void upload(Completion completion) {
+            MissionPlan plan = loaded.get(loaded.size() - 1);
+            for (Listener listener : new ArrayList<>(listeners)) {
+                listener.onUploadProgress(plan.size(), plan.size());
+            }
+            completion.onResult(uploadError);
+        }
+
+        @Override
+        public void start(Completion completion) {
+            started++;
+            completion.onResult(null);
+        }
+
+        @Override
+        public void stop(Completion completion) {
+            stopped++;
+            completion.onResult(null);
+        }
+
+        @Override
+        public void addListener(Listener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeListener(Listener listener) {
+            listeners.remove(listener);
+        }
+
+        void finishExecution(String error) {
+            for (Listener listener : new ArrayList<>(listeners)) {
+                listener.onExecutionFinish(error);
+            }
+        }
+    }
+
+    private static final class RecordingListener implements SegmentedMissionRunner.Listener {
+        int segmentsStarted;
+        int uploads;
+        int uploadSegment = -1;
+        int reached;
+        int total;
+        SegmentedMissionRunner.State finishedState;
+        String error;
+
+        @Override
+        public void onSegmentStarted(int segment, int segments) {
+            segmentsStarted++;
+        }
+
+        @Override
+        public void onUploadProgress(int segment, int uploadedWaypoints, int totalWaypoints) {
+            uploads++;
+            uploadSegment = segment;
+        }
+
+        @Override
+        public void onProgress(int waypointsReached, int totalWaypoints) {
+            reached = waypointsReached;
+            total = totalWaypoints;
+        }
+
+        @Override
+        public void onFinished(SegmentedMissionRunner.State state, String error) {
+            finishedState = state;
+            this.error = error;
+        }
+    }
+}
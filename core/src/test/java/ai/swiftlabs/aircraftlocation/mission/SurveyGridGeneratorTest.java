@@ -0,0 +1,207 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ai.swiftlabs.aircraftlocation.geo.LocalTangentPlane;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SurveyGridGeneratorTest {
+
+    private static final LocalTangentPlane PLANE = new LocalTangentPlane(-1.30, 36.89);
+    private static final SurveyParameters NORTH = new SurveyParameters(60f, 0.7f, 0);
+    private static final MissionSettings SETTINGS = new MissionSettings(60f, 10f,
+            MissionSettings.FinishedAction.GO_HOME, MissionSettings.HeadingMode.AUTO);
+
+    private final SurveyGridGenerator generator = new SurveyGridGenerator();
+
+    @Test
+    public void coversARectangleWithAlternatingLines() {
+        // 600 m east by 1000 m north, lines running north.
+        Recorder grid = generate(new double[]{0, 600, 600, 0}, new double[]{0, 0, 1000, 1000}, NORTH);
+        double spacing = NORTH.lineSpacing();
+        int lines = (int) Math.ceil(600 / spacing);
+
+        assertEquals(lines, grid.lineEnds.size());
+        assertEquals(2 * lines, grid.east.size());
+        for (int line = 0; line < lines; line++) {
+            assertEquals(2 * line + 2, grid.lineEnds.get(line).intValue());
+            int entry = 2 * line;
+            assertEquals(grid.east.get(entry), grid.east.get(entry + 1), 1e-6);
+            assertTrue(grid.east.get(entry) >= -1e-6 && grid.east.get(entry) <= 600 + 1e-6);
+            // Lines span the field and alternate direction.
+            assertEquals(line % 2 == 0 ? 0 : 1000, grid.north.get(entry), 1e-3);
+            assertEquals(line % 2 == 0 ? 1000 : 0, grid.north.get(entry + 1), 1e-3);
+            if (line > 0) {
+                assertEquals(spacing, grid.east.get(entry) - grid.east.get(entry - 2), 1e-3);
+            }
+        }
+        // The lines are centred on the field.
+        assertEquals(600 - grid.east.get(2 * lines - 1), grid.east.get(0), 1e-3);
+    }
+
+    @Test
+    public void givesTheSameGridForEitherWinding() {
+        double[] east = {0, 500, 700, 300, -100};
+        double[] north = {0, -50, 400, 800, 350};
+        double[] reversedEast = new double[east.length];
+        double[] reversedNorth = new double[north.length];
+        for (int i = 0; i < east.length; i++) {
+            reversedEast[i] = east[east.length - 1 - i];
+            reversedNorth[i] = north[north.length - 1 - i];
+        }
+        SurveyParameters parameters = new SurveyParameters(60f, 0.7f, 30);
+        Recorder grid = generate(east, north, parameters);
+        Recorder reversed = generate(reversedEast, reversedNorth, parameters);
+
+        assertTrue(grid.east.size() > 20);
+        assertEquals(grid.east.size(), reversed.east.size());
+        for (int i = 0; i < grid.east.size(); i++) {
+            assertEquals(grid.east.get(i), reversed.east.get(i), 1e-6);
+            assertEquals(grid.north.get(i), reversed.north.get(i), 1e-6);
+        }
+    }
+
+    @Test
+    public void fliesEachSpanOfAConcaveField() {
+        // A U open to the north: east-running lines above its base cross both arms.
+        Recorder grid = generate(new double[]{0, 300, 300, 200, 200, 100, 100, 0},
+                new double[]{0, 0, 500, 500, 100, 100, 500, 500}, new SurveyParameters(60f, 0.7f, 90));
+        boolean twoSpans = false;
+        int start = 0;
+        for (int end : grid.lineEnds) {
+            assertTrue(end - start == 2 || end - start == 4);
+            for (int i = start; i < end; i++) {
+                double east = grid.east.get(i);
+                double north = grid.north.get(i);
+                // On the boundary of the U, never inside the gap between its arms.
+                assertTrue(east >= -1e-6 && east <= 300 + 1e-6 && north >= -1e-3 && north <= 500 + 1e-3);
+                assertTrue(east <= 100 + 1e-6 || east >= 200 - 1e-6 || north <= 100 + 1e-3);
+            }
+            twoSpans |= end - start == 4;
+            start = end;
+        }
+        assertTrue(twoSpans);
+    }
+
+    @Test
+    public void rejectsAPolygonOfFewerThanThreePoints() {
+        try {
+            generate(new double[]{0, 100}, new double[]{0, 100}, NORTH);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void chunksAtLineEndsAndLosesNoWaypoint() {
+        final Recorder all = new Recorder();
+        final List<MissionPlan> chunks = new ArrayList<>();
+        final MissionChunker chunker = new MissionChunker(SETTINGS, 7, 60f, ActionType.START_TAKE_PHOTO, 0,
+                new MissionChunker.Listener() {
+                    @Override
+                    public void onChunk(MissionPlan chunk, int index) {
+                        assertEquals(chunks.size(), index);
+                        chunks.add(chunk);
+                    }
+                });
+        double[] latitudes = new double[4];
+        double[] longitudes = new double[4];
+        project(new double[]{0, 600, 600, 0}, new double[]{0, 0, 1000, 1000}, latitudes, longitudes);
+        int emitted = generator.generate(latitudes, longitudes, 4, NORTH, new SurveyGridGenerator.Sink() {
+            @Override
+            public void onWaypoint(double latitude, double longitude) {
+                all.onWaypoint(latitude, longitude);
+                chunker.onWaypoint(latitude, longitude);
+            }
+
+            @Override
+            public void onLineEnd() {
+                chunker.onLineEnd();
+            }
+        });
+        chunker.finish();
+
+        assertEquals(chunks.size(), chunker.chunkCount());
+        assertTrue(chunks.size() > 2);
+        int index = 0;
+        for (int c = 0; c < chunks.size(); c++) {
+            MissionPlan chunk = chunks.get(c);
+            assertTrue(chunk.size() <= 7);
+            // Lines here are two waypoints, so a chunk cut at a line end is even.
+            assertEquals(0, chunk.size() % 2);
+            assertEquals(c == chunks.size() - 1 ? MissionSettings.FinishedAction.GO_HOME
+                    : MissionSettings.FinishedAction.NO_ACTION, chunk.settings().finishedAction());
+            for (int i = 0; i < chunk.size(); i++) {
+                assertEquals(all.east.get(index), PLANE.east(chunk.longitude(i)), 1e-6);
+                assertEquals(all.north.get(index), PLANE.north(chunk.latitude(i)), 1e-6);
+                assertEquals(60f, chunk.altitude(i), 0);
+                assertEquals(ActionType.START_TAKE_PHOTO, chunk.action(i));
+                index++;
+            }
+        }
+        assertEquals(emitted, index);
+    }
+
+    @Test
+    public void splitsALineLongerThanAChunk() {
+        final List<MissionPlan> chunks = new ArrayList<>();
+        MissionChunker chunker = new MissionChunker(SETTINGS, 3, 60f, ActionType.STAY, 0,
+                new MissionChunker.Listener() {
+                    @Override
+                    public void onChunk(MissionPlan chunk, int index) {
+                        chunks.add(chunk);
+                    }
+                });
+        for (int i = 0; i < 5; i++) {
+            chunker.onWaypoint(-1.30 + i * 1e-4, 36.89);
+        }
+        chunker.onLineEnd();
+        chunker.finish();
+
+        assertEquals(2, chunks.size());
+        assertEquals(3, chunks.get(0).size());
+        assertEquals(2, chunks.get(1).size());
+        assertEquals(-1.30 + 3e-4, chunks.get(1).latitude(0), 0);
+    }
+
+    private Recorder generate(double[] east, double[] north, SurveyParameters parameters) {
+        double[] latitudes = new double[east.length];
+        double[] longitudes = new double[east.length];
+        project(east, north, latitudes, longitudes);
+        Recorder recorder = new Recorder();
+        assertEquals(generator.generate(latitudes, longitudes, east.length, parameters, recorder),
+                recorder.east.size());
+        return recorder;
+    }
+
+    private static void project(double[] east, double[] north, double[] latitudes, double[] longitudes) {
+        for (int i = 0; i < east.length; i++) {
+            latitudes[i] = PLANE.latitude(north[i]);
+            longitudes[i] = PLANE.longitude(east[i]);
+        }
+    }
+
+    /** Records the grid in meters on {@link #PLANE}, and the waypoint count at each line end. */
+    private static final class Recorder implements SurveyGridGenerator.Sink {
+        final List<Double> east = new ArrayList<>();
+        final List<Double> north = new ArrayList<>();
+        final List<Integer> lineEnds = new ArrayList<>();
+
+        @Override
+        public void onWaypoint(double latitude, double longitude) {
+            east.add(PLANE.east(longitude));
+            north.add(PLANE.north(latitude));
+        }
+
+        @Override
+        public void onLineEnd() {
+            lineEnds.add(east.size());
+        }
+    }
+}
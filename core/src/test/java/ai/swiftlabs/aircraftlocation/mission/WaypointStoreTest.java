@@ -0,0 +1,114 @@
+package ai.swiftlabs.aircraftlocation.mission;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WaypointStoreTest {
+
+    @Test
+    public void handlesSurviveEditsOfOtherWaypoints() {
+        WaypointStore store = new WaypointStore(2);
+        final List<String> events = new ArrayList<>();
+        store.addListener(new WaypointStore.Listener() {
+            @Override
+            public void onWaypointAdded(int handle) {
+                events.add("added " + handle);
+            }
+
+            @Override
+            public void onWaypointChanged(int handle) {
+                events.add("changed " + handle);
+            }
+
+            @Override
+            public void onWaypointRemoved(int handle) {
+                events.add("removed " + handle);
+            }
+
+            @Override
+            public void onWaypointsCleared() {
+                events.add("cleared");
+            }
+        });
+        int a = store.add(-1.30, 36.89, 50f, ActionType.STAY, 1000);
+        int b = store.add(-1.31, 36.88, 60f, ActionType.START_TAKE_PHOTO, 0);
+        int c = store.add(-1.32, 36.87, 70f, ActionType.START_RECORD, 0);
+        int modifications = store.modificationCount();
+
+        store.remove(b);
+        store.move(c, -1.33, 36.86);
+        store.setAction(a, ActionType.ROTATE_AIRCRAFT, 90);
+        assertEquals(modifications + 3, store.modificationCount());
+        assertEquals(2, store.size());
+        assertFalse(store.contains(b));
+        assertEquals(c, store.next(a));
+        assertEquals(a, store.previous(c));
+        assertEquals(-1.33, store.latitude(c), 0);
+        assertEquals(70f, store.altitude(c), 0);
+        assertEquals(ActionType.ROTATE_AIRCRAFT, store.action(a));
+        assertEquals(90, store.actionParam(a));
+
+        // The freed handle is reused, at the end of the flight order.
+        int d = store.add(-1.34, 36.85, 80f, ActionType.STAY, 0);
+        assertEquals(b, d);
+        assertEquals(d, store.next(c));
+        assertEquals(WaypointStore.NONE, store.next(d));
+        try {
+            store.remove(store.handleBound());
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        store.clear();
+        assertTrue(store.isEmpty());
+        assertEquals(WaypointStore.NONE, store.first());
+        assertEquals(Arrays.asList("added 0", "added 1", "added 2", "removed 1", "changed 2", "changed 0",
+                "added 1", "cleared"), events);
+    }
+
+    @Test
+    public void keepsFlightOrderThroughRandomEdits() {
+        Random random = new Random(3);
+        WaypointStore store = new WaypointStore();
+        List<Integer> order = new ArrayList<>();
+        List<Double> latitudes = new ArrayList<>();
+        for (int step = 0; step < 5000; step++) {
+            if (!order.isEmpty() && random.nextInt(3) == 0) {
+                int index = random.nextInt(order.size());
+                store.remove(order.remove(index));
+                latitudes.remove(index);
+            } else if (!order.isEmpty() && random.nextInt(3) == 0) {
+                int index = random.nextInt(order.size());
+                double latitude = random.nextDouble() * 10;
+                store.move(order.get(index), latitude, 36.89);
+                latitudes.set(index, latitude);
+            } else {
+                double latitude = random.nextDouble() * 10;
+                order.add(store.add(latitude, 36.89, 60f, ActionType.STAY, 0));
+                latitudes.add(latitude);
+            }
+        }
+        assertEquals(order.size(), store.size());
+        int index = 0;
+        for (int handle = store.first(); handle != WaypointStore.NONE; handle = store.next(handle)) {
+            assertEquals(order.get(index++).intValue(), handle);
+            assertTrue(handle < store.handleBound());
+        }
+        assertEquals(order.size(), index);
+
+        double[] copied = new double[store.size()];
+        assertEquals(store.size(), store.copyTo(copied, null, null));
+        for (int i = 0; i < copied.length; i++) {
+            assertEquals(latitudes.get(i), copied[i], 0);
+        }
+    }
+}
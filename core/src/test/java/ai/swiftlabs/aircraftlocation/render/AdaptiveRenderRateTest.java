@@ -0,0 +1,67 @@
+package ai.swiftlabs.aircraftlocation.render;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveRenderRateTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void rateFollowsZoomViewportLifecycleAndBattery() {
+        AdaptiveRenderRate rate = new AdaptiveRenderRate();
+        rate.setZoom(17);
+        assertEquals(1_000_000_000L / 60, rate.renderIntervalNanos(-1.3, 36.89));
+        rate.setZoom(3);
+        assertEquals(500 * MILLIS, rate.renderIntervalNanos(-1.3, 36.89));
+
+        rate.setZoom(17);
+        rate.setViewport(-1.31, 36.88, -1.29, 36.90);
+        assertEquals(1000 * MILLIS, rate.renderIntervalNanos(-1.3, 37.5));
+        // West > east: the viewport crosses the antimeridian.
+        rate.setViewport(-1, 179, 1, -179);
+        assertEquals(1_000_000_000L / 60, rate.renderIntervalNanos(0, -179.5));
+        rate.setViewport(-90, -180, 90, 180);
+
+        rate.setBattery(15, false);
+        assertEquals(100 * MILLIS, rate.renderIntervalNanos(-1.3, 36.89));
+        rate.setBattery(15, true);
+        assertEquals(1_000_000_000L / 60, rate.renderIntervalNanos(-1.3, 36.89));
+        rate.setLinkDegraded(true);
+        assertEquals(500 * MILLIS, rate.renderIntervalNanos(-1.3, 36.89));
+        rate.setLinkDegraded(false);
+
+        rate.setLifecycle(AdaptiveRenderRate.Lifecycle.PAUSED);
+        assertEquals(500 * MILLIS, rate.renderIntervalNanos(-1.3, 36.89));
+        rate.setLifecycle(AdaptiveRenderRate.Lifecycle.STOPPED);
+        assertFalse(rate.wantsFrame(0, -1.3, 36.89));
+        assertFalse(rate.shouldRender(0, -1.3, 36.89, 0));
+    }
+
+    @Test
+    public void skipsDrawsWithinTheIntervalAndInvisibleMoves() {
+        AdaptiveRenderRate rate = new AdaptiveRenderRate();
+        rate.setZoom(12);
+        assertTrue(rate.shouldRender(0, -1.3, 36.89, 0));
+        // 20 Hz: the next draw is due after 50 ms.
+        assertFalse(rate.shouldRender(16 * MILLIS, -1.3, 36.8901, 0));
+        assertTrue(rate.shouldRender(50 * MILLIS, -1.3, 36.8901, 0));
+        // A sample that the next frame could not draw does not ask for one.
+        assertFalse(rate.wantsFrame(60 * MILLIS, -1.3, 36.8902));
+        assertTrue(rate.wantsFrame(90 * MILLIS, -1.3, 36.8902));
+        // About 19 m per pixel at zoom 12; a 1 m move is not visible, a 2 degree turn is.
+        assertFalse(rate.shouldRender(100 * MILLIS, -1.3, 36.89011, 0));
+        assertTrue(rate.shouldRender(150 * MILLIS, -1.3, 36.89011, 2));
+
+        rate.reset();
+        assertTrue(rate.shouldRender(160 * MILLIS, -1.3, 36.89011, 2));
+        assertEquals(4, rate.renderedCount());
+        assertEquals(1, rate.throttledCount());
+        assertEquals(1, rate.subPixelCount());
+    }
+}
@@ -0,0 +1,184 @@
+package ai.swiftlabs.aircraftlocation.render;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AircraftPositionRendererTest {
+
+    private final ManualFrameScheduler scheduler = new ManualFrameScheduler();
+    private final RecordingSink sink = new RecordingSink();
+    private final AircraftPositionRenderer renderer = new AircraftPositionRenderer(scheduler, sink, 4);
+
+    @Test
+    public void aBurstOfTicksIsOneFrameWithTheLastValuePerSlot() {
+        final double[] latitude = new double[1];
+        renderer.addProducer(new AircraftPositionRenderer.Producer() {
+            @Override
+            public void produce(AircraftPositionRenderer renderer, long frameTimeNanos) {
+                renderer.show(0, latitude[0], 36.89, 90f);
+                if (frameTimeNanos == 16) {
+                    // Staged twice in one frame: only the last reaches the sink.
+                    renderer.show(1, -2.0, 36.0, 0f);
+                    renderer.show(1, -2.5, 36.5, 45f);
+                }
+            }
+        });
+        for (int tick = 0; tick < 10; tick++) {
+            latitude[0] = -1.0 - tick;
+            renderer.requestFrame();
+        }
+        assertEquals(1, scheduler.posts);
+
+        scheduler.pump(16);
+        assertEquals(Arrays.asList("show 0 -10.0 36.89 90.0", "show 1 -2.5 36.5 45.0", "commit"), sink.calls);
+        assertEquals(1, renderer.frameCount());
+        assertEquals(1, renderer.commitCount());
+
+        // An unchanged position is not published again.
+        sink.calls.clear();
+        renderer.requestFrame();
+        assertEquals(2, scheduler.posts);
+        scheduler.pump(32);
+        assertEquals(Collections.emptyList(), sink.calls);
+        assertEquals(1, renderer.commitCount());
+    }
+
+    @Test
+    public void hiddenSlotsReachTheSink() {
+        frame(new AircraftPositionRenderer.Producer() {
+            @Override
+            public void produce(AircraftPositionRenderer renderer, long frameTimeNanos) {
+                renderer.show(2, -1.30, 36.89, 0f);
+                renderer.show(3, -1.31, 36.88, 0f);
+            }
+        });
+        assertTrue(renderer.isVisible(2));
+        sink.calls.clear();
+
+        frame(new AircraftPositionRenderer.Producer() {
+            @Override
+            public void produce(AircraftPositionRenderer renderer, long frameTimeNanos) {
+                renderer.hide(2);
+                renderer.hide(2);
+                // Shown and hidden within a frame: the sink never saw it, so there is nothing to hide.
+                renderer.show(1, -1.32, 36.87, 0f);
+                renderer.hide(1);
+                // Hidden and shown again within a frame: moved, not recreated.
+                renderer.hide(3);
+                renderer.show(3, -1.33, 36.86, 0f);
+            }
+        });
+        assertFalse(renderer.isVisible(2));
+        assertEquals(Arrays.asList("hide 2", "show 3 -1.33 36.86 0.0", "commit"), sink.calls);
+
+        try {
+            renderer.show(4, 0, 0, 0f);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void releaseDropsThePendingFrame() {
+        renderer.addProducer(new AircraftPositionRenderer.Producer() {
+            @Override
+            public void produce(AircraftPositionRenderer renderer, long frameTimeNanos) {
+                renderer.show(0, -1.30, 36.89, 0f);
+            }
+        });
+        renderer.requestFrame();
+        renderer.release();
+        scheduler.pump(16);
+
+        assertTrue(renderer.isVisible(0));
+        assertEquals(Collections.emptyList(), sink.calls);
+        assertEquals(0, renderer.commitCount());
+    }
+
+    @Test
+    public void aProducerCanAskForTheNextFrame() {
+        final List<Long> frames = new ArrayList<>();
+        renderer.addProducer(new AircraftPositionRenderer.Producer() {
+            @Override
+            public void produce(AircraftPositionRenderer renderer, long frameTimeNanos) {
+                frames.add(frameTimeNanos);
+                renderer.show(0, -1.30 + frames.size() * 1e-4, 36.89, 0f);
+                // An animation keeps going until it has caught up.
+                if (frames.size() < 3) {
+                    renderer.requestFrame();
+                }
+            }
+        });
+        renderer.requestFrame();
+        for (long frame = 16; frame <= 80; frame += 16) {
+            scheduler.pump(frame);
+        }
+        assertEquals(Arrays.asList(16L, 32L, 48L), frames);
+        assertEquals(3, scheduler.posts);
+        assertEquals(3, renderer.commitCount());
+    }
+
+    /** Runs one frame through the given producer only. */
+    private void frame(final AircraftPositionRenderer.Producer producer) {
+        final boolean[] active = {true};
+        renderer.addProducer(new AircraftPositionRenderer.Producer() {
+            @Override
+            public void produce(AircraftPositionRenderer renderer, long frameTimeNanos) {
+                if (active[0]) {
+                    producer.produce(renderer, frameTimeNanos);
+                }
+            }
+        });
+        renderer.requestFrame();
+        scheduler.pump(0);
+        active[0] = false;
+    }
+
+    /** Like the one in AircraftRendererBenchmark, counting the callbacks posted. */
+    private static final class ManualFrameScheduler implements FrameScheduler {
+        private FrameCallback pending;
+        int posts;
+
+        @Override
+        public void postFrameCallback(FrameCallback callback) {
+            posts++;
+            pending = callback;
+        }
+
+        void pump(long frameTimeNanos) {
+            FrameCallback callback = pending;
+            pending = null;
+            if (callback != null) {
+                callback.doFrame(frameTimeNanos);
+            }
+        }
+    }
+
+    private static final class RecordingSink implements AircraftPositionRenderer.Sink {
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void show(int slot, double latitude, double longitude, float bearing) {
+            calls.add("show " + slot + " " + latitude + " " + longitude + " " + bearing);
+        }
+
+        @Override
+        public void hide(int slot) {
+            calls.add("hide " + slot);
+        }
+
+        @Override
+        public void commit() {
+            calls.add("commit");
+        }
+    }
+}
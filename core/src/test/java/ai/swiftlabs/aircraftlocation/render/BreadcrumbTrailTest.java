@@ -0,0 +1,95 @@
+package ai.swiftlabs.aircraftlocation.render;
+
+import org.junit.Test;
+
+import ai.swiftlabs.aircraftlocation.geo.Geodesy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BreadcrumbTrailTest {
+
+    private static final double LATITUDE = -1.3;
+    private static final double LONGITUDE = 36.89;
+    /** Degrees of longitude per meter at {@link #LATITUDE}. */
+    private static final double EAST = Math.toDegrees(1 / Geodesy.EARTH_RADIUS_METERS)
+            / Math.cos(Math.toRadians(LATITUDE));
+    private static final double NORTH = Math.toDegrees(1 / Geodesy.EARTH_RADIUS_METERS);
+
+    @Test
+    public void keepsPointsByDistanceAndTurns() {
+        BreadcrumbTrail trail = new BreadcrumbTrail();
+        // 101 m east at a little over 1 m per sample, then 101 m north.
+        double step = 1.01;
+        for (int i = 0; i <= 100; i++) {
+            trail.add(i, LATITUDE, LONGITUDE + i * step * EAST);
+        }
+        for (int i = 1; i <= 100; i++) {
+            trail.add(100 + i, LATITUDE + i * step * NORTH, LONGITUDE + 100 * step * EAST);
+        }
+        // Every other sample, plus the first one after the corner.
+        assertEquals(101, trail.size(0));
+        assertEquals(27, trail.size(1));
+        // 32 m spacing: 4 points east, the turn kept once 8 m away, then every 32 m north.
+        assertEquals(8, trail.size(2));
+        assertEquals(2, trail.size(3));
+        assertEquals(0, BreadcrumbTrail.levelFor(LATITUDE, 17));
+        assertEquals(3, BreadcrumbTrail.levelFor(LATITUDE, 3));
+    }
+
+    @Test
+    public void longFlightsStayBoundedAndOlderHistoryIsCoarser() {
+        BreadcrumbTrail trail = new BreadcrumbTrail(256);
+        BreadcrumbTrail.Segments segments = new BreadcrumbTrail.Segments(256);
+        double[] latitudes = new double[BreadcrumbTrail.CHUNK_POINTS + 2];
+        double[] longitudes = new double[BreadcrumbTrail.CHUNK_POINTS + 2];
+
+        // 100 km east, keeping every sample on the finest level.
+        int samples = 49_500;
+        double step = 2.02;
+        for (int i = 0; i < samples; i++) {
+            trail.add(i, LATITUDE, LONGITUDE + i * step * EAST);
+        }
+        for (int level = 0; level < BreadcrumbTrail.LEVELS; level++) {
+            assertTrue(trail.size(level) <= 256);
+        }
+
+        int count = trail.segments(0, segments);
+        assertTrue(count <= BreadcrumbTrail.LEVELS * (256 / BreadcrumbTrail.CHUNK_POINTS + 2));
+        assertEquals(BreadcrumbTrail.LEVELS - 1, segments.level(0));
+        assertEquals(0, segments.level(count - 1));
+        // The whole line runs east without gaps or backtracking, from the oldest history to now.
+        double lastLongitude = Double.NEGATIVE_INFINITY;
+        int points = 0;
+        for (int i = 0; i < count; i++) {
+            int n = trail.copy(segments, i, latitudes, longitudes);
+            assertTrue(n >= 2);
+            for (int p = 0; p < n; p++) {
+                assertTrue(longitudes[p] >= lastLongitude);
+                lastLongitude = longitudes[p];
+            }
+            points += n;
+        }
+        assertEquals(LONGITUDE + (samples - 1) * step * EAST, lastLongitude, 1e-9);
+        assertTrue(points < 4 * 256 + 2 * count);
+
+        // Once drawn, one more point only changes the newest segment and where each level in view starts
+        // or ends.
+        for (int i = 0; i < count; i++) {
+            segments.markDrawn(i);
+        }
+        trail.add(samples, LATITUDE, LONGITUDE + samples * step * EAST);
+        count = trail.segments(0, segments);
+        int changed = segments.staleCount();
+        for (int i = 0; i < count; i++) {
+            if (!segments.isDrawn(i)) {
+                changed++;
+            }
+        }
+        assertTrue("changed " + changed, changed > 0 && changed <= 2 * BreadcrumbTrail.LEVELS);
+
+        trail.clear();
+        assertEquals(0, trail.segments(0, segments));
+        assertEquals(count, segments.staleCount());
+    }
+}
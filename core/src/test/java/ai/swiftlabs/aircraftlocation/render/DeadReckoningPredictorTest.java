@@ -0,0 +1,69 @@
+package ai.swiftlabs.aircraftlocation.render;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import ai.swiftlabs.aircraftlocation.geo.Geodesy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeadReckoningPredictorTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double LATITUDE = -1.3;
+    private static final double LONGITUDE = 36.89;
+
+    @Test
+    public void extrapolatesAlongTheVelocityForALimitedTime() {
+        DeadReckoningPredictor predictor = new DeadReckoningPredictor();
+        predictor.update(0, LATITUDE, LONGITUDE, 0f, 10f, 90f);
+
+        assertTrue(predictor.predict(100 * MILLIS));
+        assertEquals(1.0, metersFrom(predictor, LATITUDE, LONGITUDE), 1e-3);
+        assertEquals(LATITUDE, predictor.latitude(), 1e-9);
+        assertTrue(predictor.longitude() > LONGITUDE);
+
+        // The link went quiet: the icon stops after half a second instead of flying on.
+        assertFalse(predictor.predict(2000 * MILLIS));
+        assertEquals(5.0, metersFrom(predictor, LATITUDE, LONGITUDE), 1e-3);
+    }
+
+    @Test
+    public void newSamplesAreBlendedInWithoutAJump() {
+        DeadReckoningPredictor predictor = new DeadReckoningPredictor();
+        predictor.update(0, LATITUDE, LONGITUDE, 0f, 10f, 90f);
+        predictor.predict(100 * MILLIS);
+        double drawnLongitude = predictor.longitude();
+
+        // The aircraft turned: the new sample is 1 m north of where the icon is, heading north.
+        double sampleLatitude = LATITUDE + Math.toDegrees(1 / Geodesy.EARTH_RADIUS_METERS);
+        predictor.update(100 * MILLIS, sampleLatitude, drawnLongitude, 10f, 0f, 0f);
+        assertTrue(predictor.predict(100 * MILLIS));
+        assertEquals(LATITUDE, predictor.latitude(), 1e-9);
+        assertEquals(90f, predictor.bearing(), 1e-3f);
+
+        // Once the correction has faded, the icon is on the new track: 2 m north of the sample.
+        predictor.predict(300 * MILLIS);
+        assertEquals(sampleLatitude + Math.toDegrees(2 / Geodesy.EARTH_RADIUS_METERS), predictor.latitude(), 1e-9);
+        assertEquals(drawnLongitude, predictor.longitude(), 1e-9);
+        assertEquals(0f, predictor.bearing(), 1e-3f);
+    }
+
+    @Test
+    public void largeErrorsSnap() {
+        DeadReckoningPredictor predictor = new DeadReckoningPredictor();
+        predictor.update(0, LATITUDE, LONGITUDE, 0f, 0f, 0f);
+        assertFalse(predictor.predict(100 * MILLIS));
+
+        predictor.update(100 * MILLIS, LATITUDE + 0.01, LONGITUDE, 0f, 0f, 0f);
+        assertFalse(predictor.predict(100 * MILLIS));
+        assertEquals(LATITUDE + 0.01, predictor.latitude(), 1e-12);
+    }
+
+    private static double metersFrom(DeadReckoningPredictor predictor, double latitude, double longitude) {
+        return Geodesy.haversine(latitude, longitude, predictor.latitude(), predictor.longitude());
+    }
+}
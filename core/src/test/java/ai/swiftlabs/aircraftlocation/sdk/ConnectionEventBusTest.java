@@ -0,0 +1,207 @@
+package ai.swiftlabs.aircraftlocation.sdk;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import ai.swiftlabs.aircraftlocation.metrics.LatencyHistogram;
+import ai.swiftlabs.aircraftlocation.sdk.ConnectionEventBus.Change;
+import ai.swiftlabs.aircraftlocation.sdk.ConnectionEventBus.Component;
+import ai.swiftlabs.aircraftlocation.telemetry.LinkHealthMonitor;
+import ai.swiftlabs.aircraftlocation.telemetry.ReconnectLatencyProbe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConnectionEventBusTest {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final ManualScheduler scheduler = new ManualScheduler();
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void deliversABurstOnceAsTheNetChange() {
+        ConnectionEventBus bus = new ConnectionEventBus(scheduler, 50, 1000, scheduler);
+        BlockingQueue<Change> flightController = subscribe(bus, EnumSet.of(Component.FLIGHT_CONTROLLER));
+        BlockingQueue<Change> battery = subscribe(bus, EnumSet.of(Component.BATTERY));
+        // Subscribers start from the state so far.
+        assertEquals(0, flightController.poll().events());
+        assertFalse(battery.poll().isConnected(Component.BATTERY));
+
+        bus.productConnected("Matrice 300 RTK");
+        scheduler.advance(30);
+        bus.componentReplaced(Component.FLIGHT_CONTROLLER, false);
+        bus.componentConnectivityChanged(Component.FLIGHT_CONTROLLER, true);
+        bus.componentReplaced(Component.BATTERY, true);
+        // Quiet for 50 ms after the last event, not the first.
+        scheduler.advance(49);
+        assertTrue(flightController.isEmpty());
+        scheduler.advance(1);
+        Change change = flightController.poll();
+        assertEquals(EnumSet.of(Component.PRODUCT, Component.FLIGHT_CONTROLLER, Component.BATTERY), change.changed());
+        assertTrue(change.becameConnected(Component.FLIGHT_CONTROLLER));
+        assertEquals("Matrice 300 RTK", change.product());
+        assertEquals(4, change.events());
+        assertEquals(scheduler.nanoTime() - TimeUnit.MILLISECONDS.toNanos(50),
+                change.sinceNanos(Component.FLIGHT_CONTROLLER));
+        assertEquals(change, battery.poll());
+
+        // A flap nets out, and a change of the battery only goes to its subscriber.
+        bus.componentConnectivityChanged(Component.FLIGHT_CONTROLLER, false);
+        bus.componentConnectivityChanged(Component.FLIGHT_CONTROLLER, true);
+        bus.componentConnectivityChanged(Component.BATTERY, false);
+        scheduler.advance(50);
+        change = battery.poll();
+        assertEquals(EnumSet.of(Component.BATTERY), change.changed());
+        assertTrue(change.isConnected(Component.FLIGHT_CONTROLLER));
+        assertTrue(flightController.isEmpty());
+        assertEquals(change, bus.current());
+
+        // A burst that nets out entirely delivers nothing.
+        bus.componentConnectivityChanged(Component.BATTERY, true);
+        bus.componentConnectivityChanged(Component.BATTERY, false);
+        scheduler.advance(1000);
+        assertTrue(battery.isEmpty());
+        assertEquals(0, scheduler.pending());
+    }
+
+    @Test
+    public void deliversWithinTheMaximumDelayWhileEventsKeepComing() {
+        ConnectionEventBus bus = new ConnectionEventBus(scheduler, 50, 150, scheduler);
+        final List<Long> deliveredAt = new ArrayList<>();
+        final List<Integer> events = new ArrayList<>();
+        bus.subscribe(EnumSet.of(Component.CAMERA), DIRECT, new ConnectionEventBus.Listener() {
+            @Override
+            public void onChange(Change change) {
+                deliveredAt.add(TimeUnit.NANOSECONDS.toMillis(scheduler.nanoTime()));
+                events.add(change.events());
+            }
+        });
+        // An event every 10 ms for 600 ms never leaves the bus quiet for 50 ms.
+        for (int i = 0; i < 60; i++) {
+            bus.componentReplaced(Component.CAMERA, true);
+            scheduler.advance(10);
+        }
+        assertEquals(Arrays.asList(0L, 150L, 300L, 450L, 600L), deliveredAt);
+        assertEquals(Arrays.asList(0, 15, 15, 15, 15), events);
+    }
+
+    @Test
+    public void measuresFromTheConnectEventEvenWhenTelemetryBeatsTheChange() {
+        ConnectionEventBus bus = new ConnectionEventBus(scheduler, 100, 1000, scheduler);
+        LatencyHistogram latency = new LatencyHistogram();
+        ReconnectLatencyProbe probe = new ReconnectLatencyProbe(latency, scheduler);
+        bus.subscribe(EnumSet.of(Component.FLIGHT_CONTROLLER), DIRECT, probe);
+
+        bus.componentConnectivityChanged(Component.FLIGHT_CONTROLLER, true);
+        scheduler.advance(20);
+        probe.onTelemetry(0);
+        scheduler.advance(5);
+        probe.onTelemetry(1);
+        assertEquals(0, latency.count());
+        scheduler.advance(75);
+        assertEquals(1, latency.count());
+        assertEquals(20, latency.maxMillis(), 0);
+
+        probe.onTelemetry(2);
+        assertEquals(1, latency.count());
+
+        // After a drop, the first sample behind the coalesced change is measured when it arrives.
+        bus.componentConnectivityChanged(Component.FLIGHT_CONTROLLER, false);
+        scheduler.advance(100);
+        bus.componentConnectivityChanged(Component.FLIGHT_CONTROLLER, true);
+        scheduler.advance(130);
+        probe.onTelemetry(3);
+        assertEquals(2, latency.count());
+        assertEquals(130, latency.maxMillis(), 0);
+    }
+
+    private static BlockingQueue<Change> subscribe(ConnectionEventBus bus, EnumSet<Component> components) {
+        final BlockingQueue<Change> changes = new LinkedBlockingQueue<>();
+        bus.subscribe(components, DIRECT, new ConnectionEventBus.Listener() {
+            @Override
+            public void onChange(Change change) {
+                changes.add(change);
+            }
+        });
+        return changes;
+    }
+
+    /**
+     * Runs scheduled tasks only when the test moves its clock, which is also the bus's clock; tasks run at
+     * their due time, in order.
+     */
+    private static final class ManualScheduler extends ScheduledThreadPoolExecutor implements LinkHealthMonitor.Clock {
+        private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+        private long now;
+        private long order;
+
+        ManualScheduler() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            tasks.add(new Task(now + unit.toNanos(delay), order++, command));
+            return null;
+        }
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+
+        int pending() {
+            return tasks.size();
+        }
+
+        void advance(long millis) {
+            long end = now + TimeUnit.MILLISECONDS.toNanos(millis);
+            while (!tasks.isEmpty() && tasks.peek().due <= end) {
+                Task task = tasks.poll();
+                now = task.due;
+                task.command.run();
+            }
+            now = end;
+        }
+    }
+
+    private static final class Task implements Comparable<Task> {
+        final long due;
+        final long order;
+        final Runnable command;
+
+        Task(long due, long order, Runnable command) {
+            this.due = due;
+            this.order = order;
+            this.command = command;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            return due != other.due ? Long.compare(due, other.due) : Long.compare(order, other.order);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package ai.swiftlabs.aircraftlocation.sdk;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import ai.swiftlabs.aircraftlocation.geo.Geodesy;
+import ai.swiftlabs.aircraftlocation.mission.ActionType;
+import ai.swiftlabs.aircraftlocation.mission.MissionLimits;
+import ai.swiftlabs.aircraftlocation.mission.MissionOperator;
+import ai.swiftlabs.aircraftlocation.mission.MissionPlan;
+import ai.swiftlabs.aircraftlocation.mission.MissionSegmenter;
+import ai.swiftlabs.aircraftlocation.mission.MissionSettings;
+import ai.swiftlabs.aircraftlocation.mission.MissionValidator;
+import ai.swiftlabs.aircraftlocation.mission.SegmentedMissionRunner;
+import ai.swiftlabs.aircraftlocation.mission.WaypointStore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SimulatedAircraftTest {
+
+    private static final double HOME_LATITUDE = -1.30;
+    private static final double HOME_LONGITUDE = 36.89;
+    private static final MissionSettings SETTINGS = new MissionSettings(60f, 10f,
+            MissionSettings.FinishedAction.GO_HOME, MissionSettings.HeadingMode.AUTO);
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final SimulatedAircraft aircraft = new SimulatedAircraft(HOME_LATITUDE, HOME_LONGITUDE, 7);
+    private final RecordingListener events = new RecordingListener();
+
+    @Test
+    public void reportsStateAtTheConfiguredRate() {
+        aircraft.setStateRateHz(50);
+        final int[] states = new int[1];
+        final List<Integer> battery = new ArrayList<>();
+        aircraft.setStateCallback(new AircraftSdk.StateCallback() {
+            @Override
+            public void onState(long timestampNanos, double latitude, double longitude, float altitude,
+                                float velocityNorth, float velocityEast, float velocityDown,
+                                float pitch, float roll, float yaw) {
+                states[0]++;
+            }
+        });
+        aircraft.setBatteryCallback(new AircraftSdk.BatteryCallback() {
+            @Override
+            public void onBatteryChanged(int chargePercent) {
+                battery.add(chargePercent);
+            }
+        });
+
+        aircraft.advance(2 * SECOND);
+        assertEquals(100, states[0]);
+        // Landed: the charge is reported once and never changes.
+        assertEquals(1, battery.size());
+        assertEquals(100, (int) battery.get(0));
+
+        aircraft.setConnected(false);
+        aircraft.advance(SECOND);
+        assertEquals(100, states[0]);
+    }
+
+    @Test
+    public void fliesAnUploadedMissionAndReturnsHome() {
+        final float[] maxAltitude = new float[1];
+        aircraft.setStateCallback(new AircraftSdk.StateCallback() {
+            @Override
+            public void onState(long timestampNanos, double latitude, double longitude, float altitude,
+                                float velocityNorth, float velocityEast, float velocityDown,
+                                float pitch, float roll, float yaw) {
+                maxAltitude[0] = Math.max(maxAltitude[0], altitude);
+            }
+        });
+        MissionOperator operator = aircraft.missionOperator();
+        operator.addListener(events);
+
+        assertNull(operator.load(route(5)));
+        operator.upload(events);
+        aircraft.advance(SECOND);
+        assertEquals(1, events.results.size());
+        assertNull(events.results.get(0));
+        assertEquals(5, events.uploaded);
+        assertEquals(SimulatedAircraft.MissionState.READY_TO_EXECUTE, aircraft.missionState());
+
+        operator.start(events);
+        for (int i = 0; i < 600 && (events.finishes.isEmpty() || aircraft.isFlying()); i++) {
+            aircraft.advance(SECOND);
+        }
+
+        assertEquals(2, events.results.size());
+        assertNull(events.results.get(1));
+        assertEquals(5, events.targets.size());
+        assertEquals(4, (int) events.targets.get(4));
+        assertEquals(1, events.finishes.size());
+        assertNull(events.finishes.get(0));
+        assertFalse(aircraft.isFlying());
+        assertEquals(60, maxAltitude[0], 0.5);
+        assertTrue(Geodesy.haversine(HOME_LATITUDE, HOME_LONGITUDE,
+                aircraft.latitude(), aircraft.longitude()) < 1.5);
+        assertTrue(aircraft.batteryPercent() < 100);
+    }
+
+    @Test
+    public void failedAndDisconnectedUploadsAreReported() {
+        MissionOperator operator = aircraft.missionOperator();
+        aircraft.setUploadFailureRate(1);
+        operator.load(route(5));
+        operator.upload(events);
+        aircraft.advance(SECOND);
+        assertNotNull(events.results.get(0));
+        assertEquals(SimulatedAircraft.MissionState.READY_TO_UPLOAD, aircraft.missionState());
+
+        aircraft.setUploadFailureRate(0);
+        aircraft.setConnected(false);
+        operator.upload(events);
+        operator.start(events);
+        aircraft.advance(SECOND);
+        assertEquals(SimulatedAircraft.DISCONNECTED, events.results.get(1));
+        assertEquals(SimulatedAircraft.DISCONNECTED, events.results.get(2));
+    }
+
+    @Test
+    public void segmentedRunnerFliesALongRouteToTheEnd() {
+        Executor direct = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        final SegmentedMissionRunner.State[] outcome = new SegmentedMissionRunner.State[1];
+        List<MissionPlan> segments = MissionSegmenter.split(route(250), MissionLimits.DJI_WAYPOINT_V1.maxWaypoints());
+        SegmentedMissionRunner runner = new SegmentedMissionRunner(segments,
+                new MissionValidator(MissionLimits.DJI_WAYPOINT_V1), aircraft.missionOperator(), direct, direct,
+                new SegmentedMissionRunner.Listener() {
+                    @Override
+                    public void onSegmentStarted(int segment, int segments) {
+                    }
+
+                    @Override
+                    public void onUploadProgress(int segment, int uploadedWaypoints, int totalWaypoints) {
+                    }
+
+                    @Override
+                    public void onProgress(int waypointsReached, int totalWaypoints) {
+                    }
+
+                    @Override
+                    public void onFinished(SegmentedMissionRunner.State state, String error) {
+                        outcome[0] = state;
+                    }
+                });
+
+        runner.start();
+        for (int i = 0; i < 3600 && (outcome[0] == null || aircraft.isFlying()); i++) {
+            aircraft.advance(SECOND);
+        }
+
+        assertEquals(SegmentedMissionRunner.State.COMPLETED, outcome[0]);
+        assertFalse(aircraft.isFlying());
+        assertTrue(Geodesy.haversine(HOME_LATITUDE, HOME_LONGITUDE,
+                aircraft.latitude(), aircraft.longitude()) < 1.5);
+    }
+
+    /** Waypoints about 11 m apart heading north from home. */
+    private static MissionPlan route(int waypoints) {
+        WaypointStore store = new WaypointStore();
+        for (int i = 1; i <= waypoints; i++) {
+            store.add(HOME_LATITUDE + i * 1e-4, HOME_LONGITUDE, 60f, ActionType.START_TAKE_PHOTO, 0);
+        }
+        return MissionPlan.snapshot(store, SETTINGS);
+    }
+
+    private static final class RecordingListener implements MissionOperator.Listener, MissionOperator.Completion {
+        final List<String> results = new ArrayList<>();
+        final List<Integer> targets = new ArrayList<>();
+        final List<String> finishes = new ArrayList<>();
+        int uploaded;
+
+        @Override
+        public void onResult(String error) {
+            results.add(error);
+        }
+
+        @Override
+        public void onUploadProgress(int uploadedWaypoints, int totalWaypoints) {
+            uploaded = uploadedWaypoints;
+        }
+
+        @Override
+        public void onExecutionProgress(int targetWaypoint, int totalWaypoints) {
+            targets.add(targetWaypoint);
+        }
+
+        @Override
+        public void onExecutionFinish(String error) {
+            finishes.add(error);
+        }
+    }
+}
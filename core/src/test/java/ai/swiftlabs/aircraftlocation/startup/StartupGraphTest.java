@@ -0,0 +1,172 @@
+package ai.swiftlabs.aircraftlocation.startup;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StartupGraphTest {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final ExecutorService background = Executors.newFixedThreadPool(2);
+    private final List<String> finished = Collections.synchronizedList(new ArrayList<String>());
+    private final StartupGraph.Listener listener = new StartupGraph.Listener() {
+        @Override
+        public void onTaskFinished(String task, long startNanos, long endNanos, Throwable error) {
+            finished.add(error == null ? task : task + " failed");
+        }
+
+        @Override
+        public void onMilestone(String milestone, long nanos) {
+            finished.add(milestone);
+        }
+    };
+
+    @After
+    public void tearDown() {
+        background.shutdownNow();
+    }
+
+    @Test
+    public void runsIndependentTasksTogetherAndDependentsAfter() throws InterruptedException {
+        // Both background tasks wait for each other, which only works when they run at the same time.
+        final CyclicBarrier together = new CyclicBarrier(2);
+        StartupGraph.Task meet = new StartupGraph.Task() {
+            @Override
+            public void run() throws Exception {
+                together.await(5, TimeUnit.SECONDS);
+            }
+        };
+        final List<String> mainThreadTasks = new ArrayList<>();
+        final Thread mainThread = Thread.currentThread();
+        final BlockingQueue<Runnable> mainQueue = new LinkedBlockingQueue<>();
+        // Like a looper: inline on the main thread, queued from others.
+        Executor main = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (Thread.currentThread() == mainThread) {
+                    command.run();
+                } else {
+                    mainQueue.add(command);
+                }
+            }
+        };
+        StartupGraph graph = new StartupGraph(System.nanoTime(), listener)
+                .add("map", StartupGraph.Runs.MAIN, record(mainThreadTasks, "map"))
+                .add("sdk", StartupGraph.Runs.BACKGROUND, meet)
+                .add("tiles", StartupGraph.Runs.BACKGROUND, meet)
+                .add("client", StartupGraph.Runs.MAIN, record(mainThreadTasks, "client"), "map", "sdk", "tiles");
+        graph.start(main, background);
+        assertEquals(Collections.singletonList("map"), mainThreadTasks);
+
+        Runnable next = mainQueue.poll(5, TimeUnit.SECONDS);
+        assertNotNull(next);
+        next.run();
+        assertEquals(Arrays.asList("map", "client"), mainThreadTasks);
+        assertTrue(finished.indexOf("client") > finished.indexOf("tiles"));
+        assertTrue(graph.isDone("sdk"));
+        assertNull(graph.failure("sdk"));
+        assertTrue(graph.durationNanos("sdk") >= 0);
+    }
+
+    @Test
+    public void failedTasksHoldBackTheirDependents() {
+        StartupGraph graph = new StartupGraph(System.nanoTime(), listener)
+                .add("register", StartupGraph.Runs.MAIN, new StartupGraph.Task() {
+                    @Override
+                    public void run() throws Exception {
+                        throw new IllegalStateException("no key");
+                    }
+                })
+                .add("connect", StartupGraph.Runs.MAIN, record(new ArrayList<String>(), "connect"), "register")
+                .add("map", StartupGraph.Runs.MAIN, record(new ArrayList<String>(), "map"));
+        graph.start(DIRECT, DIRECT);
+
+        assertEquals("no key", graph.failure("register").getMessage());
+        assertTrue(graph.failure("connect").getMessage().contains("register failed"));
+        assertEquals(-1, graph.durationNanos("connect"));
+        assertNull(graph.failure("map"));
+
+        assertTrue(graph.mark("first_map") >= 0);
+        assertEquals(-1, graph.mark("first_map"));
+        assertTrue(graph.milestoneNanos("first_map") >= 0);
+        assertEquals(-1, graph.milestoneNanos("first_position"));
+        assertFalse(finished.contains("connect"));
+        assertTrue(finished.contains("connect failed"));
+    }
+
+    @Test
+    public void tasksFailingWithAnErrorStillComplete() {
+        final List<String> waited = new ArrayList<>();
+        StartupGraph graph = new StartupGraph(System.nanoTime(), listener)
+                .add("native", StartupGraph.Runs.BACKGROUND, new StartupGraph.Task() {
+                    @Override
+                    public void run() {
+                        throw new UnsatisfiedLinkError("no libmapbox-gl.so");
+                    }
+                })
+                .add("map", StartupGraph.Runs.MAIN, record(new ArrayList<String>(), "map"), "native");
+        graph.whenDone("map", DIRECT, new Runnable() {
+            @Override
+            public void run() {
+                waited.add("map");
+            }
+        });
+        graph.start(DIRECT, DIRECT);
+
+        assertTrue(graph.isDone("native"));
+        assertTrue(graph.failure("native") instanceof UnsatisfiedLinkError);
+        assertTrue(graph.isDone("map"));
+        assertTrue(graph.failure("map").getMessage().contains("native failed"));
+        assertEquals(1, waited.size());
+    }
+
+    @Test
+    public void rejectsCycles() {
+        StartupGraph.Task nothing = record(new ArrayList<String>(), "");
+        StartupGraph graph = new StartupGraph(System.nanoTime(), listener)
+                .add("a", StartupGraph.Runs.MAIN, nothing, "c")
+                .add("b", StartupGraph.Runs.MAIN, nothing, "a")
+                .add("c", StartupGraph.Runs.MAIN, nothing, "b")
+                .add("d", StartupGraph.Runs.MAIN, nothing);
+        try {
+            graph.start(DIRECT, DIRECT);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("dependency cycle among [a, b, c]", e.getMessage());
+        }
+        assertTrue(finished.isEmpty());
+    }
+
+    private static StartupGraph.Task record(final List<String> into, final String name) {
+        return new StartupGraph.Task() {
+            @Override
+            public void run() {
+                into.add(name);
+            }
+        };
+    }
+}
@@ -0,0 +1,187 @@
+package ai.swiftlabs.aircraftlocation.telemetry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FlightLogReaderTest {
+
+    private static final long PERIOD_NANOS = 100_000_000L;
+    // Small segments so a few thousand records span several files and index entries.
+    private static final int SEGMENT_BYTES = TelemetryLogFormat.HEADER_BYTES + 1500 * TelemetryLogFormat.RECORD_BYTES;
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("flight-log").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void readsBackEverythingRecordedAcrossSegments() throws IOException {
+        record(5000, 5000);
+
+        FlightLogReader log = FlightLogReader.open(directory, "flight");
+        assertEquals(Collections.singletonList("flight"), FlightLogReader.sessions(directory));
+        assertEquals(5000, log.recordCount());
+        assertEquals(0, log.startNanos());
+        assertEquals(4999 * PERIOD_NANOS, log.endNanos());
+
+        TelemetrySnapshot sample = new TelemetrySnapshot();
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(log.next(sample));
+            assertEquals(i, sample.sequence());
+            assertEquals(i * PERIOD_NANOS, sample.timestampNanos());
+            assertEquals(latitude(i), sample.latitude(), 0);
+            assertEquals(42, log.batteryPercent());
+        }
+        assertFalse(log.next(sample));
+        log.close();
+    }
+
+    @Test
+    public void seekLandsOnTheFirstRecordAtOrAfterTheTime() throws IOException {
+        record(5000, 5000);
+        FlightLogReader log = FlightLogReader.open(directory, "flight");
+        TelemetrySnapshot sample = new TelemetrySnapshot();
+
+        log.seek(3210 * PERIOD_NANOS + 1);
+        assertTrue(log.next(sample));
+        assertEquals(3211, sample.sequence());
+
+        log.seek(1500 * PERIOD_NANOS);
+        assertTrue(log.next(sample));
+        assertEquals(1500, sample.sequence());
+
+        log.seek(Long.MIN_VALUE);
+        assertTrue(log.next(sample));
+        assertEquals(0, sample.sequence());
+
+        log.seek(Long.MAX_VALUE);
+        assertFalse(log.next(sample));
+        log.close();
+    }
+
+    @Test
+    public void tornRecordEndsTheLog() throws IOException {
+        record(2000, 2000);
+        File last = new File(directory, TelemetryLogFormat.segmentName("flight", 1));
+        RandomAccessFile file = new RandomAccessFile(last, "rw");
+        // The process died while writing record 1900: nothing after it, half of it on disk.
+        long torn = TelemetryLogFormat.HEADER_BYTES + 400L * TelemetryLogFormat.RECORD_BYTES;
+        file.setLength(torn + TelemetryLogFormat.RECORD_BYTES);
+        file.seek(torn + 8);
+        file.writeLong(0x0123456789ABCDEFL);
+        file.close();
+
+        FlightLogReader log = FlightLogReader.open(directory, "flight");
+        assertEquals(1900, log.recordCount());
+        assertEquals(1899 * PERIOD_NANOS, log.endNanos());
+        log.close();
+    }
+
+    @Test
+    public void replayPublishesInOrderAndSkipsLongGaps() throws Exception {
+        // 20 s of flight, an hour on the ground, 10 s more.
+        record(300, 200);
+        FlightLogReader log = FlightLogReader.open(directory, "flight");
+        TelemetryPipeline pipeline = new TelemetryPipeline(512);
+        final CountDownLatch finished = new CountDownLatch(1);
+        final IOException[] error = new IOException[1];
+        // Only the replay thread reads and moves the clock: waiting for a sample jumps straight to it.
+        final long[] now = {0};
+        LinkHealthMonitor.Clock clock = new LinkHealthMonitor.Clock() {
+            @Override
+            public long nanoTime() {
+                return now[0];
+            }
+        };
+        FlightLogReplayer.Parker parker = new FlightLogReplayer.Parker() {
+            @Override
+            public void parkNanos(Object blocker, long nanos) {
+                now[0] += nanos;
+            }
+        };
+        final List<Long> publishedAt = new ArrayList<>();
+        pipeline.addListener(new TelemetryPipeline.Listener() {
+            @Override
+            public void onTelemetry(long sequence) {
+                publishedAt.add(now[0]);
+            }
+        });
+        FlightLogReplayer replayer = new FlightLogReplayer(log, pipeline, new FlightLogReplayer.Listener() {
+            @Override
+            public void onReplayFinished(IOException e) {
+                error[0] = e;
+                finished.countDown();
+            }
+        }, clock, parker);
+        replayer.setSpeed(1000);
+        assertEquals(FlightLogReplayer.MAX_SPEED, replayer.speed(), 0);
+
+        replayer.start();
+        // Nothing really waits, so this only guards against a replay that never ends.
+        assertTrue(finished.await(30, TimeUnit.SECONDS));
+
+        assertNull(error[0]);
+        assertEquals(299, pipeline.latestSequence());
+        // 100 ms apart in the log, 1 ms apart at 100x; the hour on the ground takes no time at all.
+        for (int i = 0; i < 300; i++) {
+            assertEquals("sample " + i, TimeUnit.MILLISECONDS.toNanos(i < 200 ? i : i - 1), (long) publishedAt.get(i));
+        }
+        TelemetrySnapshot sample = new TelemetrySnapshot();
+        long previous = Long.MIN_VALUE;
+        for (long sequence = 0; sequence < 300; sequence++) {
+            assertTrue(pipeline.ring().read(sequence, sample));
+            assertTrue(sample.timestampNanos() > previous);
+            previous = sample.timestampNanos();
+        }
+        replayer.stop();
+        log.close();
+    }
+
+    /** Records {@code count} samples at 10 Hz as session "flight", pausing for an hour before {@code gapAt}. */
+    private void record(int count, int gapAt) throws IOException {
+        TelemetryPipeline pipeline = new TelemetryPipeline();
+        TelemetryRecorder recorder = new TelemetryRecorder(pipeline.ring(), directory, "flight", SEGMENT_BYTES, 10);
+        pipeline.addListener(recorder);
+        recorder.setBatteryPercent(42);
+        for (int i = 0; i < count; i++) {
+            long timestamp = i * PERIOD_NANOS + (i >= gapAt ? TimeUnit.HOURS.toNanos(1) : 0);
+            pipeline.publish(timestamp, latitude(i), 36.89, 60f, 0f, 10f, 0f, 0f, 0f, 90f);
+        }
+        pipeline.removeListener(recorder);
+        recorder.close();
+        assertEquals(0, recorder.droppedCount());
+    }
+
+    private static double latitude(int i) {
+        return -1.30 + i * 1e-5;
+    }
+}
@@ -0,0 +1,167 @@
+package ai.swiftlabs.aircraftlocation.telemetry;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import ai.swiftlabs.aircraftlocation.mission.MissionOperator;
+import ai.swiftlabs.aircraftlocation.mission.MissionPlan;
+import ai.swiftlabs.aircraftlocation.sdk.SimulatedAircraft;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LinkHealthMonitorTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final SimulatedAircraft aircraft = new SimulatedAircraft(-1.30, 36.89, 3);
+    private final List<LinkHealthMonitor.Report> changes = new ArrayList<>();
+    private LinkHealthMonitor monitor;
+
+    @Before
+    public void setUp() {
+        monitor = new LinkHealthMonitor(LinkHealthMonitor.Thresholds.DEFAULT, new LinkHealthMonitor.Clock() {
+            @Override
+            public long nanoTime() {
+                return aircraft.clockNanos();
+            }
+        }, new LinkHealthMonitor.Listener() {
+            @Override
+            public void onQualityChanged(LinkHealthMonitor.Report report) {
+                changes.add(report);
+            }
+        });
+        TelemetryPipeline telemetry = new TelemetryPipeline();
+        telemetry.addListener(monitor);
+        aircraft.setStateCallback(new FlightStateTelemetryAdapter(telemetry));
+    }
+
+    @Test
+    public void degradesOnLossAndRecoversOnlyAfterAQuietPeriod() {
+        LinkHealthMonitor.Report report = run(10);
+        assertEquals(LinkHealthMonitor.Quality.GOOD, report.quality());
+        assertEquals(10, report.rateHz(), 0.2);
+        assertEquals(100, report.intervalP50Millis());
+        assertEquals(0, report.jitterMillis());
+        assertTrue(changes.isEmpty());
+
+        aircraft.setStateLossRate(0.7);
+        int seconds = 0;
+        while (monitor.quality() == LinkHealthMonitor.Quality.GOOD && seconds < 20) {
+            run(1);
+            seconds++;
+        }
+        assertEquals(1, changes.size());
+        assertEquals(LinkHealthMonitor.Quality.DEGRADED, changes.get(0).quality());
+        assertNotNull(changes.get(0).problem());
+
+        aircraft.setStateLossRate(0);
+        seconds = 0;
+        long lastProblem = -1;
+        while (monitor.quality() == LinkHealthMonitor.Quality.DEGRADED && seconds < 30) {
+            if (run(1).problem() != null) {
+                lastProblem = seconds;
+            }
+            seconds++;
+        }
+        assertEquals(LinkHealthMonitor.Quality.GOOD, monitor.quality());
+        assertTrue(seconds - 1 - lastProblem >= LinkHealthMonitor.RECOVERY_MILLIS / 1000);
+        assertEquals(2, changes.size());
+    }
+
+    @Test
+    public void degradesOnJitterAndOnCommandsLeftUnanswered() {
+        aircraft.setStateDelayMillis(600);
+        LinkHealthMonitor.Report report = run(10);
+        assertEquals(LinkHealthMonitor.Quality.DEGRADED, report.quality());
+        assertTrue(report.problem(), report.problem().startsWith("telemetry jitter"));
+
+        aircraft.setStateDelayMillis(0);
+        run(20);
+        assertEquals(LinkHealthMonitor.Quality.GOOD, monitor.quality());
+
+        aircraft.setCommandLatencyMillis(5000);
+        final String[] result = new String[1];
+        monitor.monitor(aircraft.missionOperator()).stop(new MissionOperator.Completion() {
+            @Override
+            public void onResult(String error) {
+                result[0] = error == null ? "ok" : error;
+            }
+        });
+        report = run(4);
+        assertNull(result[0]);
+        assertEquals(LinkHealthMonitor.Quality.DEGRADED, report.quality());
+        assertTrue(report.problem(), report.problem().startsWith("command unanswered"));
+
+        run(2);
+        assertNotNull(result[0]);
+        assertEquals(1, monitor.report().commands());
+    }
+
+    @Test
+    public void commandThatNeverAnswersExpiresAsAFailure() {
+        run(5);
+        final MissionOperator operator = aircraft.missionOperator();
+        MissionOperator lossy = monitor.monitor(new MissionOperator() {
+            @Override
+            public String load(MissionPlan plan) {
+                return operator.load(plan);
+            }
+
+            @Override
+            public void upload(Completion completion) {
+                operator.upload(completion);
+            }
+
+            @Override
+            public void start(Completion completion) {
+                operator.start(completion);
+            }
+
+            @Override
+            public void stop(Completion completion) {
+                // The callback is lost.
+            }
+
+            @Override
+            public void addListener(Listener listener) {
+                operator.addListener(listener);
+            }
+
+            @Override
+            public void removeListener(Listener listener) {
+                operator.removeListener(listener);
+            }
+        });
+        lossy.stop(new MissionOperator.Completion() {
+            @Override
+            public void onResult(String error) {
+            }
+        });
+        LinkHealthMonitor.Report report = run(5);
+        assertEquals(LinkHealthMonitor.Quality.DEGRADED, report.quality());
+        assertTrue(report.problem(), report.problem().startsWith("command unanswered"));
+
+        // Given up on a window after it was sent, and good again a recovery period later.
+        report = run((int) ((LinkHealthMonitor.WINDOW_MILLIS + LinkHealthMonitor.RECOVERY_MILLIS) / 1000) - 5);
+        assertEquals(LinkHealthMonitor.Quality.GOOD, report.quality());
+        assertEquals(1, report.failedCommands());
+        assertEquals(1, report.commands());
+    }
+
+    /** Advances the aircraft a second at a time, evaluating after each. */
+    private LinkHealthMonitor.Report run(int seconds) {
+        LinkHealthMonitor.Report report = null;
+        for (int i = 0; i < seconds; i++) {
+            aircraft.advance(SECOND);
+            report = monitor.evaluate();
+        }
+        return report;
+    }
+}
@@ -0,0 +1,99 @@
+package ai.swiftlabs.aircraftlocation.telemetry;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TelemetryRingTest {
+
+    @Test
+    public void keepsTheLastCapacitySamples() {
+        TelemetryRing ring = new TelemetryRing(5);
+        TelemetrySnapshot snapshot = new TelemetrySnapshot();
+        assertEquals(8, ring.capacity());
+        assertEquals(-1, ring.latestSequence());
+        assertFalse(ring.readLatest(snapshot));
+        assertFalse(ring.read(0, snapshot));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, publish(ring, i));
+        }
+        assertEquals(9, ring.latestSequence());
+        assertTrue(ring.readLatest(snapshot));
+        assertSample(9, snapshot);
+
+        assertTrue(ring.read(2, snapshot));
+        assertSample(2, snapshot);
+        // Overwritten by sample 9, and not published yet.
+        assertFalse(ring.read(1, snapshot));
+        assertFalse(ring.read(10, snapshot));
+        assertSample(2, snapshot);
+    }
+
+    @Test
+    public void readersNeverSeeATornSample() throws InterruptedException {
+        final TelemetryRing ring = new TelemetryRing(4);
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<AssertionError> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[2];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    TelemetrySnapshot snapshot = new TelemetrySnapshot();
+                    long last = -1;
+                    try {
+                        while (!done.get()) {
+                            if (ring.readLatest(snapshot)) {
+                                assertTrue(snapshot.sequence() >= last);
+                                last = snapshot.sequence();
+                                assertSample(last, snapshot);
+                            }
+                            // A sample the writer is probably overwriting right now.
+                            if (ring.read(ring.latestSequence() - 3, snapshot)) {
+                                assertSample(snapshot.sequence(), snapshot);
+                            }
+                        }
+                    } catch (AssertionError e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            readers[r].start();
+        }
+        for (int i = 0; i < 2_000_000 && failure.get() == null; i++) {
+            publish(ring, i);
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get());
+    }
+
+    /** Every field is derived from the sequence, so a mix of two samples shows. */
+    private static long publish(TelemetryRing ring, long sequence) {
+        return ring.publish(sequence * 100, sequence, -sequence, sequence % 1000, sequence % 7, sequence % 11,
+                sequence % 13, sequence % 17, sequence % 19, sequence % 360);
+    }
+
+    private static void assertSample(long sequence, TelemetrySnapshot snapshot) {
+        assertEquals(sequence, snapshot.sequence());
+        assertEquals(sequence * 100, snapshot.timestampNanos());
+        assertEquals(sequence, snapshot.latitude(), 0);
+        assertEquals(-sequence, snapshot.longitude(), 0);
+        assertEquals(sequence % 1000, snapshot.altitude(), 0);
+        assertEquals(sequence % 7, snapshot.velocityNorth(), 0);
+        assertEquals(sequence % 11, snapshot.velocityEast(), 0);
+        assertEquals(sequence % 13, snapshot.velocityDown(), 0);
+        assertEquals(sequence % 17, snapshot.pitch(), 0);
+        assertEquals(sequence % 19, snapshot.roll(), 0);
+        assertEquals(sequence % 360, snapshot.yaw(), 0);
+    }
+}
@@ -0,0 +1,283 @@
+package ai.swiftlabs.aircraftlocation.tiles;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import ai.swiftlabs.aircraftlocation.metrics.Counter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TilePrefetcherTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int TILE_BYTES = 1000;
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private File directory;
+    private TileSource source;
+
+    /** Stands in for the tile server: every tile is its own address padded out, gzipped on odd columns. */
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("tiles").toFile();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/tiles/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                String[] path = exchange.getRequestURI().getPath().split("/");
+                int x = Integer.parseInt(path[3]);
+                if (x % 7 == 0) {
+                    exchange.sendResponseHeaders(404, -1);
+                    exchange.close();
+                    return;
+                }
+                byte[] body = tile(path[2] + "/" + path[3] + "/" + path[4]);
+                if (x % 2 == 1) {
+                    ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+                    OutputStream gzip = new GZIPOutputStream(gzipped);
+                    gzip.write(body);
+                    gzip.close();
+                    body = gzipped.toByteArray();
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                }
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            }
+        });
+        server.start();
+        source = new HttpTileSource("http://127.0.0.1:" + server.getAddress().getPort() + "/tiles/{z}/{x}/{y}.pbf");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        delete(directory);
+    }
+
+    @Test
+    public void fetchesARegionOnceAndServesItAfterARestart() throws IOException {
+        TileRegion region = new TileRegion("site", -1.31, 36.88, -1.29, 36.90, 10, 14);
+        TileCache cache = open(10_000_000);
+        TilePrefetcher.Report report = prefetch(cache, region);
+        assertEquals(TilePrefetcher.Outcome.COMPLETE, report.outcome());
+        assertEquals(region.tileCount(), report.downloadedTiles());
+        assertEquals(region.tileCount(), requests.get());
+
+        // Nothing is downloaded twice.
+        report = prefetch(cache, region);
+        assertEquals(TilePrefetcher.Outcome.COMPLETE, report.outcome());
+        assertEquals(region.tileCount(), report.cachedTiles());
+        assertEquals(region.tileCount(), requests.get());
+
+        // A new process finds the region, with tiles decoded and empty where the server had none.
+        server.stop(0);
+        cache = open(10_000_000);
+        assertEquals(Arrays.asList("site"), names(cache));
+        int x = TileRegion.tileX(36.89, 14);
+        int y = TileRegion.tileY(-1.30, 14);
+        byte[] expected = x % 7 == 0 ? new byte[0] : tile("14/" + x + "/" + y);
+        assertArrayEquals(expected, cache.get(14, x, y));
+        assertNull(cache.get(15, 2 * x, 2 * y));
+        assertEquals(0.5, cache.hitRatio(), 1e-9);
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedRegionToStayWithinBudget() throws IOException {
+        TileRegion a = new TileRegion("a", -1.31, 36.88, -1.29, 36.90, 14, 15);
+        TileRegion b = new TileRegion("b", -2.31, 36.88, -2.29, 36.90, 14, 15);
+        TileRegion c = new TileRegion("c", -3.31, 36.88, -3.29, 36.90, 14, 15);
+        TileCache cache = open(10_000_000);
+        assertEquals(TilePrefetcher.Outcome.COMPLETE, prefetch(cache, a).outcome());
+        assertEquals(TilePrefetcher.Outcome.COMPLETE, prefetch(cache, b).outcome());
+        // Reopened with room for exactly these two.
+        cache = open(cache.sizeBytes());
+        // The map shows a, so b is now the least recently used.
+        assertNotNull(cache.get(15, a.minX(15) + 1, a.minY(15)));
+
+        assertEquals(TilePrefetcher.Outcome.COMPLETE, prefetch(cache, c).outcome());
+        assertEquals(Arrays.asList("a", "c"), names(cache));
+        assertEquals(0, cache.cachedTiles(b));
+        assertTrue(cache.sizeBytes() <= cache.budgetBytes());
+
+        TileRegion wide = new TileRegion("wide", -1.5, 36.7, -1.1, 37.1, 14, 16);
+        TilePrefetcher.Report report = prefetch(cache, wide);
+        assertEquals(TilePrefetcher.Outcome.OVER_BUDGET, report.outcome());
+        assertEquals(Arrays.asList("wide"), names(cache));
+    }
+
+    @Test
+    public void remembersWhichRegionTheMapUsedAfterARestart() throws IOException {
+        TileRegion a = new TileRegion("a", -1.31, 36.88, -1.29, 36.90, 14, 15);
+        TileRegion b = new TileRegion("b", -2.31, 36.88, -2.29, 36.90, 14, 15);
+        TileCache cache = open(10_000_000);
+        prefetch(cache, a);
+        prefetch(cache, b);
+        assertNotNull(cache.get(15, a.minX(15) + 1, a.minY(15)));
+        cache.flush();
+
+        cache = open(cache.sizeBytes());
+        assertEquals(Arrays.asList("b", "a"), names(cache));
+        prefetch(cache, new TileRegion("c", -3.31, 36.88, -3.29, 36.90, 14, 15));
+        assertEquals(Arrays.asList("a", "c"), names(cache));
+    }
+
+    @Test
+    public void mapReadsCarryOnWhileRegionsAreEvicted() throws Exception {
+        final TileRegion[] sites = new TileRegion[4];
+        for (int i = 0; i < sites.length; i++) {
+            sites[i] = new TileRegion("site" + i, -1.31 - i, 36.88, -1.29 - i, 36.90, 14, 15);
+        }
+        final TileCache cache = open(2 * sites[0].tileCount() * TILE_BYTES);
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicInteger hits = new AtomicInteger();
+        Thread map = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Random random = new Random(17);
+                try {
+                    while (!done.get()) {
+                        TileRegion site = sites[random.nextInt(sites.length)];
+                        int x = site.minX(15) + random.nextInt(site.maxX(15) - site.minX(15) + 1);
+                        int y = site.minY(15) + random.nextInt(site.maxY(15) - site.minY(15) + 1);
+                        byte[] data = cache.get(15, x, y);
+                        // A tile that is being evicted is a miss, never another tile's bytes.
+                        if (data != null) {
+                            assertArrayEquals(tile("15/" + x + "/" + y), data);
+                            hits.incrementAndGet();
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }
+        });
+        map.start();
+        // Each site evicts the one stored two before it; the first comes back and reuses its tile files.
+        for (int round = 0; round < 3; round++) {
+            for (TileRegion site : sites) {
+                cache.addRegion(site);
+                for (int zoom = site.minZoom(); zoom <= site.maxZoom(); zoom++) {
+                    for (int x = site.minX(zoom); x <= site.maxX(zoom); x++) {
+                        for (int y = site.minY(zoom); y <= site.maxY(zoom); y++) {
+                            assertTrue(cache.put(site, zoom, x, y, tile(zoom + "/" + x + "/" + y)));
+                        }
+                    }
+                }
+            }
+        }
+        done.set(true);
+        map.join();
+        assertNull(failure.get());
+        assertTrue(hits.get() > 0);
+
+        // Which other site survived depends on what the map read last.
+        List<String> kept = names(cache);
+        assertEquals(2, kept.size());
+        assertTrue(kept.contains("site3"));
+        assertEquals(2 * sites[0].tileCount() * TILE_BYTES, cache.sizeBytes());
+        // Every evicted tile left the disk, and every kept one is still there, next to the index.
+        assertEquals(2 * sites[0].tileCount() + 1, countFiles(directory));
+        cache.flush();
+        assertEquals(kept, names(open(cache.budgetBytes())));
+    }
+
+    @Test
+    public void stopsWhenTheServerIsGone() throws IOException {
+        server.stop(0);
+        TilePrefetcher.Report report = prefetch(open(10_000_000),
+                new TileRegion("site", -1.31, 36.88, -1.29, 36.90, 10, 14));
+        assertEquals(TilePrefetcher.Outcome.FAILED, report.outcome());
+        assertEquals(TilePrefetcher.MAX_CONSECUTIVE_FAILURES, report.failedTiles());
+        assertNotNull(report.error());
+        assertFalse(report.downloadedTiles() > 0);
+    }
+
+    private TileCache open(long budgetBytes) throws IOException {
+        TileCache cache = new TileCache(directory, budgetBytes, new Counter(), new Counter());
+        cache.open();
+        return cache;
+    }
+
+    private TilePrefetcher.Report prefetch(TileCache cache, TileRegion region) {
+        final TilePrefetcher.Report[] result = new TilePrefetcher.Report[1];
+        new TilePrefetcher(cache, source, DIRECT, DIRECT).prefetch(region, new TilePrefetcher.Callback() {
+            @Override
+            public void onPrefetched(TilePrefetcher.Report report) {
+                result[0] = report;
+            }
+        });
+        return result[0];
+    }
+
+    private static int countFiles(File file) {
+        File[] children = file.listFiles();
+        if (children == null) {
+            return 1;
+        }
+        int count = 0;
+        for (File child : children) {
+            count += countFiles(child);
+        }
+        return count;
+    }
+
+    private static byte[] tile(String address) {
+        return Arrays.copyOf(address.getBytes(UTF_8), TILE_BYTES);
+    }
+
+    private static List<String> names(TileCache cache) {
+        List<String> names = new ArrayList<>();
+        for (TileRegion region : cache.regions()) {
+            names.add(region.name());
+        }
+        return names;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}